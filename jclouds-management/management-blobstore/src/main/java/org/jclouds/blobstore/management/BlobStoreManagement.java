@@ -16,34 +16,84 @@
  */
 package org.jclouds.blobstore.management;
 
+import com.google.common.base.Function;
+import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.BlobStoreContext;
 import org.jclouds.blobstore.codec.ToBlob;
 import org.jclouds.blobstore.codec.ToBlobMetadata;
 import org.jclouds.blobstore.codec.ToStorageMetadata;
+import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.codec.ToLocation;
+import org.jclouds.management.OperationListener;
+import org.jclouds.management.PagedListings;
 import org.jclouds.management.ViewMBean;
+import org.jclouds.management.internal.CoalescingNotificationEmitter;
+import org.jclouds.management.internal.SnapshotListing;
 import org.jclouds.representations.Location;
+import org.jclouds.representations.Page;
 import org.jclouds.blobstore.representations.Blob;
 import org.jclouds.blobstore.representations.BlobMetadata;
 import org.jclouds.blobstore.representations.StorageMetadata;
 import org.jclouds.javax.annotation.Nullable;
 
+import javax.management.MBeanNotificationInfo;
+import javax.management.Notification;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Iterables.tryFind;
 
-public class BlobStoreManagement implements BlobStoreManagementMBean, ViewMBean<BlobStoreContext> {
+public class BlobStoreManagement extends CoalescingNotificationEmitter
+        implements BlobStoreManagementMBean, ViewMBean<BlobStoreContext>, OperationListener, PagedListings {
+
+   public static final String BLOB_PUT = "jclouds.blobstore.blob.put";
+   public static final String BLOB_DELETED = "jclouds.blobstore.blob.deleted";
+
+   private static final MBeanNotificationInfo BLOB_NOTIFICATIONS = new MBeanNotificationInfo(
+           new String[] { BLOB_PUT, BLOB_DELETED, DROPPED }, Notification.class.getName(), "Blob lifecycle events");
+
+   // counting walks the whole container, so the count is kept for a while
+   private static final long COUNT_SECONDS = 60;
+   // the containers can't be paginated, so pages are cut from a listing that is kept for a while
+   private static final long SNAPSHOT_SECONDS = 60;
 
    private final BlobStore blobStore;
+   private final LoadingCache<String, Long> blobCounts;
+   private final SnapshotListing<org.jclouds.blobstore.domain.StorageMetadata> containers;
 
    public BlobStoreManagement(BlobStoreContext context) {
+      super(context, BLOB_NOTIFICATIONS);
       this.blobStore = context.getBlobStore();
+      this.blobCounts = CacheBuilder.newBuilder()
+                                    .expireAfterWrite(COUNT_SECONDS, TimeUnit.SECONDS)
+                                    .build(new CacheLoader<String, Long>() {
+                                       @Override
+                                       public Long load(String container) {
+                                          return blobStore.countBlobs(container);
+                                       }
+                                    });
+      this.containers = new SnapshotListing<org.jclouds.blobstore.domain.StorageMetadata>(
+              new Supplier<Set<? extends org.jclouds.blobstore.domain.StorageMetadata>>() {
+                 @Override
+                 public Set<? extends org.jclouds.blobstore.domain.StorageMetadata> get() {
+                    return blobStore.list();
+                 }
+              }, ToName.INSTANCE, SNAPSHOT_SECONDS, TimeUnit.SECONDS);
    }
 
    @Override
@@ -74,6 +124,16 @@ public class BlobStoreManagement implements BlobStoreManagementMBean, ViewMBean<
               .build();
    }
 
+   @Override
+   public Page<StorageMetadata> list(String container, @Nullable String marker, int limit) {
+      return page(blobStore.list(container, pageOptions(marker, limit)));
+   }
+
+   @Override
+   public Page<StorageMetadata> list(String container, String directory, @Nullable String marker, int limit) {
+      return page(blobStore.list(container, pageOptions(marker, limit).inDirectory(directory)));
+   }
+
    @Override
    public BlobMetadata blobMetadata(String container, String name) {
       return ToBlobMetadata.INSTANCE.apply(blobStore.blobMetadata(container, name));
@@ -103,11 +163,13 @@ public class BlobStoreManagement implements BlobStoreManagementMBean, ViewMBean<
    @Override
    public void clearContainer(String container) {
       blobStore.clearContainer(container);
+      blobCounts.invalidate(container);
    }
 
    @Override
    public void deleteContainer(String container) {
       blobStore.deleteContainer(container);
+      blobCounts.invalidate(container);
    }
 
    @Override
@@ -133,11 +195,16 @@ public class BlobStoreManagement implements BlobStoreManagementMBean, ViewMBean<
    @Override
    public void removeBlob(String container, String name) {
       blobStore.removeBlob(container, name);
+      blobCounts.invalidate(container);
    }
 
    @Override
    public long countBlobs(String container) {
-      return blobStore.countBlobs(container);
+      try {
+         return blobCounts.getUnchecked(container);
+      } catch (UncheckedExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
    }
 
    @Override
@@ -145,6 +212,57 @@ public class BlobStoreManagement implements BlobStoreManagementMBean, ViewMBean<
       return "blobstore";
    }
 
+   /**
+    * Pages through {@code [containers]}, the blobs of {@code [containers, container]}, or the blobs of a
+    * directory, whose path follows the container.
+    */
+   @Override
+   public Page<? extends Serializable> listPage(List<String> path, @Nullable String marker, int limit) {
+      if (path.isEmpty() || !path.get(0).equals("containers")) {
+         return null;
+      } else if (path.size() == 1) {
+         return containers.page(marker, limit, ToStorageMetadata.INSTANCE);
+      } else if (path.size() == 2) {
+         return list(path.get(1), marker, limit);
+      }
+      return list(path.get(1), Joiner.on('/').join(path.subList(2, path.size())), marker, limit);
+   }
+
+   /**
+    * Notifies the blobs put or removed through the context.
+    */
+   @Override
+   public void operationCompleted(Method method, Object[] args, @Nullable Object result) {
+      String name = method.getName();
+      if (name.equals("putBlob")) {
+         String blob = args[0] + "/" + ((org.jclouds.blobstore.domain.Blob) args[1]).getMetadata().getName();
+         emit(BLOB_PUT, blob, "blob " + blob + " put", result);
+         blobCounts.invalidate((String) args[0]);
+      } else if (name.equals("removeBlob")) {
+         String blob = args[0] + "/" + args[1];
+         emit(BLOB_DELETED, blob, "blob " + blob + " deleted", null);
+         blobCounts.invalidate((String) args[0]);
+      }
+   }
+
+   private static ListContainerOptions pageOptions(@Nullable String marker, int limit) {
+      ListContainerOptions options = ListContainerOptions.Builder.maxResults(limit);
+      return marker == null ? options : options.afterMarker(marker);
+   }
+
+   private static Page<StorageMetadata> page(PageSet<? extends org.jclouds.blobstore.domain.StorageMetadata> pageSet) {
+      return Page.create(transform(pageSet, ToStorageMetadata.INSTANCE), pageSet.getNextMarker());
+   }
+
+   private enum ToName implements Function<org.jclouds.blobstore.domain.StorageMetadata, String> {
+      INSTANCE;
+
+      @Override
+      public String apply(@Nullable org.jclouds.blobstore.domain.StorageMetadata input) {
+         return input == null ? null : input.getName();
+      }
+   }
+
    private static final class LocationPredicate implements Predicate<org.jclouds.domain.Location> {
       private final String id;
 
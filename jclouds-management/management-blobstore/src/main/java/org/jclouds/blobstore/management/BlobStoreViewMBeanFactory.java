@@ -17,11 +17,12 @@
 package org.jclouds.blobstore.management;
 
 import com.google.common.reflect.TypeToken;
+import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.management.ObservingViewMBeanFactory;
 import org.jclouds.management.ViewMBean;
-import org.jclouds.management.ViewMBeanFactory;
 
-public class BlobStoreViewMBeanFactory implements ViewMBeanFactory<BlobStoreContext> {
+public class BlobStoreViewMBeanFactory implements ObservingViewMBeanFactory<BlobStoreContext> {
 
    private static final TypeToken<BlobStoreContext> TYPE = TypeToken.of(BlobStoreContext.class);
 
@@ -45,4 +46,14 @@ public class BlobStoreViewMBeanFactory implements ViewMBeanFactory<BlobStoreCont
    public TypeToken<BlobStoreContext> getViewType() {
       return TYPE;
    }
+
+   /**
+    * Returns the {@link BlobStore}, whose blob puts and deletes are notified by the {@link BlobStoreManagement}.
+    *
+    * @return
+    */
+   @Override
+   public Class<?> getObservedType() {
+      return BlobStore.class;
+   }
 }
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.management;
+
+import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.representations.BulkOperation;
+import org.jclouds.javax.annotation.Nullable;
+
+import java.util.Date;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An action applied to the nodes matching a filter in the background. The nodes are listed, then
+ * acted on by at most a given number of tasks of the executor at a time, each taking the next node
+ * once it's done with the previous one.
+ */
+final class BulkNodeOperation {
+
+   enum Action {
+      DESTROY {
+         @Override
+         void apply(ComputeService service, String id) {
+            service.destroyNode(id);
+         }
+      },
+      REBOOT {
+         @Override
+         void apply(ComputeService service, String id) {
+            service.rebootNode(id);
+         }
+      },
+      RESUME {
+         @Override
+         void apply(ComputeService service, String id) {
+            service.resumeNode(id);
+         }
+      },
+      SUSPEND {
+         @Override
+         void apply(ComputeService service, String id) {
+            service.suspendNode(id);
+         }
+      };
+
+      abstract void apply(ComputeService service, String id);
+   }
+
+   private final String id = UUID.randomUUID().toString();
+   private final Action action;
+   private final NodeFilter filter;
+   private final Date startDate = new Date();
+   private final Queue<String> remaining = new ConcurrentLinkedQueue<String>();
+   private final AtomicInteger total = new AtomicInteger(-1);
+   private final AtomicInteger completed = new AtomicInteger();
+   private final AtomicInteger failed = new AtomicInteger();
+   private final AtomicInteger activeTasks = new AtomicInteger();
+   private final ConcurrentMap<String, String> failures = new ConcurrentHashMap<String, String>();
+   private volatile boolean cancelled;
+   private volatile Date endDate;
+
+   BulkNodeOperation(Action action, @Nullable String group, @Nullable String status, @Nullable String tag) {
+      this.action = action;
+      this.filter = new NodeFilter(group, status == null ? null : Status.valueOf(status), tag);
+   }
+
+   String getId() {
+      return id;
+   }
+
+   boolean isDone() {
+      return endDate != null;
+   }
+
+   /**
+    * Lists the matching nodes and acts on them, without waiting for any of it.
+    */
+   void start(final ComputeService service, final ListeningExecutorService executor, final int concurrency) {
+      executor.submit(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               for (ComputeMetadata node : service.listNodes()) {
+                  if (node instanceof NodeMetadata && filter.apply((NodeMetadata) node)) {
+                     remaining.add(node.getId());
+                  }
+               }
+            } catch (RuntimeException e) {
+               failures.put("*", "could not list nodes: " + e.getMessage());
+               total.set(0);
+               endDate = new Date();
+               return;
+            }
+            total.set(remaining.size());
+            int tasks = Math.min(concurrency, remaining.size());
+            if (tasks == 0) {
+               endDate = new Date();
+               return;
+            }
+            activeTasks.set(tasks);
+            for (int i = 0; i < tasks; i++) {
+               executor.submit(new Runnable() {
+                  @Override
+                  public void run() {
+                     drain(service);
+                  }
+               });
+            }
+         }
+      });
+   }
+
+   private void drain(ComputeService service) {
+      try {
+         String node;
+         while (!cancelled && (node = remaining.poll()) != null) {
+            try {
+               action.apply(service, node);
+               completed.incrementAndGet();
+            } catch (RuntimeException e) {
+               failures.put(node, String.valueOf(e.getMessage()));
+               failed.incrementAndGet();
+            }
+         }
+      } finally {
+         if (activeTasks.decrementAndGet() == 0) {
+            endDate = new Date();
+         }
+      }
+   }
+
+   /**
+    * Stops the operation from acting on more nodes.
+    * @return whether the operation was running.
+    */
+   boolean cancel() {
+      if (isDone()) {
+         return false;
+      }
+      cancelled = true;
+      return true;
+   }
+
+   BulkOperation toRepresentation() {
+      return BulkOperation.builder().id(id).action(action.name()).filter(filter.toString()).total(total.get())
+              .completed(completed.get()).failed(failed.get()).cancelled(cancelled).done(isDone())
+              .failures(failures).startDate(startDate).endDate(endDate).build();
+   }
+
+   private static final class NodeFilter implements Predicate<NodeMetadata> {
+      private final String group;
+      private final Status status;
+      private final String tag;
+
+      private NodeFilter(String group, Status status, String tag) {
+         this.group = group;
+         this.status = status;
+         this.tag = tag;
+      }
+
+      @Override
+      public boolean apply(NodeMetadata node) {
+         if (status == null ? node.getStatus() == Status.TERMINATED : node.getStatus() != status) {
+            return false;
+         }
+         return (group == null || group.equals(node.getGroup())) && (tag == null || node.getTags().contains(tag));
+      }
+
+      @Override
+      public String toString() {
+         return "group=" + (group == null ? "*" : group) + ",status=" + (status == null ? "*" : status)
+                 + ",tag=" + (tag == null ? "*" : tag);
+      }
+   }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.management;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * The bulk operations of a context, oldest first. At most a given number are kept: the oldest finished
+ * operation is forgotten to make room for a new one, and new operations are rejected while all the kept
+ * ones are running.
+ */
+final class BulkNodeOperations {
+
+   private final int capacity;
+   private final Map<String, BulkNodeOperation> operations = new LinkedHashMap<String, BulkNodeOperation>();
+
+   BulkNodeOperations(int capacity) {
+      checkArgument(capacity > 0, "capacity must be positive");
+      this.capacity = capacity;
+   }
+
+   synchronized void add(BulkNodeOperation operation) {
+      checkState(operations.size() < capacity || forgetOldestDone(),
+              "%s bulk operations are running, cancel one or wait for one to finish", capacity);
+      operations.put(operation.getId(), operation);
+   }
+
+   synchronized BulkNodeOperation get(String id) {
+      return operations.get(id);
+   }
+
+   synchronized List<BulkNodeOperation> list() {
+      return ImmutableList.copyOf(operations.values());
+   }
+
+   private boolean forgetOldestDone() {
+      for (Iterator<BulkNodeOperation> it = operations.values().iterator(); it.hasNext();) {
+         if (it.next().isDone()) {
+            it.remove();
+            return true;
+         }
+      }
+      return false;
+   }
+}
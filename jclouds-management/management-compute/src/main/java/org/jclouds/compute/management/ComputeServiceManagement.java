@@ -16,8 +16,10 @@
  */
 package org.jclouds.compute.management;
 
-
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import org.jclouds.codec.ToLocation;
 import org.jclouds.compute.ComputeService;
 import org.jclouds.compute.ComputeServiceContext;
@@ -25,23 +27,87 @@ import org.jclouds.compute.codec.ToExecResponse;
 import org.jclouds.compute.codec.ToHardware;
 import org.jclouds.compute.codec.ToImage;
 import org.jclouds.compute.codec.ToNodeMetadata;
+import org.jclouds.compute.representations.BulkOperation;
 import org.jclouds.compute.representations.ExecResponse;
 import org.jclouds.compute.representations.NodeMetadata;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.management.OperationListener;
+import org.jclouds.management.PagedListings;
 import org.jclouds.management.ViewMBean;
+import org.jclouds.management.internal.CoalescingNotificationEmitter;
+import org.jclouds.management.internal.ManagementUtils;
+import org.jclouds.management.internal.SnapshotListing;
+import org.jclouds.representations.Page;
 import org.jclouds.representations.Location;
 import org.jclouds.compute.representations.Hardware;
 import org.jclouds.compute.representations.Image;
 
+import javax.management.MBeanNotificationInfo;
+import javax.management.Notification;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.collect.Iterables.transform;
+import static org.jclouds.management.config.ManagementProperties.BULK_OPERATION_CONCURRENCY;
+
+public class ComputeServiceManagement extends CoalescingNotificationEmitter
+        implements ComputeServiceManagementMBean, ViewMBean<ComputeServiceContext>, OperationListener, PagedListings {
+
+   public static final String NODE_CREATED = "jclouds.compute.node.created";
+   public static final String NODE_DESTROYED = "jclouds.compute.node.destroyed";
+   public static final String NODE_STATE_CHANGED = "jclouds.compute.node.state";
+
+   private static final MBeanNotificationInfo NODE_NOTIFICATIONS = new MBeanNotificationInfo(
+           new String[] { NODE_CREATED, NODE_DESTROYED, NODE_STATE_CHANGED, DROPPED },
+           Notification.class.getName(), "Node lifecycle events");
 
-public class ComputeServiceManagement implements ComputeServiceManagementMBean, ViewMBean<ComputeServiceContext> {
+   // the provider listings can't be paginated, so pages are cut from a listing that is kept for a while
+   private static final long SNAPSHOT_SECONDS = 60;
+
+   private static final int DEFAULT_BULK_OPERATION_CONCURRENCY = 10;
+   // the number of bulk operations kept, see BulkNodeOperations
+   private static final int MAX_BULK_OPERATIONS = 100;
 
    private final ComputeService service;
+   private final ListeningExecutorService executor;
+   private final int bulkOperationConcurrency;
+   private final BulkNodeOperations bulkOperations = new BulkNodeOperations(MAX_BULK_OPERATIONS);
+   private final SnapshotListing<org.jclouds.compute.domain.Hardware> hardwareProfiles;
+   private final SnapshotListing<org.jclouds.compute.domain.Image> images;
+   private final SnapshotListing<org.jclouds.compute.domain.NodeMetadata> nodes;
 
    public ComputeServiceManagement(ComputeServiceContext context) {
+      super(context, NODE_NOTIFICATIONS);
       this.service = context.getComputeService();
+      this.executor = context.utils().userExecutor();
+      this.bulkOperationConcurrency = (int) ManagementUtils.longProperty(context, BULK_OPERATION_CONCURRENCY,
+              DEFAULT_BULK_OPERATION_CONCURRENCY);
+      this.hardwareProfiles = new SnapshotListing<org.jclouds.compute.domain.Hardware>(
+              new Supplier<Set<? extends org.jclouds.compute.domain.Hardware>>() {
+                 @Override
+                 public Set<? extends org.jclouds.compute.domain.Hardware> get() {
+                    return service.listHardwareProfiles();
+                 }
+              }, ToId.INSTANCE, SNAPSHOT_SECONDS, TimeUnit.SECONDS);
+      this.images = new SnapshotListing<org.jclouds.compute.domain.Image>(
+              new Supplier<Set<? extends org.jclouds.compute.domain.Image>>() {
+                 @Override
+                 public Set<? extends org.jclouds.compute.domain.Image> get() {
+                    return service.listImages();
+                 }
+              }, ToId.INSTANCE, SNAPSHOT_SECONDS, TimeUnit.SECONDS);
+      this.nodes = new SnapshotListing<org.jclouds.compute.domain.NodeMetadata>(
+              new Supplier<Set<org.jclouds.compute.domain.NodeMetadata>>() {
+                 @Override
+                 public Set<org.jclouds.compute.domain.NodeMetadata> get() {
+                    return (Set<org.jclouds.compute.domain.NodeMetadata>) service.listNodes();
+                 }
+              }, ToId.INSTANCE, SNAPSHOT_SECONDS, TimeUnit.SECONDS);
    }
 
    @Override
@@ -58,6 +124,16 @@ public class ComputeServiceManagement implements ComputeServiceManagementMBean,
                          .build();
    }
 
+   @Override
+   public Page<Hardware> listHardwareProfiles(@Nullable String marker, int limit) {
+      return hardwareProfiles.page(marker, limit, ToHardware.INSTANCE);
+   }
+
+   @Override
+   public Page<Image> listImages(@Nullable String marker, int limit) {
+      return images.page(marker, limit, ToImage.INSTANCE);
+   }
+
    @Override
    public Image getImage(String id)  {
       return ToImage.INSTANCE.apply(service.getImage(id));
@@ -70,6 +146,16 @@ public class ComputeServiceManagement implements ComputeServiceManagementMBean,
                          .build();
    }
 
+   @Override
+   public Page<NodeMetadata> listNodes(@Nullable String marker, int limit) {
+      return nodes.page(marker, limit, ToNodeMetadata.INSTANCE);
+   }
+
+   @Override
+   public int countNodes() {
+      return nodes.count();
+   }
+
    @Override
    public Set<Location> listAssignableLocations() {
       return ImmutableSet.<Location>builder()
@@ -96,7 +182,48 @@ public class ComputeServiceManagement implements ComputeServiceManagementMBean,
 
    @Override
    public void rebootNode(String id) {
-      service.destroyNode(id);
+      service.rebootNode(id);
+   }
+
+   @Override
+   public BulkOperation destroyNodesMatching(@Nullable String group, @Nullable String status, @Nullable String tag) {
+      return startBulkOperation(new BulkNodeOperation(BulkNodeOperation.Action.DESTROY, group, status, tag));
+   }
+
+   @Override
+   public BulkOperation rebootNodesMatching(@Nullable String group, @Nullable String status, @Nullable String tag) {
+      return startBulkOperation(new BulkNodeOperation(BulkNodeOperation.Action.REBOOT, group, status, tag));
+   }
+
+   @Override
+   public BulkOperation resumeNodesMatching(@Nullable String group, @Nullable String status, @Nullable String tag) {
+      return startBulkOperation(new BulkNodeOperation(BulkNodeOperation.Action.RESUME, group, status, tag));
+   }
+
+   @Override
+   public BulkOperation suspendNodesMatching(@Nullable String group, @Nullable String status, @Nullable String tag) {
+      return startBulkOperation(new BulkNodeOperation(BulkNodeOperation.Action.SUSPEND, group, status, tag));
+   }
+
+   @Override
+   public BulkOperation getBulkOperation(String id) {
+      BulkNodeOperation operation = bulkOperations.get(id);
+      return operation != null ? operation.toRepresentation() : null;
+   }
+
+   @Override
+   public Set<BulkOperation> listBulkOperations() {
+      ImmutableSet.Builder<BulkOperation> operations = ImmutableSet.builder();
+      for (BulkNodeOperation operation : bulkOperations.list()) {
+         operations.add(operation.toRepresentation());
+      }
+      return operations.build();
+   }
+
+   @Override
+   public boolean cancelBulkOperation(String id) {
+      BulkNodeOperation operation = bulkOperations.get(id);
+      return operation != null && operation.cancel();
    }
 
    @Override
@@ -113,4 +240,70 @@ public class ComputeServiceManagement implements ComputeServiceManagementMBean,
    public String getType() {
       return "compute";
    }
+
+   /**
+    * Pages through {@code [nodes]}, {@code [images]} or {@code [hardware]}.
+    */
+   @Override
+   public Page<? extends Serializable> listPage(List<String> path, @Nullable String marker, int limit) {
+      if (path.size() != 1) {
+         return null;
+      }
+      String listing = path.get(0);
+      if (listing.equals("nodes")) {
+         return listNodes(marker, limit);
+      } else if (listing.equals("images")) {
+         return listImages(marker, limit);
+      } else if (listing.equals("hardware")) {
+         return listHardwareProfiles(marker, limit);
+      }
+      return null;
+   }
+
+   /**
+    * Notifies the nodes created, destroyed, suspended, resumed or rebooted through the context. The nodes
+    * affected by suspendNodesMatching, resumeNodesMatching and rebootNodesMatching aren't known, so these
+    * aren't notified.
+    */
+   @Override
+   public void operationCompleted(Method method, Object[] args, @Nullable Object result) {
+      String name = method.getName();
+      if (name.equals("createNodesInGroup")) {
+         for (org.jclouds.compute.domain.NodeMetadata node : nodesOf(result)) {
+            emit(NODE_CREATED, node.getId(), "node " + node.getId() + " created in group " + args[0],
+                    ToNodeMetadata.INSTANCE.apply(node));
+         }
+      } else if (name.equals("destroyNode")) {
+         emit(NODE_DESTROYED, (String) args[0], "node " + args[0] + " destroyed", null);
+      } else if (name.equals("destroyNodesMatching")) {
+         for (org.jclouds.compute.domain.NodeMetadata node : nodesOf(result)) {
+            emit(NODE_DESTROYED, node.getId(), "node " + node.getId() + " destroyed", null);
+         }
+      } else if (name.equals("suspendNode")) {
+         emit(NODE_STATE_CHANGED, (String) args[0], "node " + args[0] + " suspended", Status.SUSPENDED.name());
+      } else if (name.equals("resumeNode")) {
+         emit(NODE_STATE_CHANGED, (String) args[0], "node " + args[0] + " resumed", Status.RUNNING.name());
+      } else if (name.equals("rebootNode")) {
+         emit(NODE_STATE_CHANGED, (String) args[0], "node " + args[0] + " rebooted", Status.RUNNING.name());
+      }
+   }
+
+   private BulkOperation startBulkOperation(BulkNodeOperation operation) {
+      bulkOperations.add(operation);
+      operation.start(service, executor, bulkOperationConcurrency);
+      return operation.toRepresentation();
+   }
+
+   private static Set<? extends org.jclouds.compute.domain.NodeMetadata> nodesOf(Object result) {
+      return (Set<? extends org.jclouds.compute.domain.NodeMetadata>) result;
+   }
+
+   private enum ToId implements Function<ComputeMetadata, String> {
+      INSTANCE;
+
+      @Override
+      public String apply(@Nullable ComputeMetadata input) {
+         return input == null ? null : input.getId();
+      }
+   }
 }
@@ -17,12 +17,13 @@
 package org.jclouds.compute.management;
 
 import com.google.common.reflect.TypeToken;
+import org.jclouds.compute.ComputeService;
 import org.jclouds.compute.ComputeServiceContext;
+import org.jclouds.management.ObservingViewMBeanFactory;
 import org.jclouds.management.ViewMBean;
-import org.jclouds.management.ViewMBeanFactory;
 
 
-public class ComputeServiceViewMBeanFactory implements ViewMBeanFactory<ComputeServiceContext> {
+public class ComputeServiceViewMBeanFactory implements ObservingViewMBeanFactory<ComputeServiceContext> {
 
    private static final TypeToken<ComputeServiceContext> TYPE = TypeToken.of(ComputeServiceContext.class);
    /**
@@ -45,4 +46,14 @@ public class ComputeServiceViewMBeanFactory implements ViewMBeanFactory<ComputeS
    public TypeToken<ComputeServiceContext> getViewType() {
       return  TYPE;
    }
+
+   /**
+    * Returns the {@link ComputeService}, whose node lifecycle calls are notified by the {@link ComputeServiceManagement}.
+    *
+    * @return
+    */
+   @Override
+   public Class<?> getObservedType() {
+      return ComputeService.class;
+   }
 }
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.management;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.management.BulkNodeOperation.Action;
+import org.jclouds.compute.representations.BulkOperation;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(groups = "unit", testName = "BulkNodeOperationTest", singleThreaded = true)
+public class BulkNodeOperationTest {
+
+   private static final Set<NodeMetadata> NODES = ImmutableSet.of(
+           node("a", "web", Status.RUNNING, "blue"),
+           node("b", "web", Status.SUSPENDED, "green"),
+           node("c", "db", Status.RUNNING, "blue"),
+           node("d", "web", Status.TERMINATED, "blue"));
+
+   private ListeningExecutorService executor;
+
+   @BeforeMethod
+   public void setUp() {
+      executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      executor.shutdownNow();
+   }
+
+   @Test
+   public void testActsOnTheNodesMatchingAllCriteria() {
+      FakeComputeService service = new FakeComputeService(NODES);
+      BulkOperation operation = runInline(new BulkNodeOperation(Action.DESTROY, "web", null, null), service);
+      assertEquals(service.actedOn, ImmutableList.of("destroyNode a", "destroyNode b"));
+      assertEquals(operation.getTotal(), 2);
+      assertEquals(operation.getCompleted(), 2);
+
+      service = new FakeComputeService(NODES);
+      runInline(new BulkNodeOperation(Action.REBOOT, null, "RUNNING", "blue"), service);
+      assertEquals(service.actedOn, ImmutableList.of("rebootNode a", "rebootNode c"));
+   }
+
+   @Test
+   public void testTerminatedNodesAreOnlyMatchedByStatus() {
+      FakeComputeService service = new FakeComputeService(NODES);
+      runInline(new BulkNodeOperation(Action.DESTROY, null, null, "blue"), service);
+      assertEquals(service.actedOn, ImmutableList.of("destroyNode a", "destroyNode c"));
+
+      service = new FakeComputeService(NODES);
+      runInline(new BulkNodeOperation(Action.DESTROY, null, "TERMINATED", null), service);
+      assertEquals(service.actedOn, ImmutableList.of("destroyNode d"));
+   }
+
+   @Test
+   public void testProgressIsReportedUntilDone() {
+      FakeComputeService service = new FakeComputeService(NODES);
+      service.blockOn = "b";
+      BulkNodeOperation operation = new BulkNodeOperation(Action.SUSPEND, "web", null, null);
+      operation.start(service.proxy(), executor, 1);
+      awaitCompleted(operation, 1);
+
+      BulkOperation running = operation.toRepresentation();
+      assertEquals(running.getTotal(), 2);
+      assertEquals(running.getCompleted(), 1);
+      assertFalse(running.isDone());
+      assertEquals(running.getEndDate(), "");
+
+      service.blocked.countDown();
+      awaitDone(operation);
+      BulkOperation done = operation.toRepresentation();
+      assertEquals(done.getCompleted(), 2);
+      assertEquals(done.getFailed(), 0);
+      assertTrue(done.isDone());
+      assertFalse(done.getEndDate().isEmpty());
+   }
+
+   @Test
+   public void testFailuresAreRecordedAndTheOtherNodesActedOn() {
+      FakeComputeService service = new FakeComputeService(NODES);
+      service.failOn = "a";
+      BulkOperation operation = runInline(new BulkNodeOperation(Action.RESUME, "web", null, null), service);
+      assertEquals(service.actedOn, ImmutableList.of("resumeNode a", "resumeNode b"));
+      assertEquals(operation.getCompleted(), 1);
+      assertEquals(operation.getFailed(), 1);
+      assertEquals(operation.getFailures(), ImmutableMap.of("a", "could not resumeNode a"));
+      assertTrue(operation.isDone());
+   }
+
+   @Test
+   public void testListingFailureEndsTheOperation() {
+      FakeComputeService service = new FakeComputeService(NODES);
+      service.listingFails = true;
+      BulkOperation operation = runInline(new BulkNodeOperation(Action.DESTROY, null, null, null), service);
+      assertEquals(service.actedOn, ImmutableList.of());
+      assertEquals(operation.getTotal(), 0);
+      assertEquals(operation.getFailures().keySet(), ImmutableSet.of("*"));
+      assertTrue(operation.isDone());
+   }
+
+   @Test
+   public void testCancelledOperationActsOnNoMoreNodes() {
+      FakeComputeService service = new FakeComputeService(NODES);
+      service.blockOn = "a";
+      BulkNodeOperation operation = new BulkNodeOperation(Action.DESTROY, "web", null, null);
+      operation.start(service.proxy(), executor, 1);
+      awaitActedOn(service, 1);
+
+      assertTrue(operation.cancel());
+      service.blocked.countDown();
+      awaitDone(operation);
+      BulkOperation cancelled = operation.toRepresentation();
+      assertEquals(service.actedOn, ImmutableList.of("destroyNode a"));
+      assertEquals(cancelled.getTotal(), 2);
+      assertEquals(cancelled.getCompleted(), 1);
+      assertTrue(cancelled.isCancelled());
+      assertFalse(operation.cancel());
+   }
+
+   private static BulkOperation runInline(BulkNodeOperation operation, FakeComputeService service) {
+      operation.start(service.proxy(), MoreExecutors.sameThreadExecutor(), 2);
+      assertTrue(operation.isDone());
+      return operation.toRepresentation();
+   }
+
+   private static void awaitCompleted(BulkNodeOperation operation, int completed) {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (operation.toRepresentation().getCompleted() < completed) {
+         assertTrue(System.nanoTime() < deadline, "operation did not progress: " + operation.toRepresentation());
+         Uninterruptibles.sleepUninterruptibly(10, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   private static void awaitDone(BulkNodeOperation operation) {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (!operation.isDone()) {
+         assertTrue(System.nanoTime() < deadline, "operation did not finish: " + operation.toRepresentation());
+         Uninterruptibles.sleepUninterruptibly(10, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   private static void awaitActedOn(FakeComputeService service, int count) {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (service.actedOn.size() < count) {
+         assertTrue(System.nanoTime() < deadline, "no node was acted on");
+         Uninterruptibles.sleepUninterruptibly(10, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   private static NodeMetadata node(String id, String group, Status status, String tag) {
+      return new NodeMetadataBuilder().ids(id).group(group).status(status).tags(ImmutableSet.of(tag)).build();
+   }
+
+   /**
+    * Lists the given nodes and records the nodes acted on, in order.
+    */
+   private static class FakeComputeService implements InvocationHandler {
+
+      private final Set<NodeMetadata> nodes;
+      private final List<String> actedOn = new CopyOnWriteArrayList<String>();
+      private final CountDownLatch blocked = new CountDownLatch(1);
+      private volatile boolean listingFails;
+      // acting on this node waits for blocked
+      private volatile String blockOn;
+      // acting on this node fails
+      private volatile String failOn;
+
+      private FakeComputeService(Set<NodeMetadata> nodes) {
+         this.nodes = nodes;
+      }
+
+      private ComputeService proxy() {
+         return (ComputeService) Proxy.newProxyInstance(ComputeService.class.getClassLoader(),
+                 new Class<?>[] { ComputeService.class }, this);
+      }
+
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) {
+         String name = method.getName();
+         if (name.equals("listNodes")) {
+            if (listingFails) {
+               throw new IllegalStateException("provider unavailable");
+            }
+            return nodes;
+         }
+         String id = (String) args[0];
+         actedOn.add(name + " " + id);
+         if (id.equals(blockOn)) {
+            Uninterruptibles.awaitUninterruptibly(blocked, 10, TimeUnit.SECONDS);
+         }
+         if (id.equals(failOn)) {
+            throw new IllegalStateException("could not " + name + " " + id);
+         }
+         return null;
+      }
+   }
+}
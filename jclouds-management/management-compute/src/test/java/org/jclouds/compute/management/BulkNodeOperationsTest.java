@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.management;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.management.BulkNodeOperation.Action;
+import org.testng.annotations.Test;
+
+import java.util.Set;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+@Test(groups = "unit", testName = "BulkNodeOperationsTest")
+public class BulkNodeOperationsTest {
+
+   @Test
+   public void testOldestFinishedOperationIsForgottenToMakeRoom() {
+      BulkNodeOperations operations = new BulkNodeOperations(2);
+      BulkNodeOperation running = running();
+      BulkNodeOperation oldestDone = done();
+      BulkNodeOperation newestDone = done();
+      operations.add(running);
+      operations.add(oldestDone);
+      operations.add(newestDone);
+
+      assertEquals(operations.list(), ImmutableList.of(running, newestDone));
+      assertNull(operations.get(oldestDone.getId()));
+   }
+
+   @Test
+   public void testOperationsAreRejectedWhileAllAreRunning() {
+      BulkNodeOperations operations = new BulkNodeOperations(2);
+      BulkNodeOperation first = running();
+      BulkNodeOperation second = running();
+      operations.add(first);
+      operations.add(second);
+      try {
+         operations.add(running());
+         fail("expected the operation to be rejected");
+      } catch (IllegalStateException e) {
+         assertEquals(operations.list(), ImmutableList.of(first, second));
+      }
+   }
+
+   private static BulkNodeOperation running() {
+      // not started, so never done
+      return new BulkNodeOperation(Action.DESTROY, null, null, null);
+   }
+
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   private static BulkNodeOperation done() {
+      ComputeService service = createMock(ComputeService.class);
+      expect(service.listNodes()).andReturn((Set) ImmutableSet.of());
+      replay(service);
+      BulkNodeOperation operation = new BulkNodeOperation(Action.DESTROY, null, null, null);
+      operation.start(service, MoreExecutors.sameThreadExecutor(), 1);
+      return operation;
+   }
+}
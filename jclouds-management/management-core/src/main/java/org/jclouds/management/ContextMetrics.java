@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management;
+
+import com.google.common.collect.ImmutableList;
+import org.jclouds.management.internal.OperationMetrics;
+
+import javax.inject.Singleton;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@link ContextMetricsMBean} of a single context. It is fed by the
+ * {@link org.jclouds.management.config.ManagementLifecycle} module, which times every
+ * {@link org.jclouds.http.HttpCommand} the context executes.
+ */
+@Singleton
+public class ContextMetrics implements ContextMetricsMBean, ManagedBean {
+
+   private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<String, OperationMetrics>();
+
+   /**
+    * Records a call to the provider.
+    * @param operation  The API method called.
+    * @param nanos      The time the call took, including retries.
+    * @param retries    The number of times the request was retried.
+    * @param failed     Whether the call failed.
+    * @param throttled  Whether the provider throttled the call.
+    */
+   public void record(String operation, long nanos, int retries, boolean failed, boolean throttled) {
+      OperationMetrics metrics = operations.get(operation);
+      if (metrics == null) {
+         OperationMetrics created = new OperationMetrics(operation);
+         metrics = operations.putIfAbsent(operation, created);
+         if (metrics == null) {
+            metrics = created;
+         }
+      }
+      metrics.record(nanos, retries, failed, throttled);
+   }
+
+   @Override
+   public long getCalls() {
+      long calls = 0;
+      for (OperationMetrics metrics : operations.values()) {
+         calls += metrics.calls();
+      }
+      return calls;
+   }
+
+   @Override
+   public long getFailures() {
+      long failures = 0;
+      for (OperationMetrics metrics : operations.values()) {
+         failures += metrics.failures();
+      }
+      return failures;
+   }
+
+   @Override
+   public long getRetries() {
+      long retries = 0;
+      for (OperationMetrics metrics : operations.values()) {
+         retries += metrics.retries();
+      }
+      return retries;
+   }
+
+   @Override
+   public long getThrottled() {
+      long throttled = 0;
+      for (OperationMetrics metrics : operations.values()) {
+         throttled += metrics.throttled();
+      }
+      return throttled;
+   }
+
+   @Override
+   public Iterable<OperationStats> getOperations() {
+      ImmutableList.Builder<OperationStats> stats = ImmutableList.builder();
+      for (OperationMetrics metrics : operations.values()) {
+         stats.add(metrics.snapshot());
+      }
+      return stats.build();
+   }
+
+   @Override
+   public OperationStats getOperation(String operation) {
+      OperationMetrics metrics = operations.get(operation);
+      return metrics != null ? metrics.snapshot() : null;
+   }
+
+   @Override
+   public void reset() {
+      operations.clear();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String getType() {
+      return "metrics";
+   }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management;
+
+/**
+ * Call counts, latencies and failures of the requests a context sends to its provider.
+ */
+public interface ContextMetricsMBean {
+
+   /**
+    * Returns the number of requests sent, across all operations.
+    * @return
+    */
+   long getCalls();
+
+   /**
+    * Returns the number of failed requests, across all operations.
+    * @return
+    */
+   long getFailures();
+
+   /**
+    * Returns the number of retried requests, across all operations.
+    * @return
+    */
+   long getRetries();
+
+   /**
+    * Returns the number of throttled requests, across all operations.
+    * @return
+    */
+   long getThrottled();
+
+   /**
+    * Returns the statistics of every operation called so far.
+    * @return
+    */
+   Iterable<OperationStats> getOperations();
+
+   /**
+    * Returns the statistics of an operation.
+    * @param operation   The API method, as {@code <interface>.<method>}.
+    * @return  The statistics or null if the operation has not been called.
+    */
+   OperationStats getOperation(String operation);
+
+   /**
+    * Clears all the statistics.
+    */
+   void reset();
+}
@@ -42,6 +42,14 @@ public interface ManagementContext {
     */
    void unmanage(ManagedBean mBean, String name);
 
+   /**
+    * Returns the {@link ManagedBean} exposed under the type and name.
+    * @param type    The type of the ManagedBean.
+    * @param name    The name under which the bean is exposed.
+    * @return        The bean, or null if there is none.
+    */
+   ManagedBean getManagedBean(String type, String name);
+
 
    /**
     * Bind an {@link javax.management.MBeanServer} to the context.
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import java.lang.reflect.Method;
+
+/**
+ * A {@link ViewMBean} that is told about the calls made to the service of its view, so that it can
+ * follow changes without polling the provider. The service is the one named by the
+ * {@link ObservingViewMBeanFactory} that created the bean.
+ */
+public interface OperationListener {
+
+   /**
+    * Called after a call to the service returned. It must not block, nor throw.
+    * @param method The method of the service that was called.
+    * @param args   The arguments of the call.
+    * @param result The value the call returned.
+    */
+   void operationCompleted(Method method, Object[] args, @Nullable Object result);
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management;
+
+import java.io.Serializable;
+
+import com.google.common.base.Objects;
+
+/**
+ * A snapshot of the calls made to the provider for one API method.
+ */
+public class OperationStats implements Serializable {
+
+   private static final long serialVersionUID = 1L;
+
+   private final String operation;
+   private final long calls;
+   private final long failures;
+   private final long retries;
+   private final long throttled;
+   private final double meanMillis;
+   private final double p50Millis;
+   private final double p95Millis;
+   private final double p99Millis;
+   private final double maxMillis;
+
+   public OperationStats(String operation, long calls, long failures, long retries, long throttled,
+                         double meanMillis, double p50Millis, double p95Millis, double p99Millis, double maxMillis) {
+      this.operation = operation;
+      this.calls = calls;
+      this.failures = failures;
+      this.retries = retries;
+      this.throttled = throttled;
+      this.meanMillis = meanMillis;
+      this.p50Millis = p50Millis;
+      this.p95Millis = p95Millis;
+      this.p99Millis = p99Millis;
+      this.maxMillis = maxMillis;
+   }
+
+   /**
+    * The API method, as {@code <interface>.<method>}, or the http method and host for requests that
+    * were not generated from an API method.
+    */
+   public String getOperation() {
+      return operation;
+   }
+
+   public long getCalls() {
+      return calls;
+   }
+
+   /**
+    * Calls that threw an exception or ended with an error status.
+    */
+   public long getFailures() {
+      return failures;
+   }
+
+   /**
+    * Requests that were sent again after a failed attempt.
+    */
+   public long getRetries() {
+      return retries;
+   }
+
+   /**
+    * Calls that ended with a 429 or 503 status.
+    */
+   public long getThrottled() {
+      return throttled;
+   }
+
+   public double getMeanMillis() {
+      return meanMillis;
+   }
+
+   public double getP50Millis() {
+      return p50Millis;
+   }
+
+   public double getP95Millis() {
+      return p95Millis;
+   }
+
+   public double getP99Millis() {
+      return p99Millis;
+   }
+
+   public double getMaxMillis() {
+      return maxMillis;
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).add("operation", operation).add("calls", calls).add("failures", failures)
+              .add("retries", retries).add("throttled", throttled).add("meanMillis", meanMillis)
+              .add("p99Millis", p99Millis).add("maxMillis", maxMillis).toString();
+   }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management;
+
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.representations.Page;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A {@link ManagedBean} whose listings can be paged through by path, so that they can be served
+ * outside of JMX, for instance by the {@link org.jclouds.management.http.RepresentationServer}.
+ */
+public interface PagedListings {
+
+   /**
+    * Returns a page of a listing.
+    * @param path    The path of the listing, for instance {@code [nodes]} or {@code [containers, name]}.
+    * @param marker  The next marker of the previous page, or null for the first page.
+    * @param limit   The maximum number of items to return.
+    * @return        The page, or null if there is no listing at the path.
+    */
+   Page<? extends Serializable> listPage(List<String> path, @Nullable String marker, int limit);
+}
@@ -21,11 +21,39 @@ import com.google.common.reflect.TypeToken;
 import org.jclouds.management.osgi.ViewManagementFactoryRegistry;
 
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static com.google.common.collect.Iterables.filter;
 
+/**
+ * Discovers the {@link ViewMBeanFactory}s. Discovery is cached: the classpath is scanned once, until
+ * {@link #refresh()} is called, and the factories found in OSGi bundles are read again only once the
+ * {@link ViewManagementFactoryRegistry} changed.
+ */
 public class ViewMBeanFactories {
 
+   private static volatile Discovery discovery;
+
+   /**
+    * The factories found at one point, and the ones for each view type asked for since.
+    */
+   private static final class Discovery {
+      private final long registryGeneration;
+      private final ImmutableSet<ViewMBeanFactory> fromServiceLoader;
+      private final ImmutableSet<ViewMBeanFactory> all;
+      private final ConcurrentMap<TypeToken, ImmutableSet<ViewMBeanFactory>> byType =
+              new ConcurrentHashMap<TypeToken, ImmutableSet<ViewMBeanFactory>>();
+
+      private Discovery(long registryGeneration, ImmutableSet<ViewMBeanFactory> fromServiceLoader) {
+         this.registryGeneration = registryGeneration;
+         this.fromServiceLoader = fromServiceLoader;
+         this.all = ImmutableSet.<ViewMBeanFactory>builder()
+                 .addAll(fromServiceLoader)
+                 .addAll(ViewManagementFactoryRegistry.fromRegistry()).build();
+      }
+   }
+
    /**
     * Returns the {@link ViewMBeanFactory} located on the classpath via {@link java.util.ServiceLoader}.
     * @return all available factories loaded from classpath via  {@link java.util.ServiceLoader}
@@ -39,13 +67,37 @@ public class ViewMBeanFactories {
     * @return all available factories.
     */
    public static Iterable<ViewMBeanFactory> all() {
-      return ImmutableSet.<ViewMBeanFactory>builder()
-              .addAll(fromServiceLoader())
-              .addAll(ViewManagementFactoryRegistry.fromRegistry()).build();
+      return current().all;
    }
 
    public static Iterable<ViewMBeanFactory> forType(TypeToken viewableAs) {
-      return filter(all(), ViewMBeanFactoryPredicates.forType(viewableAs));
+      Discovery current = current();
+      ImmutableSet<ViewMBeanFactory> factories = current.byType.get(viewableAs);
+      if (factories == null) {
+         factories = ImmutableSet.copyOf(filter(current.all, ViewMBeanFactoryPredicates.forType(viewableAs)));
+         current.byType.put(viewableAs, factories);
+      }
+      return factories;
+   }
+
+   /**
+    * Discards the cached factories, so that the classpath is scanned again on the next lookup.
+    */
+   public static void refresh() {
+      discovery = null;
    }
 
+   private static Discovery current() {
+      Discovery current = discovery;
+      // read before the registry, so that a change made while discovering is seen by the next lookup
+      long generation = ViewManagementFactoryRegistry.generation();
+      if (current == null || current.registryGeneration != generation) {
+         ImmutableSet<ViewMBeanFactory> fromServiceLoader = current != null
+                 ? current.fromServiceLoader
+                 : ImmutableSet.copyOf(fromServiceLoader());
+         current = new Discovery(generation, fromServiceLoader);
+         discovery = current;
+      }
+      return current;
+   }
 }
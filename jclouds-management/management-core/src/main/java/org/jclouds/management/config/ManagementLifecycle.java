@@ -17,6 +17,7 @@
 package org.jclouds.management.config;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.reflect.TypeToken;
 import com.google.inject.AbstractModule;
@@ -28,20 +29,33 @@ import com.google.inject.spi.InjectionListener;
 import com.google.inject.spi.TypeEncounter;
 import com.google.inject.spi.TypeListener;
 import org.jclouds.View;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.lifecycle.Closer;
+import org.jclouds.management.ContextMetrics;
 import org.jclouds.management.ManagementContext;
+import org.jclouds.management.ObservingViewMBeanFactory;
+import org.jclouds.management.OperationListener;
 import org.jclouds.management.ViewMBean;
 import org.jclouds.management.ViewMBeanFactories;
 import org.jclouds.management.ViewMBeanFactory;
+import org.jclouds.management.internal.HttpCommandMetricsInterceptor;
+import org.jclouds.management.internal.OperationListenerInterceptor;
+import org.jclouds.management.internal.OperationListeners;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
 
 /**
  * A {@link com.google.inject.Module} for managing the lifecycle of {@link org.jclouds.management.ViewMBean} beans.
  * The goal of this module is to create {@link org.jclouds.management.ViewMBean} beans that correspond to each {@link View} created/destroyed
  * and register/un-register them to the {@link ManagementContext}.
+ * It also times the requests each context sends to its provider and registers them as a {@link ContextMetrics} bean,
+ * and reports the calls made to the services observed by {@link ObservingViewMBeanFactory}s to the
+ * {@link OperationListener} beans.
  */
 public class ManagementLifecycle extends AbstractModule {
 
@@ -53,6 +67,16 @@ public class ManagementLifecycle extends AbstractModule {
 
    @Override
    protected void configure() {
+      bindInterceptor(Matchers.subclassesOf(HttpCommandExecutorService.class), invokeHttpCommand(),
+              new HttpCommandMetricsInterceptor(getProvider(ContextMetrics.class)));
+      OperationListenerInterceptor operationInterceptor = new OperationListenerInterceptor(
+              getProvider(OperationListeners.class));
+      for (ViewMBeanFactory factory : ViewMBeanFactories.all()) {
+         if (factory instanceof ObservingViewMBeanFactory) {
+            Class<?> observed = ((ObservingViewMBeanFactory) factory).getObservedType();
+            bindInterceptor(Matchers.subclassesOf(observed), declaredBy(observed), operationInterceptor);
+         }
+      }
       bindListener(subClassOf(View.class), new TypeListener() {
          @Override
          public <I> void hear(final TypeLiteral<I> typeLiteral, TypeEncounter<I> typeEncounter) {
@@ -60,24 +84,35 @@ public class ManagementLifecycle extends AbstractModule {
                @Override
                public void afterInjection(Object object) {
                   final View view = (View) object;
-                  final Iterable<ViewMBean> viewMamanagementBeans  = viewManagementOf(view);
+                  final Iterable<ViewMBean> viewMamanagementBeans  = ImmutableList.copyOf(viewManagementOf(view));
                   final Closer closer = view.unwrap().utils().injector().getInstance(Closer.class);
                   //We get the name from the view and not from the view management object to avoid proxy issues.
                   final String name = view.unwrap().getName();
+                  final ContextMetrics metrics = view.unwrap().utils().injector().getInstance(ContextMetrics.class);
+                  final OperationListeners listeners = view.unwrap().utils().injector()
+                          .getInstance(OperationListeners.class);
                   managementContext.register(view);
 
                   //Manage the created management view objects to the context.
                   for (ViewMBean viewMBean : viewMamanagementBeans) {
+                     if (viewMBean instanceof OperationListener) {
+                        listeners.add((OperationListener) viewMBean);
+                     }
                      managementContext.manage(viewMBean, name);
                   }
+                  managementContext.manage(metrics, name);
 
                   //Add the the management view objects to the Closer, so that they are unregistered on close.
                   closer.addToClose(new Closeable() {
                      @Override
                      public void close() throws IOException {
                         for (ViewMBean viewMBean : viewMamanagementBeans) {
+                           if (viewMBean instanceof OperationListener) {
+                              listeners.remove((OperationListener) viewMBean);
+                           }
                            managementContext.unmanage(viewMBean, name);
                         }
+                        managementContext.unmanage(metrics, name);
                         managementContext.unregister(view);
                      }
                   });
@@ -102,6 +137,43 @@ public class ManagementLifecycle extends AbstractModule {
       });
    }
 
+   /**
+    * Creates a {@link Method} {@link Matcher} for {@link HttpCommandExecutorService#invoke(HttpCommand)}, which both
+    * synchronous and asynchronous requests go through.
+    * @return
+    */
+   private static Matcher<Method> invokeHttpCommand() {
+      return new AbstractMatcher<Method>() {
+         public boolean matches(Method method) {
+            return method.getName().equals("invoke")
+                    && Arrays.equals(method.getParameterTypes(), new Class<?>[] { HttpCommand.class })
+                    && !method.isSynthetic();
+         }
+      };
+   }
+
+   /**
+    * Creates a {@link Method} {@link Matcher} for the public methods of the type, including the ones
+    * that implement or override them.
+    * @param type
+    * @return
+    */
+   private static Matcher<Method> declaredBy(final Class<?> type) {
+      return new AbstractMatcher<Method>() {
+         public boolean matches(Method method) {
+            if (method.isSynthetic()) {
+               return false;
+            }
+            try {
+               type.getMethod(method.getName(), method.getParameterTypes());
+               return true;
+            } catch (NoSuchMethodException e) {
+               return false;
+            }
+         }
+      };
+   }
+
    /**
     * Creates a {@link TypeLiteral} {@link Matcher} for matching subclasses.
     * This is for use in bindListener.
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.config;
+
+/**
+ * Constants for the management of jclouds contexts.
+ */
+public interface ManagementProperties {
+
+   /**
+    * Property to set how long, in milliseconds, management views buffer notifications before
+    * sending them. Notifications about the same resource within that time are coalesced.
+    */
+   public static final String NOTIFICATION_INTERVAL = "jclouds.management.notification-interval";
+
+   /**
+    * Property to set the maximum number of notifications a management view sends per interval.
+    */
+   public static final String NOTIFICATION_MAX_PER_INTERVAL = "jclouds.management.notification-max-per-interval";
+
+   /**
+    * Property to set the maximum number of notifications a management view buffers. Notifications
+    * beyond it are dropped, and counted in a single notification.
+    */
+   public static final String NOTIFICATION_MAX_PENDING = "jclouds.management.notification-max-pending";
+
+   /**
+    * Property to set the maximum number of nodes a bulk operation of a management view acts on at
+    * the same time.
+    */
+   public static final String BULK_OPERATION_CONCURRENCY = "jclouds.management.bulk-operation-concurrency";
+}
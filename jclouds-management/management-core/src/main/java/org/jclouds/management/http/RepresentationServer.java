@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.http;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.jclouds.Context;
+import org.jclouds.codec.ToContext;
+import org.jclouds.compute.representations.LoginCredentials;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.management.ManagedBean;
+import org.jclouds.management.ManagementContext;
+import org.jclouds.management.PagedListings;
+import org.jclouds.representations.Page;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Serves the listings of the {@link ManagementContext} over HTTP, as JSON, without going through JMX.
+ * <p>
+ * The listings are:
+ * <ul>
+ *    <li>{@code GET /contexts}: the contexts.</li>
+ *    <li>{@code GET /<type>/<context>/<listing>}: a listing of the {@link PagedListings} bean of that type
+ *    managed for the context, for instance {@code /compute/mycontext/nodes} or
+ *    {@code /blobstore/mycontext/containers/mycontainer}.</li>
+ * </ul>
+ * Each responds with {@code {"items": [...], "nextMarker": ...}}. The optional {@code limit} parameter bounds the
+ * number of items and the {@code marker} parameter continues from the next marker of a previous response. Items
+ * are fetched from the bean one page at a time and written as they come, in a chunked response, so that the
+ * memory used by a request doesn't depend on the size of the listing.
+ * <p>
+ * The server has no authentication: it listens on the loopback interface unless told otherwise, and the
+ * passwords and private keys of {@link LoginCredentials} are never written, only whether there are any.
+ */
+public class RepresentationServer {
+
+   /**
+    * The number of items fetched from a bean at a time.
+    */
+   public static final int PAGE_SIZE = 100;
+
+   private static final int DEFAULT_THREADS = 4;
+
+   private final ManagementContext managementContext;
+   private final InetSocketAddress address;
+   private final int threads;
+   private final Gson gson = new GsonBuilder()
+           .registerTypeAdapter(LoginCredentials.class, new LoginCredentialsSerializer()).create();
+   private HttpServer server;
+   private ExecutorService executor;
+
+   public RepresentationServer(ManagementContext managementContext, int port) {
+      this(managementContext, new InetSocketAddress("127.0.0.1", port), DEFAULT_THREADS);
+   }
+
+   public RepresentationServer(ManagementContext managementContext, InetSocketAddress address, int threads) {
+      this.managementContext = checkNotNull(managementContext, "managementContext");
+      this.address = checkNotNull(address, "address");
+      this.threads = threads;
+   }
+
+   /**
+    * Starts listening.
+    * @throws IOException if the address can't be bound.
+    */
+   public synchronized void start() throws IOException {
+      checkState(server == null, "already started");
+      executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+              .setNameFormat("jclouds-management-http-%d").setDaemon(true).build());
+      server = HttpServer.create(address, 0);
+      server.setExecutor(executor);
+      server.createContext("/", new RepresentationHandler());
+      server.start();
+   }
+
+   /**
+    * Stops listening, after the requests in progress are done or a second has passed.
+    */
+   public synchronized void stop() {
+      if (server != null) {
+         server.stop(1);
+         executor.shutdownNow();
+         server = null;
+         executor = null;
+      }
+   }
+
+   /**
+    * Returns the address the server listens on, which tells the port when it was started on port 0.
+    * @return
+    */
+   public synchronized InetSocketAddress getAddress() {
+      checkState(server != null, "not started");
+      return server.getAddress();
+   }
+
+   /**
+    * Returns the listings at the path, or null if there are none.
+    */
+   private PagedListings listingsOf(List<String> path) {
+      if (path.size() == 1 && path.get(0).equals("contexts")) {
+         return contexts;
+      } else if (path.size() > 2) {
+         ManagedBean bean = managementContext.getManagedBean(path.get(0), path.get(1));
+         if (bean instanceof PagedListings) {
+            return (PagedListings) bean;
+         }
+      }
+      return null;
+   }
+
+   private final PagedListings contexts = new PagedListings() {
+      @Override
+      public Page<? extends Serializable> listPage(List<String> path, @Nullable String marker, int limit) {
+         TreeMap<String, Context> byName = Maps.newTreeMap();
+         for (Context context : managementContext.listContexts()) {
+            byName.put(context.getName(), context);
+         }
+         SortedMap<String, Context> remaining = marker == null ? byName : byName.tailMap(marker, false);
+         ImmutableList.Builder<org.jclouds.representations.Context> items = ImmutableList.builder();
+         String last = null;
+         int count = 0;
+         for (Map.Entry<String, Context> entry : remaining.entrySet()) {
+            if (count == limit) {
+               return Page.create(items.build(), last);
+            }
+            items.add(ToContext.INSTANCE.apply(entry.getValue()));
+            last = entry.getKey();
+            count++;
+         }
+         return Page.create(items.build(), null);
+      }
+   };
+
+   /**
+    * Writes the same as {@link LoginCredentials#toString()}, leaving the secrets out.
+    */
+   private static class LoginCredentialsSerializer implements JsonSerializer<LoginCredentials> {
+
+      @Override
+      public JsonElement serialize(LoginCredentials credentials, Type type, JsonSerializationContext context) {
+         JsonObject json = new JsonObject();
+         json.addProperty("username", credentials.getUsername());
+         json.addProperty("hasPassword", credentials.getPassword() != null || credentials.getCredentialUrl() != null);
+         json.addProperty("hasPrivateKey", credentials.hasPrivateKey());
+         json.addProperty("authenticateSudo", credentials.isAuthenticatedSudo());
+         return json;
+      }
+   }
+
+   private class RepresentationHandler implements HttpHandler {
+
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+         try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+               exchange.getResponseHeaders().set("Allow", "GET");
+               sendError(exchange, 405, "only GET is supported");
+               return;
+            }
+            List<String> path = decodePath(exchange.getRequestURI().getRawPath());
+            Map<String, String> parameters = decodeQuery(exchange.getRequestURI().getRawQuery());
+            PagedListings listings = listingsOf(path);
+            if (listings == null) {
+               sendError(exchange, 404, "no listing at " + exchange.getRequestURI().getPath());
+               return;
+            }
+            Integer limit;
+            try {
+               limit = parameters.containsKey("limit") ? Integer.valueOf(parameters.get("limit")) : null;
+            } catch (NumberFormatException e) {
+               limit = 0;
+            }
+            if (limit != null && limit <= 0) {
+               sendError(exchange, 400, "limit must be a positive number");
+               return;
+            }
+            List<String> listingPath = path.size() == 1 ? ImmutableList.<String>of() : path.subList(2, path.size());
+            stream(exchange, listings, listingPath, parameters.get("marker"), limit);
+         } finally {
+            exchange.close();
+         }
+      }
+   }
+
+   /**
+    * Writes the listing page by page. The first page is fetched before anything is sent, so that a
+    * missing listing or a failure to list is reported with its status code; a failure afterwards
+    * cuts the response short.
+    */
+   private void stream(HttpExchange exchange, PagedListings listings, List<String> path, @Nullable String marker,
+                       @Nullable Integer limit) throws IOException {
+      int remaining = limit != null ? limit : Integer.MAX_VALUE;
+      Page<? extends Serializable> page;
+      try {
+         page = listings.listPage(path, marker, Math.min(PAGE_SIZE, remaining));
+      } catch (RuntimeException e) {
+         sendError(exchange, 500, String.valueOf(e.getMessage()));
+         return;
+      }
+      if (page == null) {
+         sendError(exchange, 404, "no listing at " + exchange.getRequestURI().getPath());
+         return;
+      }
+      exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+      // a length of 0 means chunked
+      exchange.sendResponseHeaders(200, 0);
+      JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(),
+              Charsets.UTF_8)));
+      writer.beginObject();
+      writer.name("items");
+      writer.beginArray();
+      while (true) {
+         for (Serializable item : page.getItems()) {
+            gson.toJson(item, item.getClass(), writer);
+         }
+         remaining -= page.getItems().size();
+         writer.flush();
+         if (page.getNextMarker() == null || remaining <= 0 || page.getItems().isEmpty()) {
+            break;
+         }
+         page = listings.listPage(path, page.getNextMarker(), Math.min(PAGE_SIZE, remaining));
+         if (page == null) {
+            throw new IOException("the listing at " + exchange.getRequestURI().getPath() + " went away");
+         }
+      }
+      writer.endArray();
+      writer.name("nextMarker").value(page.getNextMarker());
+      writer.endObject();
+      writer.close();
+   }
+
+   private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+      byte[] body = gson.toJson(ImmutableMap.of("error", message)).getBytes(Charsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+      exchange.sendResponseHeaders(status, body.length);
+      exchange.getResponseBody().write(body);
+   }
+
+   private static List<String> decodePath(String rawPath) throws UnsupportedEncodingException {
+      ImmutableList.Builder<String> segments = ImmutableList.builder();
+      for (String segment : Splitter.on('/').omitEmptyStrings().split(rawPath)) {
+         // only percent escapes are decoded in a path, a '+' stays a '+'
+         segments.add(URLDecoder.decode(segment.replace("+", "%2B"), "UTF-8"));
+      }
+      return segments.build();
+   }
+
+   private static Map<String, String> decodeQuery(@Nullable String rawQuery) throws UnsupportedEncodingException {
+      Map<String, String> parameters = Maps.newHashMap();
+      if (rawQuery != null) {
+         for (String parameter : Splitter.on('&').omitEmptyStrings().split(rawQuery)) {
+            List<String> nameAndValue = ImmutableList.copyOf(Splitter.on('=').limit(2).split(parameter));
+            parameters.put(URLDecoder.decode(nameAndValue.get(0), "UTF-8"),
+                    URLDecoder.decode(Iterables.get(nameAndValue, 1, ""), "UTF-8"));
+         }
+      }
+      return parameters;
+   }
+}
@@ -19,7 +19,6 @@ package org.jclouds.management.internal;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Maps;
 import org.jclouds.Context;
 import org.jclouds.View;
 import org.jclouds.javax.annotation.Nullable;
@@ -29,6 +28,10 @@ import org.jclouds.management.ManagementContext;
 import javax.management.MBeanServer;
 import java.lang.management.ManagementFactory;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -36,45 +39,72 @@ public enum BaseManagementContext implements ManagementContext {
 
    INSTANCE;
 
-   private final Map<String, View> views = Maps.newHashMap();
-   private final Map<Key, ManagedBean> mbeans = Maps.newHashMap();
+   private final ConcurrentMap<String, View> views = new ConcurrentHashMap<String, View>();
+   private final ConcurrentMap<Key, ManagedBean> mbeans = new ConcurrentHashMap<Key, ManagedBean>();
+
+   //Beans are managed concurrently, binding or unbinding the MBeanServer waits for them and holds them off,
+   //so that no bean is left out of, or left behind in, the server.
+   private final ReadWriteLock serverLock = new ReentrantReadWriteLock();
 
    //The MBeanServer can be bind/unbind (especially inside OSGi) so its not always available.
    //Thus is represented as Optional.
-   private Optional<MBeanServer> mBeanServer = Optional.of(ManagementFactory.getPlatformMBeanServer());
+   private volatile Optional<MBeanServer> mBeanServer = Optional.of(ManagementFactory.getPlatformMBeanServer());
 
    /**
     * {@inheritDoc}
     */
    @Override
-   public synchronized void manage(ManagedBean mBean, String name) {
-      if (mBeanServer.isPresent()) {
-         ManagementUtils.register(mBeanServer.get(), mBean, mBean.getType(), name);
+   public void manage(ManagedBean mBean, String name) {
+      serverLock.readLock().lock();
+      try {
+         if (mBeanServer.isPresent()) {
+            ManagementUtils.register(mBeanServer.get(), mBean, mBean.getType(), name);
+         }
+         mbeans.put(new Key(mBean, name), mBean);
+      } finally {
+         serverLock.readLock().unlock();
       }
-      mbeans.put(new Key(mBean, name), mBean);
    }
 
    /**
     * {@inheritDoc}
     */
    @Override
-   public synchronized void unmanage(ManagedBean mBean, String name) {
-      if (mBeanServer.isPresent()) {
-         ManagementUtils.unregister(mBeanServer.get(), mBean.getType(), name);
+   public void unmanage(ManagedBean mBean, String name) {
+      serverLock.readLock().lock();
+      try {
+         if (mBeanServer.isPresent()) {
+            ManagementUtils.unregister(mBeanServer.get(), mBean.getType(), name);
+         }
+         mbeans.remove(new Key(mBean, name));
+      } finally {
+         serverLock.readLock().unlock();
       }
-      mbeans.remove(new Key(mBean, name));
    }
 
    /**
     * {@inheritDoc}
     */
    @Override
-   public synchronized void bind(MBeanServer server) {
-      this.mBeanServer = Optional.of(server);
-      for(Map.Entry<Key, ManagedBean> entry : mbeans.entrySet()) {
-         String name = entry.getKey().getName();
-         ManagedBean mBean = entry.getValue();
-         ManagementUtils.register(server, mBean, mBean.getType(), name);
+   public ManagedBean getManagedBean(String type, String name) {
+      return mbeans.get(new Key(type, name));
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void bind(MBeanServer server) {
+      serverLock.writeLock().lock();
+      try {
+         this.mBeanServer = Optional.of(server);
+         for(Map.Entry<Key, ManagedBean> entry : mbeans.entrySet()) {
+            String name = entry.getKey().getName();
+            ManagedBean mBean = entry.getValue();
+            ManagementUtils.register(server, mBean, mBean.getType(), name);
+         }
+      } finally {
+         serverLock.writeLock().unlock();
       }
    }
 
@@ -82,13 +112,18 @@ public enum BaseManagementContext implements ManagementContext {
     * {@inheritDoc}
     */
    @Override
-   public synchronized void unbind(MBeanServer server) {
-      for(Map.Entry<Key, ManagedBean> entry : mbeans.entrySet()) {
-         String name = entry.getKey().getName();
-         ManagedBean mBean = entry.getValue();
-         ManagementUtils.unregister(server, mBean.getType(), name);
+   public void unbind(MBeanServer server) {
+      serverLock.writeLock().lock();
+      try {
+         for(Map.Entry<Key, ManagedBean> entry : mbeans.entrySet()) {
+            String name = entry.getKey().getName();
+            ManagedBean mBean = entry.getValue();
+            ManagementUtils.unregister(server, mBean.getType(), name);
+         }
+         this.mBeanServer = Optional.absent();
+      } finally {
+         serverLock.writeLock().unlock();
       }
-      this.mBeanServer = Optional.absent();
    }
 
 
@@ -129,7 +164,7 @@ public enum BaseManagementContext implements ManagementContext {
       return views.get(name).unwrap();
    }
 
-   private class Key {
+   private static class Key {
 
       private final String type;
       private final String name;
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.jclouds.View;
+import org.jclouds.javax.annotation.Nullable;
+
+import javax.management.MBeanNotificationInfo;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.jclouds.management.config.ManagementProperties.NOTIFICATION_INTERVAL;
+import static org.jclouds.management.config.ManagementProperties.NOTIFICATION_MAX_PENDING;
+import static org.jclouds.management.config.ManagementProperties.NOTIFICATION_MAX_PER_INTERVAL;
+
+/**
+ * A {@link javax.management.NotificationEmitter} that bounds the notifications it sends.
+ * <p>
+ * Notifications are buffered and sent in batches, once per interval, from a shared thread, so
+ * emitting one never blocks the caller on the listeners. Notifications of the same type about the
+ * same resource that are buffered together are coalesced into the latest one. At most a given number
+ * of notifications are sent per interval and at most a given number are buffered; the ones beyond
+ * are dropped, and the number dropped is sent in a single {@link #DROPPED} notification.
+ */
+public class CoalescingNotificationEmitter extends NotificationBroadcasterSupport {
+
+   public static final String DROPPED = "jclouds.notifications.dropped";
+
+   private static final long DEFAULT_INTERVAL = 1000;
+   private static final int DEFAULT_MAX_PER_INTERVAL = 100;
+   private static final int DEFAULT_MAX_PENDING = 10000;
+
+   private static final ScheduledExecutorService SENDER = Executors.newSingleThreadScheduledExecutor(
+           new ThreadFactoryBuilder().setNameFormat("jclouds-management-notifications").setDaemon(true).build());
+
+   private final long interval;
+   private final int maxPerInterval;
+   private final int maxPending;
+   private final AtomicLong sequence = new AtomicLong();
+   private final Runnable send = new Runnable() {
+      @Override
+      public void run() {
+         send();
+      }
+   };
+
+   // guarded by pending
+   private final Map<String, PendingNotification> pending = Maps.newLinkedHashMap();
+   private long dropped;
+   private boolean sendScheduled;
+
+   private static class PendingNotification {
+      private final String type;
+      private final String message;
+      private final Object userData;
+      private final long timeStamp;
+      private final int coalesced;
+
+      private PendingNotification(String type, String message, Object userData, int coalesced) {
+         this.type = type;
+         this.message = message;
+         this.userData = userData;
+         this.timeStamp = System.currentTimeMillis();
+         this.coalesced = coalesced;
+      }
+   }
+
+   /**
+    * Creates an emitter configured by the properties of the view, see
+    * {@link org.jclouds.management.config.ManagementProperties}.
+    * @param view
+    * @param info
+    */
+   public CoalescingNotificationEmitter(View view, MBeanNotificationInfo... info) {
+      this(ManagementUtils.longProperty(view, NOTIFICATION_INTERVAL, DEFAULT_INTERVAL),
+              (int) ManagementUtils.longProperty(view, NOTIFICATION_MAX_PER_INTERVAL, DEFAULT_MAX_PER_INTERVAL),
+              (int) ManagementUtils.longProperty(view, NOTIFICATION_MAX_PENDING, DEFAULT_MAX_PENDING), info);
+   }
+
+   public CoalescingNotificationEmitter(long interval, int maxPerInterval, int maxPending,
+                                        MBeanNotificationInfo... info) {
+      super(info);
+      checkArgument(interval > 0, "interval must be positive");
+      checkArgument(maxPerInterval > 0, "maxPerInterval must be positive");
+      checkArgument(maxPending > 0, "maxPending must be positive");
+      this.interval = interval;
+      this.maxPerInterval = maxPerInterval;
+      this.maxPending = maxPending;
+   }
+
+   /**
+    * Buffers a notification.
+    * @param type     The type of the notification.
+    * @param resource The id of the resource the notification is about.
+    * @param message  The message of the notification.
+    * @param userData The data of the notification.
+    */
+   protected void emit(String type, String resource, String message, @Nullable Object userData) {
+      String key = type + ' ' + resource;
+      synchronized (pending) {
+         PendingNotification previous = pending.get(key);
+         if (previous == null && pending.size() >= maxPending) {
+            dropped++;
+         } else {
+            pending.put(key, new PendingNotification(type, message, userData,
+                    previous == null ? 1 : previous.coalesced + 1));
+         }
+         if (!sendScheduled) {
+            sendScheduled = true;
+            SENDER.schedule(send, interval, TimeUnit.MILLISECONDS);
+         }
+      }
+   }
+
+   private void send() {
+      List<PendingNotification> batch = Lists.newArrayList();
+      long droppedSinceLastSend;
+      synchronized (pending) {
+         Iterator<PendingNotification> it = pending.values().iterator();
+         while (it.hasNext() && batch.size() < maxPerInterval) {
+            batch.add(it.next());
+            it.remove();
+         }
+         droppedSinceLastSend = dropped;
+         dropped = 0;
+         // the rest of the buffer is sent in the next intervals
+         sendScheduled = !pending.isEmpty();
+         if (sendScheduled) {
+            SENDER.schedule(send, interval, TimeUnit.MILLISECONDS);
+         }
+      }
+      for (PendingNotification notification : batch) {
+         String message = notification.coalesced > 1
+                 ? notification.message + " (" + notification.coalesced + " events coalesced)"
+                 : notification.message;
+         Notification sent = new Notification(notification.type, this, sequence.incrementAndGet(),
+                 notification.timeStamp, message);
+         sent.setUserData(notification.userData);
+         sendNotification(sent);
+      }
+      if (droppedSinceLastSend > 0) {
+         Notification sent = new Notification(DROPPED, this, sequence.incrementAndGet(),
+                 droppedSinceLastSend + " notifications dropped");
+         sent.setUserData(droppedSinceLastSend);
+         sendNotification(sent);
+      }
+   }
+
+}
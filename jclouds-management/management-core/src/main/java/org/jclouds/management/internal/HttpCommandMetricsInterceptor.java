@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.internal;
+
+import com.google.common.reflect.Invokable;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.management.ContextMetrics;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
+
+import javax.inject.Provider;
+
+/**
+ * Times the {@link HttpCommand}s executed by an {@link org.jclouds.http.HttpCommandExecutorService}
+ * and records them in the {@link ContextMetrics} of its context, keyed by the API method that
+ * generated the request.
+ */
+public class HttpCommandMetricsInterceptor implements MethodInterceptor {
+
+   private final Provider<ContextMetrics> metrics;
+
+   public HttpCommandMetricsInterceptor(Provider<ContextMetrics> metrics) {
+      this.metrics = metrics;
+   }
+
+   @Override
+   public Object invoke(MethodInvocation invocation) throws Throwable {
+      HttpCommand command = (HttpCommand) invocation.getArguments()[0];
+      // the request is replaced by filters and redirects, so name the operation up front
+      String operation = operationOf(command.getCurrentRequest());
+      long start = System.nanoTime();
+      boolean failed = true;
+      boolean throttled = false;
+      try {
+         Object result = invocation.proceed();
+         if (result instanceof HttpResponse) {
+            int status = ((HttpResponse) result).getStatusCode();
+            failed = status >= 400;
+            throttled = status == 429 || status == 503;
+         } else {
+            failed = false;
+         }
+         return result;
+      } finally {
+         metrics.get().record(operation, System.nanoTime() - start, command.getFailureCount(), failed, throttled);
+      }
+   }
+
+   private static String operationOf(HttpRequest request) {
+      if (request instanceof GeneratedHttpRequest) {
+         Invokable<?, ?> invokable = ((GeneratedHttpRequest) request).getInvocation().getInvokable();
+         return invokable.getOwnerType().getRawType().getSimpleName() + "." + invokable.getName();
+      }
+      return request.getMethod() + " " + request.getEndpoint().getHost();
+   }
+}
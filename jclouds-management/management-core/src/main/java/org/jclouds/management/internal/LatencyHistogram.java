@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations, with buckets whose bounds double from one microsecond.
+ * Percentiles are approximated by the upper bound of the bucket they fall in, so they are at most
+ * twice the actual value.
+ */
+public final class LatencyHistogram {
+
+   // the last bucket holds everything above 2^38 microseconds, about three days
+   private static final int BUCKETS = 40;
+
+   private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+   private final AtomicLong count = new AtomicLong();
+   private final AtomicLong totalNanos = new AtomicLong();
+   private final AtomicLong maxNanos = new AtomicLong();
+
+   /**
+    * Records a duration.
+    */
+   public void record(long nanos) {
+      nanos = Math.max(nanos, 0);
+      long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+      buckets.incrementAndGet(Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1));
+      count.incrementAndGet();
+      totalNanos.addAndGet(nanos);
+      long max = maxNanos.get();
+      while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+         max = maxNanos.get();
+      }
+   }
+
+   /**
+    * The number of recorded durations.
+    */
+   public long count() {
+      return count.get();
+   }
+
+   public double meanMillis() {
+      long recorded = count.get();
+      return recorded == 0 ? 0 : toMillis(totalNanos.get()) / recorded;
+   }
+
+   public double maxMillis() {
+      return toMillis(maxNanos.get());
+   }
+
+   /**
+    * The approximate duration below which the given fraction of the recorded durations fall.
+    * 
+    * @param quantile
+    *           between {@literal 0} and {@literal 1}, e.g. {@literal 0.99} for the 99th percentile
+    */
+   public double percentileMillis(double quantile) {
+      long recorded = count.get();
+      if (recorded == 0) {
+         return 0;
+      }
+      long rank = (long) Math.ceil(quantile * recorded);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS - 1; i++) {
+         seen += buckets.get(i);
+         if (seen >= rank) {
+            return Math.min(toMillis(TimeUnit.MICROSECONDS.toNanos(1L << i)), maxMillis());
+         }
+      }
+      return maxMillis();
+   }
+
+   private static double toMillis(long nanos) {
+      return nanos / 1000000.0;
+   }
+
+}
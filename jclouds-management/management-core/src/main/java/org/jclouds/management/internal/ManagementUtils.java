@@ -17,7 +17,11 @@
 package org.jclouds.management.internal;
 
 import com.google.common.base.Throwables;
+import com.google.inject.Binding;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
 import org.jclouds.JcloudsVersion;
+import org.jclouds.View;
 
 import javax.management.MBeanRegistrationException;
 import javax.management.MBeanServer;
@@ -86,4 +90,18 @@ public final class ManagementUtils {
    public static ObjectName objectNameFor(String type, String name) throws MalformedObjectNameException {
       return new ObjectName(String.format(OBJECT_NAME_FORMAT, type, name, VERSION.majorVersion, VERSION.minorVersion));
    }
+
+   /**
+    * Returns the value of a numeric property of the context of the view.
+    *
+    * @param view
+    * @param name
+    * @param defaultValue The value to return if the property isn't set.
+    * @return
+    */
+   public static long longProperty(View view, String name, long defaultValue) {
+      Binding<String> binding = view.unwrap().utils().injector()
+              .getExistingBinding(Key.get(String.class, Names.named(name)));
+      return binding == null ? defaultValue : Long.parseLong(binding.getProvider().get());
+   }
 }
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.internal;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import javax.inject.Provider;
+
+/**
+ * Reports the calls that returned to the {@link OperationListeners} of the context. Only the outermost
+ * call is reported: the calls a service makes to its own methods on the same thread, such as an overload
+ * delegating to another, are part of it.
+ */
+public class OperationListenerInterceptor implements MethodInterceptor {
+
+   private final Provider<OperationListeners> listeners;
+   private final ThreadLocal<Boolean> inCall = new ThreadLocal<Boolean>();
+
+   public OperationListenerInterceptor(Provider<OperationListeners> listeners) {
+      this.listeners = listeners;
+   }
+
+   @Override
+   public Object invoke(MethodInvocation invocation) throws Throwable {
+      if (inCall.get() != null) {
+         return invocation.proceed();
+      }
+      Object result;
+      inCall.set(Boolean.TRUE);
+      try {
+         result = invocation.proceed();
+      } finally {
+         inCall.remove();
+      }
+      listeners.get().operationCompleted(invocation.getMethod(), invocation.getArguments(), result);
+      return result;
+   }
+}
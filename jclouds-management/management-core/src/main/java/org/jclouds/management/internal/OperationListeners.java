@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.internal;
+
+import org.jclouds.logging.Logger;
+import org.jclouds.management.OperationListener;
+
+import javax.annotation.Resource;
+import javax.inject.Singleton;
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * The {@link OperationListener}s of a single context.
+ */
+@Singleton
+public class OperationListeners implements OperationListener {
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final Set<OperationListener> listeners = new CopyOnWriteArraySet<OperationListener>();
+
+   public void add(OperationListener listener) {
+      listeners.add(listener);
+   }
+
+   public void remove(OperationListener listener) {
+      listeners.remove(listener);
+   }
+
+   @Override
+   public void operationCompleted(Method method, Object[] args, Object result) {
+      for (OperationListener listener : listeners) {
+         try {
+            listener.operationCompleted(method, args, result);
+         } catch (RuntimeException e) {
+            // a broken listener must not fail the call, which has already been made
+            logger.warn(e, "listener %s failed on %s", listener, method.getName());
+         }
+      }
+   }
+}
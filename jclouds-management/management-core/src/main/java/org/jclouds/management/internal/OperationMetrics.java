@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.internal;
+
+import org.jclouds.management.OperationStats;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the calls of one operation without locking. Latencies are kept in a
+ * {@link LatencyHistogram}.
+ */
+public final class OperationMetrics {
+
+   private final String operation;
+   private final LatencyHistogram latencies = new LatencyHistogram();
+   private final AtomicLong calls = new AtomicLong();
+   private final AtomicLong failures = new AtomicLong();
+   private final AtomicLong retries = new AtomicLong();
+   private final AtomicLong throttled = new AtomicLong();
+
+   public OperationMetrics(String operation) {
+      this.operation = operation;
+   }
+
+   public void record(long nanos, int retried, boolean failed, boolean wasThrottled) {
+      latencies.record(nanos);
+      calls.incrementAndGet();
+      if (retried > 0) {
+         retries.addAndGet(retried);
+      }
+      if (failed) {
+         failures.incrementAndGet();
+      }
+      if (wasThrottled) {
+         throttled.incrementAndGet();
+      }
+   }
+
+   public long calls() {
+      return calls.get();
+   }
+
+   public long failures() {
+      return failures.get();
+   }
+
+   public long retries() {
+      return retries.get();
+   }
+
+   public long throttled() {
+      return throttled.get();
+   }
+
+   public OperationStats snapshot() {
+      return new OperationStats(operation, calls.get(), failures.get(), retries.get(), throttled.get(),
+              latencies.meanMillis(), latencies.percentileMillis(0.5), latencies.percentileMillis(0.95),
+              latencies.percentileMillis(0.99), latencies.maxMillis());
+   }
+}
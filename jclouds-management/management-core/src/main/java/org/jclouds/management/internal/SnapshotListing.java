@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.internal;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.representations.Page;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Serves pages of a listing that can't be paginated by the provider. The listing is taken once and
+ * kept, sorted by id, for a while, so that browsing all its pages or counting its items doesn't list
+ * everything again, and only the items of the requested page are converted.
+ * @param <T>
+ */
+public class SnapshotListing<T> {
+
+   private final Supplier<ImmutableSortedMap<String, T>> snapshot;
+
+   public SnapshotListing(final Supplier<? extends Iterable<? extends T>> listing,
+                          final Function<? super T, String> toId, long duration, TimeUnit unit) {
+      checkNotNull(listing, "listing");
+      checkNotNull(toId, "toId");
+      this.snapshot = Suppliers.memoizeWithExpiration(new Supplier<ImmutableSortedMap<String, T>>() {
+         @Override
+         public ImmutableSortedMap<String, T> get() {
+            SortedMap<String, T> items = Maps.newTreeMap();
+            for (T item : listing.get()) {
+               String id = toId.apply(item);
+               if (id != null) {
+                  items.put(id, item);
+               }
+            }
+            return ImmutableSortedMap.copyOfSorted(items);
+         }
+      }, duration, unit);
+   }
+
+   /**
+    * Returns the items after the marker.
+    * @param marker      The next marker of the previous page, or null for the first page.
+    * @param limit       The maximum number of items to return.
+    * @param transformer Converts the items of the page.
+    * @return
+    */
+   public <R extends Serializable> Page<R> page(@Nullable String marker, int limit,
+                                                Function<? super T, ? extends R> transformer) {
+      checkArgument(limit > 0, "limit must be positive");
+      SortedMap<String, T> remaining = marker == null ? snapshot.get() : snapshot.get().tailMap(marker, false);
+      ImmutableList.Builder<R> items = ImmutableList.builder();
+      String last = null;
+      int count = 0;
+      for (Map.Entry<String, T> entry : remaining.entrySet()) {
+         if (count == limit) {
+            return Page.create(items.build(), last);
+         }
+         items.add(transformer.apply(entry.getValue()));
+         last = entry.getKey();
+         count++;
+      }
+      return Page.create(items.build(), null);
+   }
+
+   /**
+    * Returns the number of items in the current snapshot.
+    * @return
+    */
+   public int count() {
+      return snapshot.get().size();
+   }
+}
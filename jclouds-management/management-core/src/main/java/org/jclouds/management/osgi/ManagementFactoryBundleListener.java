@@ -105,7 +105,7 @@ public class ManagementFactoryBundleListener implements BundleListener {
     */
    private synchronized void removeBundle(Bundle bundle) {
       for (ViewMBeanFactory viewMBeanFactory : managedViewFactoryMap.removeAll(bundle.getBundleId())) {
-            ViewManagementFactoryRegistry.registerFactory(viewMBeanFactory);
+            ViewManagementFactoryRegistry.unRegisterFactory(viewMBeanFactory);
       }
 
    }
@@ -16,21 +16,27 @@
  */
 package org.jclouds.management.osgi;
 
-import com.google.common.collect.Sets;
 import org.jclouds.management.ViewMBeanFactory;
 
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ViewManagementFactoryRegistry {
 
-   private static final Set<ViewMBeanFactory> factories = Sets.newHashSet();
+   private static final Set<ViewMBeanFactory> factories = new CopyOnWriteArraySet<ViewMBeanFactory>();
+   private static final AtomicLong generation = new AtomicLong();
 
    public static void registerFactory(ViewMBeanFactory factory) {
-      factories.add(factory);
+      if (factories.add(factory)) {
+         generation.incrementAndGet();
+      }
    }
 
    public static void unRegisterFactory(ViewMBeanFactory factory) {
-      factories.remove(factory);
+      if (factories.remove(factory)) {
+         generation.incrementAndGet();
+      }
    }
 
    public static Iterable<ViewMBeanFactory> fromRegistry() {
@@ -39,5 +45,14 @@ public class ViewManagementFactoryRegistry {
 
    public static void clear() {
       factories.clear();
+      generation.incrementAndGet();
+   }
+
+   /**
+    * Returns a number that changes whenever a factory is registered or unregistered.
+    * @return
+    */
+   public static long generation() {
+      return generation.get();
    }
 }
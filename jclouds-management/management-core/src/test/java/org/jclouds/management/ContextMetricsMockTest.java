@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import org.jclouds.ContextBuilder;
+import org.jclouds.http.IntegrationTestAsyncClient;
+import org.jclouds.http.IntegrationTestClient;
+import org.jclouds.management.config.ManagementLifecycle;
+import org.testng.annotations.Test;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.jclouds.providers.AnonymousProviderMetadata.forClientMappedToAsyncClientOnEndpoint;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Test(groups = "unit", testName = "ContextMetricsMockTest", singleThreaded = true)
+public class ContextMetricsMockTest {
+
+   public void testRecordsCallsRetriesAndFailuresPerOperation() throws Exception {
+      MockWebServer server = new MockWebServer();
+      server.enqueue(new MockResponse().setBody("first"));
+      server.enqueue(new MockResponse().setResponseCode(503));
+      server.enqueue(new MockResponse().setBody("second"));
+      server.enqueue(new MockResponse().setResponseCode(404));
+      server.play();
+
+      Injector injector = ContextBuilder.newBuilder(forClientMappedToAsyncClientOnEndpoint(IntegrationTestClient.class,
+              IntegrationTestAsyncClient.class, server.getUrl("/").toString()))
+              .modules(ImmutableSet.<Module>of(new ManagementLifecycle(createNiceMock(ManagementContext.class))))
+              .buildInjector();
+      IntegrationTestClient client = injector.getInstance(IntegrationTestClient.class);
+      ContextMetrics metrics = injector.getInstance(ContextMetrics.class);
+      try {
+         assertEquals(client.download("first"), "first");
+         assertEquals(client.download("second"), "second");
+         try {
+            client.download("missing");
+            fail("Request should have failed");
+         } catch (RuntimeException expected) {
+         }
+
+         OperationStats stats = Iterables.getOnlyElement(metrics.getOperations());
+         assertTrue(stats.getOperation().endsWith(".download"), stats.getOperation());
+         assertEquals(stats.getCalls(), 3);
+         assertEquals(stats.getRetries(), 1);
+         assertEquals(stats.getFailures(), 1);
+         assertTrue(stats.getMaxMillis() >= stats.getP50Millis());
+         assertEquals(metrics.getCalls(), 3);
+         assertEquals(metrics.getOperation(stats.getOperation()).getCalls(), 3);
+
+         metrics.reset();
+         assertNull(metrics.getOperation(stats.getOperation()));
+      } finally {
+         server.shutdown();
+      }
+   }
+
+}
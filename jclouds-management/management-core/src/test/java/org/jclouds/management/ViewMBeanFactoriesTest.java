@@ -19,9 +19,12 @@ package org.jclouds.management;
 import com.google.common.reflect.TypeToken;
 import org.jclouds.apis.Compute;
 import org.jclouds.apis.Storage;
+import org.jclouds.management.osgi.ViewManagementFactoryRegistry;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 @Test(groups = "unit", testName = "ViewManagementFactoriesTest")
@@ -49,6 +52,34 @@ public class ViewMBeanFactoriesTest {
       assertTrue(contains(otherTestViewfactories, computeTestFactory));
    }
 
+   @Test
+   void testDiscoveryIsCachedUntilRefreshed() {
+      assertSame(ViewMBeanFactories.all(), ViewMBeanFactories.all());
+      assertSame(ViewMBeanFactories.forType(TypeToken.of(Storage.class)),
+              ViewMBeanFactories.forType(TypeToken.of(Storage.class)));
+
+      Iterable<ViewMBeanFactory> before = ViewMBeanFactories.all();
+      ViewMBeanFactories.refresh();
+      Iterable<ViewMBeanFactory> after = ViewMBeanFactories.all();
+      assertNotSame(before, after);
+      assertTrue(contains(after, storageFactory));
+   }
+
+   @Test
+   void testRegistryChangesAreSeen() {
+      ViewMBeanFactory registered = new ComputeMBeanFactory() {
+      };
+      ViewMBeanFactories.all();
+      ViewManagementFactoryRegistry.registerFactory(registered);
+      try {
+         assertTrue(contains(ViewMBeanFactories.all(), registered));
+         assertTrue(contains(ViewMBeanFactories.forType(TypeToken.of(Compute.class)), registered));
+      } finally {
+         ViewManagementFactoryRegistry.unRegisterFactory(registered);
+      }
+      assertFalse(contains(ViewMBeanFactories.all(), registered));
+      assertFalse(contains(ViewMBeanFactories.forType(TypeToken.of(Compute.class)), registered));
+   }
 
    private static boolean contains(Iterable<ViewMBeanFactory> factories, ViewMBeanFactory f) {
       for (ViewMBeanFactory factory : factories) {
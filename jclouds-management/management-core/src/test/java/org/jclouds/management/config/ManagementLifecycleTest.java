@@ -21,6 +21,7 @@ import com.google.inject.Module;
 import org.jclouds.ContextBuilder;
 import org.jclouds.apis.Compute;
 import org.jclouds.management.ComputeManagement;
+import org.jclouds.management.ContextMetrics;
 import org.jclouds.management.ManagementContext;
 import org.jclouds.providers.JcloudsTestComputeProviderMetadata;
 import org.testng.annotations.Test;
@@ -29,6 +30,7 @@ import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 
@@ -43,9 +45,13 @@ public class ManagementLifecycleTest {
 
       managementContext.register(anyObject(Compute.class));
       expectLastCall().once();
-      managementContext.manage(anyObject(ComputeManagement.class), eq("testname"));
+      managementContext.manage(isA(ComputeManagement.class), eq("testname"));
       expectLastCall().once();
-      managementContext.unmanage(anyObject(ComputeManagement.class), eq("testname"));
+      managementContext.manage(isA(ContextMetrics.class), eq("testname"));
+      expectLastCall().once();
+      managementContext.unmanage(isA(ComputeManagement.class), eq("testname"));
+      expectLastCall().once();
+      managementContext.unmanage(isA(ContextMetrics.class), eq("testname"));
       expectLastCall().once();
       managementContext.unregister(anyObject(Compute.class));
       expectLastCall().once();
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.http;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.jclouds.Context;
+import org.jclouds.compute.representations.LoginCredentials;
+import org.jclouds.compute.representations.NodeMetadata;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.management.ManagedBean;
+import org.jclouds.management.ManagementContext;
+import org.jclouds.management.PagedListings;
+import org.jclouds.representations.Location;
+import org.jclouds.representations.Page;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(groups = "unit", testName = "RepresentationServerTest", singleThreaded = true)
+public class RepresentationServerTest {
+
+   private RepresentationServer server;
+   private LocationListings listings;
+
+   @BeforeMethod
+   public void start() throws IOException {
+      listings = new LocationListings(250);
+      ManagementContext managementContext = createMock(ManagementContext.class);
+      expect(managementContext.getManagedBean("test", "mycontext")).andReturn(listings).anyTimes();
+      expect(managementContext.getManagedBean("test", "other")).andReturn(null).anyTimes();
+      expect(managementContext.getManagedBean("test", "my+context")).andReturn(listings).anyTimes();
+      expect(managementContext.getManagedBean("test", "my context")).andReturn(null).anyTimes();
+      expect(managementContext.listContexts()).andReturn((Iterable) ImmutableList.<Context>of()).anyTimes();
+      replay(managementContext);
+      server = new RepresentationServer(managementContext, new InetSocketAddress("127.0.0.1", 0), 2);
+      server.start();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void stop() {
+      server.stop();
+   }
+
+   @Test
+   public void testStreamsTheWholeListingPageByPage() throws IOException {
+      HttpURLConnection connection = open("/test/mycontext/locations");
+      assertEquals(connection.getResponseCode(), 200);
+      assertEquals(connection.getHeaderField("Transfer-Encoding"), "chunked");
+      JsonObject response = read(connection);
+      JsonArray items = response.getAsJsonArray("items");
+      assertEquals(items.size(), 250);
+      assertEquals(items.get(0).getAsJsonObject().get("id").getAsString(), "location-000");
+      assertEquals(items.get(249).getAsJsonObject().get("id").getAsString(), "location-249");
+      assertTrue(response.get("nextMarker").isJsonNull());
+      // the listing is never fetched in pages larger than the server's
+      assertEquals(listings.pages.get(), 3);
+      assertEquals(listings.largestPage.get(), RepresentationServer.PAGE_SIZE);
+   }
+
+   @Test
+   public void testLimitAndMarker() throws IOException {
+      JsonObject response = read(open("/test/mycontext/locations?limit=30&marker=location-009"));
+      JsonArray items = response.getAsJsonArray("items");
+      assertEquals(items.size(), 30);
+      assertEquals(items.get(0).getAsJsonObject().get("id").getAsString(), "location-010");
+      assertEquals(response.get("nextMarker").getAsString(), "location-039");
+   }
+
+   @Test
+   public void testPathSegmentsArePercentDecoded() throws IOException {
+      assertEquals(open("/test/my+context/locations?limit=1").getResponseCode(), 200);
+      assertEquals(open("/test/my%2Bcontext/locations?limit=1").getResponseCode(), 200);
+      assertEquals(open("/test/my%20context/locations?limit=1").getResponseCode(), 404);
+   }
+
+   @Test
+   public void testCredentialsAreWrittenWithoutTheirSecrets() throws IOException {
+      HttpURLConnection connection = open("/test/mycontext/nodes");
+      InputStream in = connection.getInputStream();
+      String body;
+      try {
+         body = new String(ByteStreams.toByteArray(in), Charsets.UTF_8);
+      } finally {
+         in.close();
+      }
+      assertFalse(body.contains("password1"), body);
+      assertFalse(body.contains("BEGIN RSA"), body);
+      JsonObject credentials = new JsonParser().parse(body).getAsJsonObject().getAsJsonArray("items").get(0)
+              .getAsJsonObject().getAsJsonObject("defaultCredentials");
+      assertEquals(credentials.get("username").getAsString(), "root");
+      assertTrue(credentials.get("hasPassword").getAsBoolean());
+      assertTrue(credentials.get("hasPrivateKey").getAsBoolean());
+      assertFalse(credentials.has("password"));
+      assertFalse(credentials.has("privateKey"));
+   }
+
+   @Test
+   public void testContexts() throws IOException {
+      JsonObject response = read(open("/contexts"));
+      assertEquals(response.getAsJsonArray("items").size(), 0);
+   }
+
+   @Test
+   public void testErrors() throws IOException {
+      assertEquals(open("/test/mycontext/unknown").getResponseCode(), 404);
+      assertEquals(open("/test/other/locations").getResponseCode(), 404);
+      assertEquals(open("/nothing").getResponseCode(), 404);
+      assertEquals(open("/test/mycontext/locations?limit=0").getResponseCode(), 400);
+      assertEquals(open("/test/mycontext/locations?limit=many").getResponseCode(), 400);
+      HttpURLConnection post = open("/test/mycontext/locations");
+      post.setRequestMethod("POST");
+      assertEquals(post.getResponseCode(), 405);
+   }
+
+   private HttpURLConnection open(String path) throws IOException {
+      InetSocketAddress address = server.getAddress();
+      return (HttpURLConnection) new URL("http", address.getHostName(), address.getPort(), path).openConnection();
+   }
+
+   private static JsonObject read(HttpURLConnection connection) throws IOException {
+      InputStream in = connection.getInputStream();
+      try {
+         return new JsonParser().parse(new String(ByteStreams.toByteArray(in), Charsets.UTF_8)).getAsJsonObject();
+      } finally {
+         in.close();
+      }
+   }
+
+   /**
+    * Serves the {@code [locations]} listing, keeping track of the pages requested, and a {@code [nodes]} listing
+    * of a single node with credentials.
+    */
+   private static class LocationListings implements ManagedBean, PagedListings {
+
+      private final int size;
+      private final AtomicInteger pages = new AtomicInteger();
+      private final AtomicInteger largestPage = new AtomicInteger();
+
+      private LocationListings(int size) {
+         this.size = size;
+      }
+
+      @Override
+      public String getType() {
+         return "test";
+      }
+
+      @Override
+      public Page<? extends Serializable> listPage(List<String> path, @Nullable String marker, int limit) {
+         if (path.equals(ImmutableList.of("nodes"))) {
+            return Page.create(ImmutableList.of(NodeMetadata.builder().id("node-1").defaultCredentials(
+                    LoginCredentials.builder().username("root").password("password1").privateKey("-----BEGIN RSA")
+                            .build()).build()), null);
+         }
+         if (!path.equals(ImmutableList.of("locations"))) {
+            return null;
+         }
+         pages.incrementAndGet();
+         largestPage.set(Math.max(largestPage.get(), limit));
+         int first = marker == null ? 0 : Integer.parseInt(marker.substring("location-".length())) + 1;
+         int end = Math.min(size, first + limit);
+         ImmutableList.Builder<Location> items = ImmutableList.builder();
+         for (int i = first; i < end; i++) {
+            items.add(Location.builder().id(String.format("location-%03d", i)).scope("ZONE").build());
+         }
+         return Page.create(items.build(), end < size ? String.format("location-%03d", end - 1) : null);
+      }
+   }
+}
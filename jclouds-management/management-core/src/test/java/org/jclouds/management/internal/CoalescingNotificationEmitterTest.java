@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.internal;
+
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(groups = "unit", testName = "CoalescingNotificationEmitterTest")
+public class CoalescingNotificationEmitterTest {
+
+   private static class TestEmitter extends CoalescingNotificationEmitter {
+      private TestEmitter(int maxPerInterval, int maxPending) {
+         super(50, maxPerInterval, maxPending);
+      }
+   }
+
+   private static class RecordingListener implements NotificationListener {
+      private final List<Notification> received = Collections.synchronizedList(Lists.<Notification>newArrayList());
+      private final CountDownLatch latch;
+
+      private RecordingListener(int expected) {
+         this.latch = new CountDownLatch(expected);
+      }
+
+      @Override
+      public void handleNotification(Notification notification, Object handback) {
+         received.add(notification);
+         latch.countDown();
+      }
+   }
+
+   @Test
+   public void testNotificationsAboutTheSameResourceAreCoalesced() throws InterruptedException {
+      TestEmitter emitter = new TestEmitter(10, 10);
+      RecordingListener listener = new RecordingListener(2);
+      emitter.addNotificationListener(listener, null, null);
+
+      emitter.emit("state", "node-1", "node-1 suspended", "SUSPENDED");
+      emitter.emit("state", "node-1", "node-1 resumed", "RUNNING");
+      emitter.emit("state", "node-2", "node-2 suspended", "SUSPENDED");
+
+      assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+      Thread.sleep(200);
+      assertEquals(listener.received.size(), 2);
+      assertEquals(listener.received.get(0).getMessage(), "node-1 resumed (2 events coalesced)");
+      assertEquals(listener.received.get(0).getUserData(), "RUNNING");
+      assertEquals(listener.received.get(1).getMessage(), "node-2 suspended");
+   }
+
+   @Test
+   public void testNotificationsBeyondTheBufferAreDropped() throws InterruptedException {
+      TestEmitter emitter = new TestEmitter(10, 2);
+      RecordingListener listener = new RecordingListener(3);
+      emitter.addNotificationListener(listener, null, null);
+
+      for (int i = 0; i < 5; i++) {
+         emitter.emit("created", "node-" + i, "node-" + i + " created", null);
+      }
+
+      assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+      assertEquals(listener.received.get(0).getType(), "created");
+      assertEquals(listener.received.get(1).getType(), "created");
+      assertEquals(listener.received.get(2).getType(), CoalescingNotificationEmitter.DROPPED);
+      assertEquals(listener.received.get(2).getUserData(), 3L);
+   }
+
+   @Test
+   public void testAtMostMaxPerIntervalAreSentAtOnce() throws InterruptedException {
+      TestEmitter emitter = new TestEmitter(2, 10);
+      RecordingListener listener = new RecordingListener(5);
+      emitter.addNotificationListener(listener, null, null);
+
+      long start = System.nanoTime();
+      for (int i = 0; i < 5; i++) {
+         emitter.emit("created", "node-" + i, "node-" + i + " created", null);
+      }
+
+      assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+      // three batches, one per interval
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+      long previous = 0;
+      for (Notification notification : listener.received) {
+         assertTrue(notification.getSequenceNumber() > previous);
+         previous = notification.getSequenceNumber();
+      }
+   }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.internal;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(groups = "unit", testName = "LatencyHistogramTest")
+public class LatencyHistogramTest {
+
+   public void testEmpty() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      assertEquals(histogram.count(), 0);
+      assertEquals(histogram.meanMillis(), 0.0);
+      assertEquals(histogram.percentileMillis(0.99), 0.0);
+   }
+
+   public void testMeanAndMax() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(30));
+      assertEquals(histogram.count(), 2);
+      assertEquals(histogram.meanMillis(), 20.0);
+      assertEquals(histogram.maxMillis(), 30.0);
+   }
+
+   public void testPercentilesAreBoundedByTheirBucket() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (int i = 0; i < 99; i++) {
+         histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+      }
+      histogram.record(TimeUnit.SECONDS.toNanos(5));
+      double p50 = histogram.percentileMillis(0.5);
+      assertTrue(p50 >= 1 && p50 <= 2, "p50 " + p50);
+      double p99 = histogram.percentileMillis(0.99);
+      assertTrue(p99 >= 1 && p99 <= 2, "p99 " + p99);
+      assertEquals(histogram.percentileMillis(1), 5000.0);
+   }
+
+}
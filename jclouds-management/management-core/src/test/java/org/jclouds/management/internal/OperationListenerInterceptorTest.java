@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.internal;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.matcher.Matchers;
+import com.google.inject.util.Providers;
+import org.jclouds.management.OperationListener;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+
+@Test(groups = "unit", testName = "OperationListenerInterceptorTest")
+public class OperationListenerInterceptorTest {
+
+   @Test
+   public void testOverloadsCallingEachOtherAreReportedOnce() {
+      RecordingListener listener = new RecordingListener();
+      NodeService service = intercepted(listener);
+
+      service.createNodes("web", 2);
+      assertEquals(listener.calls, ImmutableList.of("createNodes(web, 2) = [web-0, web-1]"));
+
+      service.createNodes("db", 1, "small");
+      assertEquals(listener.calls, ImmutableList.of("createNodes(web, 2) = [web-0, web-1]",
+              "createNodes(db, 1, small) = [db-0]"));
+   }
+
+   @Test
+   public void testCallsAreReportedAfterAFailedOne() {
+      RecordingListener listener = new RecordingListener();
+      NodeService service = intercepted(listener);
+      try {
+         service.createNodes("web", -1);
+      } catch (IllegalArgumentException e) {
+         // expected
+      }
+      service.createNodes("web", 1);
+      assertEquals(listener.calls, ImmutableList.of("createNodes(web, 1) = [web-0]"));
+   }
+
+   private static NodeService intercepted(OperationListener listener) {
+      final OperationListeners listeners = new OperationListeners();
+      listeners.add(listener);
+      return Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bindInterceptor(Matchers.subclassesOf(NodeService.class), Matchers.any(),
+                    new OperationListenerInterceptor(Providers.of(listeners)));
+         }
+      }).getInstance(NodeService.class);
+   }
+
+   /**
+    * Delegates between overloads, like BaseComputeService.createNodesInGroup.
+    */
+   public static class NodeService {
+
+      public Set<String> createNodes(String group, int count) {
+         return createNodes(group, count, "default");
+      }
+
+      public Set<String> createNodes(String group, int count, String template) {
+         if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+         }
+         ImmutableSet.Builder<String> nodes = ImmutableSet.builder();
+         for (int i = 0; i < count; i++) {
+            nodes.add(group + "-" + i);
+         }
+         return nodes.build();
+      }
+   }
+
+   private static class RecordingListener implements OperationListener {
+
+      private final List<String> calls = Lists.newArrayList();
+
+      @Override
+      public void operationCompleted(Method method, Object[] args, Object result) {
+         StringBuilder call = new StringBuilder(method.getName()).append('(');
+         for (int i = 0; i < args.length; i++) {
+            call.append(i > 0 ? ", " : "").append(args[i]);
+         }
+         calls.add(call.append(") = ").append(result).toString());
+      }
+   }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.management.internal;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.jclouds.representations.Page;
+import org.testng.annotations.Test;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+@Test(groups = "unit", testName = "SnapshotListingTest")
+public class SnapshotListingTest {
+
+   private static final Function<String, String> UPPER_CASE = new Function<String, String>() {
+      @Override
+      public String apply(String input) {
+         return input.toUpperCase();
+      }
+   };
+
+   @Test
+   public void testPagesAreCutFromOneSortedListing() {
+      final AtomicInteger listings = new AtomicInteger();
+      SnapshotListing<String> listing = new SnapshotListing<String>(new Supplier<Set<String>>() {
+         @Override
+         public Set<String> get() {
+            listings.incrementAndGet();
+            return ImmutableSet.of("d", "b", "e", "a", "c");
+         }
+      }, Functions.<String>identity(), 1, TimeUnit.MINUTES);
+
+      Page<String> first = listing.page(null, 2, UPPER_CASE);
+      assertEquals(first.getItems(), ImmutableList.of("A", "B"));
+      assertEquals(first.getNextMarker(), "b");
+
+      Page<String> second = listing.page(first.getNextMarker(), 2, UPPER_CASE);
+      assertEquals(second.getItems(), ImmutableList.of("C", "D"));
+      assertEquals(second.getNextMarker(), "d");
+
+      Page<String> last = listing.page(second.getNextMarker(), 2, UPPER_CASE);
+      assertEquals(last.getItems(), ImmutableList.of("E"));
+      assertNull(last.getNextMarker());
+
+      assertEquals(listing.count(), 5);
+      assertEquals(listings.get(), 1);
+   }
+
+   @Test
+   public void testLastFullPageHasNoNextMarker() {
+      SnapshotListing<String> listing = new SnapshotListing<String>(new Supplier<Set<String>>() {
+         @Override
+         public Set<String> get() {
+            return ImmutableSet.of("a", "b");
+         }
+      }, Functions.<String>identity(), 1, TimeUnit.MINUTES);
+
+      Page<String> page = listing.page(null, 2, UPPER_CASE);
+      assertEquals(page.getItems(), ImmutableList.of("A", "B"));
+      assertNull(page.getNextMarker());
+   }
+
+   @Test
+   public void testListingIsTakenAgainOnceExpired() throws InterruptedException {
+      final AtomicInteger listings = new AtomicInteger();
+      SnapshotListing<String> listing = new SnapshotListing<String>(new Supplier<Set<String>>() {
+         @Override
+         public Set<String> get() {
+            return listings.incrementAndGet() == 1 ? ImmutableSet.of("a") : ImmutableSet.of("a", "b");
+         }
+      }, Functions.<String>identity(), 10, TimeUnit.MILLISECONDS);
+
+      assertEquals(listing.count(), 1);
+      Thread.sleep(50);
+      assertEquals(listing.count(), 2);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testLimitMustBePositive() {
+      new SnapshotListing<String>(new Supplier<Set<String>>() {
+         @Override
+         public Set<String> get() {
+            return ImmutableSet.of();
+         }
+      }, Functions.<String>identity(), 1, TimeUnit.MINUTES).page(null, 0, UPPER_CASE);
+   }
+}
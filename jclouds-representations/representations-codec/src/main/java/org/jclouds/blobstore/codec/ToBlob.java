@@ -17,10 +17,19 @@
 package org.jclouds.blobstore.codec;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multimaps;
 import org.jclouds.blobstore.representations.Blob;
 import org.jclouds.javax.annotation.Nullable;
 
+import java.util.Collection;
+import java.util.Map;
 
+/**
+ * Converts {@link org.jclouds.blobstore.domain.Blob}. The headers are copied, as the blob's multimap can
+ * change after the conversion and its map view isn't serializable.
+ */
 public enum ToBlob implements Function<org.jclouds.blobstore.domain.Blob, Blob> {
 
    INSTANCE;
@@ -30,7 +39,11 @@ public enum ToBlob implements Function<org.jclouds.blobstore.domain.Blob, Blob>
       if (input == null) {
          return null;
       }
-      return Blob.builder().allHeaders(input.getAllHeaders().asMap())
+      ImmutableMap.Builder<String, Collection<String>> headers = ImmutableMap.builder();
+      for (Map.Entry<String, Collection<String>> entry : Multimaps.asMap(input.getAllHeaders()).entrySet()) {
+         headers.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+      }
+      return Blob.builder().allHeaders(headers.build())
                  .blobMetadata(ToBlobMetadata.INSTANCE.apply(input.getMetadata())).build();
    }
 
@@ -16,7 +16,11 @@
  */
 package org.jclouds.blobstore.codec;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
 import org.jclouds.ContextBuilder;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.BlobStoreContext;
@@ -24,6 +28,11 @@ import org.jclouds.blobstore.representations.Blob;
 import org.jclouds.blobstore.representations.StorageMetadata;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Set;
 
 import static com.google.common.collect.Iterables.transform;
@@ -66,4 +75,37 @@ public class BlobStoreConversionsTest {
       assertNotNull(representation);
       assertNotNull(representation.getBlobMetadata());
    }
+
+   @Test
+   void testToBlobCopiesHeadersAndMetadata() throws IOException, ClassNotFoundException {
+      BlobStore blobStore = getBlobStore();
+      blobStore.createContainerInLocation(null, "metadata");
+      blobStore.putBlob("metadata", blobStore.blobBuilder("myblob").payload("testcontent")
+                                             .userMetadata(ImmutableMap.of("owner", "me")).build());
+      org.jclouds.blobstore.domain.Blob blob = blobStore.getBlob("metadata", "myblob");
+      blob.setAllHeaders(ImmutableMultimap.of("X-Test", "1"));
+      Blob representation = ToBlob.INSTANCE.apply(blob);
+      assertEquals(representation.getBlobMetadata().getUserMetadata(), ImmutableMap.of("owner", "me"));
+      assertEquals(representation.getAllHeaders().get("X-Test"), ImmutableList.of("1"));
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(representation);
+      out.close();
+      Object read = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+      assertEquals(read, representation);
+   }
+
+   @Test
+   void testToBlobIsNotChangedByTheBlob() {
+      BlobStore blobStore = getBlobStore();
+      org.jclouds.blobstore.domain.Blob blob = blobStore.blobBuilder("myblob").payload("testcontent")
+                                                         .userMetadata(ImmutableMap.of("owner", "me")).build();
+      blob.setAllHeaders(LinkedHashMultimap.create(ImmutableMultimap.of("X-Test", "1")));
+      Blob representation = ToBlob.INSTANCE.apply(blob);
+      blob.getMetadata().getUserMetadata().put("owner", "someone else");
+      blob.getAllHeaders().put("X-Test", "2");
+      assertEquals(representation.getBlobMetadata().getUserMetadata(), ImmutableMap.of("owner", "me"));
+      assertEquals(representation.getAllHeaders().get("X-Test"), ImmutableList.of("1"));
+   }
 }
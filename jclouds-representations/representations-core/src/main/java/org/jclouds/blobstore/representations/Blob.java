@@ -70,10 +70,11 @@ public class Blob implements Serializable {
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      Blob that = (Blob) obj;
+      return Objects.equal(this.blobMetadata, that.blobMetadata) && Objects.equal(this.allHeaders, that.allHeaders);
    }
 
    @Override
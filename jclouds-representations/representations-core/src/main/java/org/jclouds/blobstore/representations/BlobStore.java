@@ -16,7 +16,9 @@
  */
 package org.jclouds.blobstore.representations;
 
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.representations.Location;
+import org.jclouds.representations.Page;
 
 import java.util.Set;
 
@@ -53,6 +55,25 @@ public interface BlobStore {
     */
    Set<StorageMetadata> list(String container, String directory);
 
+   /**
+    * Lists one page of the resources in a container non-recursive.
+    *
+    * @param container what to list
+    * @param marker the next marker of the previous page, or null for the first page
+    * @param limit the maximum number of resources to return
+    */
+   Page<StorageMetadata> list(String container, @Nullable String marker, int limit);
+
+   /**
+    * Lists one page of the resources in a containers directory non-recursive.
+    *
+    * @param container what to list
+    * @param directory the directory to list
+    * @param marker the next marker of the previous page, or null for the first page
+    * @param limit the maximum number of resources to return
+    */
+   Page<StorageMetadata> list(String container, String directory, @Nullable String marker, int limit);
+
    /**
     * Retrieves the metadata of a {@code Blob} at location {@code container/name}
     *
@@ -178,6 +199,8 @@ public interface BlobStore {
    void removeBlob(String container, String name);
 
    /**
+    * The count is cached for a short while, so repeated calls don't walk the container again.
+    *
     * @return a count of all blobs in the container, excluding directory markers
     */
    long countBlobs(String container);
@@ -19,6 +19,7 @@ package org.jclouds.blobstore.representations;
 import com.google.common.base.Objects;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Date;
 
 import static org.jclouds.representations.Representations.dateFormat;
@@ -133,19 +134,23 @@ public class ContentMetadata implements Serializable {
    }
 
    public int hashCode() {
-      return Objects.hashCode(length, disposition, encoding, type, md5, language, expires);
+      return Objects.hashCode(length, disposition, encoding, type, Arrays.hashCode(md5), language, expires);
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      ContentMetadata that = (ContentMetadata) obj;
+      return Objects.equal(this.length, that.length) && Objects.equal(this.disposition, that.disposition)
+              && Objects.equal(this.encoding, that.encoding) && Objects.equal(this.type, that.type)
+              && Arrays.equals(this.md5, that.md5) && Objects.equal(this.language, that.language)
+              && Objects.equal(this.expires, that.expires);
    }
 
    @Override
    public String toString() {
-      return Objects.toStringHelper(this).add("length", language).add("disposition", disposition).add("encoding", encoding)
+      return Objects.toStringHelper(this).add("length", length).add("disposition", disposition).add("encoding", encoding)
               .add("type", type).add("md5", md5).add("language", language)
               .add("expires", expires).toString();
    }
@@ -161,14 +161,19 @@ public class StorageMetadata implements Serializable {
    }
 
    public int hashCode() {
-      return Objects.hashCode(uri);
+      return Objects.hashCode(providerId, name);
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      StorageMetadata that = (StorageMetadata) obj;
+      return Objects.equal(this.name, that.name) && Objects.equal(this.providerId, that.providerId)
+              && Objects.equal(this.type, that.type) && Objects.equal(this.eTag, that.eTag)
+              && Objects.equal(this.creationDate, that.creationDate)
+              && Objects.equal(this.lastModifiedDate, that.lastModifiedDate)
+              && Objects.equal(this.userMetadata, that.userMetadata);
    }
 
    @Override
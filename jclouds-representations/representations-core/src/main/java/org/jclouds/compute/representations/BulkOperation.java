@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.representations;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Map;
+
+import static org.jclouds.representations.Representations.dateFormat;
+
+/**
+ * The progress of an operation applied to many nodes in the background.
+ */
+public class BulkOperation implements Serializable {
+
+   private static final long serialVersionUID = 4307761945232713095L;
+
+   public static Builder builder() {
+      return new Builder();
+   }
+
+   public static class Builder {
+      private String id;
+      private String action;
+      private String filter;
+      private int total = -1;
+      private int completed;
+      private int failed;
+      private boolean cancelled;
+      private boolean done;
+      private Map<String, String> failures = ImmutableMap.of();
+      private String startDate;
+      private String endDate;
+
+      public Builder id(final String id) {
+         this.id = id;
+         return this;
+      }
+
+      public Builder action(final String action) {
+         this.action = action;
+         return this;
+      }
+
+      public Builder filter(final String filter) {
+         this.filter = filter;
+         return this;
+      }
+
+      public Builder total(final int total) {
+         this.total = total;
+         return this;
+      }
+
+      public Builder completed(final int completed) {
+         this.completed = completed;
+         return this;
+      }
+
+      public Builder failed(final int failed) {
+         this.failed = failed;
+         return this;
+      }
+
+      public Builder cancelled(final boolean cancelled) {
+         this.cancelled = cancelled;
+         return this;
+      }
+
+      public Builder done(final boolean done) {
+         this.done = done;
+         return this;
+      }
+
+      public Builder failures(final Map<String, String> failures) {
+         this.failures = ImmutableMap.copyOf(failures);
+         return this;
+      }
+
+      public Builder startDate(final Date startDate) {
+         this.startDate = dateFormat(startDate);
+         return this;
+      }
+
+      public Builder endDate(final Date endDate) {
+         this.endDate = dateFormat(endDate);
+         return this;
+      }
+
+      public BulkOperation build() {
+         return new BulkOperation(id, action, filter, total, completed, failed, cancelled, done, failures, startDate,
+                 endDate);
+      }
+   }
+
+   private final String id;
+   private final String action;
+   private final String filter;
+   private final int total;
+   private final int completed;
+   private final int failed;
+   private final boolean cancelled;
+   private final boolean done;
+   private final Map<String, String> failures;
+   private final String startDate;
+   private final String endDate;
+
+   public BulkOperation(String id, String action, String filter, int total, int completed, int failed,
+                        boolean cancelled, boolean done, Map<String, String> failures, String startDate,
+                        String endDate) {
+      this.id = id;
+      this.action = action;
+      this.filter = filter;
+      this.total = total;
+      this.completed = completed;
+      this.failed = failed;
+      this.cancelled = cancelled;
+      this.done = done;
+      this.failures = failures;
+      this.startDate = startDate;
+      this.endDate = endDate;
+   }
+
+   public String getId() {
+      return id;
+   }
+
+   public String getAction() {
+      return action;
+   }
+
+   public String getFilter() {
+      return filter;
+   }
+
+   /**
+    * The number of nodes the operation applies to, or -1 while they are being listed.
+    */
+   public int getTotal() {
+      return total;
+   }
+
+   public int getCompleted() {
+      return completed;
+   }
+
+   public int getFailed() {
+      return failed;
+   }
+
+   public boolean isCancelled() {
+      return cancelled;
+   }
+
+   public boolean isDone() {
+      return done;
+   }
+
+   /**
+    * The error of each node the operation failed on, by node id.
+    */
+   public Map<String, String> getFailures() {
+      return failures;
+   }
+
+   public String getStartDate() {
+      return startDate;
+   }
+
+   public String getEndDate() {
+      return endDate;
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hashCode(id);
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      BulkOperation that = (BulkOperation) obj;
+      return Objects.equal(this.id, that.id) && Objects.equal(this.total, that.total)
+              && Objects.equal(this.completed, that.completed) && Objects.equal(this.failed, that.failed)
+              && Objects.equal(this.cancelled, that.cancelled) && Objects.equal(this.done, that.done)
+              && Objects.equal(this.action, that.action) && Objects.equal(this.filter, that.filter)
+              && Objects.equal(this.failures, that.failures) && Objects.equal(this.startDate, that.startDate)
+              && Objects.equal(this.endDate, that.endDate);
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).add("id", id).add("action", action).add("filter", filter)
+              .add("total", total).add("completed", completed).add("failed", failed).add("cancelled", cancelled)
+              .add("done", done).add("failures", failures).add("startDate", startDate).add("endDate", endDate)
+              .toString();
+   }
+}
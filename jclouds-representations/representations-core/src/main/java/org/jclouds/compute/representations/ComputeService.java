@@ -16,7 +16,9 @@
  */
 package org.jclouds.compute.representations;
 
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.representations.Location;
+import org.jclouds.representations.Page;
 
 import java.util.Set;
 
@@ -33,6 +35,16 @@ public interface ComputeService {
     */
    Set<Hardware> listHardwareProfiles();
 
+   /**
+    * Lists the hardware profiles one page at a time, in id order.
+    *
+    * @param marker
+    *           the next marker of the previous page, or null for the first page
+    * @param limit
+    *           the maximum number of profiles to return
+    */
+   Page<Hardware> listHardwareProfiles(@Nullable String marker, int limit);
+
    /**
     * Images define the operating system and metadata related to a node. In some clouds, Images are
     * bound to a specific region, and their identifiers are different across these regions. For this
@@ -45,6 +57,16 @@ public interface ComputeService {
     */
    Set<Image> listImages();
 
+   /**
+    * Lists the images one page at a time, in id order.
+    *
+    * @param marker
+    *           the next marker of the previous page, or null for the first page
+    * @param limit
+    *           the maximum number of images to return
+    */
+   Page<Image> listImages(@Nullable String marker, int limit);
+
 
    /**
     * all nodes available to the current user by id. If possible, the returned set will include
@@ -52,6 +74,22 @@ public interface ComputeService {
     */
    Set<NodeMetadata> listNodes();
 
+   /**
+    * Lists the nodes one page at a time, in id order. Pages are cut from a snapshot of the nodes
+    * that is refreshed periodically, so browsing all pages lists the nodes from the provider once.
+    *
+    * @param marker
+    *           the next marker of the previous page, or null for the first page
+    * @param limit
+    *           the maximum number of nodes to return
+    */
+   Page<NodeMetadata> listNodes(@Nullable String marker, int limit);
+
+   /**
+    * The number of nodes in the latest snapshot used by {@link #listNodes(String, int)}.
+    */
+   int countNodes();
+
    /**
     * The list locations command returns all the valid locations for nodes. A location has a scope,
     * which is typically region or zone. A region is a general area, like eu-west, where a zone is
@@ -119,4 +157,59 @@ public interface ComputeService {
     * reboot the node, given its id.
     */
    void rebootNode(String id);
+
+   /**
+    * Destroys, in the background, the nodes matching all the given criteria. Nodes that are already
+    * terminated are left out, unless the status asked for is TERMINATED.
+    *
+    * @param group
+    *           the group of the nodes, or null for any group
+    * @param status
+    *           the status of the nodes, or null for any status
+    * @param tag
+    *           a tag of the nodes, or null for any tags
+    * @return the operation, whose progress can be followed with {@link #getBulkOperation(String)}
+    * @throws IllegalStateException
+    *            if too many bulk operations are running already
+    */
+   BulkOperation destroyNodesMatching(@Nullable String group, @Nullable String status, @Nullable String tag);
+
+   /**
+    * Reboots, in the background, the nodes matching all the given criteria.
+    *
+    * @see #destroyNodesMatching(String, String, String)
+    */
+   BulkOperation rebootNodesMatching(@Nullable String group, @Nullable String status, @Nullable String tag);
+
+   /**
+    * Resumes, in the background, the nodes matching all the given criteria.
+    *
+    * @see #destroyNodesMatching(String, String, String)
+    */
+   BulkOperation resumeNodesMatching(@Nullable String group, @Nullable String status, @Nullable String tag);
+
+   /**
+    * Suspends, in the background, the nodes matching all the given criteria.
+    *
+    * @see #destroyNodesMatching(String, String, String)
+    */
+   BulkOperation suspendNodesMatching(@Nullable String group, @Nullable String status, @Nullable String tag);
+
+   /**
+    * Returns the current progress of a bulk operation, or null if it is unknown.
+    */
+   BulkOperation getBulkOperation(String id);
+
+   /**
+    * Lists the running bulk operations and the latest finished ones.
+    */
+   Set<BulkOperation> listBulkOperations();
+
+   /**
+    * Stops a bulk operation from applying to more nodes. The nodes it is already applying to are
+    * left to finish.
+    *
+    * @return whether the operation was running
+    */
+   boolean cancelBulkOperation(String id);
 }
@@ -81,10 +81,12 @@ public class ExecResponse implements Serializable {
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      ExecResponse that = (ExecResponse) obj;
+      return this.exitStatus == that.exitStatus && Objects.equal(this.output, that.output)
+              && Objects.equal(this.error, that.error);
    }
 
    @Override
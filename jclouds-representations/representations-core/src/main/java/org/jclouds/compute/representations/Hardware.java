@@ -135,10 +135,13 @@ public class Hardware implements Serializable {
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      Hardware that = (Hardware) obj;
+      return Objects.equal(this.id, that.id) && Objects.equal(this.name, that.name) && this.ram == that.ram
+              && Objects.equal(this.hypervisor, that.hypervisor) && Objects.equal(this.processors, that.processors)
+              && Objects.equal(this.volumes, that.volumes);
    }
 
    @Override
@@ -145,10 +145,15 @@ public class Image implements Serializable {
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      Image that = (Image) obj;
+      return Objects.equal(this.id, that.id) && Objects.equal(this.name, that.name)
+              && Objects.equal(this.status, that.status) && Objects.equal(this.description, that.description)
+              && Objects.equal(this.version, that.version) && Objects.equal(this.tags, that.tags)
+              && Objects.equal(this.operatingSystem, that.operatingSystem)
+              && Objects.equal(this.defaultCredentials, that.defaultCredentials);
    }
 
    @Override
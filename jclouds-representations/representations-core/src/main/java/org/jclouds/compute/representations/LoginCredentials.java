@@ -96,6 +96,10 @@ public class LoginCredentials implements Serializable {
       return password;
    }
 
+   public boolean hasPrivateKey() {
+      return privateKey != null;
+   }
+
    public String getCredentialUrl() {
       return credentialUrl;
    }
@@ -107,14 +111,21 @@ public class LoginCredentials implements Serializable {
 
    @Override
    public int hashCode() {
-      return Objects.hashCode(username, password, credentialUrl, authenticateSudo);
+      return Objects.hashCode(username, authenticateSudo);
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      LoginCredentials that = (LoginCredentials) obj;
+      // toString() hides the secrets, so only their presence tells credentials apart
+      return Objects.equal(this.username, that.username) && this.authenticateSudo == that.authenticateSudo
+              && hasPassword(this) == hasPassword(that) && (this.privateKey != null) == (that.privateKey != null);
+   }
+
+   private static boolean hasPassword(LoginCredentials credentials) {
+      return credentials.password != null || credentials.credentialUrl != null;
    }
 
    @Override
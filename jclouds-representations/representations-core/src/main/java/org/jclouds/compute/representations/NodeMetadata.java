@@ -208,10 +208,17 @@ public class NodeMetadata implements Serializable {
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      NodeMetadata that = (NodeMetadata) obj;
+      return Objects.equal(this.id, that.id) && Objects.equal(this.name, that.name)
+              && Objects.equal(this.description, that.description) && Objects.equal(this.status, that.status)
+              && Objects.equal(this.locationId, that.locationId) && Objects.equal(this.imageId, that.imageId)
+              && Objects.equal(this.hostname, that.hostname) && Objects.equal(this.group, that.group)
+              && this.loginPort == that.loginPort && Objects.equal(this.tags, that.tags)
+              && Objects.equal(this.metadata, that.metadata)
+              && Objects.equal(this.defaultCredentials, that.defaultCredentials);
    }
 
    @Override
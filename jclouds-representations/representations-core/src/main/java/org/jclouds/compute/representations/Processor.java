@@ -70,10 +70,11 @@ public class Processor implements Serializable {
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      Processor that = (Processor) obj;
+      return Double.compare(this.cores, that.cores) == 0 && Double.compare(this.speed, that.speed) == 0;
    }
 
    @Override
@@ -119,10 +119,13 @@ public class Volume implements Serializable {
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      Volume that = (Volume) obj;
+      return Objects.equal(this.id, that.id) && Objects.equal(this.type, that.type)
+              && Objects.equal(this.size, that.size) && Objects.equal(this.device, that.device)
+              && this.durable == that.durable && this.bootDevice == that.bootDevice;
    }
 
    @Override
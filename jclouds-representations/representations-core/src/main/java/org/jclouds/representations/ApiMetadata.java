@@ -239,10 +239,20 @@ public class ApiMetadata implements Serializable {
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      ApiMetadata that = (ApiMetadata) obj;
+      return Objects.equal(this.id, that.id) && Objects.equal(this.name, that.name)
+              && Objects.equal(this.version, that.version) && Objects.equal(this.endpointName, that.endpointName)
+              && Objects.equal(this.identityName, that.identityName)
+              && Objects.equal(this.credentialName, that.credentialName)
+              && Objects.equal(this.defaultEndpoint, that.defaultEndpoint)
+              && Objects.equal(this.defaultIdentity, that.defaultIdentity)
+              && Objects.equal(this.defaultCredential, that.defaultCredential)
+              && Objects.equal(this.documentation, that.documentation) && Objects.equal(this.context, that.context)
+              && Objects.equal(this.defaultProperties, that.defaultProperties)
+              && Objects.equal(this.defaultModules, that.defaultModules) && Objects.equal(this.views, that.views);
    }
 
    @Override
@@ -82,10 +82,12 @@ public class Context implements Serializable {
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      Context that = (Context) obj;
+      return Objects.equal(this.name, that.name) && Objects.equal(this.providerId, that.providerId)
+              && Objects.equal(this.identity, that.identity);
    }
 
    @Override
@@ -109,10 +109,13 @@ public class Location implements Serializable {
    }
 
    @Override
-   public boolean equals(Object that) {
-      if (that == null)
-         return false;
-      return Objects.equal(this.toString(), that.toString());
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      Location that = (Location) obj;
+      return Objects.equal(this.id, that.id) && Objects.equal(this.scope, that.scope)
+              && Objects.equal(this.description, that.description) && Objects.equal(this.parentId, that.parentId)
+              && Objects.equal(this.iso3166Codes, that.iso3166Codes);
    }
 
    @Override
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.representations;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import org.jclouds.javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A page of a listing. The listing continues after {@link #getNextMarker()}, if it is set.
+ * @param <T>
+ */
+public class Page<T extends Serializable> implements Serializable {
+
+   private static final long serialVersionUID = 6287326522137438463L;
+
+   public static <T extends Serializable> Page<T> create(Iterable<? extends T> items, @Nullable String nextMarker) {
+      return new Page<T>(ImmutableList.<T>copyOf(items), nextMarker);
+   }
+
+   private final List<T> items;
+   private final String nextMarker;
+
+   private Page(List<T> items, String nextMarker) {
+      this.items = items;
+      this.nextMarker = nextMarker;
+   }
+
+   public List<T> getItems() {
+      return items;
+   }
+
+   /**
+    * The marker to pass to get the next page, or null if this is the last page.
+    */
+   @Nullable
+   public String getNextMarker() {
+      return nextMarker;
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hashCode(items, nextMarker);
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null || getClass() != obj.getClass()) return false;
+      Page<?> that = (Page<?>) obj;
+      return Objects.equal(this.items, that.items) && Objects.equal(this.nextMarker, that.nextMarker);
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).add("items", items).add("nextMarker", nextMarker).toString();
+   }
+}
@@ -17,8 +17,14 @@
 package org.jclouds.representations;
 
 import java.text.DateFormat;
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
 
 public final class Representations {
 
@@ -26,9 +32,100 @@ public final class Representations {
       //Utility Class
    }
 
-   public static final DateFormat DATE_FORMAT = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss zzz");
+   /**
+    * @deprecated use {@link #dateFormat(Date)}. Kept for callers that format through this field: it gives each
+    *             thread its own {@link SimpleDateFormat}, so it is safe to share. Setting its time zone, calendar,
+    *             number format or leniency only changes the format of the calling thread.
+    */
+   @Deprecated
+   public static final DateFormat DATE_FORMAT = new ThreadLocalDateFormat(TimestampFormat.PATTERN);
+
+   private static final TimestampFormat TIMESTAMP_FORMAT = TimestampFormat.create(TimeZone.getDefault(),
+           Locale.getDefault());
 
    public static String dateFormat(Date date) {
-      return date != null ? DATE_FORMAT.format(date) : "";
+      return date != null ? TIMESTAMP_FORMAT.format(date) : "";
+   }
+
+   private static final class ThreadLocalDateFormat extends DateFormat {
+
+      private static final long serialVersionUID = 1L;
+
+      private final transient ThreadLocal<DateFormat> formats;
+
+      private ThreadLocalDateFormat(final String pattern) {
+         this.formats = new ThreadLocal<DateFormat>() {
+            @Override
+            protected DateFormat initialValue() {
+               return new SimpleDateFormat(pattern);
+            }
+         };
+         // equals and hashCode read these
+         DateFormat template = new SimpleDateFormat(pattern);
+         this.calendar = template.getCalendar();
+         this.numberFormat = template.getNumberFormat();
+      }
+
+      @Override
+      public StringBuffer format(Date date, StringBuffer toAppendTo, FieldPosition fieldPosition) {
+         return formats.get().format(date, toAppendTo, fieldPosition);
+      }
+
+      @Override
+      public Date parse(String source, ParsePosition pos) {
+         return formats.get().parse(source, pos);
+      }
+
+      @Override
+      public Calendar getCalendar() {
+         return formats.get().getCalendar();
+      }
+
+      @Override
+      public void setCalendar(Calendar newCalendar) {
+         formats.get().setCalendar(newCalendar);
+      }
+
+      @Override
+      public NumberFormat getNumberFormat() {
+         return formats.get().getNumberFormat();
+      }
+
+      @Override
+      public void setNumberFormat(NumberFormat newNumberFormat) {
+         formats.get().setNumberFormat(newNumberFormat);
+      }
+
+      @Override
+      public TimeZone getTimeZone() {
+         return formats.get().getTimeZone();
+      }
+
+      @Override
+      public void setTimeZone(TimeZone zone) {
+         formats.get().setTimeZone(zone);
+      }
+
+      @Override
+      public boolean isLenient() {
+         return formats.get().isLenient();
+      }
+
+      @Override
+      public void setLenient(boolean lenient) {
+         formats.get().setLenient(lenient);
+      }
+
+      /**
+       * Returns an independent copy of the calling thread's format.
+       */
+      @Override
+      public Object clone() {
+         return formats.get().clone();
+      }
+
+      private Object readResolve() {
+         return DATE_FORMAT;
+      }
    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.representations;
+
+import java.text.DateFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Formats dates as {@link #PATTERN}, like a {@link SimpleDateFormat} of the same time zone and
+ * locale, but can be shared by threads.
+ * <p>
+ * Timestamps between 1970 and 9999 are formatted directly from the epoch millis, when the locale
+ * uses the Gregorian calendar and ASCII digits. Other timestamps are formatted by a
+ * {@link SimpleDateFormat} of the calling thread.
+ */
+public final class TimestampFormat {
+
+   public static final String PATTERN = "dd/MM/yyyy HH:mm:ss zzz";
+
+   // 9999-12-31T23:59:59.999Z, after which years need more than four digits, in UTC at least
+   private static final long MAX_FAST_MILLIS = 253402300799999L;
+   private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+   private final TimeZone timeZone;
+   private final Locale locale;
+   private final boolean fastPath;
+   private final String standardName;
+   private final String daylightName;
+   private final ThreadLocal<DateFormat> fallback = new ThreadLocal<DateFormat>() {
+      @Override
+      protected DateFormat initialValue() {
+         DateFormat format = new SimpleDateFormat(PATTERN, locale);
+         format.setTimeZone((TimeZone) timeZone.clone());
+         return format;
+      }
+   };
+
+   public static TimestampFormat create(TimeZone timeZone, Locale locale) {
+      return new TimestampFormat(timeZone, locale);
+   }
+
+   private TimestampFormat(TimeZone timeZone, Locale locale) {
+      // time zones are mutable, keep a copy nobody else can change
+      this.timeZone = (TimeZone) checkNotNull(timeZone, "timeZone").clone();
+      this.locale = checkNotNull(locale, "locale");
+      this.fastPath = Calendar.getInstance(timeZone, locale).getClass() == GregorianCalendar.class
+              && new DecimalFormatSymbols(locale).getZeroDigit() == '0';
+      this.standardName = timeZone.getDisplayName(false, TimeZone.SHORT, locale);
+      this.daylightName = timeZone.getDisplayName(true, TimeZone.SHORT, locale);
+   }
+
+   public TimeZone getTimeZone() {
+      return (TimeZone) timeZone.clone();
+   }
+
+   public Locale getLocale() {
+      return locale;
+   }
+
+   public String format(Date date) {
+      long millis = date.getTime();
+      if (!fastPath || millis < 0 || millis > MAX_FAST_MILLIS) {
+         return fallback.get().format(date);
+      }
+      long local = millis + timeZone.getOffset(millis);
+      long days = local / MILLIS_PER_DAY;
+      int millisOfDay = (int) (local - days * MILLIS_PER_DAY);
+      if (millisOfDay < 0) {
+         days--;
+         millisOfDay += MILLIS_PER_DAY;
+      }
+
+      // civil date of a day count since the epoch, in the proleptic Gregorian calendar
+      long z = days + 719468;
+      long era = (z >= 0 ? z : z - 146096) / 146097;
+      int dayOfEra = (int) (z - era * 146097);
+      int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+      int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+      int monthIndex = (5 * dayOfYear + 2) / 153;
+      int day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+      int month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+      long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+      if (year > 9999) {
+         return fallback.get().format(date);
+      }
+
+      int seconds = millisOfDay / 1000;
+      StringBuilder formatted = new StringBuilder(32);
+      appendTwoDigits(formatted, day).append('/');
+      appendTwoDigits(formatted, month).append('/');
+      appendTwoDigits(formatted, (int) (year / 100));
+      appendTwoDigits(formatted, (int) (year % 100)).append(' ');
+      appendTwoDigits(formatted, seconds / 3600).append(':');
+      appendTwoDigits(formatted, seconds / 60 % 60).append(':');
+      appendTwoDigits(formatted, seconds % 60).append(' ');
+      return formatted.append(timeZone.inDaylightTime(date) ? daylightName : standardName).toString();
+   }
+
+   private static StringBuilder appendTwoDigits(StringBuilder builder, int value) {
+      return builder.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+   }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.representations.binary;
+
+import com.google.common.base.Throwables;
+import org.jclouds.javax.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Converts representations to and from the binary format of {@link RepresentationOutput}.
+ */
+public final class BinaryRepresentations {
+
+   private BinaryRepresentations() {
+      //Utility Class
+   }
+
+   /**
+    * Encodes a representation, or null.
+    * @param representation
+    * @return
+    */
+   public static byte[] toBytes(@Nullable Object representation) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try {
+         RepresentationOutput out = new RepresentationOutput(bytes);
+         out.write(representation);
+         out.close();
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+      return bytes.toByteArray();
+   }
+
+   /**
+    * Decodes a representation of the given type.
+    * @param bytes
+    * @param type
+    * @return
+    * @throws IllegalArgumentException if the bytes don't hold a representation of the type.
+    */
+   public static <T> T fromBytes(byte[] bytes, Class<T> type) {
+      try {
+         return new RepresentationInput(new ByteArrayInputStream(bytes)).read(type);
+      } catch (IOException e) {
+         throw new IllegalArgumentException("could not decode a " + type.getName(), e);
+      }
+   }
+}
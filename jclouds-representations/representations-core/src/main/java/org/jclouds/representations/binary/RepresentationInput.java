@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.representations.binary;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.jclouds.blobstore.representations.Blob;
+import org.jclouds.blobstore.representations.BlobMetadata;
+import org.jclouds.blobstore.representations.ContentMetadata;
+import org.jclouds.blobstore.representations.StorageMetadata;
+import org.jclouds.compute.representations.BulkOperation;
+import org.jclouds.compute.representations.ExecResponse;
+import org.jclouds.compute.representations.Hardware;
+import org.jclouds.compute.representations.Image;
+import org.jclouds.compute.representations.LoginCredentials;
+import org.jclouds.compute.representations.NodeMetadata;
+import org.jclouds.compute.representations.OperatingSystem;
+import org.jclouds.compute.representations.Processor;
+import org.jclouds.compute.representations.Volume;
+import org.jclouds.representations.ApiMetadata;
+import org.jclouds.representations.Context;
+import org.jclouds.representations.Location;
+import org.jclouds.representations.Page;
+import org.jclouds.representations.ProviderMetadata;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the representations written by a {@link RepresentationOutput}.
+ * <p>
+ * Collections and maps are read as immutable ones; a blob's headers are read as lists.
+ */
+public class RepresentationInput implements Closeable {
+
+   private final DataInputStream in;
+   private final List<String> interned = Lists.newArrayList();
+
+   public RepresentationInput(InputStream in) throws IOException {
+      this.in = new DataInputStream(in);
+      int magic = this.in.readInt();
+      if (magic != Tag.MAGIC) {
+         throw new StreamCorruptedException(String.format("not a representation stream: %08x", magic));
+      }
+   }
+
+   /**
+    * Reads the next representation, which may be null.
+    * @return
+    * @throws IOException
+    */
+   public Object read() throws IOException {
+      int ordinal = in.readUnsignedByte();
+      Tag tag = Tag.valueOf(ordinal);
+      if (tag == null) {
+         throw new StreamCorruptedException("unknown tag: " + ordinal);
+      }
+      switch (tag) {
+         case NULL:
+            return null;
+         case API_METADATA:
+            return readApiMetadata();
+         case CONTEXT:
+            return readContext();
+         case LOCATION:
+            return readLocation();
+         case PAGE:
+            return readPage();
+         case PROVIDER_METADATA:
+            return readProviderMetadata();
+         case BULK_OPERATION:
+            return readBulkOperation();
+         case EXEC_RESPONSE:
+            return readExecResponse();
+         case HARDWARE:
+            return readHardware();
+         case IMAGE:
+            return readImage();
+         case LOGIN_CREDENTIALS:
+            return readLoginCredentials();
+         case NODE_METADATA:
+            return readNodeMetadata();
+         case OPERATING_SYSTEM:
+            return readOperatingSystem();
+         case PROCESSOR:
+            return readProcessor();
+         case VOLUME:
+            return readVolume();
+         case BLOB:
+            return readBlob();
+         case BLOB_METADATA:
+            return readBlobMetadata();
+         case CONTENT_METADATA:
+            return readContentMetadata();
+         case STORAGE_METADATA:
+            return readStorageMetadata();
+         default:
+            throw new AssertionError(tag);
+      }
+   }
+
+   /**
+    * Reads the next representation, which must be null or of the given type.
+    * @param type
+    * @return
+    * @throws IOException
+    */
+   public <T> T read(Class<T> type) throws IOException {
+      Object representation = read();
+      if (representation != null && !type.isInstance(representation)) {
+         throw new StreamCorruptedException("expected " + type.getName() + " but read "
+                 + representation.getClass().getName());
+      }
+      return type.cast(representation);
+   }
+
+   /**
+    * Reads representations written by {@link RepresentationOutput#writeAll(Collection)}.
+    * @param type
+    * @return
+    * @throws IOException
+    */
+   public <T> List<T> readAll(Class<T> type) throws IOException {
+      int size = readVarInt();
+      checkSize(size);
+      ImmutableList.Builder<T> representations = ImmutableList.builder();
+      for (int i = 0; i < size; i++) {
+         representations.add(read(type));
+      }
+      return representations.build();
+   }
+
+   @Override
+   public void close() throws IOException {
+      in.close();
+   }
+
+   private NodeMetadata readNodeMetadata() throws IOException {
+      return new NodeMetadata(readString(), readString(), readString(), readString(), readString(), readString(),
+              readString(), readVarInt(), readString(), readStringSet(), readStringMap(),
+              read(LoginCredentials.class));
+   }
+
+   private Image readImage() throws IOException {
+      return new Image(readString(), readString(), readString(), readString(), readString(),
+              read(OperatingSystem.class), read(LoginCredentials.class), readStringSet());
+   }
+
+   private Hardware readHardware() throws IOException {
+      return new Hardware(readString(), readString(), readStringSet(), readRepresentations(Processor.class),
+              readVarInt(), readRepresentations(Volume.class), readString());
+   }
+
+   private Blob readBlob() throws IOException {
+      int size = readSize();
+      Map<String, Collection<String>> headers = null;
+      if (size >= 0) {
+         ImmutableMap.Builder<String, Collection<String>> builder = ImmutableMap.builder();
+         for (int i = 0; i < size; i++) {
+            builder.put(readString(), readStringList());
+         }
+         headers = builder.build();
+      }
+      return new Blob(headers, read(BlobMetadata.class));
+   }
+
+   private BlobMetadata readBlobMetadata() throws IOException {
+      return new BlobMetadata(readString(), readString(), readString(), readString(), readStringMap(),
+              readString(), readString(), readString(), readString(), read(ContentMetadata.class));
+   }
+
+   private StorageMetadata readStorageMetadata() throws IOException {
+      return new StorageMetadata(readString(), readString(), readString(), readString(), readStringMap(),
+              readString(), readString(), readString());
+   }
+
+   private ContentMetadata readContentMetadata() throws IOException {
+      Long length = in.readBoolean() ? readVarLong() : null;
+      String disposition = readString();
+      String encoding = readString();
+      String type = readString();
+      byte[] md5 = null;
+      int md5Length = readSize();
+      if (md5Length >= 0) {
+         md5 = new byte[md5Length];
+         in.readFully(md5);
+      }
+      return new ContentMetadata(length, disposition, encoding, type, md5, readString(), readString());
+   }
+
+   private Location readLocation() throws IOException {
+      Location.Builder builder = Location.builder().id(readString()).scope(readString())
+              .description(readString()).parentId(readString());
+      Set<String> iso3166Codes = readStringSet();
+      if (iso3166Codes != null) {
+         builder.iso3166Codes(iso3166Codes);
+      }
+      return builder.build();
+   }
+
+   /**
+    * The secrets aren't written, so the credentials read have an empty password or private key where
+    * the ones written had one.
+    */
+   private LoginCredentials readLoginCredentials() throws IOException {
+      String username = readString();
+      String password = in.readBoolean() ? "" : null;
+      String privateKey = in.readBoolean() ? "" : null;
+      return new LoginCredentials(username, password, privateKey, readString(), in.readBoolean());
+   }
+
+   private OperatingSystem readOperatingSystem() throws IOException {
+      return new OperatingSystem(readString(), readString(), readString(), readString(), readString(),
+              in.readBoolean());
+   }
+
+   private Processor readProcessor() throws IOException {
+      return new Processor(in.readDouble(), in.readDouble());
+   }
+
+   private Volume readVolume() throws IOException {
+      String id = readString();
+      String type = readString();
+      Float size = in.readBoolean() ? in.readFloat() : null;
+      return new Volume(id, type, size, readString(), in.readBoolean(), in.readBoolean());
+   }
+
+   private ExecResponse readExecResponse() throws IOException {
+      return new ExecResponse(readString(), readString(), readVarInt());
+   }
+
+   private BulkOperation readBulkOperation() throws IOException {
+      return new BulkOperation(readString(), readString(), readString(), readVarInt(), readVarInt(), readVarInt(),
+              in.readBoolean(), in.readBoolean(), readStringMap(), readString(), readString());
+   }
+
+   private Page<Serializable> readPage() throws IOException {
+      List<Serializable> items = readRepresentations(Serializable.class);
+      return Page.create(items != null ? items : ImmutableList.<Serializable>of(), readString());
+   }
+
+   private Context readContext() throws IOException {
+      return new Context(readString(), readString(), readString());
+   }
+
+   private ApiMetadata readApiMetadata() throws IOException {
+      return new ApiMetadata(readString(), readString(), readString(), readString(), readString(), readString(),
+              readString(), readString(), readString(), readStringMap(), readStringSet(), readString(),
+              readString(), readStringSet());
+   }
+
+   private ProviderMetadata readProviderMetadata() throws IOException {
+      return new ProviderMetadata(readString(), readString(), readString(), readString(), readString(),
+              readString(), readStringSet(), readStringSet(), readString(), readStringMap(), readString(),
+              readString(), readStringSet(), readStringSet());
+   }
+
+   private <T> List<T> readRepresentations(Class<T> type) throws IOException {
+      int size = readSize();
+      if (size < 0) {
+         return null;
+      }
+      ImmutableList.Builder<T> representations = ImmutableList.builder();
+      for (int i = 0; i < size; i++) {
+         representations.add(read(type));
+      }
+      return representations.build();
+   }
+
+   private Set<String> readStringSet() throws IOException {
+      int size = readSize();
+      if (size < 0) {
+         return null;
+      }
+      ImmutableSet.Builder<String> strings = ImmutableSet.builder();
+      for (int i = 0; i < size; i++) {
+         strings.add(readString());
+      }
+      return strings.build();
+   }
+
+   private List<String> readStringList() throws IOException {
+      int size = readSize();
+      if (size < 0) {
+         return null;
+      }
+      ImmutableList.Builder<String> strings = ImmutableList.builder();
+      for (int i = 0; i < size; i++) {
+         strings.add(readString());
+      }
+      return strings.build();
+   }
+
+   private Map<String, String> readStringMap() throws IOException {
+      int size = readSize();
+      if (size < 0) {
+         return null;
+      }
+      ImmutableMap.Builder<String, String> map = ImmutableMap.builder();
+      for (int i = 0; i < size; i++) {
+         map.put(readString(), readString());
+      }
+      return map.build();
+   }
+
+   // the size of a collection or map, or -1 for null
+   private int readSize() throws IOException {
+      int size = readVarInt() - 1;
+      checkSize(size);
+      return size;
+   }
+
+   private void checkSize(int size) throws IOException {
+      if (size < -1) {
+         throw new StreamCorruptedException("invalid size: " + size);
+      }
+   }
+
+   private String readString() throws IOException {
+      int reference = readVarInt();
+      if (reference == Tag.NULL_STRING) {
+         return null;
+      } else if (reference >= Tag.FIRST_REFERENCE) {
+         int index = reference - Tag.FIRST_REFERENCE;
+         if (index >= interned.size()) {
+            throw new StreamCorruptedException("unknown string reference: " + reference);
+         }
+         return interned.get(index);
+      } else if (reference != Tag.INTERNED_LITERAL && reference != Tag.LITERAL) {
+         throw new StreamCorruptedException("invalid string reference: " + reference);
+      }
+      int length = readVarInt();
+      if (length < 0) {
+         throw new StreamCorruptedException("invalid string length: " + length);
+      }
+      byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      String string = new String(bytes, Charsets.UTF_8);
+      if (reference == Tag.INTERNED_LITERAL) {
+         interned.add(string);
+      }
+      return string;
+   }
+
+   private int readVarInt() throws IOException {
+      long value = readVarLong();
+      if (value != (int) value) {
+         throw new StreamCorruptedException("integer out of range: " + value);
+      }
+      return (int) value;
+   }
+
+   private long readVarLong() throws IOException {
+      long zigZag = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+         int b = in.readUnsignedByte();
+         zigZag |= (long) (b & 0x7F) << shift;
+         if ((b & 0x80) == 0) {
+            return (zigZag >>> 1) ^ -(zigZag & 1);
+         }
+      }
+      throw new StreamCorruptedException("malformed variable-length integer");
+   }
+}
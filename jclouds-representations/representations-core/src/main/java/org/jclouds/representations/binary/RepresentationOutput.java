@@ -0,0 +1,435 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.representations.binary;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import org.jclouds.blobstore.representations.Blob;
+import org.jclouds.blobstore.representations.BlobMetadata;
+import org.jclouds.blobstore.representations.ContentMetadata;
+import org.jclouds.blobstore.representations.StorageMetadata;
+import org.jclouds.compute.representations.BulkOperation;
+import org.jclouds.compute.representations.ExecResponse;
+import org.jclouds.compute.representations.Hardware;
+import org.jclouds.compute.representations.Image;
+import org.jclouds.compute.representations.LoginCredentials;
+import org.jclouds.compute.representations.NodeMetadata;
+import org.jclouds.compute.representations.OperatingSystem;
+import org.jclouds.compute.representations.Processor;
+import org.jclouds.compute.representations.Volume;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.representations.ApiMetadata;
+import org.jclouds.representations.Context;
+import org.jclouds.representations.Location;
+import org.jclouds.representations.Page;
+import org.jclouds.representations.ProviderMetadata;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes representations in a compact binary format, to be read by a {@link RepresentationInput}.
+ * <p>
+ * Fields are written in a fixed order without names; numbers and lengths are variable-length
+ * integers. Short strings are written once per stream and referred to by index afterwards, so the
+ * values that repeat across representations, like location and image ids, statuses, groups and
+ * metadata keys, cost a byte or two after their first occurrence.
+ * <p>
+ * Collections must not contain nulls.
+ */
+public class RepresentationOutput implements Closeable, Flushable {
+
+   private final DataOutputStream out;
+   private final Map<String, Integer> interned = Maps.newHashMap();
+
+   public RepresentationOutput(OutputStream out) throws IOException {
+      this.out = new DataOutputStream(out);
+      this.out.writeInt(Tag.MAGIC);
+   }
+
+   /**
+    * Writes a representation, or null.
+    * @param representation
+    * @throws IOException
+    * @throws IllegalArgumentException if the object isn't a representation.
+    */
+   public void write(@Nullable Object representation) throws IOException {
+      if (representation == null) {
+         writeTag(Tag.NULL);
+      } else if (representation instanceof NodeMetadata) {
+         writeTag(Tag.NODE_METADATA);
+         writeNodeMetadata((NodeMetadata) representation);
+      } else if (representation instanceof Image) {
+         writeTag(Tag.IMAGE);
+         writeImage((Image) representation);
+      } else if (representation instanceof Hardware) {
+         writeTag(Tag.HARDWARE);
+         writeHardware((Hardware) representation);
+      } else if (representation instanceof Blob) {
+         writeTag(Tag.BLOB);
+         writeBlob((Blob) representation);
+      } else if (representation instanceof BlobMetadata) {
+         writeTag(Tag.BLOB_METADATA);
+         writeBlobMetadata((BlobMetadata) representation);
+      } else if (representation instanceof StorageMetadata) {
+         writeTag(Tag.STORAGE_METADATA);
+         writeStorageMetadata((StorageMetadata) representation);
+      } else if (representation instanceof ContentMetadata) {
+         writeTag(Tag.CONTENT_METADATA);
+         writeContentMetadata((ContentMetadata) representation);
+      } else if (representation instanceof Location) {
+         writeTag(Tag.LOCATION);
+         writeLocation((Location) representation);
+      } else if (representation instanceof LoginCredentials) {
+         writeTag(Tag.LOGIN_CREDENTIALS);
+         writeLoginCredentials((LoginCredentials) representation);
+      } else if (representation instanceof OperatingSystem) {
+         writeTag(Tag.OPERATING_SYSTEM);
+         writeOperatingSystem((OperatingSystem) representation);
+      } else if (representation instanceof Processor) {
+         writeTag(Tag.PROCESSOR);
+         writeProcessor((Processor) representation);
+      } else if (representation instanceof Volume) {
+         writeTag(Tag.VOLUME);
+         writeVolume((Volume) representation);
+      } else if (representation instanceof ExecResponse) {
+         writeTag(Tag.EXEC_RESPONSE);
+         writeExecResponse((ExecResponse) representation);
+      } else if (representation instanceof BulkOperation) {
+         writeTag(Tag.BULK_OPERATION);
+         writeBulkOperation((BulkOperation) representation);
+      } else if (representation instanceof Page) {
+         writeTag(Tag.PAGE);
+         writePage((Page<?>) representation);
+      } else if (representation instanceof Context) {
+         writeTag(Tag.CONTEXT);
+         writeContext((Context) representation);
+      } else if (representation instanceof ApiMetadata) {
+         writeTag(Tag.API_METADATA);
+         writeApiMetadata((ApiMetadata) representation);
+      } else if (representation instanceof ProviderMetadata) {
+         writeTag(Tag.PROVIDER_METADATA);
+         writeProviderMetadata((ProviderMetadata) representation);
+      } else {
+         throw new IllegalArgumentException("not a representation: " + representation.getClass().getName());
+      }
+   }
+
+   /**
+    * Writes the number of representations, then each of them.
+    * @param representations
+    * @throws IOException
+    */
+   public void writeAll(Collection<?> representations) throws IOException {
+      writeVarInt(representations.size());
+      for (Object representation : representations) {
+         write(representation);
+      }
+   }
+
+   @Override
+   public void flush() throws IOException {
+      out.flush();
+   }
+
+   @Override
+   public void close() throws IOException {
+      out.close();
+   }
+
+   private void writeNodeMetadata(NodeMetadata node) throws IOException {
+      writeString(node.getId());
+      writeString(node.getName());
+      writeString(node.getDescription());
+      writeString(node.getStatus());
+      writeString(node.getHostname());
+      writeString(node.getLocationId());
+      writeString(node.getImageId());
+      writeVarInt(node.getLoginPort());
+      writeString(node.getGroup());
+      writeStrings(node.getTags());
+      writeStringMap(node.getMetadata());
+      write(node.getDefaultCredentials());
+   }
+
+   private void writeImage(Image image) throws IOException {
+      writeString(image.getId());
+      writeString(image.getName());
+      writeString(image.getVersion());
+      writeString(image.getDescription());
+      writeString(image.getStatus());
+      write(image.getOperatingSystem());
+      write(image.getDefaultCredentials());
+      writeStrings(image.getTags());
+   }
+
+   private void writeHardware(Hardware hardware) throws IOException {
+      writeString(hardware.getId());
+      writeString(hardware.getName());
+      writeStrings(hardware.getTags());
+      writeRepresentations(hardware.getProcessors());
+      writeVarInt(hardware.getRam());
+      writeRepresentations(hardware.getVolumes());
+      writeString(hardware.getHypervisor());
+   }
+
+   private void writeBlob(Blob blob) throws IOException {
+      Map<String, Collection<String>> headers = blob.getAllHeaders();
+      writeSize(headers);
+      if (headers != null) {
+         for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+            writeString(header.getKey());
+            writeStrings(header.getValue());
+         }
+      }
+      write(blob.getBlobMetadata());
+   }
+
+   private void writeBlobMetadata(BlobMetadata metadata) throws IOException {
+      writeString(metadata.getType());
+      writeString(metadata.getProviderId());
+      writeString(metadata.getName());
+      writeString(metadata.getUri());
+      writeStringMap(metadata.getUserMetadata());
+      writeString(metadata.geteTag());
+      writeString(metadata.getCreationDate());
+      writeString(metadata.getLastModifiedDate());
+      writeString(metadata.getPublicUri());
+      write(metadata.getContentMetadata());
+   }
+
+   private void writeStorageMetadata(StorageMetadata metadata) throws IOException {
+      writeString(metadata.getType());
+      writeString(metadata.getProviderId());
+      writeString(metadata.getName());
+      writeString(metadata.getUri());
+      writeStringMap(metadata.getUserMetadata());
+      writeString(metadata.geteTag());
+      writeString(metadata.getCreationDate());
+      writeString(metadata.getLastModifiedDate());
+   }
+
+   private void writeContentMetadata(ContentMetadata metadata) throws IOException {
+      Long length = metadata.getLength();
+      out.writeBoolean(length != null);
+      if (length != null) {
+         writeVarLong(length);
+      }
+      writeString(metadata.getDisposition());
+      writeString(metadata.getEncoding());
+      writeString(metadata.getType());
+      byte[] md5 = metadata.getMd5();
+      writeVarInt(md5 == null ? 0 : md5.length + 1);
+      if (md5 != null) {
+         out.write(md5);
+      }
+      writeString(metadata.getLanguage());
+      writeString(metadata.getExpires());
+   }
+
+   private void writeLocation(Location location) throws IOException {
+      writeString(location.getId());
+      writeString(location.getScope());
+      writeString(location.getDescription());
+      writeString(location.getParentId());
+      writeStrings(location.getIso3166Codes());
+   }
+
+   // the secrets are left out, only whether there are any is written
+   private void writeLoginCredentials(LoginCredentials credentials) throws IOException {
+      writeString(credentials.getUsername());
+      out.writeBoolean(credentials.getPassword() != null);
+      out.writeBoolean(credentials.hasPrivateKey());
+      writeString(credentials.getCredentialUrl());
+      out.writeBoolean(credentials.isAuthenticatedSudo());
+   }
+
+   private void writeOperatingSystem(OperatingSystem os) throws IOException {
+      writeString(os.getFamily());
+      writeString(os.getName());
+      writeString(os.getArch());
+      writeString(os.getVersion());
+      writeString(os.getDescription());
+      out.writeBoolean(os.isIs64Bit());
+   }
+
+   private void writeProcessor(Processor processor) throws IOException {
+      out.writeDouble(processor.getCores());
+      out.writeDouble(processor.getSpeed());
+   }
+
+   private void writeVolume(Volume volume) throws IOException {
+      writeString(volume.getId());
+      writeString(volume.getType());
+      Float size = volume.getSize();
+      out.writeBoolean(size != null);
+      if (size != null) {
+         out.writeFloat(size);
+      }
+      writeString(volume.getDevice());
+      out.writeBoolean(volume.isDurable());
+      out.writeBoolean(volume.isBootDevice());
+   }
+
+   private void writeExecResponse(ExecResponse response) throws IOException {
+      writeString(response.getOutput());
+      writeString(response.getError());
+      writeVarInt(response.getExitStatus());
+   }
+
+   private void writeBulkOperation(BulkOperation operation) throws IOException {
+      writeString(operation.getId());
+      writeString(operation.getAction());
+      writeString(operation.getFilter());
+      writeVarInt(operation.getTotal());
+      writeVarInt(operation.getCompleted());
+      writeVarInt(operation.getFailed());
+      out.writeBoolean(operation.isCancelled());
+      out.writeBoolean(operation.isDone());
+      writeStringMap(operation.getFailures());
+      writeString(operation.getStartDate());
+      writeString(operation.getEndDate());
+   }
+
+   private void writePage(Page<?> page) throws IOException {
+      writeRepresentations(page.getItems());
+      writeString(page.getNextMarker());
+   }
+
+   private void writeContext(Context context) throws IOException {
+      writeString(context.getName());
+      writeString(context.getProviderId());
+      writeString(context.getIdentity());
+   }
+
+   private void writeApiMetadata(ApiMetadata api) throws IOException {
+      writeString(api.getId());
+      writeString(api.getName());
+      writeString(api.getEndpointName());
+      writeString(api.getIdentityName());
+      writeString(api.getCredentialName());
+      writeString(api.getVersion());
+      writeString(api.getDefaultEndpoint());
+      writeString(api.getDefaultIdentity());
+      writeString(api.getDefaultCredential());
+      writeStringMap(api.getDefaultProperties());
+      writeStrings(api.getDefaultModules());
+      writeString(api.getDocumentation());
+      writeString(api.getContext());
+      writeStrings(api.getViews());
+   }
+
+   private void writeProviderMetadata(ProviderMetadata provider) throws IOException {
+      writeString(provider.getId());
+      writeString(provider.getName());
+      writeString(provider.getDocumentation());
+      writeString(provider.getEndpointName());
+      writeString(provider.getIdentityName());
+      writeString(provider.getCredentialName());
+      writeStrings(provider.getDefaultModules());
+      writeStrings(provider.getViews());
+      writeString(provider.getEndpoint());
+      writeStringMap(provider.getDefaultProperties());
+      writeString(provider.getConsole());
+      writeString(provider.getHomePage());
+      writeStrings(provider.getLinkedServices());
+      writeStrings(provider.getIso3166Codes());
+   }
+
+   private void writeTag(Tag tag) throws IOException {
+      out.writeByte(tag.ordinal());
+   }
+
+   private void writeRepresentations(@Nullable Collection<?> representations) throws IOException {
+      writeSize(representations);
+      if (representations != null) {
+         for (Object representation : representations) {
+            write(representation);
+         }
+      }
+   }
+
+   private void writeStrings(@Nullable Collection<String> strings) throws IOException {
+      writeSize(strings);
+      if (strings != null) {
+         for (String string : strings) {
+            writeString(string);
+         }
+      }
+   }
+
+   private void writeStringMap(@Nullable Map<String, String> map) throws IOException {
+      writeSize(map);
+      if (map != null) {
+         for (Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(entry.getKey());
+            writeString(entry.getValue());
+         }
+      }
+   }
+
+   // the size of a collection or map, plus one, or 0 for null
+   private void writeSize(@Nullable Object collectionOrMap) throws IOException {
+      if (collectionOrMap == null) {
+         writeVarInt(0);
+      } else if (collectionOrMap instanceof Map) {
+         writeVarInt(((Map<?, ?>) collectionOrMap).size() + 1);
+      } else {
+         writeVarInt(((Collection<?>) collectionOrMap).size() + 1);
+      }
+   }
+
+   private void writeString(@Nullable String string) throws IOException {
+      if (string == null) {
+         writeVarInt(Tag.NULL_STRING);
+         return;
+      }
+      Integer index = interned.get(string);
+      if (index != null) {
+         writeVarInt(Tag.FIRST_REFERENCE + index);
+         return;
+      }
+      byte[] bytes = string.getBytes(Charsets.UTF_8);
+      if (bytes.length <= Tag.MAX_INTERNED_LENGTH && interned.size() < Tag.MAX_INTERNED) {
+         interned.put(string, interned.size());
+         writeVarInt(Tag.INTERNED_LITERAL);
+      } else {
+         writeVarInt(Tag.LITERAL);
+      }
+      writeVarInt(bytes.length);
+      out.write(bytes);
+   }
+
+   private void writeVarInt(int value) throws IOException {
+      // zig-zag, so that small negative numbers stay small
+      writeVarLong(value);
+   }
+
+   private void writeVarLong(long value) throws IOException {
+      long zigZag = (value << 1) ^ (value >> 63);
+      while ((zigZag & ~0x7FL) != 0) {
+         out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+         zigZag >>>= 7;
+      }
+      out.writeByte((int) zigZag);
+   }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.representations.binary;
+
+/**
+ * The tags that precede each representation in the binary format.
+ */
+enum Tag {
+   NULL,
+   API_METADATA,
+   CONTEXT,
+   LOCATION,
+   PAGE,
+   PROVIDER_METADATA,
+   BULK_OPERATION,
+   EXEC_RESPONSE,
+   HARDWARE,
+   IMAGE,
+   LOGIN_CREDENTIALS,
+   NODE_METADATA,
+   OPERATING_SYSTEM,
+   PROCESSOR,
+   VOLUME,
+   BLOB,
+   BLOB_METADATA,
+   CONTENT_METADATA,
+   STORAGE_METADATA;
+
+   // "JCR" and the version of the format
+   static final int MAGIC = 0x4a435202;
+
+   // string references: 0 is null, then a literal that is interned or not, then interned strings
+   static final int NULL_STRING = 0;
+   static final int INTERNED_LITERAL = 1;
+   static final int LITERAL = 2;
+   static final int FIRST_REFERENCE = 3;
+
+   // only short strings, which are the ones that repeat, are interned, and only up to a point
+   static final int MAX_INTERNED_LENGTH = 128;
+   static final int MAX_INTERNED = 1 << 16;
+
+   private static final Tag[] VALUES = values();
+
+   static Tag valueOf(int ordinal) {
+      return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : null;
+   }
+}
@@ -28,6 +28,7 @@ import java.io.IOException;
 
 import static com.google.common.io.Resources.getResource;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 
 
@@ -60,4 +61,18 @@ public class HardwareTest {
       assertEquals(8.0, hardware.getProcessors().get(0).getCores());
       assertEquals(1.0, hardware.getProcessors().get(0).getSpeed());
    }
+
+   @Test
+   void testEquals() {
+      assertEquals(hardware(2), hardware(2));
+      assertEquals(hardware(2).hashCode(), hardware(2).hashCode());
+      assertFalse(hardware(2).equals(hardware(2.5)));
+   }
+
+   private static Hardware hardware(double speed) {
+      return Hardware.builder().id("test-hardware-profile").ram(1024)
+              .processors(ImmutableList.of(Processor.builder().cores(4).speed(speed).build()))
+              .volumes(ImmutableList.of(Volume.builder().device("/dev/tst1").size(100f).bootDevice(true).build()))
+              .build();
+   }
 }
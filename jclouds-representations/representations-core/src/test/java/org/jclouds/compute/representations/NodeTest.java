@@ -17,6 +17,8 @@
 package org.jclouds.compute.representations;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Resources;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -27,6 +29,7 @@ import java.io.IOException;
 
 import static com.google.common.io.Resources.getResource;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 
 
@@ -64,4 +67,33 @@ public class NodeTest {
       assertEquals("root", node.getDefaultCredentials().getUsername());
 
    }
+
+   @Test
+   void testEquals() {
+      NodeMetadata node = node("1", "password1");
+      NodeMetadata same = node("1", "password1");
+      assertEquals(node, same);
+      assertEquals(node.hashCode(), same.hashCode());
+      assertEquals(ImmutableSet.of(node, same).size(), 1);
+
+      assertFalse(node.equals(node("2", "password1")));
+      assertFalse(node.equals(NodeMetadata.builder().id("1").name("testnode-1").build()));
+      assertFalse(node.equals(null));
+      assertFalse(node.equals(node.toString()));
+   }
+
+   @Test
+   void testEqualsIgnoresSecrets() {
+      // credentials are told apart by what toString() shows of them
+      assertEquals(node("1", "password1"), node("1", "password2"));
+      assertEquals(node("1", "password1").hashCode(), node("1", "password2").hashCode());
+   }
+
+   private static NodeMetadata node(String id, String password) {
+      return NodeMetadata.builder().id(id).name("testnode-" + id).group("test-group").imageId("myimage")
+              .locationId("mylocation").status("RUNNING").loginPort(22).tags(ImmutableSet.of("a", "b"))
+              .metadata(ImmutableMap.of("key", "value"))
+              .defaultCredentials(LoginCredentials.builder().username("root").password(password).build())
+              .build();
+   }
 }
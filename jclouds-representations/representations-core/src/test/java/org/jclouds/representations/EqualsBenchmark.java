@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.representations;
+
+import com.google.common.base.Equivalence;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.jclouds.compute.representations.LoginCredentials;
+import org.jclouds.compute.representations.NodeMetadata;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares diffing node inventories with the field-based equals of the representations against the
+ * toString() comparison they used to do. Run it with a few thousand nodes, for instance:
+ * <pre>
+ * java -cp ... org.jclouds.representations.EqualsBenchmark 5000 20
+ * </pre>
+ */
+public class EqualsBenchmark {
+
+   private static final Equivalence<Object> TO_STRING = new Equivalence<Object>() {
+      @Override
+      protected boolean doEquivalent(Object a, Object b) {
+         return a.toString().equals(b.toString());
+      }
+
+      @Override
+      protected int doHash(Object o) {
+         return o.hashCode();
+      }
+   };
+
+   public static void main(String[] args) {
+      int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+      int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+      List<NodeMetadata> before = inventory(nodes, "RUNNING");
+      List<NodeMetadata> after = inventory(nodes, "SUSPENDED");
+
+      // warm up both
+      for (int i = 0; i < rounds; i++) {
+         diffByToString(before, after);
+         diffByEquals(before, after);
+      }
+
+      long toString = 0;
+      long equals = 0;
+      for (int i = 0; i < rounds; i++) {
+         long start = System.nanoTime();
+         diffByToString(before, after);
+         toString += System.nanoTime() - start;
+         start = System.nanoTime();
+         diffByEquals(before, after);
+         equals += System.nanoTime() - start;
+      }
+      System.out.printf("%d nodes, %d rounds: toString() %.2f ms/diff, equals() %.2f ms/diff%n", nodes, rounds,
+              toString / 1e6 / rounds, equals / 1e6 / rounds);
+   }
+
+   private static int diffByToString(List<NodeMetadata> before, List<NodeMetadata> after) {
+      Set<Equivalence.Wrapper<Object>> previous = Sets.newHashSet();
+      for (NodeMetadata node : before) {
+         previous.add(TO_STRING.wrap((Object) node));
+      }
+      int changed = 0;
+      for (NodeMetadata node : after) {
+         if (!previous.contains(TO_STRING.wrap((Object) node))) {
+            changed++;
+         }
+      }
+      return changed;
+   }
+
+   private static int diffByEquals(List<NodeMetadata> before, List<NodeMetadata> after) {
+      Set<NodeMetadata> previous = Sets.newHashSet(before);
+      int changed = 0;
+      for (NodeMetadata node : after) {
+         if (!previous.contains(node)) {
+            changed++;
+         }
+      }
+      return changed;
+   }
+
+   private static List<NodeMetadata> inventory(int size, String changedStatus) {
+      ImmutableList.Builder<NodeMetadata> nodes = ImmutableList.builder();
+      for (int i = 0; i < size; i++) {
+         nodes.add(NodeMetadata.builder().id("node-" + i).name("node-" + i).group("group-" + i % 10)
+                 .hostname("node-" + i + ".example.com").imageId("image").locationId("location")
+                 .status(i % 10 == 0 ? changedStatus : "RUNNING").loginPort(22)
+                 .tags(ImmutableSet.of("web", "tenant-" + i % 100)).metadata(ImmutableMap.of("owner", "ops"))
+                 .defaultCredentials(LoginCredentials.builder().username("root").password("secret").build())
+                 .build());
+      }
+      return nodes.build();
+   }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.representations;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+@Test
+public class TimestampFormatTest {
+
+   private static final List<String> TIME_ZONES = ImmutableList.of("UTC", "America/New_York", "Europe/Athens",
+           "Asia/Kolkata", "Australia/Lord_Howe", "Pacific/Chatham", "GMT+05:30");
+   private static final List<Locale> LOCALES = ImmutableList.of(Locale.US, Locale.FRANCE, new Locale("th", "TH"),
+           new Locale("ja", "JP", "JP"));
+   private static final long[] EDGES = { 0L, 1L, 86399999L, 951782400000L, 4107542399999L, 253402300799999L,
+           253402300800000L, -1L, -12219292800001L };
+
+   @Test
+   void testFormatsLikeSimpleDateFormat() {
+      Random random = new Random(42);
+      for (String zone : TIME_ZONES) {
+         for (Locale locale : LOCALES) {
+            TimeZone timeZone = TimeZone.getTimeZone(zone);
+            TimestampFormat format = TimestampFormat.create(timeZone, locale);
+            DateFormat expected = new SimpleDateFormat(TimestampFormat.PATTERN, locale);
+            expected.setTimeZone(timeZone);
+            for (long millis : EDGES) {
+               assertEquals(format.format(new Date(millis)), expected.format(new Date(millis)), zone + " " + millis);
+            }
+            for (int i = 0; i < 10000; i++) {
+               Date date = new Date((long) (random.nextDouble() * 4102444800000L));
+               assertEquals(format.format(date), expected.format(date), zone + " " + date.getTime());
+            }
+         }
+      }
+   }
+
+   @Test
+   void testFormatsFromManyThreads() throws Exception {
+      final TimestampFormat format = TimestampFormat.create(TimeZone.getTimeZone("America/New_York"), Locale.US);
+      final DateFormat expected = new SimpleDateFormat(TimestampFormat.PATTERN, Locale.US);
+      expected.setTimeZone(TimeZone.getTimeZone("America/New_York"));
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+         List<Future<Integer>> results = Lists.newArrayList();
+         for (int t = 0; t < 8; t++) {
+            final long seed = t;
+            results.add(executor.submit(new Callable<Integer>() {
+               @Override
+               public Integer call() {
+                  Random random = new Random(seed);
+                  int mismatches = 0;
+                  for (int i = 0; i < 20000; i++) {
+                     // before 1970 goes through the per-thread fallback
+                     Date date = new Date((long) ((random.nextDouble() - 0.1) * 4102444800000L));
+                     String formatted = format.format(date);
+                     synchronized (expected) {
+                        if (!formatted.equals(expected.format(date))) {
+                           mismatches++;
+                        }
+                     }
+                  }
+                  return mismatches;
+               }
+            }));
+         }
+         for (Future<Integer> result : results) {
+            assertEquals(result.get().intValue(), 0);
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   void testDateFormat() {
+      Date date = new Date(951782400000L);
+      DateFormat expected = new SimpleDateFormat(TimestampFormat.PATTERN);
+      assertEquals(Representations.dateFormat(date), expected.format(date));
+      assertEquals(Representations.dateFormat(null), "");
+   }
+
+   @Test
+   @SuppressWarnings("deprecation")
+   void testDeprecatedDateFormatStillFormats() {
+      Date date = new Date(951782400000L);
+      assertEquals(Representations.DATE_FORMAT.format(date), Representations.dateFormat(date));
+   }
+
+   @Test
+   @SuppressWarnings("deprecation")
+   void testDeprecatedDateFormatIsConfiguredPerThread() throws Exception {
+      final Date date = new Date(951782400000L);
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         String utc = executor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+               Representations.DATE_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
+               return Representations.DATE_FORMAT.format(date);
+            }
+         }).get();
+         DateFormat expected = new SimpleDateFormat(TimestampFormat.PATTERN);
+         expected.setTimeZone(TimeZone.getTimeZone("UTC"));
+         assertEquals(utc, expected.format(date));
+         assertEquals(Representations.DATE_FORMAT.getTimeZone(), TimeZone.getDefault());
+         assertEquals(Representations.DATE_FORMAT.format(date), Representations.dateFormat(date));
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   @SuppressWarnings("deprecation")
+   void testDeprecatedDateFormatDeserializesToItself() throws Exception {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(Representations.DATE_FORMAT);
+      out.close();
+      Object read = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+      assertSame(read, Representations.DATE_FORMAT);
+   }
+}
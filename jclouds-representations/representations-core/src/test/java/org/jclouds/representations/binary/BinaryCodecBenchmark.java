@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.representations.binary;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.jclouds.compute.representations.LoginCredentials;
+import org.jclouds.compute.representations.NodeMetadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Compares the size of a node inventory, and the time it takes to write and read it, in the binary
+ * format, with java serialization and with json. Run it with a few thousand nodes, for instance:
+ * <pre>
+ * java -cp ... org.jclouds.representations.binary.BinaryCodecBenchmark 5000 20
+ * </pre>
+ */
+public class BinaryCodecBenchmark {
+
+   private static final Type NODES = new TypeToken<List<NodeMetadata>>() {
+   }.getType();
+
+   private interface Codec {
+      byte[] write(List<NodeMetadata> nodes) throws IOException;
+
+      List<NodeMetadata> read(byte[] bytes) throws IOException;
+   }
+
+   private static final Codec BINARY = new Codec() {
+      @Override
+      public byte[] write(List<NodeMetadata> nodes) throws IOException {
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         RepresentationOutput out = new RepresentationOutput(bytes);
+         out.writeAll(nodes);
+         out.close();
+         return bytes.toByteArray();
+      }
+
+      @Override
+      public List<NodeMetadata> read(byte[] bytes) throws IOException {
+         return new RepresentationInput(new ByteArrayInputStream(bytes)).readAll(NodeMetadata.class);
+      }
+   };
+
+   private static final Codec SERIALIZATION = new Codec() {
+      @Override
+      public byte[] write(List<NodeMetadata> nodes) throws IOException {
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         ObjectOutputStream out = new ObjectOutputStream(bytes);
+         out.writeObject(nodes);
+         out.close();
+         return bytes.toByteArray();
+      }
+
+      @Override
+      public List<NodeMetadata> read(byte[] bytes) throws IOException {
+         try {
+            return (List<NodeMetadata>) new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+         } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+         }
+      }
+   };
+
+   private static final Codec JSON = new Codec() {
+      private final Gson gson = new Gson();
+
+      @Override
+      public byte[] write(List<NodeMetadata> nodes) {
+         return gson.toJson(nodes, NODES).getBytes(Charsets.UTF_8);
+      }
+
+      @Override
+      public List<NodeMetadata> read(byte[] bytes) {
+         return gson.fromJson(new String(bytes, Charsets.UTF_8), NODES);
+      }
+   };
+
+   public static void main(String[] args) throws IOException {
+      int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+      int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+      List<NodeMetadata> inventory = inventory(nodes);
+
+      System.out.printf("%d nodes, %d rounds%n", nodes, rounds);
+      run("binary", BINARY, inventory, rounds);
+      run("serialization", SERIALIZATION, inventory, rounds);
+      run("json", JSON, inventory, rounds);
+   }
+
+   private static void run(String name, Codec codec, List<NodeMetadata> inventory, int rounds) throws IOException {
+      byte[] bytes = codec.write(inventory);
+      if (codec.read(bytes).size() != inventory.size()) {
+         throw new AssertionError(name + " lost nodes");
+      }
+      for (int i = 0; i < rounds; i++) {
+         codec.read(codec.write(inventory));
+      }
+
+      long write = 0;
+      long read = 0;
+      for (int i = 0; i < rounds; i++) {
+         long start = System.nanoTime();
+         bytes = codec.write(inventory);
+         write += System.nanoTime() - start;
+         start = System.nanoTime();
+         codec.read(bytes);
+         read += System.nanoTime() - start;
+      }
+      System.out.printf("%-14s %9d bytes, write %7.2f ms, read %7.2f ms%n", name, bytes.length,
+              write / 1e6 / rounds, read / 1e6 / rounds);
+   }
+
+   private static List<NodeMetadata> inventory(int size) {
+      LoginCredentials credentials = LoginCredentials.builder().username("root").password("password").build();
+      ImmutableList.Builder<NodeMetadata> nodes = ImmutableList.builder();
+      for (int i = 0; i < size; i++) {
+         nodes.add(NodeMetadata.builder().id("node-" + i).name("web-" + i).group("web").status("RUNNING")
+                 .hostname("web-" + i + ".example.com").imageId("ubuntu-12.04")
+                 .locationId("us-east-1" + (char) ('a' + i % 3))
+                 .loginPort(22).tags(ImmutableSet.of("web", "production"))
+                 .metadata(ImmutableMap.of("owner", "ops", "tier", "frontend")).defaultCredentials(credentials)
+                 .build());
+      }
+      return nodes.build();
+   }
+}
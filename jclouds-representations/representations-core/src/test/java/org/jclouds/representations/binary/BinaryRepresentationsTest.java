@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.representations.binary;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.jclouds.blobstore.representations.Blob;
+import org.jclouds.blobstore.representations.BlobMetadata;
+import org.jclouds.blobstore.representations.ContentMetadata;
+import org.jclouds.blobstore.representations.StorageMetadata;
+import org.jclouds.compute.representations.BulkOperation;
+import org.jclouds.compute.representations.ExecResponse;
+import org.jclouds.compute.representations.Hardware;
+import org.jclouds.compute.representations.Image;
+import org.jclouds.compute.representations.LoginCredentials;
+import org.jclouds.compute.representations.NodeMetadata;
+import org.jclouds.compute.representations.OperatingSystem;
+import org.jclouds.compute.representations.Processor;
+import org.jclouds.compute.representations.Volume;
+import org.jclouds.representations.ApiMetadata;
+import org.jclouds.representations.Context;
+import org.jclouds.representations.Location;
+import org.jclouds.representations.Page;
+import org.jclouds.representations.ProviderMetadata;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+@Test
+public class BinaryRepresentationsTest {
+
+   private static final LoginCredentials CREDENTIALS = new LoginCredentials("root", "password1", "-----BEGIN RSA",
+           "http://credentials", true);
+   private static final OperatingSystem OS = new OperatingSystem("UBUNTU", "ubuntu", "x86_64", "12.04",
+           "Ubuntu 12.04 LTS", true);
+   private static final ContentMetadata CONTENT = new ContentMetadata(1024L, "attachment", "gzip",
+           "application/octet-stream", new byte[] { 1, 2, 3, 4 }, "en", "01/01/2014 00:00:00 GMT");
+   private static final BlobMetadata BLOB_METADATA = new BlobMetadata("BLOB", "blob-1", "blob-1",
+           "http://blobs/blob-1", ImmutableMap.of("owner", "me"), "etag", "01/01/2014 00:00:00 GMT",
+           "02/01/2014 00:00:00 GMT", "http://public/blob-1", CONTENT);
+
+   @Test
+   void testRoundTripCompute() {
+      assertRoundTrip(CREDENTIALS);
+      assertRoundTrip(OS);
+      assertRoundTrip(new Processor(2.0, 2.4));
+      assertRoundTrip(new Volume("vol-1", "LOCAL", 20.5f, "/dev/sda", true, true));
+      assertRoundTrip(new Volume(null, null, null, null, false, false));
+      assertRoundTrip(new Hardware("small", "Small", ImmutableSet.of("cheap"),
+              ImmutableList.of(new Processor(1.0, 1.0), new Processor(1.0, 2.0)), 512,
+              ImmutableList.of(new Volume("vol-1", "LOCAL", 20f, "/dev/sda", true, true)), "xen"));
+      assertRoundTrip(new Image("image-1", "ubuntu", "12.04", "an image", "AVAILABLE", OS, CREDENTIALS,
+              ImmutableSet.of("a", "b")));
+      assertRoundTrip(node("1"));
+      assertRoundTrip(NodeMetadata.builder().id("2").build());
+      assertRoundTrip(new ExecResponse("out", "err", 127));
+      assertRoundTrip(new BulkOperation("op-1", "DESTROY", "group=test", 10, 7, 1, false, true,
+              ImmutableMap.of("node-3", "timeout"), "01/01/2014 00:00:00 GMT", null));
+   }
+
+   @Test
+   void testRoundTripBlobStore() {
+      assertRoundTrip(CONTENT);
+      assertRoundTrip(new ContentMetadata(null, null, null, null, null, null, null));
+      assertRoundTrip(BLOB_METADATA);
+      assertRoundTrip(new StorageMetadata("CONTAINER", "container-1", "container-1", "http://blobs",
+              ImmutableMap.of("a", "b"), "etag", "01/01/2014 00:00:00 GMT", null));
+      Map<String, Collection<String>> headers = ImmutableMap.<String, Collection<String>>of(
+              "Content-Type", ImmutableList.of("text/plain"), "X-Many", ImmutableList.of("1", "2"));
+      assertRoundTrip(new Blob(headers, BLOB_METADATA));
+      assertRoundTrip(new Blob(null, null));
+   }
+
+   @Test
+   void testRoundTripCore() {
+      assertRoundTrip(Location.builder().id("region-1").scope("REGION").description("a region")
+              .parentId("provider").iso3166Codes(ImmutableSet.of("US-CA")).build());
+      assertRoundTrip(new Context("context", "stub", "identity"));
+      assertRoundTrip(new ApiMetadata("stub", "Stub", "endpoint", "identity", "credential", "1.0",
+              "http://stub", "user", "secret", ImmutableMap.of("jclouds.a", "1"), ImmutableSet.of("Module"),
+              "http://docs", "ComputeServiceContext", ImmutableSet.of("compute")));
+      assertRoundTrip(new ProviderMetadata("stub", "Stub", "http://docs", "endpoint", "identity", "credential",
+              ImmutableSet.of("Module"), ImmutableSet.of("compute"), "http://stub", ImmutableMap.of("jclouds.a", "1"),
+              "http://console", "http://home", ImmutableSet.of("stub"), ImmutableSet.of("US")));
+      assertRoundTrip(Page.create(ImmutableList.of(node("1"), node("2")), "2"));
+      assertRoundTrip(Page.create(ImmutableList.<NodeMetadata>of(), null));
+      assertNull(BinaryRepresentations.fromBytes(BinaryRepresentations.toBytes(null), NodeMetadata.class));
+   }
+
+   @Test
+   void testCredentialsSecretsAreNotWritten() {
+      byte[] bytes = BinaryRepresentations.toBytes(CREDENTIALS);
+      String written = new String(bytes, Charsets.ISO_8859_1);
+      assertFalse(written.contains("password1"), written);
+      assertFalse(written.contains("BEGIN RSA"), written);
+      LoginCredentials read = BinaryRepresentations.fromBytes(bytes, LoginCredentials.class);
+      assertEquals(read.getPassword(), "");
+      assertTrue(read.hasPrivateKey());
+      assertEquals(read, CREDENTIALS);
+
+      read = BinaryRepresentations.fromBytes(BinaryRepresentations.toBytes(LoginCredentials.builder()
+              .username("root").build()), LoginCredentials.class);
+      assertNull(read.getPassword());
+      assertFalse(read.hasPrivateKey());
+   }
+
+   @Test
+   void testStreamInternsStrings() throws IOException {
+      List<NodeMetadata> nodes = ImmutableList.of(node("1"), node("2"), node("3"));
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      RepresentationOutput out = new RepresentationOutput(bytes);
+      out.writeAll(nodes);
+      out.close();
+      int first = BinaryRepresentations.toBytes(node("1")).length;
+      // the nodes after the first only differ by their id and name
+      assertTrue(bytes.size() < 2 * first, bytes.size() + " bytes for 3 nodes of " + first);
+
+      RepresentationInput in = new RepresentationInput(new ByteArrayInputStream(bytes.toByteArray()));
+      assertEquals(in.readAll(NodeMetadata.class), nodes);
+   }
+
+   @Test
+   void testLongStringsAreNotInterned() throws IOException {
+      StringBuilder output = new StringBuilder();
+      for (int i = 0; i < 1000; i++) {
+         output.append("line ").append(i).append('\n');
+      }
+      ExecResponse response = new ExecResponse(output.toString(), "", 0);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      RepresentationOutput out = new RepresentationOutput(bytes);
+      out.write(response);
+      out.write(response);
+      out.close();
+      RepresentationInput in = new RepresentationInput(new ByteArrayInputStream(bytes.toByteArray()));
+      assertEquals(in.read(), response);
+      assertEquals(in.read(), response);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   void testWrongType() {
+      BinaryRepresentations.fromBytes(BinaryRepresentations.toBytes(OS), NodeMetadata.class);
+   }
+
+   @Test(expectedExceptions = StreamCorruptedException.class)
+   void testNotARepresentationStream() throws IOException {
+      new RepresentationInput(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4 }));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   void testNotARepresentation() throws IOException {
+      new RepresentationOutput(new ByteArrayOutputStream()).write("a string");
+   }
+
+   private static void assertRoundTrip(Serializable representation) {
+      byte[] bytes = BinaryRepresentations.toBytes(representation);
+      assertEquals(BinaryRepresentations.fromBytes(bytes, representation.getClass()), representation);
+   }
+
+   static NodeMetadata node(String id) {
+      return new NodeMetadata(id, "testnode-" + id, "a node", "RUNNING", "host-" + id, "us-east-1a", "ubuntu-12.04",
+              22, "test-group", ImmutableSet.of("a", "b"), ImmutableMap.of("key", "value", "owner", "me"),
+              CREDENTIALS);
+   }
+}
@@ -16,19 +16,39 @@
  */
 package org.jclouds.nodepool;
 
+import static org.jclouds.nodepool.config.NodePoolProperties.AUTOSCALE_INTERVAL;
 import static org.jclouds.nodepool.config.NodePoolProperties.BACKEND_GROUP;
 import static org.jclouds.nodepool.config.NodePoolProperties.BACKEND_MODULES;
+import static org.jclouds.nodepool.config.NodePoolProperties.DEMAND_SMOOTHING;
+import static org.jclouds.nodepool.config.NodePoolProperties.GROWTH_BATCH_SIZE;
+import static org.jclouds.nodepool.config.NodePoolProperties.IDLE_HIGH_WATERMARK;
+import static org.jclouds.nodepool.config.NodePoolProperties.IDLE_LOW_WATERMARK;
+import static org.jclouds.nodepool.config.NodePoolProperties.LEASE_DURATION;
+import static org.jclouds.nodepool.config.NodePoolProperties.LEASE_REAPER_INTERVAL;
 import static org.jclouds.nodepool.config.NodePoolProperties.MAX_SIZE;
+import static org.jclouds.nodepool.config.NodePoolProperties.METADATA_CACHE_EXPIRY;
+import static org.jclouds.nodepool.config.NodePoolProperties.METADATA_CACHE_SIZE;
 import static org.jclouds.nodepool.config.NodePoolProperties.METADATA_CONTAINER;
+import static org.jclouds.nodepool.config.NodePoolProperties.METADATA_STORE;
 import static org.jclouds.nodepool.config.NodePoolProperties.MIN_SIZE;
 import static org.jclouds.nodepool.config.NodePoolProperties.POOL_ADMIN_ACCESS;
+import static org.jclouds.nodepool.config.NodePoolProperties.PREWARM;
+import static org.jclouds.nodepool.config.NodePoolProperties.PREWARM_LEAD_TIME;
+import static org.jclouds.nodepool.config.NodePoolProperties.PROVISIONING_PARALLELISM;
+import static org.jclouds.nodepool.config.NodePoolProperties.READINESS_SCRIPT;
+import static org.jclouds.nodepool.config.NodePoolProperties.RECONCILE_INTERVAL;
+import static org.jclouds.nodepool.config.NodePoolProperties.RECYCLE_SCRIPT;
+import static org.jclouds.nodepool.config.NodePoolProperties.RECYCLE_THREADS;
 import static org.jclouds.nodepool.config.NodePoolProperties.REMOVE_DESTROYED;
+import static org.jclouds.nodepool.config.NodePoolProperties.SHRINK_COOLDOWN;
+import static org.jclouds.nodepool.config.NodePoolProperties.SUBPOOLS;
 
 import java.io.File;
 import java.net.URI;
 import java.util.Properties;
 
 import org.jclouds.apis.internal.BaseApiMetadata;
+import org.jclouds.concurrent.config.ScheduledExecutorServiceModule;
 import org.jclouds.nodepool.config.BindBackendComputeService;
 import org.jclouds.nodepool.config.BindInputStreamToFilesystemBlobStore;
 import org.jclouds.nodepool.config.NodePoolComputeServiceContextModule;
@@ -56,11 +76,30 @@ public class NodePoolApiMetadata extends BaseApiMetadata {
       Properties properties = BaseRestApiMetadata.defaultProperties();
       properties.setProperty(BACKEND_GROUP, "nodepool");
       properties.setProperty(METADATA_CONTAINER, "nodes");
+      properties.setProperty(METADATA_STORE, "blobstore");
+      properties.setProperty(PROVISIONING_PARALLELISM, 4 + "");
+      properties.setProperty(READINESS_SCRIPT, "");
+      properties.setProperty(SUBPOOLS, "");
+      properties.setProperty(LEASE_DURATION, 0 + "");
+      properties.setProperty(LEASE_REAPER_INTERVAL, 60 + "");
       properties.setProperty(BACKEND_MODULES,
                "org.jclouds.logging.slf4j.config.SLF4JLoggingModule,org.jclouds.sshj.config.SshjSshClientModule");
       properties.setProperty(MAX_SIZE, 10 + "");
       properties.setProperty(MIN_SIZE, 5 + "");
       properties.setProperty(REMOVE_DESTROYED, "true");
+      properties.setProperty(RECONCILE_INTERVAL, 300 + "");
+      properties.setProperty(IDLE_LOW_WATERMARK, 0 + "");
+      properties.setProperty(IDLE_HIGH_WATERMARK, -1 + "");
+      properties.setProperty(GROWTH_BATCH_SIZE, 5 + "");
+      properties.setProperty(PREWARM, "false");
+      properties.setProperty(PREWARM_LEAD_TIME, 180 + "");
+      properties.setProperty(DEMAND_SMOOTHING, 0.3 + "");
+      properties.setProperty(AUTOSCALE_INTERVAL, 15 + "");
+      properties.setProperty(SHRINK_COOLDOWN, 600 + "");
+      properties.setProperty(RECYCLE_SCRIPT, "");
+      properties.setProperty(RECYCLE_THREADS, 4 + "");
+      properties.setProperty(METADATA_CACHE_SIZE, 1000 + "");
+      properties.setProperty(METADATA_CACHE_EXPIRY, 3600 + "");
       // by default use the current user's user and private key if one exists, if not the properties
       // will need to be set (no default passwords)
       if (new File(System.getProperty("user.home") + "/.ssh/id_rsa").exists()) {
@@ -83,7 +122,8 @@ public class NodePoolApiMetadata extends BaseApiMetadata {
                            ImmutableSet.<Class<? extends Module>> builder()
                                     .add(NodePoolComputeServiceContextModule.class)
                                     .add(BindInputStreamToFilesystemBlobStore.class)
-                                    .add(BindBackendComputeService.class).build())
+                                    .add(BindBackendComputeService.class)
+                                    .add(ScheduledExecutorServiceModule.class).build())
                   .defaultProperties(NodePoolApiMetadata.defaultProperties());
       }
 
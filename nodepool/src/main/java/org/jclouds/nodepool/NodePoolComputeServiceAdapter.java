@@ -16,6 +16,10 @@
  */
 package org.jclouds.nodepool;
 
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 import org.jclouds.compute.ComputeServiceContext;
 import org.jclouds.compute.JCloudsNativeComputeServiceAdapter;
 import org.jclouds.nodepool.internal.EagerNodePoolComputeServiceAdapter;
@@ -35,6 +39,34 @@ public interface NodePoolComputeServiceAdapter extends JCloudsNativeComputeServi
 
    int currentSize();
 
+   int pendingNodes();
+
+   int lowWatermark();
+
+   int highWatermark();
+
+   double demandRate();
+
+   int recyclingNodes();
+
+   long recycledNodes();
+
+   long recycleFailures();
+
+   long averageRecycleMillis();
+
+   Map<String, Integer> idleNodesBySubPool();
+
+   Map<String, Integer> usedNodesBySubPool();
+
+   Map<String, Date> leaseExpirations();
+
+   long expiredLeases();
+
+   Date renewLease(String id);
+
+   Date renewLease(String id, long duration, TimeUnit unit);
+
    void destroyPool();
 
    ComputeServiceContext getBackendComputeServiceContext();
@@ -16,6 +16,9 @@
  */
 package org.jclouds.nodepool;
 
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Singleton;
 
 import org.jclouds.Context;
@@ -24,7 +27,9 @@ import org.jclouds.compute.ComputeServiceContext;
 import org.jclouds.compute.Utils;
 import org.jclouds.compute.internal.ComputeServiceContextImpl;
 import org.jclouds.location.Provider;
+import org.jclouds.nodepool.internal.NodeMetadataStoreCache;
 
+import com.google.common.cache.CacheStats;
 import com.google.common.reflect.TypeToken;
 import com.google.inject.Inject;
 
@@ -32,12 +37,15 @@ import com.google.inject.Inject;
 public class NodePoolComputeServiceContext extends ComputeServiceContextImpl {
 
    private final NodePoolComputeServiceAdapter adapter;
+   private final NodeMetadataStoreCache metadataCache;
 
    @Inject
    public NodePoolComputeServiceContext(@Provider Context backend, @Provider TypeToken<? extends Context> backendType,
-            ComputeService computeService, Utils utils, NodePoolComputeServiceAdapter adapter) {
+            ComputeService computeService, Utils utils, NodePoolComputeServiceAdapter adapter,
+            NodeMetadataStoreCache metadataCache) {
       super(backend, backendType, computeService, utils);
       this.adapter = adapter;
+      this.metadataCache = metadataCache;
    }
 
    /**
@@ -46,8 +54,49 @@ public class NodePoolComputeServiceContext extends ComputeServiceContextImpl {
     * @return
     */
    public NodePoolStats getPoolStats() {
-      return new NodePoolStats(adapter.currentSize(), adapter.idleNodes(), adapter.usedNodes(), adapter.maxNodes(),
-               adapter.minNodes());
+      CacheStats cacheStats = metadataCache.stats();
+      return NodePoolStats.builder()
+               .currentSize(adapter.currentSize())
+               .idleNodes(adapter.idleNodes())
+               .usedNodes(adapter.usedNodes())
+               .maxNodes(adapter.maxNodes())
+               .minNodes(adapter.minNodes())
+               .pendingNodes(adapter.pendingNodes())
+               .lowWatermark(adapter.lowWatermark())
+               .highWatermark(adapter.highWatermark())
+               .demandRate(adapter.demandRate())
+               .recyclingNodes(adapter.recyclingNodes())
+               .recycledNodes(adapter.recycledNodes())
+               .recycleFailures(adapter.recycleFailures())
+               .averageRecycleMillis(adapter.averageRecycleMillis())
+               .idleNodesBySubPool(adapter.idleNodesBySubPool())
+               .usedNodesBySubPool(adapter.usedNodesBySubPool())
+               .leaseExpirations(adapter.leaseExpirations())
+               .expiredLeases(adapter.expiredLeases())
+               .metadataCacheHits(cacheStats.hitCount())
+               .metadataCacheMisses(cacheStats.missCount())
+               .metadataCacheLoads(cacheStats.loadCount())
+               .build();
+   }
+
+   /**
+    * Extends the lease of an assigned node by the configured lease duration.
+    * 
+    * @return the time the renewed lease expires
+    * @see org.jclouds.nodepool.config.NodePoolProperties#LEASE_DURATION
+    */
+   public Date renewLease(String nodeId) {
+      return adapter.renewLease(nodeId);
+   }
+
+   /**
+    * Extends the lease of an assigned node, which is reclaimed by the pool if the lease is not
+    * renewed again before it expires.
+    * 
+    * @return the time the renewed lease expires
+    */
+   public Date renewLease(String nodeId, long duration, TimeUnit unit) {
+      return adapter.renewLease(nodeId, duration, unit);
    }
 
    /**
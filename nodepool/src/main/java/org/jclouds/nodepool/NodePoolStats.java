@@ -16,6 +16,9 @@
  */
 package org.jclouds.nodepool;
 
+import java.util.Date;
+import java.util.Map;
+
 /**
  * NodePool statistics and status.
  * 
@@ -29,13 +32,174 @@ public class NodePoolStats {
    private final int usedNodes;
    private final int maxNodes;
    private final int minNodes;
+   private final int pendingNodes;
+   private final int lowWatermark;
+   private final int highWatermark;
+   private final double demandRate;
+   private final int recyclingNodes;
+   private final long recycledNodes;
+   private final long recycleFailures;
+   private final long averageRecycleMillis;
+   private final Map<String, Integer> idleNodesBySubPool;
+   private final Map<String, Integer> usedNodesBySubPool;
+   private final Map<String, Date> leaseExpirations;
+   private final long expiredLeases;
+   private final long metadataCacheHits;
+   private final long metadataCacheMisses;
+   private final long metadataCacheLoads;
 
-   NodePoolStats(int currentSize, int idleNodes, int usedNodes, int maxNodes, int minNodes) {
-      this.currentSize = currentSize;
-      this.idleNodes = idleNodes;
-      this.usedNodes = usedNodes;
-      this.maxNodes = maxNodes;
-      this.minNodes = minNodes;
+   static Builder builder() {
+      return new Builder();
+   }
+
+   static class Builder {
+      private int currentSize;
+      private int idleNodes;
+      private int usedNodes;
+      private int maxNodes;
+      private int minNodes;
+      private int pendingNodes;
+      private int lowWatermark;
+      private int highWatermark;
+      private double demandRate;
+      private int recyclingNodes;
+      private long recycledNodes;
+      private long recycleFailures;
+      private long averageRecycleMillis;
+      private Map<String, Integer> idleNodesBySubPool;
+      private Map<String, Integer> usedNodesBySubPool;
+      private Map<String, Date> leaseExpirations;
+      private long expiredLeases;
+      private long metadataCacheHits;
+      private long metadataCacheMisses;
+      private long metadataCacheLoads;
+
+      Builder currentSize(int currentSize) {
+         this.currentSize = currentSize;
+         return this;
+      }
+
+      Builder idleNodes(int idleNodes) {
+         this.idleNodes = idleNodes;
+         return this;
+      }
+
+      Builder usedNodes(int usedNodes) {
+         this.usedNodes = usedNodes;
+         return this;
+      }
+
+      Builder maxNodes(int maxNodes) {
+         this.maxNodes = maxNodes;
+         return this;
+      }
+
+      Builder minNodes(int minNodes) {
+         this.minNodes = minNodes;
+         return this;
+      }
+
+      Builder pendingNodes(int pendingNodes) {
+         this.pendingNodes = pendingNodes;
+         return this;
+      }
+
+      Builder lowWatermark(int lowWatermark) {
+         this.lowWatermark = lowWatermark;
+         return this;
+      }
+
+      Builder highWatermark(int highWatermark) {
+         this.highWatermark = highWatermark;
+         return this;
+      }
+
+      Builder demandRate(double demandRate) {
+         this.demandRate = demandRate;
+         return this;
+      }
+
+      Builder recyclingNodes(int recyclingNodes) {
+         this.recyclingNodes = recyclingNodes;
+         return this;
+      }
+
+      Builder recycledNodes(long recycledNodes) {
+         this.recycledNodes = recycledNodes;
+         return this;
+      }
+
+      Builder recycleFailures(long recycleFailures) {
+         this.recycleFailures = recycleFailures;
+         return this;
+      }
+
+      Builder averageRecycleMillis(long averageRecycleMillis) {
+         this.averageRecycleMillis = averageRecycleMillis;
+         return this;
+      }
+
+      Builder idleNodesBySubPool(Map<String, Integer> idleNodesBySubPool) {
+         this.idleNodesBySubPool = idleNodesBySubPool;
+         return this;
+      }
+
+      Builder usedNodesBySubPool(Map<String, Integer> usedNodesBySubPool) {
+         this.usedNodesBySubPool = usedNodesBySubPool;
+         return this;
+      }
+
+      Builder leaseExpirations(Map<String, Date> leaseExpirations) {
+         this.leaseExpirations = leaseExpirations;
+         return this;
+      }
+
+      Builder expiredLeases(long expiredLeases) {
+         this.expiredLeases = expiredLeases;
+         return this;
+      }
+
+      Builder metadataCacheHits(long metadataCacheHits) {
+         this.metadataCacheHits = metadataCacheHits;
+         return this;
+      }
+
+      Builder metadataCacheMisses(long metadataCacheMisses) {
+         this.metadataCacheMisses = metadataCacheMisses;
+         return this;
+      }
+
+      Builder metadataCacheLoads(long metadataCacheLoads) {
+         this.metadataCacheLoads = metadataCacheLoads;
+         return this;
+      }
+
+      NodePoolStats build() {
+         return new NodePoolStats(this);
+      }
+   }
+
+   private NodePoolStats(Builder builder) {
+      this.currentSize = builder.currentSize;
+      this.idleNodes = builder.idleNodes;
+      this.usedNodes = builder.usedNodes;
+      this.maxNodes = builder.maxNodes;
+      this.minNodes = builder.minNodes;
+      this.pendingNodes = builder.pendingNodes;
+      this.lowWatermark = builder.lowWatermark;
+      this.highWatermark = builder.highWatermark;
+      this.demandRate = builder.demandRate;
+      this.recyclingNodes = builder.recyclingNodes;
+      this.recycledNodes = builder.recycledNodes;
+      this.recycleFailures = builder.recycleFailures;
+      this.averageRecycleMillis = builder.averageRecycleMillis;
+      this.idleNodesBySubPool = builder.idleNodesBySubPool;
+      this.usedNodesBySubPool = builder.usedNodesBySubPool;
+      this.leaseExpirations = builder.leaseExpirations;
+      this.expiredLeases = builder.expiredLeases;
+      this.metadataCacheHits = builder.metadataCacheHits;
+      this.metadataCacheMisses = builder.metadataCacheMisses;
+      this.metadataCacheLoads = builder.metadataCacheLoads;
    }
 
    /**
@@ -73,4 +237,109 @@ public class NodePoolStats {
       return minNodes;
    }
 
+   /**
+    * The number of nodes being created in the backend provider.
+    */
+   public int pendingNodes() {
+      return pendingNodes;
+   }
+
+   /**
+    * The number of idle nodes below which the pool grows ahead of demand.
+    */
+   public int lowWatermark() {
+      return lowWatermark;
+   }
+
+   /**
+    * The number of idle nodes above which the pool shrinks, or {@literal -1} if it never shrinks.
+    */
+   public int highWatermark() {
+      return highWatermark;
+   }
+
+   /**
+    * The estimated number of nodes checked out per minute.
+    */
+   public double demandRate() {
+      return demandRate;
+   }
+
+   /**
+    * The number of released nodes being cleaned before going back to the pool.
+    */
+   public int recyclingNodes() {
+      return recyclingNodes;
+   }
+
+   /**
+    * The number of nodes successfully cleaned and returned to the pool.
+    */
+   public long recycledNodes() {
+      return recycledNodes;
+   }
+
+   /**
+    * The number of nodes that could not be cleaned and were removed from the pool.
+    */
+   public long recycleFailures() {
+      return recycleFailures;
+   }
+
+   /**
+    * The average time, in milliseconds, it took to clean a node.
+    */
+   public long averageRecycleMillis() {
+      return averageRecycleMillis;
+   }
+
+   /**
+    * The number of idle nodes in each sub-pool, by sub-pool name.
+    */
+   public Map<String, Integer> idleNodesBySubPool() {
+      return idleNodesBySubPool;
+   }
+
+   /**
+    * The number of nodes being used in each sub-pool, by sub-pool name.
+    */
+   public Map<String, Integer> usedNodesBySubPool() {
+      return usedNodesBySubPool;
+   }
+
+   /**
+    * The time the lease of each leased node expires, by node id.
+    */
+   public Map<String, Date> leaseExpirations() {
+      return leaseExpirations;
+   }
+
+   /**
+    * The number of nodes reclaimed from their user because their lease expired.
+    */
+   public long expiredLeases() {
+      return expiredLeases;
+   }
+
+   /**
+    * The number of frontend node reads served by the metadata cache.
+    */
+   public long metadataCacheHits() {
+      return metadataCacheHits;
+   }
+
+   /**
+    * The number of frontend node reads the metadata cache could not serve.
+    */
+   public long metadataCacheMisses() {
+      return metadataCacheMisses;
+   }
+
+   /**
+    * The number of frontend nodes the metadata cache loaded from the underlying store.
+    */
+   public long metadataCacheLoads() {
+      return metadataCacheLoads;
+   }
+
 }
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.nodepool.internal.RunScriptNodeReadinessProbe;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Checks that a newly created backend node is ready to be handed out before it joins the pool.
+ * Nodes are only created once ssh is reachable and the pool's admin access is installed, so probes
+ * typically check whatever else a node needs, like services started by the image.
+ */
+@ImplementedBy(RunScriptNodeReadinessProbe.class)
+public interface NodeReadinessProbe {
+
+   /**
+    * Checks the provided backend node, blocking until it's done. The node joins the pool only if
+    * this method returns normally; if it throws the node is destroyed.
+    * 
+    * @param backendNode
+    *           the newly created backend node
+    */
+   void awaitReady(NodeMetadata backendNode);
+
+}
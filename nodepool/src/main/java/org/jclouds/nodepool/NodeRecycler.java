@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.nodepool.internal.RunScriptNodeRecycler;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Cleans a backend node released by its frontend user so it can go back to the pool. Used when
+ * destroyed nodes are not removed from the pool (see
+ * {@link org.jclouds.nodepool.config.NodePoolProperties#REMOVE_DESTROYED}).
+ * <p>
+ * The default implementation runs a cleanup script on the node. Providers that support it can bind
+ * an implementation that reverts the node to a snapshot instead.
+ */
+@ImplementedBy(RunScriptNodeRecycler.class)
+public interface NodeRecycler {
+
+   /**
+    * Cleans the provided backend node, blocking until it's done. The node only goes back to the pool
+    * if this method returns normally; if it throws the node is destroyed.
+    * 
+    * @param backendNode
+    *           the backend node to clean
+    */
+   void recycle(NodeMetadata backendNode);
+
+}
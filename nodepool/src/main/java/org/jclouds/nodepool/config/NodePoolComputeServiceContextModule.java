@@ -16,6 +16,23 @@
  */
 package org.jclouds.nodepool.config;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.jclouds.nodepool.config.NodePoolProperties.BACKEND_GROUP;
+import static org.jclouds.nodepool.config.NodePoolProperties.IDLE_HIGH_WATERMARK;
+import static org.jclouds.nodepool.config.NodePoolProperties.IDLE_LOW_WATERMARK;
+import static org.jclouds.nodepool.config.NodePoolProperties.MAX_SIZE;
+import static org.jclouds.nodepool.config.NodePoolProperties.METADATA_STORE;
+import static org.jclouds.nodepool.config.NodePoolProperties.MIN_SIZE;
+import static org.jclouds.nodepool.config.NodePoolProperties.SUBPOOLS;
+import static org.jclouds.nodepool.config.NodePoolProperties.SUBPOOL_PREFIX;
+import static org.jclouds.nodepool.config.NodePoolProperties.SUBPOOL_TEMPLATE;
+
+import java.util.Map;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
 import org.jclouds.apis.ApiMetadata;
 import org.jclouds.compute.ComputeServiceContext;
 import org.jclouds.compute.config.JCloudsNativeComputeServiceAdapterContextModule;
@@ -25,14 +42,23 @@ import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.Template;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LoginCredentials;
+import org.jclouds.internal.FilterStringsBoundToInjectorByName;
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.nodepool.NodePoolApiMetadata;
 import org.jclouds.nodepool.NodePoolComputeServiceAdapter;
 import org.jclouds.nodepool.NodePoolComputeServiceContext;
+import org.jclouds.nodepool.internal.AutoscalePolicy;
 import org.jclouds.nodepool.internal.JsonNodeMetadataStore;
+import org.jclouds.nodepool.internal.LogNodeMetadataStore;
 import org.jclouds.nodepool.internal.NodeMetadataStore;
+import org.jclouds.nodepool.internal.NodeMetadataStoreCache;
+import org.jclouds.nodepool.internal.SubPoolSpec;
+import org.jclouds.util.Predicates2;
 
 import com.google.common.base.Function;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
 
 public class NodePoolComputeServiceContextModule extends JCloudsNativeComputeServiceAdapterContextModule {
@@ -54,7 +80,7 @@ public class NodePoolComputeServiceContextModule extends JCloudsNativeComputeSer
    @Override
    protected void configure() {
       super.configure();
-      bind(NodeMetadataStore.class).to(JsonNodeMetadataStore.class);
+      bind(NodeMetadataStore.class).to(NodeMetadataStoreCache.class);
       bind(ApiMetadata.class).to(NodePoolApiMetadata.class);
       bind(ComputeServiceContext.class).to(NodePoolComputeServiceContext.class);
       install(new LocationsFromComputeServiceAdapterModule<NodeMetadata, Hardware, Image, Location>() {
@@ -62,6 +88,47 @@ public class NodePoolComputeServiceContextModule extends JCloudsNativeComputeSer
 
    }
 
+   @Provides
+   @Singleton
+   @Named("UNCACHED")
+   protected NodeMetadataStore provideNodeMetadataStore(@Named(METADATA_STORE) String store,
+            Provider<JsonNodeMetadataStore> blobStore, Provider<LogNodeMetadataStore> log) {
+      if ("log".equals(store)) {
+         return log.get();
+      }
+      checkArgument("blobstore".equals(store), "unsupported %s: %s", METADATA_STORE, store);
+      return blobStore.get();
+   }
+
+   @Provides
+   @Singleton
+   protected Map<String, SubPoolSpec> provideSubPools(@Named(SUBPOOLS) String subPools,
+            @Named(BACKEND_GROUP) String poolGroupName, @Named(MIN_SIZE) int minSize, @Named(MAX_SIZE) int maxSize,
+            AutoscalePolicy policy, FilterStringsBoundToInjectorByName filterStringsBoundByName) {
+      ImmutableMap.Builder<String, SubPoolSpec> specs = ImmutableMap.builder();
+      if (subPools.trim().isEmpty()) {
+         return specs.put("default", new SubPoolSpec("default", poolGroupName, null, minSize, maxSize,
+                  policy.lowWatermark, policy.highWatermark)).build();
+      }
+      for (String name : Splitter.on(',').trimResults().omitEmptyStrings().split(subPools)) {
+         String prefix = SUBPOOL_PREFIX + name + ".";
+         Map<String, String> props = filterStringsBoundByName.apply(Predicates2.startsWith(prefix));
+         specs.put(name, new SubPoolSpec(name, poolGroupName + "-" + name, props.get(prefix + SUBPOOL_TEMPLATE),
+                  intProperty(props, prefix, MIN_SIZE, 0), intProperty(props, prefix, MAX_SIZE, maxSize),
+                  intProperty(props, prefix, IDLE_LOW_WATERMARK, policy.lowWatermark),
+                  intProperty(props, prefix, IDLE_HIGH_WATERMARK, policy.highWatermark)));
+      }
+      return specs.build();
+   }
+
+   /**
+    * Reads the sub-pool override of one of the pool-wide properties.
+    */
+   private static int intProperty(Map<String, String> props, String prefix, String poolProperty, int defaultValue) {
+      String value = props.get(prefix + poolProperty.substring(poolProperty.lastIndexOf('.') + 1));
+      return value == null ? defaultValue : Integer.parseInt(value.trim());
+   }
+
    @Override
    protected void bindCredentialsOverriderFunction() {
       bind(new TypeLiteral<Function<Template, LoginCredentials>>() {
@@ -71,4 +71,136 @@ public interface NodePoolProperties {
     */
    public static final String REMOVE_DESTROYED = "jclouds.nodepool.remove-destroyed";
 
+   /**
+    * Property to set the interval, in seconds, at which the pool's in-memory state is reconciled
+    * with the nodes listed by the backend. Set this to {@literal 0} to disable reconciliation.
+    */
+   public static final String RECONCILE_INTERVAL = "jclouds.nodepool.reconcile-interval";
+
+   /**
+    * Property to set the number of idle nodes below which the pool grows ahead of demand, as long as
+    * the maximum size allows it.
+    */
+   public static final String IDLE_LOW_WATERMARK = "jclouds.nodepool.idle-low-watermark";
+
+   /**
+    * Property to set the number of idle nodes above which the pool shrinks, never below the minimum
+    * size, once the shrink cooldown has elapsed. Set this to {@literal -1} to never shrink the pool.
+    */
+   public static final String IDLE_HIGH_WATERMARK = "jclouds.nodepool.idle-high-watermark";
+
+   /**
+    * Property to set the maximum number of nodes requested from the backend in a single call when the
+    * pool grows ahead of demand.
+    */
+   public static final String GROWTH_BATCH_SIZE = "jclouds.nodepool.growth-batch-size";
+
+   /**
+    * Property to set whether the pool pre-warms nodes based on the observed rate of checkouts.
+    */
+   public static final String PREWARM = "jclouds.nodepool.prewarm";
+
+   /**
+    * Property to set how far ahead, in seconds, the pool pre-warms nodes for the observed demand. This
+    * should be close to the time the backend takes to provision a node.
+    */
+   public static final String PREWARM_LEAD_TIME = "jclouds.nodepool.prewarm-lead-time";
+
+   /**
+    * Property to set the smoothing factor, between {@literal 0} and {@literal 1}, of the moving
+    * average of checkouts per minute. Higher values react faster to changes in demand.
+    */
+   public static final String DEMAND_SMOOTHING = "jclouds.nodepool.demand-smoothing";
+
+   /**
+    * Property to set the interval, in seconds, at which the pool checks its watermarks and updates
+    * the demand estimate. Set this to {@literal 0} to disable background autoscaling.
+    */
+   public static final String AUTOSCALE_INTERVAL = "jclouds.nodepool.autoscale-interval";
+
+   /**
+    * Property to set the time, in seconds, the pool must stay above the idle high watermark before
+    * idle nodes are destroyed.
+    */
+   public static final String SHRINK_COOLDOWN = "jclouds.nodepool.shrink-cooldown";
+
+   /**
+    * Property to set the script run as root on nodes released by their frontend user before they
+    * return to the pool, when destroyed nodes are not removed. Nodes whose script fails are destroyed.
+    * Leave empty to return nodes to the pool as they are.
+    */
+   public static final String RECYCLE_SCRIPT = "jclouds.nodepool.recycle-script";
+
+   /**
+    * Property to set the number of nodes that can be recycled concurrently.
+    */
+   public static final String RECYCLE_THREADS = "jclouds.nodepool.recycle-threads";
+
+   /**
+    * Property to set the maximum number of frontend node metadata entries kept in memory.
+    */
+   public static final String METADATA_CACHE_SIZE = "jclouds.nodepool.metadata-cache-size";
+
+   /**
+    * Property to set the time, in seconds, after which a cached frontend node metadata entry is
+    * reloaded from storage. Set this to {@literal 0} to keep entries until they are evicted by size.
+    */
+   public static final String METADATA_CACHE_EXPIRY = "jclouds.nodepool.metadata-cache-expiry";
+
+   /**
+    * Property to set where the frontend node metadata is stored: {@literal blobstore} stores one blob
+    * per node in the {@link #METADATA_CONTAINER} of a filesystem blobstore, {@literal log} stores all
+    * nodes in a single append-only file in the {@link #BASEDIR}, read once at startup.
+    */
+   public static final String METADATA_STORE = "jclouds.nodepool.metadata-store";
+
+   /**
+    * Property to set the maximum number of concurrent backend calls made to create pool nodes.
+    */
+   public static final String PROVISIONING_PARALLELISM = "jclouds.nodepool.provisioning-parallelism";
+
+   /**
+    * Property to set the script run as root on newly created nodes to check they are ready before
+    * they join the pool. Nodes whose script fails are destroyed. Leave empty to add nodes to the pool
+    * as soon as they are created.
+    */
+   public static final String READINESS_SCRIPT = "jclouds.nodepool.readiness-script";
+
+   /**
+    * Property to set the time, in seconds, a node is leased to its frontend user. Nodes whose lease
+    * is not renewed before it expires are reclaimed as if they had been destroyed. Set this to
+    * {@literal 0} to assign nodes until they are explicitly destroyed.
+    */
+   public static final String LEASE_DURATION = "jclouds.nodepool.lease-duration";
+
+   /**
+    * Property to set the interval, in seconds, at which expired leases are reclaimed.
+    */
+   public static final String LEASE_REAPER_INTERVAL = "jclouds.nodepool.lease-reaper-interval";
+
+   /**
+    * Property to set the comma delimited names of the sub-pools that make up the pool, each serving a
+    * single machine shape. Leave empty for a single pool built from the backend's default template.
+    * <p>
+    * Each sub-pool is configured with properties prefixed by {@code jclouds.nodepool.subpool.<name>.}:
+    * {@link #SUBPOOL_TEMPLATE}, {@link #MIN_SIZE min-size}, {@link #MAX_SIZE max-size},
+    * {@link #IDLE_LOW_WATERMARK idle-low-watermark} and {@link #IDLE_HIGH_WATERMARK
+    * idle-high-watermark}, e.g. {@code jclouds.nodepool.subpool.large.min-size=2}. Its nodes are
+    * created in the backend group {@code <backend-group>-<name>}. Sub-pools share the pool's
+    * {@link #MAX_SIZE}: when a sub-pool needs to grow beyond it, idle nodes above the minimum size of
+    * other sub-pools are destroyed to make room.
+    */
+   public static final String SUBPOOLS = "jclouds.nodepool.subpools";
+
+   /**
+    * Prefix of the properties of each sub-pool.
+    */
+   public static final String SUBPOOL_PREFIX = "jclouds.nodepool.subpool.";
+
+   /**
+    * Suffix of the property that sets the {@link org.jclouds.compute.domain.TemplateBuilderSpec} of
+    * the nodes of a sub-pool, e.g. {@code jclouds.nodepool.subpool.large.template=minRam=4096}.
+    */
+   public static final String SUBPOOL_TEMPLATE = "template";
+
 }
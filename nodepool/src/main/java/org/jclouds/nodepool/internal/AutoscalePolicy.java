@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static org.jclouds.nodepool.config.NodePoolProperties.AUTOSCALE_INTERVAL;
+import static org.jclouds.nodepool.config.NodePoolProperties.DEMAND_SMOOTHING;
+import static org.jclouds.nodepool.config.NodePoolProperties.GROWTH_BATCH_SIZE;
+import static org.jclouds.nodepool.config.NodePoolProperties.IDLE_HIGH_WATERMARK;
+import static org.jclouds.nodepool.config.NodePoolProperties.IDLE_LOW_WATERMARK;
+import static org.jclouds.nodepool.config.NodePoolProperties.PREWARM;
+import static org.jclouds.nodepool.config.NodePoolProperties.PREWARM_LEAD_TIME;
+import static org.jclouds.nodepool.config.NodePoolProperties.SHRINK_COOLDOWN;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.google.inject.Inject;
+
+/**
+ * The settings that drive how the pool grows ahead of demand and shrinks when idle.
+ * 
+ * @see org.jclouds.nodepool.config.NodePoolProperties
+ */
+@Singleton
+public class AutoscalePolicy {
+
+   public final int lowWatermark;
+   public final int highWatermark;
+   public final int growthBatchSize;
+   public final boolean prewarm;
+   public final long prewarmLeadTime;
+   public final double demandSmoothing;
+   public final long autoscaleInterval;
+   public final long shrinkCooldown;
+
+   @Inject
+   public AutoscalePolicy(@Named(IDLE_LOW_WATERMARK) int lowWatermark, @Named(IDLE_HIGH_WATERMARK) int highWatermark,
+            @Named(GROWTH_BATCH_SIZE) int growthBatchSize, @Named(PREWARM) boolean prewarm,
+            @Named(PREWARM_LEAD_TIME) long prewarmLeadTime, @Named(DEMAND_SMOOTHING) double demandSmoothing,
+            @Named(AUTOSCALE_INTERVAL) long autoscaleInterval, @Named(SHRINK_COOLDOWN) long shrinkCooldown) {
+      this.lowWatermark = lowWatermark;
+      this.highWatermark = highWatermark;
+      this.growthBatchSize = growthBatchSize;
+      this.prewarm = prewarm;
+      this.prewarmLeadTime = prewarmLeadTime;
+      this.demandSmoothing = demandSmoothing;
+      this.autoscaleInterval = autoscaleInterval;
+      this.shrinkCooldown = shrinkCooldown;
+   }
+}
@@ -38,8 +38,8 @@ import org.jclouds.nodepool.NodePoolComputeServiceAdapter;
 import org.jclouds.scriptbuilder.statements.login.AdminAccess;
 import org.jclouds.scriptbuilder.statements.login.AdminAccessBuilderSpec;
 
+import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
-import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 
@@ -86,26 +86,55 @@ public abstract class BaseNodePoolComputeServiceAdapter implements NodePoolCompu
       return metadataStore.loadAll(getBackendNodes());
    }
 
+   /**
+    * The backend templates of the nodes in the pool.
+    */
+   protected Iterable<Template> poolTemplates() {
+      return ImmutableSet.of(backendTemplate.get());
+   }
+
+   /**
+    * The backend groups of the nodes in the pool.
+    */
+   protected Set<String> poolGroups() {
+      return ImmutableSet.of(poolGroupName);
+   }
+
    @Override
    public Iterable<Hardware> listHardwareProfiles() {
-      return ImmutableSet.of(backendTemplate.get().getHardware());
+      ImmutableSet.Builder<Hardware> hardware = ImmutableSet.builder();
+      for (Template template : poolTemplates()) {
+         hardware.add(template.getHardware());
+      }
+      return hardware.build();
    }
 
    @Override
    public Iterable<Image> listImages() {
-      return ImmutableSet.of(backendTemplate.get().getImage());
-
+      ImmutableSet.Builder<Image> images = ImmutableSet.builder();
+      for (Template template : poolTemplates()) {
+         images.add(template.getImage());
+      }
+      return images.build();
    }
 
    @Override
    public Iterable<Location> listLocations() {
-      return ImmutableSet.of(backendTemplate.get().getLocation());
+      ImmutableSet.Builder<Location> locations = ImmutableSet.builder();
+      for (Template template : poolTemplates()) {
+         locations.add(template.getLocation());
+      }
+      return locations.build();
    }
 
    @Override
    public Image getImage(String id) {
-      Image backendImage = backendTemplate.get().getImage();
-      return backendImage.getId().equals(id) ? backendImage : null;
+      for (Image backendImage : listImages()) {
+         if (backendImage.getId().equals(id)) {
+            return backendImage;
+         }
+      }
+      return null;
    }
 
    @Override
@@ -134,14 +163,23 @@ public abstract class BaseNodePoolComputeServiceAdapter implements NodePoolCompu
 
    protected Set<NodeMetadata> getBackendNodes() {
       return ImmutableSet.copyOf(Iterables.filter(
-               backendComputeService.get().listNodesDetailsMatching(NodePredicates.all()),
-               NodePredicates.inGroup(poolGroupName)));
+               backendComputeService.get().listNodesDetailsMatching(NodePredicates.all()), inPoolGroups()));
+   }
+
+   private Predicate<NodeMetadata> inPoolGroups() {
+      final Set<String> groups = poolGroups();
+      return new Predicate<NodeMetadata>() {
+         @Override
+         public boolean apply(NodeMetadata input) {
+            return groups.contains(input.getGroup());
+         }
+      };
    }
 
    @Override
    public void destroyPool() {
       metadataStore.deleteAllMappings();
-      backendComputeService.get().destroyNodesMatching(NodePredicates.inGroup(poolGroupName));
+      backendComputeService.get().destroyNodesMatching(inPoolGroups());
    }
 
    @Override
@@ -149,14 +187,15 @@ public abstract class BaseNodePoolComputeServiceAdapter implements NodePoolCompu
       return backendComputeService.get().getContext();
    }
 
-   protected Set<? extends NodeMetadata> addToPool(int number) {
-      try {
-         Template template = backendTemplate.get().clone();
-         template.getOptions().runScript(initialCredentialsBuilder.build());
-         return backendComputeService.get().createNodesInGroup(poolGroupName, number, template);
-      } catch (RunNodesException e) {
-         throw Throwables.propagate(e);
-      }
+   /**
+    * Creates backend nodes with the pool's admin access. When some of them fail, the
+    * {@link RunNodesException} lets callers handle the nodes that were created.
+    */
+   protected Set<? extends NodeMetadata> createPoolNodes(String group, Template backendTemplate, int number)
+            throws RunNodesException {
+      Template template = backendTemplate.clone();
+      template.getOptions().runScript(initialCredentialsBuilder.build());
+      return backendComputeService.get().createNodesInGroup(group, number, template);
    }
 
    @Override
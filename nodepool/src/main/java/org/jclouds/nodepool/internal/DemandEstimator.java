@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Estimates the demand on the pool as an exponentially weighted moving average of checkouts per
+ * minute. Checkouts are recorded concurrently, while the average is updated on every
+ * {@link #tick()}.
+ */
+public class DemandEstimator {
+
+   private final double smoothing;
+   private final Ticker ticker;
+   private final AtomicInteger checkouts = new AtomicInteger();
+   private long lastTick;
+   private volatile double rate;
+
+   public DemandEstimator(double smoothing, Ticker ticker) {
+      checkArgument(smoothing > 0 && smoothing <= 1, "smoothing must be in (0, 1]: %s", smoothing);
+      this.smoothing = smoothing;
+      this.ticker = checkNotNull(ticker, "ticker");
+      this.lastTick = ticker.read();
+   }
+
+   public void record() {
+      checkouts.incrementAndGet();
+   }
+
+   /**
+    * Folds the checkouts recorded since the previous tick into the moving average.
+    * 
+    * @return the updated number of checkouts per minute
+    */
+   public synchronized double tick() {
+      long now = ticker.read();
+      long elapsed = now - lastTick;
+      if (elapsed <= 0) {
+         return rate;
+      }
+      lastTick = now;
+      double observed = checkouts.getAndSet(0) * (double) TimeUnit.MINUTES.toNanos(1) / elapsed;
+      rate = smoothing * observed + (1 - smoothing) * rate;
+      return rate;
+   }
+
+   /**
+    * The current estimate of checkouts per minute.
+    */
+   public double rate() {
+      return rate;
+   }
+
+}
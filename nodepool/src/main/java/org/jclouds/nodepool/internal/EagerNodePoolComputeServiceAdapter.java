@@ -18,21 +18,48 @@ package org.jclouds.nodepool.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.compute.util.ComputeServiceUtils.getCores;
 import static org.jclouds.nodepool.config.NodePoolProperties.BACKEND_GROUP;
+import static org.jclouds.nodepool.config.NodePoolProperties.LEASE_DURATION;
+import static org.jclouds.nodepool.config.NodePoolProperties.LEASE_REAPER_INTERVAL;
 import static org.jclouds.nodepool.config.NodePoolProperties.MAX_SIZE;
-import static org.jclouds.nodepool.config.NodePoolProperties.MIN_SIZE;
 import static org.jclouds.nodepool.config.NodePoolProperties.POOL_ADMIN_ACCESS;
+import static org.jclouds.nodepool.config.NodePoolProperties.PROVISIONING_PARALLELISM;
+import static org.jclouds.nodepool.config.NodePoolProperties.RECONCILE_INTERVAL;
+import static org.jclouds.nodepool.config.NodePoolProperties.RECYCLE_THREADS;
 import static org.jclouds.nodepool.config.NodePoolProperties.REMOVE_DESTROYED;
 
+import java.util.Date;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.RunNodesException;
+import org.jclouds.compute.domain.Hardware;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.options.TemplateOptions;
@@ -40,16 +67,62 @@ import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.logging.Logger;
 import org.jclouds.nodepool.Backend;
+import org.jclouds.nodepool.NodeReadinessProbe;
+import org.jclouds.nodepool.NodeRecycler;
 import org.jclouds.scriptbuilder.statements.login.AdminAccess;
 
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
 import com.google.common.base.Supplier;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Sets;
-import com.google.common.collect.Sets.SetView;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 /**
  * An eager {@link NodePoolComputeService}. Eagerly builds and maintains a pool of nodes. It's only
- * "started" after min nodes are allocated and available.
+ * "started" after at least one node is available, while the rest of the min nodes are allocated.
+ * <p>
+ * The pool is made of one or more sub-pools, each serving a single machine shape from its own
+ * backend group with its own min/max sizes and watermarks (see {@link SubPoolSpec}). Frontend
+ * templates are routed to the sub-pool whose template matches them best, and all sub-pools share
+ * the pool's max size: when a sub-pool must grow for a caller but the pool is full, idle nodes above
+ * the min size of the other sub-pools are destroyed to make room.
+ * <p>
+ * The state of each sub-pool is kept in a {@link NodePoolIndex} that is built when the pool starts
+ * and updated on every assignment and release, so allocating nodes and computing the pool
+ * statistics don't list the backend nodes. The indexes are periodically reconciled with the backend
+ * every {@link org.jclouds.nodepool.config.NodePoolProperties#RECONCILE_INTERVAL} seconds.
+ * <p>
+ * Checking out a node doesn't take any lock: callers that find an idle node return immediately,
+ * while callers that need a new node wait for their own node to be created. Concurrent requests
+ * for new nodes are coalesced and split into at most
+ * {@link org.jclouds.nodepool.config.NodePoolProperties#PROVISIONING_PARALLELISM} concurrent backend
+ * calls run on the user executor. New nodes only join the pool once the {@link NodeReadinessProbe}
+ * says they are ready. Warming the pool up to its minimum size also happens in the background: the
+ * pool is started as soon as its first node is ready.
+ * <p>
+ * The pool also grows in batches ahead of demand to keep its idle nodes above a low watermark or,
+ * when pre-warming, above the nodes the observed demand will need while new ones boot. Idle nodes
+ * above a high watermark are destroyed after a cooldown. See {@link AutoscalePolicy}.
+ * <p>
+ * When destroyed nodes are not removed from the pool, released nodes are cleaned by a
+ * {@link NodeRecycler} on a dedicated executor and only go back to the idle set once they have been
+ * cleaned successfully.
+ * <p>
+ * Nodes can be leased to their frontend user for
+ * {@link org.jclouds.nodepool.config.NodePoolProperties#LEASE_DURATION} seconds. Leases are kept in
+ * the {@link NodeMetadataStore} so they survive restarts, and nodes whose lease is not renewed in
+ * time are reclaimed by a background reaper as if their user had destroyed them.
  * 
  * @author David Alves
  * 
@@ -62,110 +135,794 @@ public class EagerNodePoolComputeServiceAdapter extends BaseNodePoolComputeServi
    protected Logger logger = Logger.NULL;
 
    private final int maxSize;
-   private final int minSize;
    private final boolean removeDestroyed;
+   private final ScheduledExecutorService scheduler;
+   private final ListeningExecutorService userExecutor;
+   private final long reconcileInterval;
+   private final AutoscalePolicy policy;
+   private final Ticker ticker = Ticker.systemTicker();
+   private final Map<String, SubPool> subPools;
+   // guards reservations across sub-pools, never held while talking to the backend
+   private final Object capacityLock = new Object();
+   private final NodeRecycler recycler;
+   private final ExecutorService recycleExecutor;
+   private final AtomicLong recycledNodes = new AtomicLong();
+   private final AtomicLong recycleFailures = new AtomicLong();
+   private final AtomicLong recycleNanos = new AtomicLong();
+   private final NodeReadinessProbe readinessProbe;
+   private final int provisioningParallelism;
+   // bounds the concurrent backend calls across overlapping growth requests
+   private final Semaphore provisioningPermits;
+   private final SettableFuture<Void> firstNodeReady = SettableFuture.create();
+   private volatile ScheduledFuture<?> reconciler;
+   private volatile ScheduledFuture<?> autoscaler;
+   private final long leaseDuration;
+   private final long leaseReaperInterval;
+   // lease expiration times, in milliseconds since the epoch, of the assigned nodes that have one
+   private final ConcurrentMap<String, Long> leases = new ConcurrentHashMap<String, Long>();
+   // serializes destroying, renewing and reclaiming each node
+   private final Striped<Lock> nodeLocks = Striped.lock(64);
+   private final AtomicLong expiredLeases = new AtomicLong();
+   private volatile ScheduledFuture<?> leaseReaper;
+   private final NodePoolMetrics metrics;
 
    @Inject
    public EagerNodePoolComputeServiceAdapter(@Backend Supplier<ComputeService> backendComputeService,
             @Backend Supplier<Template> backendTemplate, @Named(BACKEND_GROUP) String poolGroupPrefix,
-            @Named(MAX_SIZE) int maxSize, @Named(MIN_SIZE) int minSize,
+            @Named(MAX_SIZE) int maxSize, Map<String, SubPoolSpec> subPoolSpecs,
             @Named(REMOVE_DESTROYED) boolean removeDestroyed, NodeMetadataStore storage,
-            @Named(POOL_ADMIN_ACCESS) String poolNodeAdminAccess, AdminAccess.Configuration configuration) {
+            @Named(POOL_ADMIN_ACCESS) String poolNodeAdminAccess, AdminAccess.Configuration configuration,
+            @Named(PROPERTY_SCHEDULER_THREADS) ScheduledExecutorService scheduler,
+            @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+            @Named(RECONCILE_INTERVAL) long reconcileInterval, AutoscalePolicy policy, NodeRecycler recycler,
+            @Named(RECYCLE_THREADS) int recycleThreads, NodeReadinessProbe readinessProbe,
+            @Named(PROVISIONING_PARALLELISM) int provisioningParallelism,
+            @Named(LEASE_DURATION) long leaseDuration, @Named(LEASE_REAPER_INTERVAL) long leaseReaperInterval,
+            NodePoolMetrics metrics) {
       super(backendComputeService, backendTemplate, poolGroupPrefix, storage, poolNodeAdminAccess, configuration);
       this.maxSize = maxSize;
-      this.minSize = minSize;
       this.removeDestroyed = removeDestroyed;
+      this.scheduler = scheduler;
+      this.userExecutor = userExecutor;
+      this.reconcileInterval = reconcileInterval;
+      this.policy = policy;
+      ImmutableMap.Builder<String, SubPool> subPools = ImmutableMap.builder();
+      for (SubPoolSpec spec : subPoolSpecs.values()) {
+         subPools.put(spec.getName(), new SubPool(spec));
+      }
+      this.subPools = subPools.build();
+      this.recycler = recycler;
+      this.recycleExecutor = Executors.newFixedThreadPool(recycleThreads, new ThreadFactoryBuilder()
+               .setNameFormat("nodepool-recycle-%d").setDaemon(true).build());
+      this.readinessProbe = readinessProbe;
+      this.provisioningParallelism = provisioningParallelism;
+      this.provisioningPermits = new Semaphore(provisioningParallelism);
+      this.leaseDuration = leaseDuration;
+      this.leaseReaperInterval = leaseReaperInterval;
+      this.metrics = metrics;
    }
 
    @PostConstruct
    public void startEagerPool() {
-      Set<? extends NodeMetadata> backendNodes = getBackendNodes();
+      Set<NodeMetadata> backendNodes = getBackendNodes();
+      Set<String> frontendIds = frontendIds(backendNodes);
       int currentNodes = backendNodes.size();
-      int newNodes = backendNodes.size() < minSize ? minSize - backendNodes.size() : 0;
+      int minNodes = 0;
+      int newNodes = 0;
+      for (SubPool subPool : subPools.values()) {
+         subPool.index.rebuild(subPool.filter(backendNodes), frontendIds);
+         minNodes += subPool.spec.getMinSize();
+         newNodes += Math.max(subPool.spec.getMinSize() - subPool.index.size(), 0);
+      }
+      leases.putAll(metadataStore.loadLeases(backendNodes));
       logger.info(
                ">> initializing nodepool [backend provider: %s]. [existing nodes: %s, min nodes: %s, allocating: %s ]",
-               backendComputeService.get().getClass().getSimpleName(), currentNodes, minSize, newNodes);
-      if (backendNodes.size() < minSize) {
-         addToPool(minSize - backendNodes.size());
+               backendComputeService.get().getClass().getSimpleName(), currentNodes, minNodes, newNodes);
+      for (SubPool subPool : subPools.values()) {
+         int missing = subPool.spec.getMinSize() - subPool.index.size();
+         if (missing > 0 && reserve(subPool, missing, subPool.spec.getMinSize(), false)) {
+            subPool.requestGrowth(missing);
+         }
+      }
+      if (reconcileInterval > 0) {
+         reconciler = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+               reconcile();
+            }
+         }, reconcileInterval, reconcileInterval, TimeUnit.SECONDS);
+      }
+      if (policy.autoscaleInterval > 0) {
+         autoscaler = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+               autoscale();
+            }
+         }, policy.autoscaleInterval, policy.autoscaleInterval, TimeUnit.SECONDS);
+      }
+      if (leaseReaperInterval > 0) {
+         leaseReaper = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+               reapExpiredLeases();
+            }
+         }, leaseReaperInterval, leaseReaperInterval, TimeUnit.SECONDS);
+      }
+      for (SubPool subPool : subPools.values()) {
+         subPool.replenish();
+      }
+      if (idleNodes() == 0 && pendingNodes() > 0) {
+         // the rest of the pool keeps warming up in the background
+         logger.info(">> waiting for the first pool node to be ready");
+         try {
+            Uninterruptibles.getUninterruptibly(firstNodeReady);
+         } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+         }
       }
       logger.info("<< pool initialized.");
    }
 
+   @PreDestroy
+   public void stopBackgroundTasks() {
+      if (reconciler != null) {
+         reconciler.cancel(false);
+      }
+      if (autoscaler != null) {
+         autoscaler.cancel(false);
+      }
+      if (leaseReaper != null) {
+         leaseReaper.cancel(false);
+      }
+      recycleExecutor.shutdownNow();
+   }
+
+   /**
+    * Lists the backend nodes and brings the sub-pool indexes in line with them.
+    */
+   public void reconcile() {
+      try {
+         Map<String, Long> marks = Maps.newHashMap();
+         for (SubPool subPool : subPools.values()) {
+            marks.put(subPool.spec.getName(), subPool.index.mark());
+         }
+         Set<NodeMetadata> backendNodes = getBackendNodes();
+         Set<String> frontendIds = frontendIds(backendNodes);
+         for (SubPool subPool : subPools.values()) {
+            int drift = subPool.index.reconcile(subPool.filter(backendNodes), frontendIds,
+                     marks.get(subPool.spec.getName()));
+            if (drift > 0) {
+               logger.warn("pool index of %s reconciled with backend, %s nodes added or dropped", subPool, drift);
+            }
+         }
+      } catch (RuntimeException e) {
+         logger.error(e, "could not reconcile pool index with backend");
+      }
+   }
+
+   private Set<String> frontendIds(Set<NodeMetadata> backendNodes) {
+      return FluentIterable.from(metadataStore.loadAll(backendNodes)).transform(new Function<NodeMetadata, String>() {
+         @Override
+         public String apply(NodeMetadata input) {
+            return input.getId();
+         }
+      }).toSet();
+   }
+
    @Override
    public NodeWithInitialCredentials createNodeWithGroupEncodedIntoName(String group, String name, Template template) {
       int count = 1;
-      synchronized (this) {
-         TemplateOptions options = template.getOptions().clone();
+      TemplateOptions options = template.getOptions().clone();
 
-         // if no user is provided we set the pool's user
-         if (options.getLoginUser() == null) {
-            options.overrideLoginCredentials(LoginCredentials.fromCredentials(checkNotNull(initialCredentialsBuilder
-                     .build().getAdminCredentials())));
-         }
+      // if no user is provided we set the pool's user
+      if (options.getLoginUser() == null) {
+         options.overrideLoginCredentials(LoginCredentials.fromCredentials(checkNotNull(initialCredentialsBuilder
+                  .build().getAdminCredentials())));
+      }
 
-         logger.info(">> assigning pool node to frontend group %s", group);
-         Set<NodeMetadata> backendNodes = getBackendNodes();
-         checkState(!backendNodes.isEmpty());
-         Set<NodeMetadata> frontendNodes = metadataStore.loadAll(backendNodes);
-         checkState(frontendNodes.size() + count <= maxSize,
-                  "cannot add more nodes to pool [requested: %s, current: %s, max: %s]", count, frontendNodes.size(),
-                  maxSize);
-
-         SetView<NodeMetadata> availableNodes = Sets.difference(backendNodes, frontendNodes);
-
-         if (availableNodes.size() < 1) {
-            if (backendNodes.size() < maxSize && backendNodes.size() + count <= maxSize) {
-               logger.info(
-                        ">> all pool nodes are assigned, requiring additional nodes [requested: %s, current: %s, next: %s, max: %s]",
-                        count, frontendNodes.size(), frontendNodes.size() + 1, maxSize);
-               addToPool(count);
-               // update backend and available sets, no need to update frontend
-               backendNodes = getBackendNodes();
-               availableNodes = Sets.difference(backendNodes, frontendNodes);
-               logger.info("<< additional nodes added to the pool and ready");
-            } else {
+      long start = ticker.read();
+      try {
+         SubPool subPool = route(template);
+         int subPoolMax = subPool.spec.getMaxSize();
+         logger.info(">> assigning %s node to frontend group %s", subPool, group);
+         checkState(subPool.index.assignedCount() + count <= subPoolMax,
+                  "cannot add more nodes to pool [requested: %s, current: %s, max: %s]", count,
+                  subPool.index.assignedCount(), subPoolMax);
+
+         NodeMetadata userNode = subPool.index.claimIdle();
+         boolean fromIdle = userNode != null;
+         if (userNode == null) {
+            if (!reserve(subPool, count, subPoolMax, true)) {
                logger.error("maximum pool size reached (%s)", maxSize);
                throw new IllegalStateException(String.format("maximum pool size reached (%s)", maxSize));
             }
+            logger.info(
+                     ">> all pool nodes are assigned, requiring additional nodes "
+                              + "[requested: %s, current: %s, next: %s, max: %s]",
+                     count, subPool.index.assignedCount(), subPool.index.assignedCount() + 1, subPoolMax);
+            userNode = getUninterruptibly(subPool.requestNode());
+            logger.info("<< additional nodes added to the pool and ready");
+         }
+         long leaseExpiresAt = leaseDuration > 0 ? System.currentTimeMillis()
+                  + TimeUnit.SECONDS.toMillis(leaseDuration) : 0;
+         NodeMetadata node;
+         try {
+            node = metadataStore.store(userNode, options, group, leaseExpiresAt);
+         } catch (RuntimeException e) {
+            subPool.index.release(userNode.getId());
+            throw e;
+         }
+         if (leaseExpiresAt > 0) {
+            leases.put(userNode.getId(), leaseExpiresAt);
          }
-         NodeMetadata userNode = Iterables.get(availableNodes, 0);
-         NodeMetadata node = metadataStore.store(userNode, options, group);
+         metrics.checkedOut(ticker.read() - start, fromIdle);
          logger.info("pool node assigned");
+         subPool.demand.record();
+         subPool.replenish();
          return new NodeWithInitialCredentials(node);
+      } catch (RuntimeException e) {
+         metrics.checkoutFailed();
+         throw e;
+      }
+   }
+
+   private static NodeMetadata getUninterruptibly(ListenableFuture<NodeMetadata> future) {
+      try {
+         return Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
+   /**
+    * Picks the sub-pool whose backend template has the same hardware and image as the requested one
+    * or, failing that, the smallest one with at least as much ram and cores.
+    */
+   private SubPool route(Template template) {
+      if (subPools.size() == 1) {
+         return subPools.values().iterator().next();
+      }
+      Hardware requested = template.getHardware();
+      if (requested == null) {
+         return subPools.values().iterator().next();
+      }
+      SubPool best = null;
+      for (SubPool subPool : subPools.values()) {
+         Template candidate = subPool.template.get();
+         Hardware hardware = candidate.getHardware();
+         boolean sameImage = template.getImage() == null
+                  || candidate.getImage().getId().equals(template.getImage().getId());
+         if (hardware.getId().equals(requested.getId()) && sameImage) {
+            return subPool;
+         }
+         if (hardware.getRam() >= requested.getRam() && getCores(hardware) >= getCores(requested)
+                  && (best == null || hardware.getRam() < best.template.get().getHardware().getRam())) {
+            best = subPool;
+         }
+      }
+      if (best == null) {
+         best = subPools.values().iterator().next();
+         logger.warn("no sub-pool matches hardware %s, using %s", requested.getId(), best);
+      }
+      return best;
+   }
+
+   /**
+    * Reserves room in a sub-pool, within both its own limit and the pool's max size.
+    * 
+    * @param reclaim
+    *           whether idle nodes of other sub-pools can be destroyed to make room
+    */
+   private boolean reserve(SubPool subPool, int count, int limit, boolean reclaim) {
+      synchronized (capacityLock) {
+         // the sub-pool's own limit comes first, so that nodes of other sub-pools are never destroyed
+         // for a reservation that fails anyway
+         int free = maxSize - allocatedNodes();
+         if (free < count && (!reclaim || free + reclaimable(subPool) < count)) {
+            return false;
+         }
+         if (!subPool.index.reserve(count, limit)) {
+            return false;
+         }
+         if (free < count) {
+            reclaimIdle(subPool, count - free);
+         }
+         return true;
+      }
+   }
+
+   private int allocatedNodes() {
+      int allocated = 0;
+      for (SubPool subPool : subPools.values()) {
+         allocated += subPool.index.size() + subPool.index.pendingCount();
+      }
+      return allocated;
+   }
+
+   /**
+    * The number of idle nodes of the other sub-pools that can be destroyed without taking them below
+    * their min size.
+    */
+   private int reclaimable(SubPool requester) {
+      int reclaimable = 0;
+      for (SubPool donor : subPools.values()) {
+         if (donor != requester) {
+            reclaimable += Math.max(Math.min(donor.index.idleCount(), donor.index.size() - donor.spec.getMinSize()), 0);
+         }
+      }
+      return reclaimable;
+   }
+
+   /**
+    * Destroys idle nodes of the other sub-pools, without taking them below their min size.
+    * 
+    * @return the number of nodes removed
+    */
+   private int reclaimIdle(SubPool requester, int count) {
+      int reclaimed = 0;
+      for (SubPool donor : subPools.values()) {
+         while (donor != requester && reclaimed < count && donor.index.size() > donor.spec.getMinSize()) {
+            NodeMetadata node = donor.index.removeIdle();
+            if (node == null) {
+               break;
+            }
+            logger.info(">> moving capacity from %s to %s, destroying idle node %s", donor, requester, node.getId());
+            destroyInBackground(node);
+            reclaimed++;
+         }
+      }
+      return reclaimed;
+   }
+
+   private void destroyInBackground(final NodeMetadata node) {
+      userExecutor.execute(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               backendComputeService.get().destroyNode(node.getId());
+            } catch (RuntimeException e) {
+               logger.error(e, "could not destroy node %s", node.getId());
+            }
+         }
+      });
+   }
+
+   /**
+    * Updates the demand estimates, then grows or shrinks the sub-pools according to their
+    * watermarks.
+    */
+   public void autoscale() {
+      for (SubPool subPool : subPools.values()) {
+         try {
+            subPool.demand.tick();
+            subPool.replenish();
+            subPool.shrinkIfIdle();
+         } catch (RuntimeException e) {
+            logger.error(e, "could not autoscale %s", subPool);
+         }
       }
    }
 
    @Override
-   public synchronized void destroyNode(String id) {
-      checkState(getNode(id) != null);
-      logger.info(">> destroying node %s", id);
-      metadataStore.deleteMapping(id);
-      if (removeDestroyed) {
+   public void destroyNode(String id) {
+      Lock lock = nodeLocks.get(id);
+      lock.lock();
+      try {
+         SubPool subPool = subPoolAssigned(id);
+         checkState(subPool != null, "node %s is not assigned", id);
+         logger.info(">> destroying node %s", id);
+         leases.remove(id);
+         metadataStore.deleteMapping(id);
+         if (removeDestroyed) {
+            subPool.removeFromPool(id);
+         } else {
+            subPool.recycle(subPool.index.startRecycling(id));
+         }
+         logger.info("<< node destroyed %s", id);
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   @Override
+   public Date renewLease(String id) {
+      checkState(leaseDuration > 0, "nodes are not leased, see %s", LEASE_DURATION);
+      return renewLease(id, leaseDuration, TimeUnit.SECONDS);
+   }
+
+   @Override
+   public Date renewLease(String id, long duration, TimeUnit unit) {
+      long leaseExpiresAt = System.currentTimeMillis() + unit.toMillis(duration);
+      Lock lock = nodeLocks.get(id);
+      lock.lock();
+      try {
+         checkState(subPoolAssigned(id) != null && metadataStore.renewLease(id, leaseExpiresAt),
+                  "node %s is not assigned", id);
+         leases.put(id, leaseExpiresAt);
+      } finally {
+         lock.unlock();
+      }
+      return new Date(leaseExpiresAt);
+   }
+
+   /**
+    * Reclaims the nodes whose lease has expired, sending them through the same path as destroyed
+    * nodes.
+    */
+   public void reapExpiredLeases() {
+      long now = System.currentTimeMillis();
+      for (Map.Entry<String, Long> lease : leases.entrySet()) {
+         if (lease.getValue() > now) {
+            continue;
+         }
+         String id = lease.getKey();
+         Lock lock = nodeLocks.get(id);
+         lock.lock();
+         try {
+            // the lease may have been renewed, or the node destroyed, since it was read
+            if (leases.remove(id, lease.getValue()) && subPoolAssigned(id) != null) {
+               logger.warn(">> lease of node %s expired at %s, reclaiming it", id, new Date(lease.getValue()));
+               destroyNode(id);
+               expiredLeases.incrementAndGet();
+            }
+         } catch (RuntimeException e) {
+            logger.error(e, "could not reclaim node %s", id);
+         } finally {
+            lock.unlock();
+         }
+      }
+   }
+
+   private SubPool subPoolAssigned(String id) {
+      for (SubPool subPool : subPools.values()) {
+         if (subPool.index.isAssigned(id)) {
+            return subPool;
+         }
+      }
+      return null;
+   }
+
+   @Override
+   public void destroyPool() {
+      super.destroyPool();
+      leases.clear();
+      for (SubPool subPool : subPools.values()) {
+         subPool.index.rebuild(ImmutableSet.<NodeMetadata> of(), ImmutableSet.<String> of());
+      }
+   }
+
+   @Override
+   protected Iterable<Template> poolTemplates() {
+      ImmutableSet.Builder<Template> templates = ImmutableSet.builder();
+      for (SubPool subPool : subPools.values()) {
+         templates.add(subPool.template.get());
+      }
+      return templates.build();
+   }
+
+   @Override
+   protected Set<String> poolGroups() {
+      ImmutableSet.Builder<String> groups = ImmutableSet.builder();
+      for (SubPool subPool : subPools.values()) {
+         groups.add(subPool.spec.getGroup());
+      }
+      return groups.build();
+   }
+
+   /**
+    * One of the machine shapes served by the pool, with its own backend template and group, its own
+    * index of nodes and its own growth requests.
+    */
+   private final class SubPool {
+
+      private final SubPoolSpec spec;
+      private final Supplier<Template> template;
+      private final NodePoolIndex index = new NodePoolIndex();
+      private final Queue<SettableFuture<NodeMetadata>> waiters =
+               new ConcurrentLinkedQueue<SettableFuture<NodeMetadata>>();
+      private final AtomicInteger requested = new AtomicInteger();
+      private final AtomicBoolean growing = new AtomicBoolean();
+      private final AtomicBoolean replenishing = new AtomicBoolean();
+      private final DemandEstimator demand;
+      // only accessed from the autoscaler task
+      private long idleAboveHighSince = -1;
+
+      private SubPool(final SubPoolSpec spec) {
+         this.spec = spec;
+         this.demand = new DemandEstimator(policy.demandSmoothing, ticker);
+         if (spec.getTemplateSpec() == null) {
+            this.template = backendTemplate;
+         } else {
+            // building the template can cause network i/o, so wait until it's needed
+            this.template = Suppliers.memoize(new Supplier<Template>() {
+               @Override
+               public Template get() {
+                  return backendComputeService.get().templateBuilder().from(spec.getTemplateSpec()).build();
+               }
+            });
+         }
+      }
+
+      private Set<NodeMetadata> filter(Set<NodeMetadata> backendNodes) {
+         ImmutableSet.Builder<NodeMetadata> nodes = ImmutableSet.builder();
+         for (NodeMetadata node : backendNodes) {
+            if (spec.getGroup().equals(node.getGroup())) {
+               nodes.add(node);
+            }
+         }
+         return nodes.build();
+      }
+
+      /**
+       * Queues a request for a new node, for which room has already been reserved in the index. The
+       * returned future completes with the new node once it has been assigned to the caller.
+       */
+      private ListenableFuture<NodeMetadata> requestNode() {
+         SettableFuture<NodeMetadata> waiter = SettableFuture.create();
+         // the waiter must be queued before the request is counted, so growth always finds it
+         waiters.add(waiter);
+         requestGrowth(1);
+         return waiter;
+      }
+
+      /**
+       * Requests nodes to be created asynchronously, for which room has already been reserved in the
+       * index. Concurrent requests are coalesced.
+       */
+      private void requestGrowth(int count) {
+         requested.addAndGet(count);
+         if (growing.compareAndSet(false, true)) {
+            userExecutor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  grow();
+               }
+            });
+         }
+      }
+
+      private void grow() {
+         try {
+            int count;
+            while ((count = requested.getAndSet(0)) > 0) {
+               growBy(count);
+            }
+         } finally {
+            growing.set(false);
+         }
+         // a request may have been counted after the last check but before growing was reset
+         if (requested.get() > 0) {
+            requestGrowth(0);
+         }
+      }
+
+      /**
+       * Splits the requested nodes into up to {@link #provisioningParallelism} backend calls, run
+       * concurrently on the user executor.
+       */
+      private void growBy(int count) {
+         int chunks = Math.min(count, provisioningParallelism);
+         for (int i = 0; i < chunks; i++) {
+            final int chunk = count / chunks + (i < count % chunks ? 1 : 0);
+            metrics.grew(chunk);
+            userExecutor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  provision(chunk);
+               }
+            });
+         }
+      }
+
+      private void provision(int count) {
+         final long start = ticker.read();
+         Set<? extends NodeMetadata> nodes;
+         provisioningPermits.acquireUninterruptibly();
+         try {
+            nodes = createPoolNodes(spec.getGroup(), template.get(), count);
+         } catch (RunNodesException e) {
+            // the nodes that were created would otherwise stay out of the pool until the next reconcile
+            nodes = e.getSuccessfulNodes();
+            logger.error(e, "could only add %s of %s nodes to %s", nodes.size(), count, this);
+            for (NodeMetadata failed : e.getNodeErrors().keySet()) {
+               destroyInBackground(failed);
+            }
+         } catch (RuntimeException e) {
+            logger.error(e, "could not add %s nodes to %s", count, this);
+            failProvisioning(count, e);
+            return;
+         } finally {
+            provisioningPermits.release();
+         }
+         if (nodes.size() < count) {
+            failProvisioning(count - nodes.size(), new IllegalStateException(String.format(
+                     "backend created %s nodes out of %s", nodes.size(), count)));
+         }
+         for (final NodeMetadata node : nodes) {
+            userExecutor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  probeAndHandOff(node, start);
+               }
+            });
+         }
+      }
+
+      /**
+       * Adds a new node to the sub-pool once it's ready, giving it to the first caller waiting for a
+       * node if there is one.
+       */
+      private void probeAndHandOff(NodeMetadata node, long provisioningStart) {
+         try {
+            readinessProbe.awaitReady(node);
+         } catch (RuntimeException e) {
+            logger.error(e, "node %s is not ready, destroying it", node.getId());
+            failProvisioning(1, e);
+            destroyInBackground(node);
+            return;
+         }
+         SettableFuture<NodeMetadata> waiter = waiters.poll();
+         if (waiter != null) {
+            index.addAssigned(node);
+            if (!waiter.set(node)) {
+               index.release(node.getId());
+            }
+         } else {
+            index.addIdle(ImmutableSet.of(node));
+         }
+         index.unreserve(1);
+         metrics.provisioned(ticker.read() - provisioningStart);
+         firstNodeReady.set(null);
+      }
+
+      private void failProvisioning(int count, RuntimeException cause) {
+         index.unreserve(count);
+         metrics.provisioningFailed(count);
+         for (int i = 0; i < count; i++) {
+            SettableFuture<NodeMetadata> waiter = waiters.poll();
+            if (waiter != null) {
+               waiter.setException(cause);
+            }
+         }
+         // nothing else can make the pool usable
+         if (allocatedNodes() == 0) {
+            firstNodeReady.setException(cause);
+         }
+      }
+
+      /**
+       * The number of idle nodes the sub-pool should have: the low watermark, or the nodes expected
+       * to be checked out while new ones boot if pre-warming is enabled, capped by the high
+       * watermark.
+       */
+      private int idleTarget() {
+         int target = spec.getLowWatermark();
+         if (policy.prewarm) {
+            target = Math.max(target, (int) Math.ceil(demand.rate() * policy.prewarmLeadTime / 60.0));
+         }
+         return spec.getHighWatermark() >= 0 ? Math.min(target, spec.getHighWatermark()) : target;
+      }
+
+      /**
+       * Requests a batch of new nodes, without waiting for them, if the idle nodes plus the ones being
+       * created for the sub-pool are below the target.
+       */
+      private void replenish() {
+         if (!replenishing.compareAndSet(false, true)) {
+            return;
+         }
+         try {
+            int available = index.idleCount() + index.pendingCount() - waiters.size();
+            int count = Math.min(idleTarget() - available, policy.growthBatchSize);
+            count = Math.min(count, spec.getMaxSize() - index.size() - index.pendingCount());
+            if (count > 0 && reserve(this, count, spec.getMaxSize(), false)) {
+               logger.debug(">> growing %s ahead of demand [idle: %s, adding: %s, demand: %.2f/min]", this,
+                        index.idleCount(), count, demand.rate());
+               requestGrowth(count);
+            }
+         } finally {
+            replenishing.set(false);
+         }
+      }
+
+      /**
+       * Destroys the idle nodes above the high watermark, never going below the minimum size, once
+       * the sub-pool has stayed above the watermark for the cooldown period.
+       */
+      private void shrinkIfIdle() {
+         if (spec.getHighWatermark() < 0) {
+            return;
+         }
+         int excess = Math.min(index.idleCount() - spec.getHighWatermark(), index.size() - spec.getMinSize());
+         if (excess <= 0) {
+            idleAboveHighSince = -1;
+            return;
+         }
+         long now = ticker.read();
+         if (idleAboveHighSince < 0) {
+            idleAboveHighSince = now;
+            return;
+         }
+         if (now - idleAboveHighSince < TimeUnit.SECONDS.toNanos(policy.shrinkCooldown)) {
+            return;
+         }
+         idleAboveHighSince = -1;
+         logger.info(">> shrinking %s [idle: %s, high watermark: %s, removing: %s]", this, index.idleCount(),
+                  spec.getHighWatermark(), excess);
+         for (int i = 0; i < excess; i++) {
+            NodeMetadata node = index.removeIdle();
+            if (node == null) {
+               break;
+            }
+            destroyInBackground(node);
+         }
+      }
+
+      /**
+       * Destroys a backend node and, if the sub-pool would fall below its minimum size, requests a
+       * replacement.
+       */
+      private void removeFromPool(String id) {
+         index.remove(id);
          backendComputeService.get().destroyNode(id);
-         if (currentSize() < minSize) {
+         if (reserve(this, 1, spec.getMinSize(), false)) {
             logger.info(">> policy is remove destroyed node and pool "
                      + "would fall below minsize, replacing node with id %s", id);
-            Set<? extends NodeMetadata> replacement = addToPool(1);
-            logger.info("<< node %s replaced with %s", id, Iterables.getOnlyElement(replacement));
+            requestGrowth(1);
          }
       }
-      // TODO we should allow the user to hook a way to "clean" the node
-      else {
 
+      /**
+       * Cleans a released node on the recycle executor. The node only goes back to the idle set if
+       * it was cleaned successfully, otherwise it is removed from the pool.
+       */
+      private void recycle(final NodeMetadata node) {
+         recycleExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+               long start = ticker.read();
+               try {
+                  recycler.recycle(node);
+                  index.finishRecycling(node.getId());
+                  recycledNodes.incrementAndGet();
+                  recycleNanos.addAndGet(ticker.read() - start);
+                  logger.debug("<< node %s recycled", node.getId());
+               } catch (RuntimeException e) {
+                  recycleFailures.incrementAndGet();
+                  logger.error(e, "could not recycle node %s, removing it from the pool", node.getId());
+                  try {
+                     removeFromPool(node.getId());
+                  } catch (RuntimeException destroyFailure) {
+                     logger.error(destroyFailure, "could not destroy node %s", node.getId());
+                  }
+               }
+            }
+         });
+      }
+
+      @Override
+      public String toString() {
+         return Objects.toStringHelper("SubPool").add("name", spec.getName()).add("group", spec.getGroup())
+                  .toString();
       }
-      logger.info("<< node destroyed %s", id);
    }
 
    @Override
    public int currentSize() {
-      return getBackendNodes().size();
+      int size = 0;
+      for (SubPool subPool : subPools.values()) {
+         size += subPool.index.size();
+      }
+      return size;
    }
 
    @Override
    public int idleNodes() {
-      Set<NodeMetadata> backendNodes = getBackendNodes();
-      Set<NodeMetadata> frontendNodes = metadataStore.loadAll(backendNodes);
-      return backendNodes.size() - frontendNodes.size();
+      int idle = 0;
+      for (SubPool subPool : subPools.values()) {
+         idle += subPool.index.idleCount();
+      }
+      return idle;
    }
 
    @Override
@@ -175,12 +932,116 @@ public class EagerNodePoolComputeServiceAdapter extends BaseNodePoolComputeServi
 
    @Override
    public int minNodes() {
-      return minSize;
+      int min = 0;
+      for (SubPool subPool : subPools.values()) {
+         min += subPool.spec.getMinSize();
+      }
+      return min;
    }
 
    @Override
    public int usedNodes() {
-      return metadataStore.loadAll(getBackendNodes()).size();
+      int used = 0;
+      for (SubPool subPool : subPools.values()) {
+         used += subPool.index.assignedCount();
+      }
+      return used;
+   }
+
+   @Override
+   public int pendingNodes() {
+      int pending = 0;
+      for (SubPool subPool : subPools.values()) {
+         pending += subPool.index.pendingCount();
+      }
+      return pending;
+   }
+
+   @Override
+   public int lowWatermark() {
+      int low = 0;
+      for (SubPool subPool : subPools.values()) {
+         low += subPool.spec.getLowWatermark();
+      }
+      return low;
+   }
+
+   @Override
+   public int highWatermark() {
+      int high = 0;
+      for (SubPool subPool : subPools.values()) {
+         if (subPool.spec.getHighWatermark() < 0) {
+            return -1;
+         }
+         high += subPool.spec.getHighWatermark();
+      }
+      return high;
+   }
+
+   @Override
+   public double demandRate() {
+      double rate = 0;
+      for (SubPool subPool : subPools.values()) {
+         rate += subPool.demand.rate();
+      }
+      return rate;
+   }
+
+   @Override
+   public int recyclingNodes() {
+      int recycling = 0;
+      for (SubPool subPool : subPools.values()) {
+         recycling += subPool.index.recyclingCount();
+      }
+      return recycling;
+   }
+
+   @Override
+   public long recycledNodes() {
+      return recycledNodes.get();
+   }
+
+   @Override
+   public long recycleFailures() {
+      return recycleFailures.get();
+   }
+
+   @Override
+   public long averageRecycleMillis() {
+      long recycled = recycledNodes.get();
+      return recycled == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(recycleNanos.get() / recycled);
+   }
+
+   @Override
+   public Map<String, Integer> idleNodesBySubPool() {
+      ImmutableMap.Builder<String, Integer> idle = ImmutableMap.builder();
+      for (SubPool subPool : subPools.values()) {
+         idle.put(subPool.spec.getName(), subPool.index.idleCount());
+      }
+      return idle.build();
+   }
+
+   @Override
+   public Map<String, Integer> usedNodesBySubPool() {
+      ImmutableMap.Builder<String, Integer> used = ImmutableMap.builder();
+      for (SubPool subPool : subPools.values()) {
+         used.put(subPool.spec.getName(), subPool.index.assignedCount());
+      }
+      return used.build();
+   }
+
+   @Override
+   public Map<String, Date> leaseExpirations() {
+      ImmutableMap.Builder<String, Date> expirations = ImmutableMap.builder();
+      for (Map.Entry<String, Long> lease : leases.entrySet()) {
+         expirations.put(lease.getKey(), new Date(lease.getValue()));
+      }
+      return expirations.build();
+   }
+
+   @Override
+   public long expiredLeases() {
+      return expiredLeases.get();
    }
 
 }
@@ -17,7 +17,6 @@
 package org.jclouds.nodepool.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Preconditions.checkState;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -27,14 +26,13 @@ import java.util.Set;
 import javax.inject.Named;
 
 import org.jclouds.compute.domain.NodeMetadata;
-import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.compute.options.TemplateOptions;
-import org.jclouds.domain.LoginCredentials;
 import org.jclouds.json.Json;
 import org.jclouds.util.Strings2;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
@@ -53,16 +51,6 @@ public class JsonNodeMetadataStore implements NodeMetadataStore {
    private Supplier<Map<String, InputStream>> storage;
    private final Json json;
 
-   private static class JsonUserNodeMetadata {
-      private String group;
-      private Set<String> tags;
-      private Map<String, String> userMetadata;
-      private String user;
-      private String password;
-      private String privateKey;
-      private boolean authenticateSudo;
-   }
-
    @Inject
    public JsonNodeMetadataStore(@Named("METADATA") Supplier<Map<String, InputStream>> storage, Json json) {
       this.storage = storage;
@@ -71,39 +59,60 @@ public class JsonNodeMetadataStore implements NodeMetadataStore {
 
    @Override
    public NodeMetadata store(NodeMetadata backendNodeMetadata, TemplateOptions userOptions, String userGroup) {
+      return store(backendNodeMetadata, userOptions, userGroup, 0);
+   }
+
+   @Override
+   public NodeMetadata store(NodeMetadata backendNodeMetadata, TemplateOptions userOptions, String userGroup,
+            long leaseExpiresAt) {
       checkNotNull(backendNodeMetadata);
-      checkNotNull(userGroup);
-      checkNotNull(userOptions);
-      checkNotNull(userOptions.getLoginUser());
-      checkState(userOptions.getLoginPassword() != null || userOptions.getLoginPrivateKey() != null);
-      JsonUserNodeMetadata jsonMetadata = new JsonUserNodeMetadata();
-      jsonMetadata.user = userOptions.getLoginUser();
-      jsonMetadata.password = userOptions.getLoginPassword();
-      jsonMetadata.privateKey = userOptions.getLoginPrivateKey();
-      jsonMetadata.authenticateSudo = userOptions.shouldAuthenticateSudo() != null ? userOptions
-               .shouldAuthenticateSudo().booleanValue() : false;
-      jsonMetadata.userMetadata = userOptions.getUserMetadata();
-      jsonMetadata.tags = userOptions.getTags();
-      jsonMetadata.group = userGroup;
+      JsonUserNodeMetadata jsonMetadata = JsonUserNodeMetadata.fromUserOptions(userOptions, userGroup,
+               leaseExpiresAt);
       storage.get().put(backendNodeMetadata.getId(), Strings2.toInputStream(json.toJson(jsonMetadata)));
-      return buildFromJsonAndBackendMetadata(backendNodeMetadata, jsonMetadata);
+      return jsonMetadata.toNodeMetadata(backendNodeMetadata);
+   }
+
+   @Override
+   public boolean renewLease(String backendNodeId, long leaseExpiresAt) {
+      JsonUserNodeMetadata jsonMetadata = loadJson(checkNotNull(backendNodeId));
+      if (jsonMetadata == null) {
+         return false;
+      }
+      storage.get().put(backendNodeId, Strings2.toInputStream(json.toJson(jsonMetadata.withLease(leaseExpiresAt))));
+      return true;
    }
 
    @Override
    public NodeMetadata load(NodeMetadata backendNodeMetadata) {
+      JsonUserNodeMetadata jsonMetadata = loadJson(checkNotNull(backendNodeMetadata).getId());
+      return jsonMetadata == null ? null : jsonMetadata.toNodeMetadata(backendNodeMetadata);
+   }
+
+   private JsonUserNodeMetadata loadJson(String backendNodeId) {
       try {
-         InputStream storedMetadata = storage.get().get(checkNotNull(backendNodeMetadata).getId());
+         InputStream storedMetadata = storage.get().get(backendNodeId);
          if (storedMetadata == null) {
             return null;
          }
          String jsonMetadataAsString = Strings2.toStringAndClose(storedMetadata);
-         JsonUserNodeMetadata jsonMetadata = json.fromJson(jsonMetadataAsString, JsonUserNodeMetadata.class);
-         return buildFromJsonAndBackendMetadata(backendNodeMetadata, jsonMetadata);
+         return json.fromJson(jsonMetadataAsString, JsonUserNodeMetadata.class);
       } catch (IOException e) {
          throw Throwables.propagate(e);
       }
    }
 
+   @Override
+   public Map<String, Long> loadLeases(Set<NodeMetadata> backendNodes) {
+      ImmutableMap.Builder<String, Long> leases = ImmutableMap.builder();
+      for (NodeMetadata backendNode : backendNodes) {
+         JsonUserNodeMetadata jsonMetadata = loadJson(backendNode.getId());
+         if (jsonMetadata != null && jsonMetadata.getLeaseExpiresAt() != null) {
+            leases.put(backendNode.getId(), jsonMetadata.getLeaseExpiresAt());
+         }
+      }
+      return leases.build();
+   }
+
    @Override
    public Set<NodeMetadata> loadAll(Set<NodeMetadata> backendNodes) {
       if (backendNodes == null || backendNodes.isEmpty()) {
@@ -120,20 +129,6 @@ public class JsonNodeMetadataStore implements NodeMetadataStore {
       return loadedSet;
    }
 
-   private NodeMetadata buildFromJsonAndBackendMetadata(NodeMetadata backendNodeMetadata,
-            JsonUserNodeMetadata jsonMetadata) {
-      return NodeMetadataBuilder
-               .fromNodeMetadata(backendNodeMetadata)
-               .tags(jsonMetadata.tags)
-               .group(jsonMetadata.group)
-               .userMetadata(jsonMetadata.userMetadata)
-               .credentials(LoginCredentials.builder()
-                                            .user(jsonMetadata.user)
-                                            .privateKey(jsonMetadata.privateKey)
-                                            .password(jsonMetadata.password)
-                                            .authenticateSudo(jsonMetadata.authenticateSudo).build()).build();
-   }
-
    @Override
    public void deleteAllMappings() {
       storage.get().clear();
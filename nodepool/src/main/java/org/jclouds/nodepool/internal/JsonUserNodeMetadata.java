@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.domain.LoginCredentials;
+
+/**
+ * The user provided part of a frontend node, as persisted by the {@link NodeMetadataStore}
+ * implementations.
+ */
+class JsonUserNodeMetadata {
+   private String group;
+   private Set<String> tags;
+   private Map<String, String> userMetadata;
+   private String user;
+   private String password;
+   private String privateKey;
+   private boolean authenticateSudo;
+   // milliseconds since the epoch, absent when the node was assigned without a lease
+   private Long leaseExpiresAt;
+
+   static JsonUserNodeMetadata fromUserOptions(TemplateOptions userOptions, String userGroup, long leaseExpiresAt) {
+      checkNotNull(userGroup);
+      checkNotNull(userOptions);
+      checkNotNull(userOptions.getLoginUser());
+      checkState(userOptions.getLoginPassword() != null || userOptions.getLoginPrivateKey() != null);
+      JsonUserNodeMetadata jsonMetadata = new JsonUserNodeMetadata();
+      jsonMetadata.user = userOptions.getLoginUser();
+      jsonMetadata.password = userOptions.getLoginPassword();
+      jsonMetadata.privateKey = userOptions.getLoginPrivateKey();
+      jsonMetadata.authenticateSudo = userOptions.shouldAuthenticateSudo() != null ? userOptions
+               .shouldAuthenticateSudo().booleanValue() : false;
+      jsonMetadata.userMetadata = userOptions.getUserMetadata();
+      jsonMetadata.tags = userOptions.getTags();
+      jsonMetadata.group = userGroup;
+      jsonMetadata.leaseExpiresAt = leaseExpiresAt > 0 ? leaseExpiresAt : null;
+      return jsonMetadata;
+   }
+
+   /**
+    * Returns a copy of this mapping with the lease expiring at the given time.
+    */
+   JsonUserNodeMetadata withLease(long leaseExpiresAt) {
+      JsonUserNodeMetadata jsonMetadata = new JsonUserNodeMetadata();
+      jsonMetadata.group = group;
+      jsonMetadata.tags = tags;
+      jsonMetadata.userMetadata = userMetadata;
+      jsonMetadata.user = user;
+      jsonMetadata.password = password;
+      jsonMetadata.privateKey = privateKey;
+      jsonMetadata.authenticateSudo = authenticateSudo;
+      jsonMetadata.leaseExpiresAt = leaseExpiresAt;
+      return jsonMetadata;
+   }
+
+   Long getLeaseExpiresAt() {
+      return leaseExpiresAt;
+   }
+
+   NodeMetadata toNodeMetadata(NodeMetadata backendNodeMetadata) {
+      return NodeMetadataBuilder
+               .fromNodeMetadata(backendNodeMetadata)
+               .tags(tags)
+               .group(group)
+               .userMetadata(userMetadata)
+               .credentials(LoginCredentials.builder()
+                                            .user(user)
+                                            .privateKey(privateKey)
+                                            .password(password)
+                                            .authenticateSudo(authenticateSudo).build()).build();
+   }
+}
@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.nodepool.config.NodePoolProperties.BASEDIR;
+import static org.jclouds.nodepool.config.NodePoolProperties.METADATA_CONTAINER;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.json.Json;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * A {@link NodeMetadataStore} that keeps all mappings in memory and persists them to a single
+ * append-only log file, {@code <basedir>/<container>.log}, with one json record per line.
+ * <p>
+ * The log is read sequentially once, when the store is first used, and rewritten as a compacted
+ * snapshot. Concurrent writes are group-committed: the writer holding the log lock appends all the
+ * queued records and syncs the file once for all of them. The log is compacted again, by writing a
+ * snapshot to a temporary file and renaming it over the log, once it holds many more records than
+ * live mappings.
+ */
+@Singleton
+public class LogNodeMetadataStore implements NodeMetadataStore {
+
+   // don't bother compacting small logs
+   private static final int MIN_RECORDS_TO_COMPACT = 1000;
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final File logFile;
+   private final Json json;
+   private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<PendingWrite>();
+   private final Lock logLock = new ReentrantLock();
+   private final Supplier<ConcurrentMap<String, JsonUserNodeMetadata>> mappings;
+   // guarded by logLock
+   private FileOutputStream log;
+   private int records;
+
+   /**
+    * A line of the log. A record without metadata deletes the mapping of the node, a record with the
+    * clear flag deletes all mappings.
+    */
+   private static class LogRecord {
+      private String id;
+      private JsonUserNodeMetadata metadata;
+      private Boolean clear;
+   }
+
+   private static class PendingWrite {
+      private final LogRecord record;
+      private final SettableFuture<Void> committed = SettableFuture.create();
+
+      private PendingWrite(LogRecord record) {
+         this.record = record;
+      }
+   }
+
+   @Inject
+   public LogNodeMetadataStore(@Named(BASEDIR) String basedir, @Named(METADATA_CONTAINER) String container,
+            Json json) {
+      this.logFile = new File(basedir, container + ".log");
+      this.json = json;
+      // reading the log is deferred until the store is used
+      this.mappings = Suppliers.memoize(new Supplier<ConcurrentMap<String, JsonUserNodeMetadata>>() {
+         @Override
+         public ConcurrentMap<String, JsonUserNodeMetadata> get() {
+            return open();
+         }
+      });
+   }
+
+   @Override
+   public NodeMetadata store(NodeMetadata backendNodeMetadata, TemplateOptions userOptions, String userGroup) {
+      return store(backendNodeMetadata, userOptions, userGroup, 0);
+   }
+
+   @Override
+   public NodeMetadata store(NodeMetadata backendNodeMetadata, TemplateOptions userOptions, String userGroup,
+            long leaseExpiresAt) {
+      checkNotNull(backendNodeMetadata);
+      LogRecord record = new LogRecord();
+      record.id = backendNodeMetadata.getId();
+      record.metadata = JsonUserNodeMetadata.fromUserOptions(userOptions, userGroup, leaseExpiresAt);
+      append(record);
+      return record.metadata.toNodeMetadata(backendNodeMetadata);
+   }
+
+   @Override
+   public boolean renewLease(String backendNodeId, long leaseExpiresAt) {
+      JsonUserNodeMetadata jsonMetadata = mappings.get().get(checkNotNull(backendNodeId));
+      if (jsonMetadata == null) {
+         return false;
+      }
+      LogRecord record = new LogRecord();
+      record.id = backendNodeId;
+      record.metadata = jsonMetadata.withLease(leaseExpiresAt);
+      append(record);
+      return true;
+   }
+
+   @Override
+   public Map<String, Long> loadLeases(Set<NodeMetadata> backendNodes) {
+      ImmutableMap.Builder<String, Long> leases = ImmutableMap.builder();
+      for (NodeMetadata backendNode : backendNodes) {
+         JsonUserNodeMetadata jsonMetadata = mappings.get().get(backendNode.getId());
+         if (jsonMetadata != null && jsonMetadata.getLeaseExpiresAt() != null) {
+            leases.put(backendNode.getId(), jsonMetadata.getLeaseExpiresAt());
+         }
+      }
+      return leases.build();
+   }
+
+   @Override
+   public NodeMetadata load(NodeMetadata backendNodeMetadata) {
+      JsonUserNodeMetadata jsonMetadata = mappings.get().get(checkNotNull(backendNodeMetadata).getId());
+      return jsonMetadata == null ? null : jsonMetadata.toNodeMetadata(backendNodeMetadata);
+   }
+
+   @Override
+   public Set<NodeMetadata> loadAll(Set<NodeMetadata> backendNodes) {
+      if (backendNodes == null || backendNodes.isEmpty()) {
+         return ImmutableSet.of();
+      }
+      ImmutableSet.Builder<NodeMetadata> loaded = ImmutableSet.builder();
+      for (NodeMetadata backendNode : backendNodes) {
+         NodeMetadata frontendNode = load(backendNode);
+         if (frontendNode != null) {
+            loaded.add(frontendNode);
+         }
+      }
+      return loaded.build();
+   }
+
+   @Override
+   public void deleteMapping(String backendNodeId) {
+      LogRecord record = new LogRecord();
+      record.id = checkNotNull(backendNodeId);
+      append(record);
+   }
+
+   @Override
+   public void deleteAllMappings() {
+      LogRecord record = new LogRecord();
+      record.clear = true;
+      append(record);
+   }
+
+   /**
+    * Queues the record and waits until it has been written and synced, either by this thread or by
+    * another writer that committed it as part of its batch.
+    */
+   private void append(LogRecord record) {
+      ConcurrentMap<String, JsonUserNodeMetadata> current = mappings.get();
+      PendingWrite write = new PendingWrite(record);
+      pendingWrites.add(write);
+      logLock.lock();
+      try {
+         if (!write.committed.isDone()) {
+            commitPendingWrites(current);
+         }
+      } finally {
+         logLock.unlock();
+      }
+      try {
+         Uninterruptibles.getUninterruptibly(write.committed);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
+   // must hold logLock
+   private void commitPendingWrites(ConcurrentMap<String, JsonUserNodeMetadata> current) {
+      List<PendingWrite> batch = Lists.newArrayList();
+      PendingWrite write;
+      while ((write = pendingWrites.poll()) != null) {
+         batch.add(write);
+      }
+      try {
+         StringBuilder lines = new StringBuilder();
+         for (PendingWrite pending : batch) {
+            lines.append(json.toJson(pending.record)).append('\n');
+         }
+         if (log == null) {
+            // a failed compaction left the log closed
+            log = new FileOutputStream(logFile, true);
+         }
+         log.write(lines.toString().getBytes(Charsets.UTF_8));
+         log.getFD().sync();
+         records += batch.size();
+         // the in-memory view is only updated once the records are durable, and in log order
+         for (PendingWrite pending : batch) {
+            apply(current, pending.record);
+            pending.committed.set(null);
+         }
+      } catch (Throwable e) {
+         // every writer of the batch waits for its record, none of them may be left behind
+         for (PendingWrite pending : batch) {
+            pending.committed.setException(e);
+         }
+         if (e instanceof IOException) {
+            // rewrite the log so that a partially written batch doesn't hide later records
+            try {
+               compact(current);
+            } catch (IOException compactFailure) {
+               logger.error(compactFailure, "could not rewrite node metadata log %s", logFile);
+            }
+         }
+         return;
+      }
+      if (records >= MIN_RECORDS_TO_COMPACT && records > 2 * current.size()) {
+         try {
+            compact(current);
+         } catch (IOException e) {
+            logger.error(e, "could not compact node metadata log %s", logFile);
+         }
+      }
+   }
+
+   private static void apply(Map<String, JsonUserNodeMetadata> current, LogRecord record) {
+      if (Boolean.TRUE.equals(record.clear)) {
+         current.clear();
+      } else if (record.metadata == null) {
+         current.remove(record.id);
+      } else {
+         current.put(record.id, record.metadata);
+      }
+   }
+
+   private ConcurrentMap<String, JsonUserNodeMetadata> open() {
+      ConcurrentMap<String, JsonUserNodeMetadata> current = new ConcurrentHashMap<String, JsonUserNodeMetadata>();
+      logLock.lock();
+      try {
+         logFile.getParentFile().mkdirs();
+         File backup = backupFile();
+         if (!logFile.exists() && backup.exists() && !backup.renameTo(logFile)) {
+            // a crash while replacing the log left only the previous one
+            throw new IOException("could not restore " + logFile + " from " + backup);
+         }
+         if (logFile.exists()) {
+            read(current);
+         }
+         compact(current);
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      } finally {
+         logLock.unlock();
+      }
+      return current;
+   }
+
+   private void read(Map<String, JsonUserNodeMetadata> current) throws IOException {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(logFile),
+               Charsets.UTF_8));
+      try {
+         String line;
+         int lineNumber = 0;
+         while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+               continue;
+            }
+            try {
+               apply(current, json.fromJson(line, LogRecord.class));
+            } catch (RuntimeException e) {
+               // a crash while appending can leave a torn last record, which was never acknowledged
+               logger.warn("ignoring unreadable record at line %s of %s and the ones after it", lineNumber, logFile);
+               break;
+            }
+         }
+      } finally {
+         Closeables.closeQuietly(reader);
+      }
+   }
+
+   // must hold logLock
+   private void compact(Map<String, JsonUserNodeMetadata> current) throws IOException {
+      File snapshot = new File(logFile.getPath() + ".tmp");
+      FileOutputStream out = new FileOutputStream(snapshot);
+      try {
+         StringBuilder lines = new StringBuilder();
+         for (Map.Entry<String, JsonUserNodeMetadata> entry : current.entrySet()) {
+            LogRecord record = new LogRecord();
+            record.id = entry.getKey();
+            record.metadata = entry.getValue();
+            lines.append(json.toJson(record)).append('\n');
+         }
+         out.write(lines.toString().getBytes(Charsets.UTF_8));
+         out.getFD().sync();
+      } finally {
+         Closeables.close(out, true);
+      }
+      if (log != null) {
+         Closeables.close(log, true);
+         log = null;
+      }
+      try {
+         replaceLog(snapshot);
+      } finally {
+         // keep appending to whichever log is in place, the next commit retries if this fails
+         log = new FileOutputStream(logFile, true);
+      }
+      records = current.size();
+   }
+
+   private void replaceLog(File snapshot) throws IOException {
+      if (snapshot.renameTo(logFile)) {
+         return;
+      }
+      // renaming over an existing file is not atomic on every platform, so the old log is kept aside
+      // until the snapshot is in place, and restored by open() after a crash in between
+      File backup = backupFile();
+      backup.delete();
+      if (logFile.exists() && !logFile.renameTo(backup)) {
+         throw new IOException("could not move " + logFile + " to " + backup);
+      }
+      if (!snapshot.renameTo(logFile)) {
+         backup.renameTo(logFile);
+         throw new IOException("could not replace " + logFile + " with " + snapshot);
+      }
+      backup.delete();
+   }
+
+   private File backupFile() {
+      return new File(logFile.getPath() + ".bak");
+   }
+
+}
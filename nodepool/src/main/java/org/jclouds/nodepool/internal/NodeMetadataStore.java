@@ -16,6 +16,7 @@
  */
 package org.jclouds.nodepool.internal;
 
+import java.util.Map;
 import java.util.Set;
 
 import org.jclouds.compute.domain.NodeMetadata;
@@ -46,6 +47,35 @@ public interface NodeMetadataStore {
     */
    public NodeMetadata store(NodeMetadata backendNode, TemplateOptions userOptions, String userGroup);
 
+   /**
+    * Like {@link #store(NodeMetadata, TemplateOptions, String)}, but the mapping is leased to the
+    * user until the given time.
+    * 
+    * @param leaseExpiresAt
+    *           the time the lease expires, in milliseconds since the epoch, or {@literal 0} for no
+    *           lease
+    */
+   public NodeMetadata store(NodeMetadata backendNode, TemplateOptions userOptions, String userGroup,
+            long leaseExpiresAt);
+
+   /**
+    * Moves the expiration of the lease of a mapped backend node.
+    * 
+    * @param backendNodeId
+    * @param leaseExpiresAt
+    *           the time the lease expires, in milliseconds since the epoch
+    * @return false if the backend node has no mapping
+    */
+   public boolean renewLease(String backendNodeId, long leaseExpiresAt);
+
+   /**
+    * Loads the lease expiration times of the provided backend nodes that are mapped with a lease.
+    * 
+    * @param backendNodes
+    * @return the lease expiration times, in milliseconds since the epoch, by backend node id
+    */
+   public Map<String, Long> loadLeases(Set<NodeMetadata> backendNodes);
+
    /**
     * Removes the mapping from storage.
     * 
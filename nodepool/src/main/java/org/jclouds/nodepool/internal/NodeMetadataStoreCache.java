@@ -16,71 +16,124 @@
  */
 package org.jclouds.nodepool.internal;
 
+import static org.jclouds.nodepool.config.NodePoolProperties.METADATA_CACHE_EXPIRY;
+import static org.jclouds.nodepool.config.NodePoolProperties.METADATA_CACHE_SIZE;
+
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.options.TemplateOptions;
 
-import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Maps;
 
+/**
+ * A write-through cache of frontend {@link NodeMetadata} in front of another
+ * {@link NodeMetadataStore}. Misses for the same node are loaded once, while reads of other nodes
+ * proceed concurrently. Entries are evicted when the cache grows beyond
+ * {@link org.jclouds.nodepool.config.NodePoolProperties#METADATA_CACHE_SIZE} or after
+ * {@link org.jclouds.nodepool.config.NodePoolProperties#METADATA_CACHE_EXPIRY} seconds.
+ */
 @Singleton
 public class NodeMetadataStoreCache implements NodeMetadataStore {
 
-   private Map<String, NodeMetadata> frontendMetadataCache = Maps.newHashMap();
-   private NodeMetadataStore backend;
+   // nodes without a mapping are cached as absent so they don't hit the backend on every read
+   private final Cache<String, Optional<NodeMetadata>> frontendMetadataCache;
+   private final NodeMetadataStore backend;
 
    @Inject
-   public NodeMetadataStoreCache(NodeMetadataStore backend) {
+   public NodeMetadataStoreCache(@Named("UNCACHED") NodeMetadataStore backend,
+            @Named(METADATA_CACHE_SIZE) long maximumSize, @Named(METADATA_CACHE_EXPIRY) long expiry) {
       this.backend = backend;
+      CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats();
+      if (expiry > 0) {
+         builder.expireAfterWrite(expiry, TimeUnit.SECONDS);
+      }
+      this.frontendMetadataCache = builder.build();
+   }
+
+   @Override
+   public NodeMetadata store(NodeMetadata backendNode, TemplateOptions userOptions, String userGroup) {
+      return store(backendNode, userOptions, userGroup, 0);
    }
 
    @Override
-   public synchronized NodeMetadata store(NodeMetadata backendNode, TemplateOptions userOptions, String userGroup) {
-      NodeMetadata frontEndNode = backend.store(backendNode, userOptions, userGroup);
-      frontendMetadataCache.put(backendNode.getId(), frontEndNode);
+   public NodeMetadata store(NodeMetadata backendNode, TemplateOptions userOptions, String userGroup,
+            long leaseExpiresAt) {
+      NodeMetadata frontEndNode = backend.store(backendNode, userOptions, userGroup, leaseExpiresAt);
+      frontendMetadataCache.put(backendNode.getId(), Optional.of(frontEndNode));
       return frontEndNode;
    }
 
+   /**
+    * Leases are not part of the cached frontend nodes, so they are always read and written through.
+    */
    @Override
-   public synchronized void deleteMapping(String backendNodeId) {
-      frontendMetadataCache.remove(backendNodeId);
-      backend.deleteMapping(backendNodeId);
+   public boolean renewLease(String backendNodeId, long leaseExpiresAt) {
+      return backend.renewLease(backendNodeId, leaseExpiresAt);
+   }
 
+   @Override
+   public Map<String, Long> loadLeases(Set<NodeMetadata> backendNodes) {
+      return backend.loadLeases(backendNodes);
    }
 
    @Override
-   public synchronized void deleteAllMappings() {
-      frontendMetadataCache.clear();
+   public void deleteMapping(String backendNodeId) {
+      backend.deleteMapping(backendNodeId);
+      frontendMetadataCache.invalidate(backendNodeId);
+   }
+
+   @Override
+   public void deleteAllMappings() {
       backend.deleteAllMappings();
+      frontendMetadataCache.invalidateAll();
    }
 
    @Override
-   public synchronized NodeMetadata load(NodeMetadata backendNode) {
-      NodeMetadata frontendNode = frontendMetadataCache.get(backendNode.getId());
-      if (frontendNode == null) {
-         frontendNode = backend.load(backendNode);
-         if (frontendNode != null) {
-            frontendMetadataCache.put(backendNode.getId(), frontendNode);
-         }
+   public NodeMetadata load(final NodeMetadata backendNode) {
+      try {
+         return frontendMetadataCache.get(backendNode.getId(), new Callable<Optional<NodeMetadata>>() {
+            @Override
+            public Optional<NodeMetadata> call() {
+               return Optional.fromNullable(backend.load(backendNode));
+            }
+         }).orNull();
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
       }
-      return frontendNode;
    }
 
    @Override
-   public synchronized Set<NodeMetadata> loadAll(Set<NodeMetadata> backendNodes) {
-      return ImmutableSet.copyOf(Iterables.transform(backendNodes, new Function<NodeMetadata, NodeMetadata>() {
-         @Override
-         public NodeMetadata apply(NodeMetadata input) {
-            return load(input);
+   public Set<NodeMetadata> loadAll(Set<NodeMetadata> backendNodes) {
+      ImmutableSet.Builder<NodeMetadata> loaded = ImmutableSet.builder();
+      for (NodeMetadata backendNode : backendNodes) {
+         NodeMetadata frontendNode = load(backendNode);
+         if (frontendNode != null) {
+            loaded.add(frontendNode);
          }
-      }));
+      }
+      return loaded.build();
+   }
+
+   /**
+    * Returns the hit, miss, load and eviction counts of the cache, as reported in
+    * {@link org.jclouds.nodepool.NodePoolStats}.
+    */
+   public CacheStats stats() {
+      return frontendMetadataCache.stats();
    }
 
 }
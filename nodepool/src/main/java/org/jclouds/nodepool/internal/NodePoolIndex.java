@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jclouds.compute.domain.NodeMetadata;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * In-memory index of the backend nodes that make up a pool, split between idle nodes, nodes
+ * assigned to a frontend group and released nodes being recycled. Once built, the index is the
+ * authoritative view of the pool so that allocation and statistics don't need to list the backend;
+ * {@link #reconcile(Set, Set, long)} brings it back in line with the backend when nodes appear or
+ * disappear behind the pool's back.
+ * <p>
+ * The index is lock-free: idle nodes are claimed with a compare-and-set on the idle map, so a node
+ * is handed to exactly one caller, and capacity for new nodes is reserved with a compare-and-set on
+ * the number of pending nodes.
+ */
+public class NodePoolIndex {
+
+   // the map is the source of truth, the queue only keeps the claim order and may hold stale entries
+   private final ConcurrentMap<String, NodeMetadata> idle = new ConcurrentHashMap<String, NodeMetadata>();
+   private final Queue<NodeMetadata> idleQueue = new ConcurrentLinkedQueue<NodeMetadata>();
+   private final ConcurrentMap<String, NodeMetadata> assigned = new ConcurrentHashMap<String, NodeMetadata>();
+   private final ConcurrentMap<String, NodeMetadata> recycling = new ConcurrentHashMap<String, NodeMetadata>();
+   private final ConcurrentMap<String, Long> addedAt = new ConcurrentHashMap<String, Long>();
+   // ids removed from the pool that the backend may still list until they are actually destroyed
+   private final Set<String> retired = Sets.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+   private final AtomicLong version = new AtomicLong();
+   private final AtomicInteger pending = new AtomicInteger();
+
+   /**
+    * Replaces the contents of the index with the provided backend nodes. Not meant to be called
+    * concurrently with other operations.
+    * 
+    * @param backendNodes
+    *           all the backend nodes in the pool's group
+    * @param assignedIds
+    *           the ids of the backend nodes that have a frontend mapping
+    */
+   public void rebuild(Set<NodeMetadata> backendNodes, Set<String> assignedIds) {
+      idle.clear();
+      idleQueue.clear();
+      assigned.clear();
+      recycling.clear();
+      addedAt.clear();
+      retired.clear();
+      for (NodeMetadata node : backendNodes) {
+         if (assignedIds.contains(node.getId())) {
+            addAssigned(node);
+         } else {
+            addIdle(node);
+         }
+      }
+   }
+
+   /**
+    * Returns a marker to be taken before listing the backend and passed to
+    * {@link #reconcile(Set, Set, long)}, so that nodes added to the index after the listing are
+    * not dropped.
+    */
+   public long mark() {
+      return version.get();
+   }
+
+   /**
+    * Adds the backend nodes that are not in the index and drops the ones the backend no longer
+    * lists. The idle/assigned state of known nodes is left untouched as the index owns it.
+    * 
+    * @return the number of nodes that were added or dropped
+    */
+   public int reconcile(Set<NodeMetadata> backendNodes, Set<String> assignedIds, long mark) {
+      int drift = 0;
+      Map<String, NodeMetadata> listed = Maps.newHashMap();
+      for (NodeMetadata node : backendNodes) {
+         listed.put(node.getId(), node);
+      }
+      retired.retainAll(listed.keySet());
+      // nodes being created may be listed before they are handed to the index
+      if (pending.get() == 0) {
+         for (Map.Entry<String, NodeMetadata> entry : listed.entrySet()) {
+            String id = entry.getKey();
+            if (!retired.contains(id) && !addedAt.containsKey(id)) {
+               if (assignedIds.contains(id)) {
+                  addAssigned(entry.getValue());
+               } else {
+                  addIdle(entry.getValue());
+               }
+               drift++;
+            }
+         }
+      }
+      for (Map.Entry<String, Long> entry : addedAt.entrySet()) {
+         if (entry.getValue() <= mark && !listed.containsKey(entry.getKey())) {
+            remove(entry.getKey());
+            drift++;
+         }
+      }
+      return drift;
+   }
+
+   /**
+    * Adds backend nodes to the idle set.
+    */
+   public void addIdle(Iterable<? extends NodeMetadata> nodes) {
+      for (NodeMetadata node : nodes) {
+         addIdle(node);
+      }
+   }
+
+   private void addIdle(NodeMetadata node) {
+      addedAt.put(node.getId(), version.incrementAndGet());
+      assigned.remove(node.getId());
+      idle.put(node.getId(), node);
+      idleQueue.add(node);
+   }
+
+   /**
+    * Adds a backend node straight to the assigned set, e.g. when a new node is created for a
+    * specific caller.
+    */
+   public void addAssigned(NodeMetadata node) {
+      addedAt.put(node.getId(), version.incrementAndGet());
+      idle.remove(node.getId());
+      assigned.put(node.getId(), node);
+   }
+
+   /**
+    * Moves an idle node to the assigned set. Concurrent callers never get the same node.
+    * 
+    * @return the claimed backend node or null if there are no idle nodes
+    */
+   public NodeMetadata claimIdle() {
+      NodeMetadata node = pollIdle();
+      if (node != null) {
+         assigned.put(node.getId(), node);
+      }
+      return node;
+   }
+
+   /**
+    * Removes an idle node from the pool, e.g. to destroy it when the pool shrinks.
+    * 
+    * @return the removed backend node or null if there are no idle nodes
+    */
+   public NodeMetadata removeIdle() {
+      NodeMetadata node = pollIdle();
+      if (node != null) {
+         retired.add(node.getId());
+         addedAt.remove(node.getId());
+      }
+      return node;
+   }
+
+   private NodeMetadata pollIdle() {
+      NodeMetadata node;
+      while ((node = idleQueue.poll()) != null) {
+         if (idle.remove(node.getId(), node)) {
+            return node;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Moves an assigned node back to the idle set.
+    */
+   public void release(String id) {
+      NodeMetadata node = assigned.remove(checkNotNull(id, "id"));
+      if (node != null) {
+         idle.put(id, node);
+         idleQueue.add(node);
+      }
+   }
+
+   /**
+    * Moves an assigned node to the recycling set, where it stays out of the idle set until
+    * {@link #finishRecycling(String)} is called.
+    * 
+    * @return the backend node or null if the node was not assigned
+    */
+   public NodeMetadata startRecycling(String id) {
+      NodeMetadata node = assigned.remove(checkNotNull(id, "id"));
+      if (node != null) {
+         recycling.put(id, node);
+      }
+      return node;
+   }
+
+   /**
+    * Moves a recycled node back to the idle set.
+    */
+   public void finishRecycling(String id) {
+      NodeMetadata node = recycling.remove(checkNotNull(id, "id"));
+      if (node != null) {
+         idle.put(id, node);
+         idleQueue.add(node);
+      }
+   }
+
+   /**
+    * Removes a node from the pool, whatever its state.
+    */
+   public void remove(String id) {
+      retired.add(checkNotNull(id, "id"));
+      idle.remove(id);
+      assigned.remove(id);
+      recycling.remove(id);
+      addedAt.remove(id);
+   }
+
+   /**
+    * Reserves room for new nodes so that the pool, counting the nodes being created, never grows
+    * beyond the provided maximum.
+    * 
+    * @return true if the nodes can be created, in which case {@link #unreserve(int)} must be called
+    *         once they have been added to the index or their creation failed
+    */
+   public boolean reserve(int count, int max) {
+      while (true) {
+         // read pending before the size so that a creation completing in between fails the CAS
+         int current = pending.get();
+         if (size() + current + count > max) {
+            return false;
+         }
+         if (pending.compareAndSet(current, current + count)) {
+            return true;
+         }
+      }
+   }
+
+   public void unreserve(int count) {
+      pending.addAndGet(-count);
+   }
+
+   public boolean isAssigned(String id) {
+      return assigned.containsKey(id);
+   }
+
+   public int idleCount() {
+      return idle.size();
+   }
+
+   public int assignedCount() {
+      return assigned.size();
+   }
+
+   public int recyclingCount() {
+      return recycling.size();
+   }
+
+   public int pendingCount() {
+      return pending.get();
+   }
+
+   public int size() {
+      return idle.size() + assigned.size() + recycling.size();
+   }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Singleton;
+
+import org.jclouds.management.internal.LatencyHistogram;
+
+/**
+ * Counters and latency histograms of the pool, updated by the
+ * {@link EagerNodePoolComputeServiceAdapter} as nodes are checked out and provisioned. Reading them
+ * never calls the backend provider.
+ */
+@Singleton
+public class NodePoolMetrics {
+
+   private final LatencyHistogram checkoutLatency = new LatencyHistogram();
+   private final LatencyHistogram timeToIdle = new LatencyHistogram();
+   private final AtomicLong idleCheckouts = new AtomicLong();
+   private final AtomicLong checkoutFailures = new AtomicLong();
+   private final AtomicLong growthEvents = new AtomicLong();
+   private final AtomicLong nodesRequested = new AtomicLong();
+   private final AtomicLong provisioningFailures = new AtomicLong();
+
+   /**
+    * Records a node handed to a frontend user.
+    * 
+    * @param nanos
+    *           how long the user waited for the node
+    * @param fromIdle
+    *           whether the node was idle, rather than created for the user
+    */
+   public void checkedOut(long nanos, boolean fromIdle) {
+      checkoutLatency.record(nanos);
+      if (fromIdle) {
+         idleCheckouts.incrementAndGet();
+      }
+   }
+
+   /**
+    * Records a frontend user that could not get a node.
+    */
+   public void checkoutFailed() {
+      checkoutFailures.incrementAndGet();
+   }
+
+   /**
+    * Records a request to the backend for new pool nodes.
+    */
+   public void grew(int count) {
+      growthEvents.incrementAndGet();
+      nodesRequested.addAndGet(count);
+   }
+
+   /**
+    * Records a new node joining the pool.
+    * 
+    * @param nanos
+    *           the time from asking the backend for the node until it was ready
+    */
+   public void provisioned(long nanos) {
+      timeToIdle.record(nanos);
+   }
+
+   /**
+    * Records nodes that could not be created or were not ready.
+    */
+   public void provisioningFailed(int count) {
+      provisioningFailures.addAndGet(count);
+   }
+
+   public LatencyHistogram checkoutLatency() {
+      return checkoutLatency;
+   }
+
+   public LatencyHistogram timeToIdle() {
+      return timeToIdle;
+   }
+
+   public long checkouts() {
+      return checkoutLatency.count();
+   }
+
+   public long idleCheckouts() {
+      return idleCheckouts.get();
+   }
+
+   public long checkoutFailures() {
+      return checkoutFailures.get();
+   }
+
+   public long growthEvents() {
+      return growthEvents.get();
+   }
+
+   public long nodesRequested() {
+      return nodesRequested.get();
+   }
+
+   public long nodesProvisioned() {
+      return timeToIdle.count();
+   }
+
+   public long provisioningFailures() {
+      return provisioningFailures.get();
+   }
+
+}
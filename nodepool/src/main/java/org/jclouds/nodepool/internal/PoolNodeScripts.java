@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static org.jclouds.compute.options.RunScriptOptions.Builder.nameTask;
+
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.ExecResponse;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.scriptbuilder.domain.Statement;
+import org.jclouds.scriptbuilder.domain.Statements;
+
+/**
+ * Runs the user provided scripts of the pool on backend nodes.
+ */
+final class PoolNodeScripts {
+
+   private PoolNodeScripts() {
+   }
+
+   /**
+    * Parses a script set in a property, returning null if none is set.
+    */
+   static Statement fromProperty(String script) {
+      return script.trim().isEmpty() ? null : Statements.exec(script);
+   }
+
+   /**
+    * Runs the statement as root on the node, failing if it doesn't exit with {@literal 0}.
+    */
+   static void runOrFail(ComputeService backend, NodeMetadata node, Statement statement, String taskName) {
+      ExecResponse response = backend.runScriptOnNode(node.getId(), statement, nameTask(taskName));
+      if (response.getExitStatus() != 0) {
+         throw new IllegalStateException(String.format("%s script failed on node %s [exit status: %s]: %s",
+                  taskName, node.getId(), response.getExitStatus(), response.getError()));
+      }
+   }
+
+}
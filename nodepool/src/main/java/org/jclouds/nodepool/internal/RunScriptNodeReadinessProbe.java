@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static org.jclouds.nodepool.config.NodePoolProperties.READINESS_SCRIPT;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+import org.jclouds.nodepool.Backend;
+import org.jclouds.nodepool.NodeReadinessProbe;
+import org.jclouds.scriptbuilder.domain.Statement;
+
+import com.google.common.base.Supplier;
+
+/**
+ * Probes nodes by running the script set in
+ * {@link org.jclouds.nodepool.config.NodePoolProperties#READINESS_SCRIPT} as root on them. Nodes are
+ * ready as soon as they are created if no script is set.
+ */
+@Singleton
+public class RunScriptNodeReadinessProbe implements NodeReadinessProbe {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final Supplier<ComputeService> backendComputeService;
+   private final Statement probe;
+
+   @Inject
+   public RunScriptNodeReadinessProbe(@Backend Supplier<ComputeService> backendComputeService,
+            @Named(READINESS_SCRIPT) String script) {
+      this.backendComputeService = backendComputeService;
+      this.probe = PoolNodeScripts.fromProperty(script);
+   }
+
+   @Override
+   public void awaitReady(NodeMetadata backendNode) {
+      if (probe == null) {
+         return;
+      }
+      logger.debug(">> probing node %s", backendNode.getId());
+      PoolNodeScripts.runOrFail(backendComputeService.get(), backendNode, probe, "nodepool-readiness");
+      logger.debug("<< node %s ready", backendNode.getId());
+   }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.base.Objects;
+
+/**
+ * The configuration of one of the sub-pools that make up a node pool, each serving a single machine
+ * shape from its own backend group.
+ * 
+ * @see org.jclouds.nodepool.config.NodePoolProperties#SUBPOOLS
+ */
+public class SubPoolSpec {
+
+   private final String name;
+   private final String group;
+   private final String templateSpec;
+   private final int minSize;
+   private final int maxSize;
+   private final int lowWatermark;
+   private final int highWatermark;
+
+   public SubPoolSpec(String name, String group, @Nullable String templateSpec, int minSize, int maxSize,
+            int lowWatermark, int highWatermark) {
+      this.name = checkNotNull(name, "name");
+      this.group = checkNotNull(group, "group");
+      this.templateSpec = templateSpec;
+      checkArgument(minSize >= 0 && minSize <= maxSize, "sub-pool %s: invalid min/max size %s/%s", name, minSize,
+               maxSize);
+      this.minSize = minSize;
+      this.maxSize = maxSize;
+      this.lowWatermark = lowWatermark;
+      this.highWatermark = highWatermark;
+   }
+
+   public String getName() {
+      return name;
+   }
+
+   /**
+    * The backend group of the nodes in this sub-pool.
+    */
+   public String getGroup() {
+      return group;
+   }
+
+   /**
+    * The {@link org.jclouds.compute.domain.TemplateBuilderSpec} of the nodes in this sub-pool, or
+    * null to use the pool's backend template.
+    */
+   @Nullable
+   public String getTemplateSpec() {
+      return templateSpec;
+   }
+
+   public int getMinSize() {
+      return minSize;
+   }
+
+   public int getMaxSize() {
+      return maxSize;
+   }
+
+   public int getLowWatermark() {
+      return lowWatermark;
+   }
+
+   public int getHighWatermark() {
+      return highWatermark;
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).omitNullValues().add("name", name).add("group", group)
+               .add("templateSpec", templateSpec).add("minSize", minSize).add("maxSize", maxSize)
+               .add("lowWatermark", lowWatermark).add("highWatermark", highWatermark).toString();
+   }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.management;
+
+import org.jclouds.management.ViewMBean;
+import org.jclouds.nodepool.NodePoolComputeServiceAdapter;
+import org.jclouds.nodepool.NodePoolComputeServiceContext;
+import org.jclouds.nodepool.internal.NodeMetadataStoreCache;
+import org.jclouds.nodepool.internal.NodePoolMetrics;
+
+import com.google.inject.Injector;
+
+public class NodePoolManagement implements NodePoolManagementMBean, ViewMBean<NodePoolComputeServiceContext> {
+
+   private final NodePoolComputeServiceAdapter adapter;
+   private final NodePoolMetrics metrics;
+   private final NodeMetadataStoreCache metadataCache;
+
+   public NodePoolManagement(NodePoolComputeServiceContext context) {
+      Injector injector = context.utils().injector();
+      this.adapter = injector.getInstance(NodePoolComputeServiceAdapter.class);
+      this.metrics = injector.getInstance(NodePoolMetrics.class);
+      this.metadataCache = injector.getInstance(NodeMetadataStoreCache.class);
+   }
+
+   @Override
+   public int getCurrentSize() {
+      return adapter.currentSize();
+   }
+
+   @Override
+   public int getIdleNodes() {
+      return adapter.idleNodes();
+   }
+
+   @Override
+   public int getUsedNodes() {
+      return adapter.usedNodes();
+   }
+
+   @Override
+   public int getPendingNodes() {
+      return adapter.pendingNodes();
+   }
+
+   @Override
+   public int getRecyclingNodes() {
+      return adapter.recyclingNodes();
+   }
+
+   @Override
+   public int getMinNodes() {
+      return adapter.minNodes();
+   }
+
+   @Override
+   public int getMaxNodes() {
+      return adapter.maxNodes();
+   }
+
+   @Override
+   public double getDemandRate() {
+      return adapter.demandRate();
+   }
+
+   @Override
+   public long getCheckouts() {
+      return metrics.checkouts();
+   }
+
+   @Override
+   public long getIdleCheckouts() {
+      return metrics.idleCheckouts();
+   }
+
+   @Override
+   public long getCheckoutFailures() {
+      return metrics.checkoutFailures();
+   }
+
+   @Override
+   public double getCheckoutLatencyMeanMillis() {
+      return metrics.checkoutLatency().meanMillis();
+   }
+
+   @Override
+   public double getCheckoutLatency99thPercentileMillis() {
+      return metrics.checkoutLatency().percentileMillis(0.99);
+   }
+
+   @Override
+   public double getCheckoutLatencyMaxMillis() {
+      return metrics.checkoutLatency().maxMillis();
+   }
+
+   @Override
+   public long getGrowthEvents() {
+      return metrics.growthEvents();
+   }
+
+   @Override
+   public long getNodesRequested() {
+      return metrics.nodesRequested();
+   }
+
+   @Override
+   public long getNodesProvisioned() {
+      return metrics.nodesProvisioned();
+   }
+
+   @Override
+   public long getProvisioningFailures() {
+      return metrics.provisioningFailures();
+   }
+
+   @Override
+   public double getTimeToIdleMeanMillis() {
+      return metrics.timeToIdle().meanMillis();
+   }
+
+   @Override
+   public double getTimeToIdle99thPercentileMillis() {
+      return metrics.timeToIdle().percentileMillis(0.99);
+   }
+
+   @Override
+   public double getTimeToIdleMaxMillis() {
+      return metrics.timeToIdle().maxMillis();
+   }
+
+   @Override
+   public long getRecycledNodes() {
+      return adapter.recycledNodes();
+   }
+
+   @Override
+   public long getRecycleFailures() {
+      return adapter.recycleFailures();
+   }
+
+   @Override
+   public long getExpiredLeases() {
+      return adapter.expiredLeases();
+   }
+
+   @Override
+   public long getMetadataCacheHits() {
+      return metadataCache.stats().hitCount();
+   }
+
+   @Override
+   public long getMetadataCacheMisses() {
+      return metadataCache.stats().missCount();
+   }
+
+   @Override
+   public long getMetadataCacheLoads() {
+      return metadataCache.stats().loadCount();
+   }
+
+   @Override
+   public String getType() {
+      return "nodepool";
+   }
+}
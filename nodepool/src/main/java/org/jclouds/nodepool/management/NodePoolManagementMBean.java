@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.management;
+
+/**
+ * Health of a node pool, read from its in-memory state and metrics without calling the backend
+ * provider.
+ */
+public interface NodePoolManagementMBean {
+
+   int getCurrentSize();
+
+   int getIdleNodes();
+
+   int getUsedNodes();
+
+   int getPendingNodes();
+
+   int getRecyclingNodes();
+
+   int getMinNodes();
+
+   int getMaxNodes();
+
+   double getDemandRate();
+
+   long getCheckouts();
+
+   long getIdleCheckouts();
+
+   long getCheckoutFailures();
+
+   double getCheckoutLatencyMeanMillis();
+
+   double getCheckoutLatency99thPercentileMillis();
+
+   double getCheckoutLatencyMaxMillis();
+
+   long getGrowthEvents();
+
+   long getNodesRequested();
+
+   long getNodesProvisioned();
+
+   long getProvisioningFailures();
+
+   double getTimeToIdleMeanMillis();
+
+   double getTimeToIdle99thPercentileMillis();
+
+   double getTimeToIdleMaxMillis();
+
+   long getRecycledNodes();
+
+   long getRecycleFailures();
+
+   long getExpiredLeases();
+
+   long getMetadataCacheHits();
+
+   long getMetadataCacheMisses();
+
+   long getMetadataCacheLoads();
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+
+@Test(groups = "unit", testName = "DemandEstimatorTest")
+public class DemandEstimatorTest {
+
+   private static class FakeTicker extends Ticker {
+      private long nanos;
+
+      @Override
+      public long read() {
+         return nanos;
+      }
+
+      void advance(long time, TimeUnit unit) {
+         nanos += unit.toNanos(time);
+      }
+   }
+
+   public void testRateIsSmoothedPerMinute() {
+      FakeTicker ticker = new FakeTicker();
+      DemandEstimator estimator = new DemandEstimator(0.5, ticker);
+      for (int i = 0; i < 5; i++) {
+         estimator.record();
+      }
+      // 5 checkouts in 30 seconds is 10 per minute, half of it folded into an initial rate of 0
+      ticker.advance(30, TimeUnit.SECONDS);
+      assertEquals(estimator.tick(), 5.0, 0.0001);
+      ticker.advance(30, TimeUnit.SECONDS);
+      assertEquals(estimator.tick(), 2.5, 0.0001);
+      assertEquals(estimator.rate(), 2.5, 0.0001);
+   }
+
+   public void testTickWithoutElapsedTimeKeepsRate() {
+      FakeTicker ticker = new FakeTicker();
+      DemandEstimator estimator = new DemandEstimator(1, ticker);
+      estimator.record();
+      assertEquals(estimator.tick(), 0.0, 0.0001);
+      ticker.advance(1, TimeUnit.MINUTES);
+      assertEquals(estimator.tick(), 1.0, 0.0001);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testInvalidSmoothing() {
+      new DemandEstimator(0, new FakeTicker());
+   }
+
+}
@@ -0,0 +1,479 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.RunNodesException;
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.HardwareBuilder;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.domain.Processor;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.domain.TemplateBuilder;
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.json.Json;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.nodepool.NodeReadinessProbe;
+import org.jclouds.nodepool.NodeRecycler;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.inject.Guice;
+
+/**
+ * Runs the pool against an in-memory backend that creates nodes instantly, so that the pool's own
+ * bookkeeping can be checked without a provider.
+ */
+@Test(groups = "unit", testName = "EagerNodePoolComputeServiceAdapterTest", singleThreaded = true)
+public class EagerNodePoolComputeServiceAdapterTest {
+
+   private final String baseDir = "target/" + getClass().getSimpleName();
+   private final Json json = Guice.createInjector(new GsonModule()).getInstance(Json.class);
+   private final Template small = template("small", 1024, 1);
+   private final Template large = template("large", 4096, 4);
+   // ids of the nodes the readiness probe rejects
+   private final Set<String> unready = Sets.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+   // when set, recycling waits for it
+   private volatile CountDownLatch recycling;
+   private volatile boolean recycleFails;
+
+   private FakeBackend backend;
+   private ScheduledExecutorService scheduler;
+   private ListeningExecutorService userExecutor;
+   private EagerNodePoolComputeServiceAdapter adapter;
+
+   @BeforeMethod
+   public void setUp() {
+      new File(baseDir, "nodes.log").delete();
+      backend = new FakeBackend(ImmutableMap.of("hardwareId=small", small, "hardwareId=large", large));
+      scheduler = Executors.newSingleThreadScheduledExecutor();
+      userExecutor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+      unready.clear();
+      recycling = null;
+      recycleFails = false;
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      if (recycling != null) {
+         recycling.countDown();
+      }
+      if (adapter != null) {
+         adapter.stopBackgroundTasks();
+         adapter = null;
+      }
+      scheduler.shutdownNow();
+      userExecutor.shutdownNow();
+   }
+
+   public void testTemplatesAreRoutedToTheirSubPool() {
+      newAdapter(4, false, 0, 2, spec("small", "hardwareId=small", 1, 2), spec("large", "hardwareId=large", 1, 2));
+      awaitIdle(2);
+
+      checkOut(large);
+      assertEquals(adapter.usedNodesBySubPool(), ImmutableMap.of("small", 0, "large", 1));
+      // no sub-pool has this hardware, the smallest one that is big enough serves it
+      checkOut(template("medium", 2048, 2));
+      assertEquals(adapter.usedNodesBySubPool(), ImmutableMap.of("small", 0, "large", 2));
+      checkOut(small);
+      assertEquals(adapter.usedNodesBySubPool(), ImmutableMap.of("small", 1, "large", 2));
+   }
+
+   public void testFullPoolReclaimsIdleNodesOfOtherSubPools() {
+      newAdapter(3, false, 0, 2, spec("small", "hardwareId=small", 0, 3), spec("large", "hardwareId=large", 0, 2));
+      release(checkOut(small), checkOut(small), checkOut(small));
+      awaitIdle(3);
+
+      checkOut(large);
+      checkOut(large);
+      awaitDestroyed(2);
+      assertEquals(adapter.idleNodesBySubPool(), ImmutableMap.of("small", 1, "large", 0));
+      assertEquals(adapter.usedNodesBySubPool(), ImmutableMap.of("small", 0, "large", 2));
+   }
+
+   public void testReclaimKeepsOtherSubPoolsAtTheirMinSize() {
+      newAdapter(2, false, 0, 2, spec("small", "hardwareId=small", 2, 2), spec("large", "hardwareId=large", 0, 1));
+      awaitIdle(2);
+
+      assertCheckOutFails(large);
+      assertEquals(backend.destroyed, ImmutableList.of());
+      assertEquals(adapter.idleNodesBySubPool(), ImmutableMap.of("small", 2, "large", 0));
+   }
+
+   public void testReclaimDoesNotDestroyNodesWhenTheRequesterIsFull() {
+      newAdapter(3, false, 0, 2, spec("small", "hardwareId=small", 0, 3), spec("large", "hardwareId=large", 0, 1));
+      release(checkOut(small), checkOut(small));
+      awaitIdle(2);
+      String largeNode = checkOut(large);
+      recycling = new CountDownLatch(1);
+      // the large sub-pool is at its max while its node is recycled
+      adapter.destroyNode(largeNode);
+
+      assertCheckOutFails(large);
+      assertEquals(backend.destroyed, ImmutableList.of());
+      assertEquals(adapter.idleNodesBySubPool(), ImmutableMap.of("small", 2, "large", 0));
+   }
+
+   public void testDestroyingAnUnknownNodeFails() {
+      newAdapter(1, false, 0, 1, spec("default", null, 0, 1));
+      try {
+         adapter.destroyNode("unknown");
+         fail("expected destroying an unknown node to fail");
+      } catch (IllegalStateException e) {
+         assertEquals(backend.destroyed, ImmutableList.of());
+      }
+   }
+
+   public void testNodesCreatedByAPartiallyFailedBackendCallJoinThePool() {
+      backend.failedPerCall = 1;
+      newAdapter(3, false, 0, 1, spec("default", null, 3, 3));
+      awaitIdle(2);
+      // the node that failed to start is destroyed rather than left to the reconciler
+      awaitDestroyed(1);
+      assertEquals(backend.destroyed, ImmutableList.of("node1"));
+      assertEquals(adapter.currentSize(), 2);
+   }
+
+   public void testConcurrentCheckOutsNeverShareANode() throws InterruptedException {
+      newAdapter(10, false, 0, 4, spec("default", null, 5, 10));
+      awaitIdle(5);
+
+      final CountDownLatch start = new CountDownLatch(1);
+      final Set<String> checkedOut = Sets.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+      final AtomicInteger failures = new AtomicInteger();
+      List<Thread> threads = Lists.newArrayList();
+      for (int i = 0; i < 10; i++) {
+         Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  start.await();
+                  checkedOut.add(checkOut(small));
+               } catch (Exception e) {
+                  failures.incrementAndGet();
+               }
+            }
+         });
+         thread.start();
+         threads.add(thread);
+      }
+      start.countDown();
+      for (Thread thread : threads) {
+         thread.join(TimeUnit.SECONDS.toMillis(10));
+      }
+
+      assertEquals(failures.get(), 0);
+      assertEquals(checkedOut.size(), 10);
+      assertEquals(adapter.usedNodes(), 10);
+      assertCheckOutFails(small);
+   }
+
+   public void testReleasedNodesAreRecycledBeforeTheyAreIdleAgain() {
+      newAdapter(1, false, 0, 1, spec("default", null, 1, 1));
+      awaitIdle(1);
+      recycling = new CountDownLatch(1);
+      String id = checkOut(small);
+      release(id);
+
+      assertEquals(adapter.recyclingNodes(), 1);
+      assertEquals(adapter.idleNodes(), 0);
+      assertCheckOutFails(small);
+
+      recycling.countDown();
+      awaitIdle(1);
+      assertEquals(adapter.recyclingNodes(), 0);
+      assertEquals(adapter.recycledNodes(), 1);
+      assertEquals(checkOut(small), id);
+   }
+
+   public void testNodesThatFailRecyclingAreReplaced() {
+      newAdapter(1, false, 0, 1, spec("default", null, 1, 1));
+      awaitIdle(1);
+      recycleFails = true;
+      String id = checkOut(small);
+      release(id);
+
+      awaitDestroyed(1);
+      assertEquals(backend.destroyed, ImmutableList.of(id));
+      awaitIdle(1);
+      assertEquals(adapter.recycleFailures(), 1);
+      assertEquals(adapter.recycledNodes(), 0);
+      assertEquals(adapter.currentSize(), 1);
+   }
+
+   public void testWarmUpProvisionsInParallel() {
+      // each backend call only returns once all three are running
+      backend.concurrentCalls = new CountDownLatch(3);
+      newAdapter(3, false, 0, 3, spec("default", null, 3, 3));
+      awaitIdle(3);
+      assertEquals(backend.calls.get(), 3);
+   }
+
+   public void testNodesThatAreNotReadyAreDestroyed() {
+      unready.add("node1");
+      newAdapter(2, false, 0, 1, spec("default", null, 2, 2));
+      awaitDestroyed(1);
+      assertEquals(backend.destroyed, ImmutableList.of("node1"));
+      awaitIdle(1);
+      assertEquals(adapter.currentSize(), 1);
+   }
+
+   public void testExpiredLeasesAreReclaimedAndRenewedOnesKept() {
+      newAdapter(2, true, 3600, 1, spec("default", null, 0, 2));
+      String expired = checkOut(small);
+      String renewed = checkOut(small);
+
+      adapter.renewLease(expired, 0, TimeUnit.MILLISECONDS);
+      adapter.renewLease(renewed);
+      adapter.reapExpiredLeases();
+
+      assertEquals(adapter.expiredLeases(), 1);
+      assertEquals(adapter.leaseExpirations().keySet(), ImmutableSet.of(renewed));
+      assertEquals(adapter.usedNodes(), 1);
+      assertEquals(backend.destroyed, ImmutableList.of(expired));
+      try {
+         adapter.renewLease(expired);
+         fail("expected renewing the lease of a reclaimed node to fail");
+      } catch (IllegalStateException e) {
+         // expected
+      }
+   }
+
+   private EagerNodePoolComputeServiceAdapter newAdapter(int maxSize, boolean removeDestroyed, long leaseDuration,
+            int provisioningParallelism, SubPoolSpec... specs) {
+      Map<String, SubPoolSpec> subPools = Maps.newLinkedHashMap();
+      for (SubPoolSpec spec : specs) {
+         subPools.put(spec.getName(), spec);
+      }
+      // the defaults, without the autoscale task
+      AutoscalePolicy policy = new AutoscalePolicy(0, -1, 5, false, 180, 0.3, 0, 600);
+      adapter = new EagerNodePoolComputeServiceAdapter(Suppliers.ofInstance(backend.computeService()),
+               Suppliers.ofInstance(small), "pool", maxSize, subPools, removeDestroyed, new LogNodeMetadataStore(
+                        baseDir, "nodes", json), "adminUsername=pooluser,adminPassword=poolpass", null, scheduler,
+               userExecutor, 0, policy, new NodeRecycler() {
+                  @Override
+                  public void recycle(NodeMetadata backendNode) {
+                     CountDownLatch latch = recycling;
+                     if (latch != null) {
+                        Uninterruptibles.awaitUninterruptibly(latch, 10, TimeUnit.SECONDS);
+                     }
+                     if (recycleFails) {
+                        throw new IllegalStateException("recycle script failed");
+                     }
+                  }
+               }, 2, new NodeReadinessProbe() {
+                  @Override
+                  public void awaitReady(NodeMetadata backendNode) {
+                     if (unready.contains(backendNode.getId())) {
+                        throw new IllegalStateException(backendNode.getId() + " is not ready");
+                     }
+                  }
+               }, provisioningParallelism, leaseDuration, 0, new NodePoolMetrics());
+      adapter.startEagerPool();
+      return adapter;
+   }
+
+   private static SubPoolSpec spec(String name, String templateSpec, int minSize, int maxSize) {
+      return new SubPoolSpec(name, "pool-" + name, templateSpec, minSize, maxSize, 0, -1);
+   }
+
+   private static Template template(String hardwareId, int ram, double cores) {
+      Hardware hardware = new HardwareBuilder().ids(hardwareId).ram(ram)
+               .processors(ImmutableList.of(new Processor(cores, 1.0))).build();
+      Template template = createNiceMock(Template.class);
+      expect(template.getHardware()).andReturn(hardware).anyTimes();
+      expect(template.getOptions()).andReturn(new TemplateOptions().overrideLoginUser("pooluser")).anyTimes();
+      expect(template.clone()).andReturn(template).anyTimes();
+      replay(template);
+      return template;
+   }
+
+   private String checkOut(Template template) {
+      return adapter.createNodeWithGroupEncodedIntoName("frontend", "frontend-node", template).getNodeId();
+   }
+
+   private void assertCheckOutFails(Template template) {
+      try {
+         checkOut(template);
+         fail("expected the pool to be full");
+      } catch (IllegalStateException e) {
+         // expected
+      }
+   }
+
+   private void release(String... ids) {
+      for (String id : ids) {
+         adapter.destroyNode(id);
+      }
+   }
+
+   /**
+    * Waits until the pool has the given number of idle nodes and none being created.
+    */
+   private void awaitIdle(int idle) {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (adapter.idleNodes() != idle || adapter.pendingNodes() != 0) {
+         assertTrue(System.nanoTime() < deadline, String.format("expected %s idle nodes, found %s and %s pending",
+                  idle, adapter.idleNodes(), adapter.pendingNodes()));
+         Uninterruptibles.sleepUninterruptibly(10, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   private void awaitDestroyed(int count) {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (backend.destroyed.size() < count) {
+         assertTrue(System.nanoTime() < deadline, String.format("expected %s destroyed nodes, found %s", count,
+                  backend.destroyed));
+         Uninterruptibles.sleepUninterruptibly(10, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   /**
+    * A backend that creates nodes named node1, node2... instantly, and only supports the calls the pool
+    * makes.
+    */
+   private static class FakeBackend implements InvocationHandler {
+
+      private final Map<String, NodeMetadata> nodes = new ConcurrentHashMap<String, NodeMetadata>();
+      private final List<String> destroyed = new CopyOnWriteArrayList<String>();
+      private final AtomicInteger ids = new AtomicInteger();
+      private final Map<String, Template> templates;
+      private final AtomicInteger calls = new AtomicInteger();
+      // the number of nodes of each call that fail to start
+      private volatile int failedPerCall;
+      // when set, each call waits until as many calls as its count are running
+      private volatile CountDownLatch concurrentCalls;
+
+      private FakeBackend(Map<String, Template> templates) {
+         this.templates = templates;
+      }
+
+      private ComputeService computeService() {
+         return (ComputeService) Proxy.newProxyInstance(ComputeService.class.getClassLoader(),
+                  new Class<?>[] { ComputeService.class }, this);
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+         String name = method.getName();
+         if (name.equals("createNodesInGroup")) {
+            return createNodesInGroup((String) args[0], (Integer) args[1], (Template) args[2]);
+         } else if (name.equals("destroyNode")) {
+            nodes.remove(args[0]);
+            destroyed.add((String) args[0]);
+            return null;
+         } else if (name.equals("listNodesDetailsMatching")) {
+            return ImmutableSet.copyOf(Iterables.filter(nodes.values(), (Predicate<NodeMetadata>) args[0]));
+         } else if (name.equals("templateBuilder")) {
+            return templateBuilder();
+         } else if (name.equals("toString")) {
+            return "FakeBackend";
+         } else if (name.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+         } else if (name.equals("equals")) {
+            return proxy == args[0];
+         }
+         throw new UnsupportedOperationException(name);
+      }
+
+      private Set<? extends NodeMetadata> createNodesInGroup(String group, int count, Template template)
+               throws RunNodesException, InterruptedException {
+         calls.incrementAndGet();
+         CountDownLatch latch = concurrentCalls;
+         if (latch != null) {
+            latch.countDown();
+            checkState(latch.await(10, TimeUnit.SECONDS), "backend calls were not made concurrently");
+         }
+         Set<NodeMetadata> created = Sets.newLinkedHashSet();
+         Map<NodeMetadata, Exception> failed = Maps.newLinkedHashMap();
+         for (int i = 0; i < count; i++) {
+            NodeMetadata node = new NodeMetadataBuilder().ids("node" + ids.incrementAndGet()).group(group)
+                     .status(Status.RUNNING).build();
+            nodes.put(node.getId(), node);
+            if (i < failedPerCall) {
+               failed.put(node, new IllegalStateException(node.getId() + " did not start"));
+            } else {
+               created.add(node);
+            }
+         }
+         if (!failed.isEmpty()) {
+            throw new RunNodesException(group, count, template, created, ImmutableMap.<Object, Exception> of(),
+                     failed);
+         }
+         return created;
+      }
+
+      private TemplateBuilder templateBuilder() {
+         final AtomicReference<String> spec = new AtomicReference<String>();
+         return (TemplateBuilder) Proxy.newProxyInstance(TemplateBuilder.class.getClassLoader(),
+                  new Class<?>[] { TemplateBuilder.class }, new InvocationHandler() {
+                     @Override
+                     public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("from")) {
+                           spec.set(String.valueOf(args[0]));
+                           return proxy;
+                        } else if (method.getName().equals("build")) {
+                           return checkNotNull(templates.get(spec.get()), spec.get());
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                     }
+                  });
+      }
+   }
+
+}
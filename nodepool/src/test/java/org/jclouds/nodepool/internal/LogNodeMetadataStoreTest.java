@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.json.Json;
+import org.jclouds.json.config.GsonModule;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import com.google.inject.Guice;
+
+@Test(groups = "unit", testName = "LogNodeMetadataStoreTest", singleThreaded = true)
+public class LogNodeMetadataStoreTest {
+
+   private final String baseDir = "target/" + getClass().getSimpleName();
+   private final Json json = Guice.createInjector(new GsonModule()).getInstance(Json.class);
+   private final NodeMetadata nodeMeta1 = new NodeMetadataBuilder().id("testmeta1").status(Status.ERROR).build();
+   private final NodeMetadata nodeMeta2 = new NodeMetadataBuilder().id("testmeta2").status(Status.ERROR).build();
+   private final TemplateOptions templateOptions = new TemplateOptions().overrideLoginUser("testuser")
+            .overrideLoginPassword("testpass").userMetadata("testmetakey", "testmetavalue")
+            .tags(ImmutableList.of("tag1", "tag2"));
+
+   @BeforeMethod
+   public void setUp() {
+      new File(baseDir, "nodes.log").delete();
+      new File(baseDir, "nodes.log.bak").delete();
+   }
+
+   private LogNodeMetadataStore newStore() {
+      return new LogNodeMetadataStore(baseDir, "nodes", json);
+   }
+
+   public void testStoreAndLoad() {
+      LogNodeMetadataStore store = newStore();
+      store.store(nodeMeta1, templateOptions, "testgroup");
+      NodeMetadata loaded = store.load(nodeMeta1);
+      assertEquals(loaded.getGroup(), "testgroup");
+      assertEquals(loaded.getCredentials().getUser(), "testuser");
+      assertTrue(loaded.getTags().contains("tag2"));
+      assertNull(store.load(nodeMeta2));
+   }
+
+   public void testMappingsSurviveReopening() {
+      LogNodeMetadataStore store = newStore();
+      store.store(nodeMeta1, templateOptions, "testgroup");
+      store.store(nodeMeta2, templateOptions, "othergroup");
+      store.deleteMapping(nodeMeta1.getId());
+      store.store(nodeMeta2, templateOptions, "testgroup");
+
+      LogNodeMetadataStore reopened = newStore();
+      assertNull(reopened.load(nodeMeta1));
+      assertEquals(reopened.load(nodeMeta2).getGroup(), "testgroup");
+      assertEquals(reopened.loadAll(ImmutableSet.of(nodeMeta1, nodeMeta2)).size(), 1);
+   }
+
+   public void testReopeningCompactsTheLog() throws IOException {
+      LogNodeMetadataStore store = newStore();
+      for (int i = 0; i < 10; i++) {
+         store.store(nodeMeta1, templateOptions, "group" + i);
+      }
+      newStore().load(nodeMeta1);
+      assertEquals(Files.readLines(new File(baseDir, "nodes.log"), Charsets.UTF_8).size(), 1);
+   }
+
+   public void testDeleteAllMappings() {
+      LogNodeMetadataStore store = newStore();
+      store.store(nodeMeta1, templateOptions, "testgroup");
+      store.store(nodeMeta2, templateOptions, "testgroup");
+      store.deleteAllMappings();
+      assertNull(store.load(nodeMeta1));
+      assertNull(newStore().load(nodeMeta2));
+   }
+
+   public void testTornRecordIsIgnored() throws IOException {
+      LogNodeMetadataStore store = newStore();
+      store.store(nodeMeta1, templateOptions, "testgroup");
+      Files.append("{\"id\":\"testmeta2\",\"meta", new File(baseDir, "nodes.log"), Charsets.UTF_8);
+
+      LogNodeMetadataStore reopened = newStore();
+      assertEquals(reopened.load(nodeMeta1).getGroup(), "testgroup");
+      assertNull(reopened.load(nodeMeta2));
+      reopened.store(nodeMeta2, templateOptions, "testgroup");
+      assertEquals(newStore().load(nodeMeta2).getGroup(), "testgroup");
+   }
+
+   public void testLeasesSurviveReopening() {
+      LogNodeMetadataStore store = newStore();
+      store.store(nodeMeta1, templateOptions, "testgroup", 1000);
+      store.store(nodeMeta2, templateOptions, "testgroup");
+      assertTrue(store.renewLease(nodeMeta1.getId(), 2000));
+      assertFalse(store.renewLease("unmapped", 2000));
+
+      LogNodeMetadataStore reopened = newStore();
+      assertEquals(reopened.loadLeases(ImmutableSet.of(nodeMeta1, nodeMeta2)),
+               ImmutableMap.of(nodeMeta1.getId(), 2000L));
+      assertEquals(reopened.load(nodeMeta1).getCredentials().getUser(), "testuser");
+   }
+
+   public void testLogIsRestoredFromBackup() {
+      LogNodeMetadataStore store = newStore();
+      store.store(nodeMeta1, templateOptions, "testgroup");
+      // a crash between moving the old log aside and renaming the snapshot over it
+      assertTrue(new File(baseDir, "nodes.log").renameTo(new File(baseDir, "nodes.log.bak")));
+
+      assertEquals(newStore().load(nodeMeta1).getGroup(), "testgroup");
+      assertTrue(new File(baseDir, "nodes.log").exists());
+   }
+
+   public void testFailedWriteDoesNotBlockLaterWrites() {
+      final AtomicBoolean failing = new AtomicBoolean(true);
+      LogNodeMetadataStore store = new LogNodeMetadataStore(baseDir, "nodes", new Json() {
+         @Override
+         public <T> T fromJson(String string, Type type) {
+            return json.fromJson(string, type);
+         }
+
+         @Override
+         public <T> T fromJson(String string, Class<T> classOfT) {
+            return json.fromJson(string, classOfT);
+         }
+
+         @Override
+         public String toJson(Object src) {
+            if (failing.get()) {
+               throw new IllegalStateException("cannot serialize");
+            }
+            return json.toJson(src);
+         }
+
+         @Override
+         public String toJson(Object src, Type typeOfSrc) {
+            return toJson(src);
+         }
+      });
+      try {
+         store.store(nodeMeta1, templateOptions, "testgroup");
+         fail("expected the write to fail");
+      } catch (IllegalStateException e) {
+         assertNull(store.load(nodeMeta1));
+      }
+      failing.set(false);
+      store.store(nodeMeta2, templateOptions, "testgroup");
+      assertNull(newStore().load(nodeMeta1));
+      assertEquals(newStore().load(nodeMeta2).getGroup(), "testgroup");
+   }
+
+}
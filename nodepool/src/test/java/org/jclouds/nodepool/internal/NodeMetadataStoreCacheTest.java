@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.options.TemplateOptions;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@Test(groups = "unit", testName = "NodeMetadataStoreCacheTest")
+public class NodeMetadataStoreCacheTest {
+
+   private final NodeMetadata node1 = new NodeMetadataBuilder().id("node1").status(Status.RUNNING).build();
+   private final NodeMetadata node2 = new NodeMetadataBuilder().id("node2").status(Status.RUNNING).build();
+
+   /**
+    * A store where every node has a mapping, which counts and optionally delays reads.
+    */
+   private static class CountingStore implements NodeMetadataStore {
+      private final AtomicInteger loads = new AtomicInteger();
+      private final CountDownLatch release;
+
+      CountingStore(CountDownLatch release) {
+         this.release = release;
+      }
+
+      @Override
+      public NodeMetadata store(NodeMetadata backendNode, TemplateOptions userOptions, String userGroup) {
+         return store(backendNode, userOptions, userGroup, 0);
+      }
+
+      @Override
+      public NodeMetadata store(NodeMetadata backendNode, TemplateOptions userOptions, String userGroup,
+               long leaseExpiresAt) {
+         return NodeMetadataBuilder.fromNodeMetadata(backendNode).group(userGroup).build();
+      }
+
+      @Override
+      public boolean renewLease(String backendNodeId, long leaseExpiresAt) {
+         return true;
+      }
+
+      @Override
+      public Map<String, Long> loadLeases(Set<NodeMetadata> backendNodes) {
+         return ImmutableMap.of();
+      }
+
+      @Override
+      public void deleteMapping(String backendNodeId) {
+      }
+
+      @Override
+      public void deleteAllMappings() {
+      }
+
+      @Override
+      public NodeMetadata load(NodeMetadata backendNode) {
+         loads.incrementAndGet();
+         Uninterruptibles.awaitUninterruptibly(release);
+         return NodeMetadataBuilder.fromNodeMetadata(backendNode).group("frontend").build();
+      }
+
+      @Override
+      public Set<NodeMetadata> loadAll(Set<NodeMetadata> backendNodes) {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   public void testHitsAndMisses() {
+      CountingStore backend = new CountingStore(new CountDownLatch(0));
+      NodeMetadataStoreCache cache = new NodeMetadataStoreCache(backend, 10, 0);
+      assertEquals(cache.load(node1).getGroup(), "frontend");
+      assertEquals(cache.load(node1).getGroup(), "frontend");
+      assertEquals(cache.loadAll(ImmutableSet.of(node1, node2)).size(), 2);
+      assertEquals(backend.loads.get(), 2);
+      assertEquals(cache.stats().hitCount(), 2);
+      assertEquals(cache.stats().missCount(), 2);
+      assertEquals(cache.stats().loadCount(), 2);
+   }
+
+   public void testStoreAndDeleteWriteThrough() {
+      CountingStore backend = new CountingStore(new CountDownLatch(0));
+      NodeMetadataStoreCache cache = new NodeMetadataStoreCache(backend, 10, 0);
+      cache.store(node1, new TemplateOptions(), "stored");
+      assertEquals(cache.load(node1).getGroup(), "stored");
+      assertEquals(backend.loads.get(), 0);
+      cache.deleteMapping(node1.getId());
+      assertEquals(cache.load(node1).getGroup(), "frontend");
+      assertEquals(backend.loads.get(), 1);
+   }
+
+   public void testMissingMappingIsCached() {
+      NodeMetadataStoreCache cache = new NodeMetadataStoreCache(new CountingStore(new CountDownLatch(0)) {
+         @Override
+         public NodeMetadata load(NodeMetadata backendNode) {
+            super.load(backendNode);
+            return null;
+         }
+      }, 10, 0);
+      assertNull(cache.load(node1));
+      assertNull(cache.load(node1));
+      assertEquals(cache.stats().missCount(), 1);
+      assertTrue(cache.loadAll(ImmutableSet.of(node1)).isEmpty());
+   }
+
+   public void testConcurrentMissesLoadOnce() throws InterruptedException {
+      CountDownLatch release = new CountDownLatch(1);
+      final CountingStore backend = new CountingStore(release);
+      final NodeMetadataStoreCache cache = new NodeMetadataStoreCache(backend, 10, 0);
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      for (int i = 0; i < 4; i++) {
+         executor.execute(new Runnable() {
+            @Override
+            public void run() {
+               cache.load(node1);
+            }
+         });
+      }
+      // give the readers time to pile up behind the first load
+      Thread.sleep(200);
+      release.countDown();
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+      assertEquals(backend.loads.get(), 1);
+   }
+
+}
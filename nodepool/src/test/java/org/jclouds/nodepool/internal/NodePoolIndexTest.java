@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.nodepool.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+@Test(groups = "unit", testName = "NodePoolIndexTest")
+public class NodePoolIndexTest {
+
+   private final NodeMetadata node1 = new NodeMetadataBuilder().id("node1").status(Status.RUNNING).build();
+   private final NodeMetadata node2 = new NodeMetadataBuilder().id("node2").status(Status.RUNNING).build();
+   private final NodeMetadata node3 = new NodeMetadataBuilder().id("node3").status(Status.RUNNING).build();
+
+   public void testRebuildSplitsIdleAndAssigned() {
+      NodePoolIndex index = new NodePoolIndex();
+      index.rebuild(ImmutableSet.of(node1, node2, node3), ImmutableSet.of("node2"));
+      assertEquals(index.size(), 3);
+      assertEquals(index.idleCount(), 2);
+      assertEquals(index.assignedCount(), 1);
+      assertTrue(index.isAssigned("node2"));
+      assertFalse(index.isAssigned("node1"));
+   }
+
+   public void testClaimAndRelease() {
+      NodePoolIndex index = new NodePoolIndex();
+      index.addIdle(ImmutableSet.of(node1));
+      assertEquals(index.claimIdle(), node1);
+      assertNull(index.claimIdle());
+      assertTrue(index.isAssigned("node1"));
+      index.release("node1");
+      assertEquals(index.idleCount(), 1);
+      assertEquals(index.assignedCount(), 0);
+   }
+
+   public void testRecycledNodesOnlyReturnToIdleWhenFinished() {
+      NodePoolIndex index = new NodePoolIndex();
+      index.rebuild(ImmutableSet.of(node1), ImmutableSet.of("node1"));
+      assertEquals(index.startRecycling("node1"), node1);
+      assertEquals(index.recyclingCount(), 1);
+      assertEquals(index.size(), 1);
+      assertNull(index.claimIdle());
+      index.finishRecycling("node1");
+      assertEquals(index.recyclingCount(), 0);
+      assertEquals(index.claimIdle(), node1);
+   }
+
+   public void testReconcileAddsUnknownAndDropsMissingNodes() {
+      NodePoolIndex index = new NodePoolIndex();
+      index.rebuild(ImmutableSet.of(node1, node2), ImmutableSet.of("node1"));
+      int drift = index.reconcile(ImmutableSet.of(node1, node3), ImmutableSet.<String> of(), index.mark());
+      assertEquals(drift, 2);
+      assertEquals(index.size(), 2);
+      // known nodes keep the state owned by the index
+      assertTrue(index.isAssigned("node1"));
+      assertEquals(index.claimIdle(), node3);
+   }
+
+   public void testReconcileIgnoresRemovedNodesStillListed() {
+      NodePoolIndex index = new NodePoolIndex();
+      index.rebuild(ImmutableSet.of(node1, node2), ImmutableSet.<String> of());
+      index.remove("node1");
+      assertEquals(index.reconcile(ImmutableSet.of(node1, node2), ImmutableSet.<String> of(), index.mark()), 0);
+      assertEquals(index.size(), 1);
+   }
+
+   public void testReconcileKeepsNodesAddedAfterMark() {
+      NodePoolIndex index = new NodePoolIndex();
+      long mark = index.mark();
+      index.addIdle(ImmutableSet.of(node1));
+      assertEquals(index.reconcile(ImmutableSet.<NodeMetadata> of(), ImmutableSet.<String> of(), mark), 0);
+      assertEquals(index.idleCount(), 1);
+   }
+
+   public void testReserveHonoursMaximum() {
+      NodePoolIndex index = new NodePoolIndex();
+      index.addIdle(ImmutableSet.of(node1));
+      assertTrue(index.reserve(1, 2));
+      assertFalse(index.reserve(1, 2));
+      index.unreserve(1);
+      assertTrue(index.reserve(1, 2));
+   }
+
+   public void testConcurrentClaimsNeverShareANode() throws InterruptedException {
+      final NodePoolIndex index = new NodePoolIndex();
+      final Set<String> claimed = Sets.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+      final AtomicInteger claims = new AtomicInteger();
+      for (int i = 0; i < 100; i++) {
+         index.addIdle(ImmutableSet.of(new NodeMetadataBuilder().id("node-" + i).status(Status.RUNNING).build()));
+      }
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      for (int i = 0; i < 200; i++) {
+         executor.execute(new Runnable() {
+            @Override
+            public void run() {
+               NodeMetadata node = index.claimIdle();
+               if (node != null) {
+                  claims.incrementAndGet();
+                  claimed.add(node.getId());
+               }
+            }
+         });
+      }
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+      assertEquals(claims.get(), 100);
+      assertEquals(claimed.size(), 100);
+      assertEquals(index.assignedCount(), 100);
+      assertEquals(index.idleCount(), 0);
+   }
+
+}
@@ -17,6 +17,7 @@
 package org.jclouds.virtualbox;
 
 import static org.jclouds.compute.config.ComputeServiceProperties.TEMPLATE;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_ARTIFACT_CACHE;
 import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_DEFAULT_DIR;
 import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_GUEST_MEMORY;
 import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_IMAGES_DESCRIPTOR;
@@ -60,6 +61,7 @@ public class VirtualBoxApiMetadata extends BaseApiMetadata {
 
       String workingDir = System.getProperty("test.virtualbox.workingDir", VIRTUALBOX_DEFAULT_DIR);
       properties.put(VIRTUALBOX_WORKINGDIR, workingDir);
+      properties.put(VIRTUALBOX_ARTIFACT_CACHE, VIRTUALBOX_DEFAULT_DIR + File.separator + "cache");
 
       String ram = System.getProperty(VIRTUALBOX_GUEST_MEMORY, "512");
       properties.put(VIRTUALBOX_GUEST_MEMORY, ram);
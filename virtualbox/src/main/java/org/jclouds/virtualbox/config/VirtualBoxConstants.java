@@ -36,6 +36,8 @@ public interface VirtualBoxConstants {
 
    public static final String VIRTUALBOX_WORKINGDIR = "jclouds.virtualbox.workingdir";
 
+   public static final String VIRTUALBOX_ARTIFACT_CACHE = "jclouds.virtualbox.artifactcache";
+
    public static final String VIRTUALBOX_IMAGES_DESCRIPTOR = "jclouds.virtualbox.image.descriptor.yaml";
 
    public static final String VIRTUALBOX_MACHINE_GROUP = "jclouds.virtualbox.machinegroup";
@@ -19,7 +19,6 @@ package org.jclouds.virtualbox.functions;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
-import static org.jclouds.compute.options.RunScriptOptions.Builder.runAsRoot;
 import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_DEFAULT_DIR;
 import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_IMAGE_PREFIX;
 import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_NODE_NAME_SEPARATOR;
@@ -28,11 +27,12 @@ import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_WORKI
 import static org.jclouds.virtualbox.util.MachineUtils.machineNotFoundException;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
-import java.net.URISyntaxException;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 
 import javax.annotation.PostConstruct;
@@ -41,18 +41,12 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
-import org.jclouds.compute.callables.RunScriptOnNode.Factory;
-import org.jclouds.compute.domain.ExecResponse;
 import org.jclouds.compute.domain.Image;
-import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.location.Provider;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.annotations.BuildVersion;
-import org.jclouds.scriptbuilder.domain.Statement;
-import org.jclouds.scriptbuilder.domain.StatementList;
-import org.jclouds.scriptbuilder.domain.Statements;
 import org.jclouds.virtualbox.domain.HardDisk;
 import org.jclouds.virtualbox.domain.IsoSpec;
 import org.jclouds.virtualbox.domain.Master;
@@ -65,7 +59,7 @@ import org.jclouds.virtualbox.domain.VmSpec;
 import org.jclouds.virtualbox.domain.YamlImage;
 import org.jclouds.virtualbox.functions.admin.PreseedCfgServer;
 import org.jclouds.virtualbox.predicates.RetryIfSocketNotYetOpen;
-import org.jclouds.virtualbox.statements.Md5;
+import org.jclouds.virtualbox.util.ArtifactCache;
 import org.jclouds.virtualbox.util.NetworkUtils;
 import org.virtualbox_4_2.CleanupMode;
 import org.virtualbox_4_2.IMachine;
@@ -75,23 +69,26 @@ import org.virtualbox_4_2.VBoxException;
 import org.virtualbox_4_2.VirtualBoxManager;
 
 import com.google.common.base.CaseFormat;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Function;
 import com.google.common.base.Splitter;
 import com.google.common.base.Supplier;
 import com.google.common.cache.AbstractLoadingCache;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.net.HostAndPort;
 import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 /**
  * A {@link LoadingCache} for masters. If the requested master has been
  * previously created this returns it, if not it coordinates its creation
- * including downloading isos and creating cache/config directories. This also
- * implements {@link Supplier} in order to provide jetty with the current image
- * (only one master can be created at a time).
+ * including downloading isos into the {@link ArtifactCache} and creating
+ * cache/config directories. This also serves the preseed file of each master
+ * being created at its own path of the preconfiguration url, so that masters
+ * of different images can be created at the same time. Concurrent requests for the same master share its creation.
  * 
  * @author dralves, andrea turli
  * 
@@ -103,32 +100,30 @@ public class MastersLoadingCache extends AbstractLoadingCache<Image, Master> {
    @Named(ComputeServiceConstants.COMPUTE_LOGGER)
    protected Logger logger = Logger.NULL;
 
-   private final Map<String, Master> masters = Maps.newHashMap();
+   private final ConcurrentMap<String, SettableFuture<Master>> masters = Maps.newConcurrentMap();
+   private final PreseedCfgServer preseedCfgServer = new PreseedCfgServer();
+   private final Set<Integer> masterPorts = Sets.newHashSet();
    private final Function<MasterSpec, IMachine> masterCreatorAndInstaller;
    private final Map<String, YamlImage> imageMapping;
    private final String workingDir;
-   private final String isosDir;
    private final Supplier<VirtualBoxManager> manager;
    private final String version;
    private final String preconfigurationUrl;
 
-   private final Factory runScriptOnNodeFactory;
    private final RetryIfSocketNotYetOpen socketTester;
-   private final Supplier<NodeMetadata> host;
    private final Supplier<URI> providerSupplier;
-   private final HardcodedHostToHostNodeMetadata hardcodedHostToHostNodeMetadata;
+   private final ArtifactCache artifactCache;
 
    @Inject
    public MastersLoadingCache(@BuildVersion String version,
          @Named(VIRTUALBOX_PRECONFIGURATION_URL) String preconfigurationUrl,
          @Named(VIRTUALBOX_WORKINGDIR) String workingDir, Function<MasterSpec, IMachine> masterLoader,
          Supplier<Map<Image, YamlImage>> yamlMapper, Supplier<VirtualBoxManager> manager,
-         Factory runScriptOnNodeFactory, RetryIfSocketNotYetOpen socketTester, Supplier<NodeMetadata> host,
-         @Provider Supplier<URI> providerSupplier, HardcodedHostToHostNodeMetadata hardcodedHostToHostNodeMetadata) {
+         RetryIfSocketNotYetOpen socketTester, @Provider Supplier<URI> providerSupplier,
+         ArtifactCache artifactCache) {
       this.manager = checkNotNull(manager, "vboxmanager can't be null");
       this.masterCreatorAndInstaller = masterLoader;
       this.workingDir = workingDir == null ? VIRTUALBOX_DEFAULT_DIR : workingDir;
-      this.isosDir = workingDir + File.separator + "isos";
       this.imageMapping = Maps.newLinkedHashMap();
       for (Entry<Image, YamlImage> entry : yamlMapper.get().entrySet()) {
          this.imageMapping.put(entry.getKey().getId(), entry.getValue());
@@ -136,75 +131,122 @@ public class MastersLoadingCache extends AbstractLoadingCache<Image, Master> {
       this.version = Iterables.get(Splitter.on('r').split(checkNotNull(version, "version")), 0);
       this.preconfigurationUrl = preconfigurationUrl;
 
-      this.runScriptOnNodeFactory = checkNotNull(runScriptOnNodeFactory, "runScriptOnNodeFactory");
       this.socketTester = checkNotNull(socketTester, "socketTester");
       this.socketTester.seconds(3L);
-      this.host = checkNotNull(host, "host");
       this.providerSupplier = checkNotNull(providerSupplier, "endpoint to virtualbox websrvd is needed");
-      this.hardcodedHostToHostNodeMetadata = hardcodedHostToHostNodeMetadata;
+      this.artifactCache = checkNotNull(artifactCache, "artifactCache");
    }
 
    @PostConstruct
    public void createCacheDirStructure() {
       if (!new File(workingDir).exists()) {
-         new File(workingDir, "isos").mkdirs();
+         new File(workingDir).mkdirs();
       }
    }
 
    @Override
-   public synchronized Master get(Image key) throws ExecutionException {
-      // check if we have loaded this machine before
-      if (masters.containsKey(key.getId())) {
-         return masters.get(key.getId());
-      }
+   public Master get(Image key) throws ExecutionException {
       checkState(!key.getId().contains(VIRTUALBOX_NODE_NAME_SEPARATOR), "master image names cannot contain \""
             + VIRTUALBOX_NODE_NAME_SEPARATOR + "\"");
+      SettableFuture<Master> future = SettableFuture.create();
+      SettableFuture<Master> existing = masters.putIfAbsent(key.getId(), future);
+      if (existing != null) {
+         // this master has been loaded before, or is being loaded by another caller
+         return Uninterruptibles.getUninterruptibly(existing);
+      }
+      try {
+         Master master = loadMaster(key);
+         future.set(master);
+         return master;
+      } catch (ExecutionException e) {
+         throw failed(key.getId(), future, e);
+      } catch (RuntimeException e) {
+         throw failed(key.getId(), future, e);
+      } catch (Error e) {
+         throw failed(key.getId(), future, e);
+      }
+   }
+
+   private <T extends Throwable> T failed(String imageId, SettableFuture<Master> future, T e) {
+      // forget the failed load so that the next caller tries again, callers waiting on it get the error
+      masters.remove(imageId, future);
+      future.setException(e);
+      return e;
+   }
+
+   private Master loadMaster(Image key) throws ExecutionException {
       String vmName = VIRTUALBOX_IMAGE_PREFIX + key.getId();
-      IMachine masterMachine;
-      Master master;
-      // ready the preseed file server
-      PreseedCfgServer server = new PreseedCfgServer();
       try {
          // try and find a master machine in vbox
-         masterMachine = manager.get().getVBox().findMachine(vmName);
-         master = Master.builder().machine(masterMachine).build();
+         IMachine masterMachine = manager.get().getVBox().findMachine(vmName);
+         return Master.builder().machine(masterMachine).build();
       } catch (VBoxException e) {
-         if (machineNotFoundException(e)) {
-            // machine was not found try to build one from a yaml file
-            YamlImage currentImage = checkNotNull(imageMapping.get(key.getId()), "currentImage");
-            URI preseedServer;
-            try {
-               preseedServer = new URI(preconfigurationUrl);
-               if (!socketTester.apply(HostAndPort.fromParts(preseedServer.getHost(), preseedServer.getPort()))) {
-                  server.start(preconfigurationUrl, currentImage.preseed_cfg);
-               }
-            } catch (URISyntaxException e1) {
-               logger.error("Cannot start the preseed server", e);
-               throw e;
-            }
-
-            MasterSpec masterSpec = buildMasterSpecFromYaml(currentImage, vmName);
-            masterMachine = masterCreatorAndInstaller.apply(masterSpec);
-            master = Master.builder().machine(masterMachine).spec(masterSpec).build();
-         } else {
+         if (!machineNotFoundException(e)) {
             logger.error("Problem during master creation", e);
             throw e;
          }
+      }
+      // machine was not found try to build one from a yaml file
+      YamlImage currentImage = checkNotNull(imageMapping.get(key.getId()), "currentImage");
+      String preseedPath = "/" + key.getId();
+      int masterPort = acquireMasterPort();
+      try {
+         String preseedUrl = servePreseed(preseedPath, currentImage.preseed_cfg);
+         MasterSpec masterSpec = buildMasterSpecFromYaml(currentImage, vmName, preseedUrl, masterPort);
+         IMachine masterMachine = masterCreatorAndInstaller.apply(masterSpec);
+         return Master.builder().machine(masterMachine).spec(masterSpec).build();
       } finally {
-         server.stop();
+         preseedCfgServer.remove(preseedPath);
+         releaseMasterPort(masterPort);
+      }
+   }
+
+   /**
+    * Serves the preseed file of a master being built at the given path of the preconfiguration url,
+    * starting the preseed server if it is not running yet.
+    * 
+    * @return the url the master being built should fetch its preseed file from
+    */
+   private String servePreseed(String path, String preseedCfg) {
+      synchronized (preseedCfgServer) {
+         if (!preseedCfgServer.isRunning()) {
+            URI preseedServer = URI.create(preconfigurationUrl);
+            if (socketTester.apply(HostAndPort.fromParts(preseedServer.getHost(), preseedServer.getPort()))) {
+               // something else serves the preseed files, and answers all paths alike
+               logger.debug("<< preseed server already running at %s", preconfigurationUrl);
+               return preconfigurationUrl;
+            }
+         }
+         preseedCfgServer.serve(preconfigurationUrl, path, preseedCfg);
+         return CharMatcher.is('/').trimTrailingFrom(preconfigurationUrl) + path;
+      }
+   }
+
+   /**
+    * Masters being built at the same time each need their own host port to forward to their ssh
+    * port, these are allocated upwards from {@link NetworkUtils#MASTER_PORT}.
+    */
+   private int acquireMasterPort() {
+      synchronized (masterPorts) {
+         int port = NetworkUtils.MASTER_PORT;
+         while (!masterPorts.add(port)) {
+            port++;
+         }
+         return port;
       }
+   }
 
-      masters.put(key.getId(), master);
-      return master;
+   private void releaseMasterPort(int port) {
+      synchronized (masterPorts) {
+         masterPorts.remove(port);
+      }
    }
 
-   private MasterSpec buildMasterSpecFromYaml(YamlImage currentImage, String vmName) throws ExecutionException {
+   private MasterSpec buildMasterSpecFromYaml(YamlImage currentImage, String vmName, String preseedUrl,
+         int masterPort) throws ExecutionException {
       String guestAdditionsFileName = String.format("VBoxGuestAdditions_%s.iso", version);
-      String guestAdditionsIso = String.format("%s/%s", isosDir, guestAdditionsFileName);
       String guestAdditionsUri = "http://download.virtualbox.org/virtualbox/" + version + "/" + guestAdditionsFileName;
-      if (!new File(guestAdditionsIso).exists()) {
-         getFilePathOrDownload(guestAdditionsUri, null);
-      }
+      getFilePathOrDownload(guestAdditionsUri, null);
       // check if the iso is here, download if not
       String localIsoUrl = checkNotNull(getFilePathOrDownload(currentImage.iso, currentImage.iso_md5), "distro iso");
       String adminDisk = workingDir + File.separator + vmName + ".vdi";
@@ -220,14 +262,15 @@ public class MastersLoadingCache extends AbstractLoadingCache<Image, Master> {
             .cleanUpMode(CleanupMode.Full).build();
 
       NetworkAdapter networkAdapter = NetworkAdapter.builder().networkAttachmentType(NetworkAttachmentType.NAT)
-            .tcpRedirectRule(providerSupplier.get().getHost(), NetworkUtils.MASTER_PORT, "", 22).build();
+            .tcpRedirectRule(providerSupplier.get().getHost(), masterPort, "", 22).build();
 
       NetworkInterfaceCard networkInterfaceCard = NetworkInterfaceCard.builder().addNetworkAdapter(networkAdapter)
             .slot(0L).build();
 
       NetworkSpec networkSpec = NetworkSpec.builder().addNIC(networkInterfaceCard).build();
 
-      String installationSequence = currentImage.keystroke_sequence.replace("HOSTNAME", vmSpecification.getVmName());
+      String installationSequence = currentImage.keystroke_sequence.replace("HOSTNAME", vmSpecification.getVmName())
+            .replace("PRECONFIGURATION_URL", preseedUrl);
       return MasterSpec.builder()
                        .vm(vmSpecification)
                        .iso(IsoSpec.builder()
@@ -244,42 +287,27 @@ public class MastersLoadingCache extends AbstractLoadingCache<Image, Master> {
    }
 
    @Override
-   public synchronized Master getIfPresent(Object key) {
+   public Master getIfPresent(Object key) {
       checkArgument(key instanceof Image, "this cache is for entries who's keys are Images");
       Image image = Image.class.cast(key);
-      if (masters.containsKey(image.getId())) {
-         return masters.get(image.getId());
+      SettableFuture<Master> future = masters.get(image.getId());
+      if (future == null || !future.isDone()) {
+         return null;
+      }
+      try {
+         return Futures.getUnchecked(future);
+      } catch (RuntimeException e) {
+         return null;
       }
-      return null;
    }
 
    private String getFilePathOrDownload(String httpUrl, String expectedMd5) throws ExecutionException {
-      String fileName = httpUrl.substring(httpUrl.lastIndexOf('/') + 1, httpUrl.length());
-      URI provider = providerSupplier.get();
-      if (!socketTester.apply(HostAndPort.fromParts(provider.getHost(), provider.getPort()))) {
-         throw new RuntimeException("could not connect to virtualbox");
-      }
-      File file = new File(isosDir, fileName);
-      List<Statement> statements = new ImmutableList.Builder<Statement>().add(
-            Statements.saveHttpResponseTo(URI.create(httpUrl), isosDir, fileName)).build();
-      StatementList statementList = new StatementList(statements);
-      NodeMetadata hostNode = checkNotNull(hardcodedHostToHostNodeMetadata.apply(host.get()), "hostNode");
-      ListenableFuture<ExecResponse> future = runScriptOnNodeFactory.submit(hostNode, statementList,
-            runAsRoot(false));
-      Futures.getUnchecked(future);
-
-      if (expectedMd5 != null) {
-         String filePath = isosDir + File.separator + fileName;
-         ListenableFuture<ExecResponse> md5future = runScriptOnNodeFactory.submit(hostNode, new Md5(filePath),
-               runAsRoot(false));
-
-         ExecResponse responseMd5 = Futures.getUnchecked(md5future);
-         assert responseMd5.getExitStatus() == 0 : hostNode.getId() + ": " + responseMd5;
-         checkNotNull(responseMd5.getOutput(), "iso_md5 missing");
-         String actualMd5 = responseMd5.getOutput().trim();
-         checkState(actualMd5.equals(expectedMd5), "md5 of %s is %s but expected %s", filePath, actualMd5, expectedMd5);
+      try {
+         // masters built at the same time, or by other workspaces, share the isos they have in common
+         return artifactCache.get(URI.create(httpUrl), expectedMd5).getAbsolutePath();
+      } catch (IOException e) {
+         throw new ExecutionException(e);
       }
-      return file.getAbsolutePath();
    }
 
    private String getOsTypeId(String os_family, boolean os_64bit) {
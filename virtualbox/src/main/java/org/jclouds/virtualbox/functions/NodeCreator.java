@@ -21,8 +21,11 @@ package org.jclouds.virtualbox.functions;
  import com.google.common.base.Optional;
  import com.google.common.base.Predicate;
  import com.google.common.base.Supplier;
+ import com.google.common.base.Suppliers;
  import com.google.common.collect.ImmutableSet;
  import com.google.common.collect.Iterables;
+ import com.google.common.collect.Maps;
+ import com.google.common.collect.Sets;
  import com.google.common.io.Files;
  import org.jclouds.compute.ComputeServiceAdapter.NodeAndInitialCredentials;
  import org.jclouds.compute.domain.NodeMetadata;
@@ -31,6 +34,7 @@ package org.jclouds.virtualbox.functions;
  import org.jclouds.compute.reference.ComputeServiceConstants;
  import org.jclouds.domain.LoginCredentials;
  import org.jclouds.logging.Logger;
+ import org.jclouds.scriptbuilder.domain.Statement;
  import org.jclouds.util.Strings2;
  import org.jclouds.virtualbox.config.VirtualBoxComputeServiceContextModule;
  import org.jclouds.virtualbox.domain.CloneSpec;
@@ -40,11 +44,14 @@ package org.jclouds.virtualbox.functions;
  import org.jclouds.virtualbox.domain.NodeSpec;
  import org.jclouds.virtualbox.domain.VmSpec;
  import org.jclouds.virtualbox.statements.DeleteGShadowLock;
+ import org.jclouds.virtualbox.statements.EnableNetworkInterface;
  import org.jclouds.virtualbox.statements.PasswordlessSudo;
  import org.jclouds.virtualbox.util.MachineController;
  import org.jclouds.virtualbox.util.MachineUtils;
  import org.jclouds.virtualbox.util.NetworkUtils;
  import org.virtualbox_4_2.CleanupMode;
+ import org.virtualbox_4_2.IGuestSession;
+ import org.virtualbox_4_2.IHost;
  import org.virtualbox_4_2.IMachine;
  import org.virtualbox_4_2.IProgress;
  import org.virtualbox_4_2.ISession;
@@ -60,6 +67,12 @@ package org.jclouds.virtualbox.functions;
 
  import java.io.File;
  import java.io.IOException;
+ import java.util.List;
+ import java.util.Set;
+ import java.util.concurrent.ConcurrentMap;
+ import java.util.concurrent.Semaphore;
+ import java.util.concurrent.locks.Lock;
+ import java.util.concurrent.locks.ReentrantLock;
 
  import static com.google.common.base.Preconditions.checkNotNull;
  import static com.google.common.base.Preconditions.checkState;
@@ -72,8 +85,11 @@ package org.jclouds.virtualbox.functions;
  import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_WORKINGDIR;
 
 /**
- * Creates nodes, by cloning a master vm and based on the provided {@link NodeSpec}. Must be
- * synchronized mainly because of snapshot creation (must be synchronized on a per-master-basis).
+ * Creates nodes, by cloning a master vm and based on the provided {@link NodeSpec}. The snapshot all
+ * the clones of a master are linked to is taken once per master, under a per-master lock. Nodes are
+ * then cloned, launched and configured concurrently, as many at a time as the host has processors
+ * and free memory for. That number is worked out once, from the memory free when the first node is
+ * created, and isn't recomputed as memory is used or freed afterwards.
  * 
  * @author David Alves, Andrea Turli
  * 
@@ -92,6 +108,18 @@ public class NodeCreator implements Function<NodeSpec, NodeAndInitialCredentials
    private final NetworkUtils networkUtils;
    private final int ram;
    private final String workingDir;
+   private final ConcurrentMap<String, Lock> masterLocks = Maps.newConcurrentMap();
+   private final Set<String> snapshottedMasters = Sets.newConcurrentHashSet();
+   // sized on first use and never again, see provisioningSlots(long, long, int)
+   private final Supplier<Semaphore> provisioningSlots = Suppliers.memoize(new Supplier<Semaphore>() {
+      @Override
+      public Semaphore get() {
+         IHost host = manager.get().getVBox().getHost();
+         int slots = provisioningSlots(host.getProcessorOnlineCount(), host.getMemoryAvailable(), ram);
+         logger.debug("<< creating up to %d nodes at a time", slots);
+         return new Semaphore(slots, true);
+      }
+   });
    
    @Inject
    public NodeCreator(Supplier<VirtualBoxManager> manager, Function<CloneSpec, IMachine> cloner,
@@ -109,24 +137,29 @@ public class NodeCreator implements Function<NodeSpec, NodeAndInitialCredentials
    }
 
    @Override
-   public synchronized NodeAndInitialCredentials<IMachine> apply(NodeSpec nodeSpec) {
+   public NodeAndInitialCredentials<IMachine> apply(NodeSpec nodeSpec) {
       checkNotNull(nodeSpec, "NodeSpec");
       Master master = checkNotNull(nodeSpec.getMaster(), "Master");
       IMachine masterMachine = master.getMachine();
       String guestOsUser = masterMachine.getExtraData(GUEST_OS_USER);
       String guestOsPassword = masterMachine.getExtraData(GUEST_OS_PASSWORD);
 
-      cleanUpMaster(master);
+      snapshotMasterIfNeeded(master);
       CloneSpec cloneSpec = configureCloneSpec(nodeSpec, guestOsUser, guestOsPassword);
-      IMachine clone = cloner.apply(cloneSpec);
       String cloneName =  cloneSpec.getVmSpec().getVmName();
-      logger.debug("<< cloned a vm(%s) from master(%s)", cloneName, nodeSpec.getMaster().getMachine().getName());
-      machineController.ensureMachineIsLaunched(cloneName);
-      logger.debug("<< cloned vm(%s) is up and running", cloneName);
-
-      reconfigureNetworkInterfaces(masterMachine, guestOsUser, guestOsPassword, cloneSpec.getNetworkSpec(), clone);
-
-      postConfigurations(clone, guestOsUser, guestOsPassword);
+      IMachine clone;
+      Semaphore slots = provisioningSlots.get();
+      slots.acquireUninterruptibly();
+      try {
+         clone = cloner.apply(cloneSpec);
+         logger.debug("<< cloned a vm(%s) from master(%s)", cloneName, nodeSpec.getMaster().getMachine().getName());
+         machineController.ensureMachineIsLaunched(cloneName);
+         logger.debug("<< cloned vm(%s) is up and running", cloneName);
+
+         configureGuest(clone, guestOsUser, guestOsPassword, cloneSpec.getNetworkSpec());
+      } finally {
+         slots.release();
+      }
 
       LoginCredentials credentials = LoginCredentials.builder()
                                                      .user(guestOsUser)
@@ -136,24 +169,57 @@ public class NodeCreator implements Function<NodeSpec, NodeAndInitialCredentials
       return new NodeAndInitialCredentials<IMachine>(clone, cloneName, credentials);
    }
 
-   private void reconfigureNetworkInterfaces(IMachine masterMachine, String guestOsUser, String guestOsPassword, NetworkSpec networkSpec, IMachine clone) {
-      reconfigureHostOnlyInterfaceIfNeeded(guestOsUser, guestOsPassword, clone.getName(), masterMachine.getOSTypeId());
-      logger.debug("<< reconfigured hostOnly interface of node(%s)", clone.getName());
-      reconfigureNatInterfaceIfNeeded(guestOsUser, guestOsPassword, clone.getOSTypeId(), clone, networkSpec);
-      logger.debug("<< reconfigured NAT interface of node(%s)", clone.getName());
-   }
-
    /**
-    * {@see DeleteGShadowLock} and {@see PasswordlessSudo} for a detailed explanation
+    * Reconfigures the network interfaces of the clone and applies {@see DeleteGShadowLock} and
+    * {@see PasswordlessSudo}. All the statements run as the steps of a single script, over a single
+    * session, rather than one script each.
     *
     * @param clone the target machine
     * @param guestOsUser the user to access the target machine
     * @param guestOsPassword the password to access the target machine
+    * @param networkSpec the network interfaces of the target machine
     */
-   private void postConfigurations(IMachine clone, String guestOsUser, String guestOsPassword) {
+   private void configureGuest(IMachine clone, String guestOsUser, String guestOsPassword, NetworkSpec networkSpec) {
+      String osTypeId = clone.getOSTypeId();
+      ImmutableList.Builder<Statement> steps = ImmutableList.builder();
+      steps.add(new DeleteGShadowLock());
+      steps.add(new PasswordlessSudo(guestOsUser));
+      if (osTypeId.contains("RedHat")) {
+         // these reconfigure the interface ssh runs over, so they run through the guest additions
+         copyToNodeAndExecScripts(guestOsUser, guestOsPassword, clone.getName(),
+                 copyScriptToWorkingDir("redHatAndDerivatives", "hostOnly"),
+                 copyScriptToWorkingDir("redHatAndDerivatives", "nat"));
+         logger.debug("<< reconfigured hostOnly and NAT interfaces of node(%s)", clone.getName());
+      } else if (osTypeId.contains("Ubuntu") || osTypeId.contains("Debian")) {
+         Optional<NetworkInterfaceCard> optionalNatIfaceCard = Iterables.tryFind(
+                 networkSpec.getNetworkInterfaceCards(),
+                 new Predicate<NetworkInterfaceCard>() {
+
+                    @Override
+                    public boolean apply(NetworkInterfaceCard nic) {
+                       return nic.getNetworkAdapter().getNetworkAttachmentType()
+                               .equals(NetworkAttachmentType.NAT);
+                    }
+                 });
+         // restarting the network goes last, as it may drop the connection the script runs over
+         steps.add(new EnableNetworkInterface(optionalNatIfaceCard.get()));
+      }
+
       NodeMetadata partialNodeMetadata = buildPartialNodeMetadata(clone, guestOsUser, guestOsPassword);
-      machineUtils.runScriptOnNode(partialNodeMetadata, new DeleteGShadowLock(), RunScriptOptions.NONE);
-      machineUtils.runScriptOnNode(partialNodeMetadata, new PasswordlessSudo(partialNodeMetadata.getCredentials().identity), RunScriptOptions.Builder.runAsRoot(true));
+      List<Statement> statements = steps.build();
+      List<Integer> exitStatuses = machineUtils.runStepsOnNode(partialNodeMetadata, statements,
+              RunScriptOptions.Builder.runAsRoot(true));
+      for (int i = 0; i < statements.size(); i++) {
+         String step = statements.get(i).getClass().getSimpleName();
+         int exitStatus = exitStatuses.get(i);
+         if (exitStatus == 0) {
+            logger.debug("<< applied %s to node(%s)", step, clone.getName());
+         } else {
+            checkState(!(statements.get(i) instanceof EnableNetworkInterface), "cannot enable NAT Interface on vm(%s)",
+                    clone.getName());
+            logger.warn("<< %s failed on node(%s) with exit status %d", step, clone.getName(), exitStatus);
+         }
+      }
    }
 
    private CloneSpec configureCloneSpec(
@@ -182,44 +248,50 @@ public class NodeCreator implements Function<NodeSpec, NodeAndInitialCredentials
               .vm(cloneVmSpec).build();
    }
 
-   private void cleanUpMaster(Master master) {
-      deleteExistingSnapshot(master);
+   /**
+    * Replaces the snapshot a master may have been left with by the snapshot its clones are linked to,
+    * the first time a node is created from the master.
+    */
+   private void snapshotMasterIfNeeded(Master master) {
+      String masterId = master.getMachine().getId();
+      if (snapshottedMasters.contains(masterId)) {
+         return;
+      }
+      Lock lock = masterLock(masterId);
+      lock.lock();
+      try {
+         if (snapshottedMasters.contains(masterId)) {
+            return;
+         }
+         deleteExistingSnapshot(master);
+         new TakeSnapshotIfNotAlreadyAttached(manager, "snapshotName", "snapshotDesc", logger).apply(master
+               .getMachine());
+         snapshottedMasters.add(masterId);
+      } finally {
+         lock.unlock();
+      }
    }
 
-   private void reconfigureHostOnlyInterfaceIfNeeded(final String username, final String password,
-                                                         String vmName, String osTypeId) {
-      final String scriptName = "hostOnly";
-      if (osTypeId.contains("RedHat")) {
-         File scriptFile = copyScriptToWorkingDir("redHatAndDerivatives", scriptName);
-         copyToNodeAndExecScript(username, password, vmName, scriptFile);
+   private Lock masterLock(String masterId) {
+      Lock lock = masterLocks.get(masterId);
+      if (lock == null) {
+         Lock newLock = new ReentrantLock();
+         lock = masterLocks.putIfAbsent(masterId, newLock);
+         if (lock == null) {
+            lock = newLock;
+         }
       }
+      return lock;
    }
 
-   private void reconfigureNatInterfaceIfNeeded(final String guestOsUser, final String guestOsPassword,
-                                                String osTypeId, IMachine clone, NetworkSpec networkSpec) {
-
-      final String scriptName = "nat";
-      final String folder = "redHatAndDerivatives";
-      if (osTypeId.contains("RedHat")) {
-         File scriptFile = copyScriptToWorkingDir(folder, scriptName);
-         copyToNodeAndExecScript(guestOsUser, guestOsPassword, clone.getName(), scriptFile);
-      } else if (osTypeId.contains("Ubuntu") || osTypeId.contains("Debian")) {
-         NodeMetadata partialNodeMetadata = buildPartialNodeMetadata(clone, guestOsUser, guestOsPassword);
-
-         Optional<NetworkInterfaceCard> optionalNatIfaceCard = Iterables.tryFind(
-                 networkSpec.getNetworkInterfaceCards(),
-                 new Predicate<NetworkInterfaceCard>() {
-
-                    @Override
-                    public boolean apply(NetworkInterfaceCard nic) {
-                       return nic.getNetworkAdapter().getNetworkAttachmentType()
-                               .equals(NetworkAttachmentType.NAT);
-                    }
-                 });
-
-         checkState(networkUtils.enableNetworkInterface(partialNodeMetadata, optionalNatIfaceCard.get()),
-                 "cannot enable NAT Interface on vm(%s)", clone.getName());
-      }
+   /**
+    * Each node being created runs a vm, so no more nodes than the host has processors, nor than it
+    * has free memory for, are created at a time. This is only computed for the first node created by
+    * this instance, so the free memory it is based on doesn't account for vms started later on.
+    */
+   static int provisioningSlots(long processors, long freeMemoryMB, int guestMemoryMB) {
+      long slots = Math.min(processors, freeMemoryMB / Math.max(guestMemoryMB, 1));
+      return (int) Math.max(1, Math.min(slots, Integer.MAX_VALUE));
    }
 
    private File copyScriptToWorkingDir(String folder, String scriptName) {
@@ -236,25 +308,23 @@ public class NodeCreator implements Function<NodeSpec, NodeAndInitialCredentials
       return scriptFile;
    }
 
-   private void copyToNodeAndExecScript(final String username, final String password,
-                                        String vmName, final File scriptFile) {
+   private void copyToNodeAndExecScripts(final String username, final String password,
+                                         String vmName, final File... scriptFiles) {
       machineUtils.sharedLockMachineAndApplyToSession(vmName, new Function<ISession, Void>() {
 
          @Override
          public Void apply(ISession session) {
-            String scriptName = scriptFile.getName();
-
-            manager.get().getSessionObject().getConsole().getGuest()
-                    .createSession(username, password, null, null)
-                    .copyTo(scriptFile.getAbsolutePath(), "/tmp/" + scriptName, null);
-
-            manager.get().getSessionObject().getConsole().getGuest()
-                    .createSession(username, password, null, null)
-                    .processCreate("/bin/chmod", ImmutableList.of("777", "/tmp/" + scriptName), null, null, 5 * 1000l);
-
-            manager.get().getSessionObject().getConsole().getGuest()
-                    .createSession(username, password, null, null)
-                    .processCreate("/bin/sh", ImmutableList.of("/tmp/" + scriptName), null, null, 5 * 1000l);
+            // a single guest session copies and runs all the scripts
+            IGuestSession guestSession = session.getConsole().getGuest()
+                    .createSession(username, password, null, null);
+            for (File scriptFile : scriptFiles) {
+               String scriptName = scriptFile.getName();
+               guestSession.copyTo(scriptFile.getAbsolutePath(), "/tmp/" + scriptName, null)
+                       .waitForCompletion(-1);
+               guestSession.processCreate("/bin/chmod", ImmutableList.of("777", "/tmp/" + scriptName), null, null,
+                       5 * 1000l);
+               guestSession.processCreate("/bin/sh", ImmutableList.of("/tmp/" + scriptName), null, null, 5 * 1000l);
+            }
             return null;
          }
       });
@@ -16,71 +16,37 @@
  */
 package org.jclouds.virtualbox.functions.admin;
 
-import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.io.ByteStreams.copy;
-import static com.google.common.io.Closeables.closeQuietly;
-import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_WORKINGDIR;
-
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 
-import javax.annotation.Resource;
 import javax.inject.Inject;
-import javax.inject.Named;
 
-import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.javax.annotation.Nullable;
-import org.jclouds.logging.Logger;
-import org.jclouds.rest.HttpAsyncClient;
+import org.jclouds.virtualbox.util.ArtifactCache;
 
 import com.google.common.base.Function;
 import com.google.common.base.Throwables;
 
 /**
+ * Downloads a file into the {@link ArtifactCache}, unless it has been downloaded before.
+ * 
  * @author Mattias Holmqvist
  */
 public class FileDownloadFromURI implements Function<URI, File> {
 
-   @Resource
-   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
-   protected Logger logger = Logger.NULL;
-
-   private final HttpAsyncClient client;
-   private final String isosDir;
+   private final ArtifactCache artifactCache;
 
    @Inject
-   public FileDownloadFromURI(HttpAsyncClient client, @Named(VIRTUALBOX_WORKINGDIR) String workingDir) {
-      this.client = client;
-      this.isosDir = workingDir + File.separator + "isos";
+   public FileDownloadFromURI(ArtifactCache artifactCache) {
+      this.artifactCache = artifactCache;
    }
 
    @Override
    public File apply(@Nullable URI input) {
-      final File file = new File(isosDir, new File(input.getPath()).getName());
       try {
-         if (!file.exists()) {
-            final InputStream inputStream = client.get(input).get();
-            checkNotNull(inputStream, "%s not found", input);
-            try {
-               copy(inputStream, new FileOutputStream(file));
-               return file;
-            } catch (FileNotFoundException e) {
-               logger.error(e, "File %s could not be found", file.getPath());
-            } catch (IOException e) {
-               logger.error(e, "Error when downloading file %s", input.toString());
-            } finally {
-               closeQuietly(inputStream);
-            }
-            return null;
-         } else {
-            logger.debug("File %s already exists. Skipping download", file.getPath());
-            return file;
-         }
-      } catch (Exception e) {
+         return artifactCache.get(input, null);
+      } catch (IOException e) {
          throw Throwables.propagate(e);
       }
    }
@@ -18,6 +18,7 @@ package org.jclouds.virtualbox.functions.admin;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Map;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -28,43 +29,90 @@ import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.AbstractHandler;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 
 /**
- * Sets up jetty so that it can serve the preseed.cfg file to automate master creation.
+ * Sets up jetty so that it can serve the preseed.cfg file to automate master creation. Several
+ * masters can be created at the same time, each fetching its own preseed.cfg file from the path it
+ * has been registered at with {@link #serve(String, String, String)}.
  * 
  * @author Andrea Turli, David Alves
  */
 public class PreseedCfgServer {
 
+   private final Map<String, String> preseeds = Maps.newConcurrentMap();
    private Server jetty;
 
-   public void start(String preconfigurationUrl, final String preseedCfg) {
-      this.jetty = new Server(URI.create(preconfigurationUrl).getPort());
-      try {
-         // since we're only serving the preseed.cfg file respond to all requests with it
-         jetty.setHandler(new AbstractHandler() {
-            @Override
-            public void handle(String target, Request baseRequest, HttpServletRequest request,
-                     HttpServletResponse response) throws IOException, ServletException {
-               response.setContentType("text/plain;charset=utf-8");
-               response.setStatus(HttpServletResponse.SC_OK);
-               baseRequest.setHandled(true);
-               response.getWriter().println(preseedCfg);
+   /**
+    * Starts serving a single preseed.cfg file, which answers all requests.
+    */
+   public void start(String preconfigurationUrl, String preseedCfg) {
+      serve(preconfigurationUrl, "/", preseedCfg);
+   }
+
+   /**
+    * Serves the preseed.cfg file at the given path, starting jetty on the port of the
+    * preconfiguration url if it is not running yet.
+    */
+   public synchronized void serve(String preconfigurationUrl, String path, String preseedCfg) {
+      preseeds.put(path, preseedCfg);
+      if (jetty != null) {
+         return;
+      }
+      Server server = new Server(URI.create(preconfigurationUrl).getPort());
+      server.setHandler(new AbstractHandler() {
+         @Override
+         public void handle(String target, Request baseRequest, HttpServletRequest request,
+                  HttpServletResponse response) throws IOException, ServletException {
+            String preseedCfg = preseeds.get(target);
+            if (preseedCfg == null && preseeds.size() == 1) {
+               // while a single preseed.cfg file is served respond to all requests with it
+               preseedCfg = Iterables.getFirst(preseeds.values(), null);
+            }
+            baseRequest.setHandled(true);
+            if (preseedCfg == null) {
+               response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+               return;
             }
-         });
-         jetty.start();
+            response.setContentType("text/plain;charset=utf-8");
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.getWriter().println(preseedCfg);
+         }
+      });
+      try {
+         server.start();
       } catch (Exception e) {
+         preseeds.remove(path);
          throw Throwables.propagate(e);
       }
+      jetty = server;
+   }
+
+   /**
+    * Stops serving the preseed.cfg file at the given path, and stops jetty once no file is served.
+    */
+   public synchronized void remove(String path) {
+      preseeds.remove(path);
+      if (preseeds.isEmpty()) {
+         stop();
+      }
+   }
+
+   public synchronized boolean isRunning() {
+      return jetty != null;
    }
 
-   public void stop() {
+   public synchronized void stop() {
+      preseeds.clear();
       try {
          if (jetty != null) {
             jetty.stop();
          }
       } catch (Exception e) {
          throw Throwables.propagate(e);
+      } finally {
+         jetty = null;
       }
    }
 
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.virtualbox.statements;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.jclouds.scriptbuilder.domain.OsFamily;
+import org.jclouds.scriptbuilder.domain.Statement;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+
+/**
+ * Runs statements as the steps of a single script, so that they share one session on the node. Each
+ * step runs in its own subshell, whether the previous ones failed or not, and reports its exit status
+ * on a line of its own which {@link #exitStatuses(String)} reads back from the output of the script.
+ */
+public class ScriptSteps implements Statement {
+
+   static final String MARKER = "jclouds-step";
+
+   private final List<Statement> steps;
+
+   public ScriptSteps(Iterable<? extends Statement> steps) {
+      this.steps = ImmutableList.copyOf(checkNotNull(steps, "steps"));
+      checkArgument(!this.steps.isEmpty(), "no steps to run");
+   }
+
+   public List<Statement> getSteps() {
+      return steps;
+   }
+
+   @Override
+   public Iterable<String> functionDependencies(OsFamily family) {
+      ImmutableSet.Builder<String> functions = ImmutableSet.builder();
+      for (Statement step : steps) {
+         functions.addAll(step.functionDependencies(family));
+      }
+      return functions.build();
+   }
+
+   @Override
+   public String render(OsFamily family) {
+      if (checkNotNull(family, "family") == OsFamily.WINDOWS)
+         throw new UnsupportedOperationException("windows not yet implemented");
+      StringBuilder script = new StringBuilder();
+      for (int i = 0; i < steps.size(); i++) {
+         String step = steps.get(i).render(family);
+         script.append("(\n").append(step);
+         if (!step.endsWith("\n")) {
+            script.append('\n');
+         }
+         script.append(String.format(") && echo \"%1$s %2$d 0\" || echo \"%1$s %2$d $?\"\n", MARKER, i));
+      }
+      return script.toString();
+   }
+
+   /**
+    * Reads the exit status of each step from the output of the script.
+    * 
+    * @return the exit status of each step, in order, or {@literal -1} for the steps that did not
+    *         report one as the script ended before they ran
+    */
+   public List<Integer> exitStatuses(String output) {
+      Integer[] statuses = new Integer[steps.size()];
+      Arrays.fill(statuses, -1);
+      for (String line : Splitter.on('\n').trimResults().omitEmptyStrings().split(Strings.nullToEmpty(output))) {
+         List<String> fields = ImmutableList.copyOf(Splitter.on(' ').omitEmptyStrings().split(line));
+         if (fields.size() != 3 || !fields.get(0).equals(MARKER)) {
+            continue;
+         }
+         Integer step = Ints.tryParse(fields.get(1));
+         Integer status = Ints.tryParse(fields.get(2));
+         if (step != null && status != null && step >= 0 && step < statuses.length) {
+            statuses[step] = status;
+         }
+      }
+      return ImmutableList.copyOf(statuses);
+   }
+}
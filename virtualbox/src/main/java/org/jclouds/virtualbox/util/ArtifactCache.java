@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.virtualbox.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_ARTIFACT_CACHE;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.channels.FileLock;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+
+/**
+ * A local cache of downloaded artifacts, such as installation and guest additions isos, addressed by
+ * the md5 of their content.
+ * <p/>
+ * Artifacts are stored as {@code objects/<md5><extension>}, whatever url or file name they were
+ * downloaded from, and {@code index.properties} maps the urls downloaded so far to the md5 of their
+ * content. Downloads go to {@code partial/} first, along with the ETag or Last-Modified date the
+ * server sent for them. An interrupted download is resumed with a range request conditional on that
+ * validator, and restarted when there is none. Downloads are only moved to {@code objects/} once
+ * their md5 has been verified, so that an artifact is either complete or missing. Downloads and index
+ * updates hold a file lock, so that several workspaces, in this or other processes, can share the same
+ * cache.
+ */
+@Singleton
+public class ArtifactCache {
+
+   /**
+    * File locks are held by the whole process, so threads of the same process sharing a cache also
+    * need to lock each other out.
+    */
+   private static final ConcurrentMap<String, Lock> PROCESS_LOCKS = Maps.newConcurrentMap();
+
+   private static final int CONNECT_TIMEOUT_MILLIS = 30 * 1000;
+   private static final int READ_TIMEOUT_MILLIS = 60 * 1000;
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final File objectsDir;
+   private final File partialDir;
+   private final File locksDir;
+   private final File indexFile;
+
+   @Inject
+   public ArtifactCache(@Named(VIRTUALBOX_ARTIFACT_CACHE) String cacheDir) {
+      File dir = new File(checkNotNull(cacheDir, "cacheDir"));
+      this.objectsDir = new File(dir, "objects");
+      this.partialDir = new File(dir, "partial");
+      this.locksDir = new File(dir, "locks");
+      this.indexFile = new File(dir, "index.properties");
+   }
+
+   /**
+    * Returns the artifact downloaded from the given url, downloading it if it is not in the cache yet.
+    * 
+    * @param uri
+    *           the url of the artifact
+    * @param expectedMd5
+    *           the md5 of the artifact, if known. When it is, an artifact with this md5 is returned
+    *           even if it was downloaded from another url, and a download with another md5 fails
+    * @return the cached artifact, which must not be modified
+    */
+   public File get(URI uri, @Nullable String expectedMd5) throws IOException {
+      checkNotNull(uri, "uri");
+      String md5 = expectedMd5 == null ? null : expectedMd5.trim().toLowerCase();
+      String extension = extension(uri);
+      File cached = lookup(uri, md5, extension);
+      if (cached != null) {
+         return cached;
+      }
+      mkdirs(objectsDir, partialDir, locksDir);
+      String key = md5 != null ? md5 : "url-" + Hashing.md5().hashBytes(uri.toString().getBytes(Charsets.UTF_8));
+      Closeable lock = lock(new File(locksDir, key + ".lock"));
+      try {
+         // another workspace may have downloaded it while we were waiting for the lock
+         cached = lookup(uri, md5, extension);
+         if (cached != null) {
+            return cached;
+         }
+         String actualMd5 = download(uri, md5, new File(partialDir, key + extension), extension);
+         index(uri, actualMd5);
+         return object(actualMd5, extension);
+      } finally {
+         Closeables.close(lock, true);
+      }
+   }
+
+   @Nullable
+   private File lookup(URI uri, @Nullable String md5, String extension) throws IOException {
+      if (md5 == null) {
+         md5 = readIndex().getProperty(uri.toString());
+         if (md5 == null) {
+            return null;
+         }
+      }
+      File object = object(md5, extension);
+      if (!object.isFile()) {
+         return null;
+      }
+      logger.debug("<< %s found in the cache as %s", uri, object);
+      if (!md5.equals(readIndex().getProperty(uri.toString()))) {
+         index(uri, md5);
+      }
+      return object;
+   }
+
+   private String download(URI uri, @Nullable String expectedMd5, File partial, String extension)
+         throws IOException {
+      MessageDigest md5 = md5();
+      File validatorFile = new File(partial.getPath() + ".validator");
+      long offset = partial.length();
+      String validator = offset > 0 && validatorFile.isFile() ? Files.toString(validatorFile, Charsets.UTF_8) : null;
+      if (offset > 0 && validator == null) {
+         logger.debug(">> cannot tell whether %s changed since it was partially downloaded, downloading it again",
+               uri);
+         offset = 0;
+      }
+      HttpURLConnection connection = open(uri, offset, validator);
+      if (offset > 0 && !resumes(connection, offset)) {
+         logger.debug(">> cannot resume the download of %s, downloading it again", uri);
+         connection.disconnect();
+         offset = 0;
+         connection = open(uri, 0, null);
+      }
+      int responseCode = connection.getResponseCode();
+      if (responseCode != HttpURLConnection.HTTP_OK && responseCode != HttpURLConnection.HTTP_PARTIAL) {
+         connection.disconnect();
+         throw new IOException(String.format("cannot download %s: %d %s", uri, responseCode,
+               connection.getResponseMessage()));
+      }
+      if (offset > 0) {
+         logger.debug(">> resuming the download of %s from byte %d", uri, offset);
+         digest(partial, md5);
+      } else {
+         logger.debug(">> downloading %s", uri);
+      }
+      String contentLength = connection.getHeaderField("Content-Length");
+      InputStream in = new DigestInputStream(connection.getInputStream(), md5);
+      OutputStream out = new FileOutputStream(partial, offset > 0);
+      try {
+         if (offset == 0) {
+            // only once the previous partial download has been truncated
+            writeValidator(validatorFile, connection);
+         }
+         long length = ByteStreams.copy(in, out);
+         // HttpURLConnection reports a connection closed too early as the end of the content
+         if (contentLength != null && length < Long.parseLong(contentLength.trim())) {
+            throw new IOException(String.format("the download of %s was cut short after %d of %s bytes", uri,
+                  length, contentLength.trim()));
+         }
+      } finally {
+         Closeables.close(out, false);
+         Closeables.close(in, true);
+      }
+
+      validatorFile.delete();
+      String actualMd5 = BaseEncoding.base16().lowerCase().encode(md5.digest());
+      if (expectedMd5 != null && !expectedMd5.equals(actualMd5)) {
+         partial.delete();
+         throw new IOException(String.format("md5 of %s is %s but expected %s", uri, actualMd5, expectedMd5));
+      }
+      File object = object(actualMd5, extension);
+      if (object.isFile()) {
+         // the same content has already been downloaded from another url
+         partial.delete();
+      } else {
+         rename(partial, object);
+      }
+      logger.debug("<< downloaded %s as %s", uri, object);
+      return actualMd5;
+   }
+
+   /**
+    * Opens a connection to the artifact, asking for the rest of it from the given offset unless it no
+    * longer matches the validator.
+    */
+   private static HttpURLConnection open(URI uri, long offset, @Nullable String validator) throws IOException {
+      HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+      connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+      connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+      if (offset > 0) {
+         connection.setRequestProperty("Range", "bytes=" + offset + "-");
+         connection.setRequestProperty("If-Range", validator);
+      }
+      return connection;
+   }
+
+   /**
+    * Records the strong ETag of the artifact, or else its Last-Modified date, so that a partial download
+    * is only resumed if the artifact hasn't changed since.
+    */
+   private static void writeValidator(File validatorFile, HttpURLConnection connection) throws IOException {
+      String validator = connection.getHeaderField("ETag");
+      // If-Range only accepts strong ETags
+      if (validator == null || validator.startsWith("W/")) {
+         validator = connection.getHeaderField("Last-Modified");
+      }
+      if (validator != null) {
+         Files.write(validator, validatorFile, Charsets.UTF_8);
+      } else {
+         validatorFile.delete();
+      }
+   }
+
+   /**
+    * Whether the server sends the rest of the artifact from the given offset, rather than all of it or
+    * an error, e.g. when the partial download is larger than the artifact.
+    */
+   private static boolean resumes(HttpURLConnection connection, long offset) throws IOException {
+      String contentRange = connection.getHeaderField("Content-Range");
+      return connection.getResponseCode() == HttpURLConnection.HTTP_PARTIAL && contentRange != null
+            && contentRange.trim().startsWith("bytes " + offset + "-");
+   }
+
+   private static void digest(File file, MessageDigest md5) throws IOException {
+      InputStream in = new DigestInputStream(new FileInputStream(file), md5);
+      try {
+         ByteStreams.copy(in, ByteStreams.nullOutputStream());
+      } finally {
+         Closeables.close(in, true);
+      }
+   }
+
+   private Properties readIndex() throws IOException {
+      Properties index = new Properties();
+      if (indexFile.isFile()) {
+         InputStream in = new FileInputStream(indexFile);
+         try {
+            index.load(in);
+         } finally {
+            Closeables.close(in, true);
+         }
+      }
+      return index;
+   }
+
+   private void index(URI uri, String md5) throws IOException {
+      mkdirs(locksDir);
+      Closeable lock = lock(new File(locksDir, "index.lock"));
+      try {
+         Properties index = readIndex();
+         index.setProperty(uri.toString(), md5);
+         // readers never see a partially written index
+         File tmp = new File(indexFile.getParentFile(), indexFile.getName() + "." + UUID.randomUUID());
+         OutputStream out = new FileOutputStream(tmp);
+         try {
+            index.store(out, "urls of the artifacts in the cache and the md5 of their content");
+         } finally {
+            Closeables.close(out, false);
+         }
+         rename(tmp, indexFile);
+      } finally {
+         Closeables.close(lock, true);
+      }
+   }
+
+   private File object(String md5, String extension) {
+      return new File(objectsDir, md5 + extension);
+   }
+
+   private static String extension(URI uri) {
+      String name = new File(uri.getPath()).getName();
+      int dot = name.lastIndexOf('.');
+      return dot > 0 ? name.substring(dot).toLowerCase() : "";
+   }
+
+   private static void rename(File from, File to) throws IOException {
+      // renaming over an existing file fails on windows
+      if (!from.renameTo(to) && !(to.delete() && from.renameTo(to))) {
+         throw new IOException(String.format("cannot move %s to %s", from, to));
+      }
+   }
+
+   private static void mkdirs(File... dirs) throws IOException {
+      for (File dir : dirs) {
+         if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("cannot create " + dir);
+         }
+      }
+   }
+
+   private static MessageDigest md5() {
+      try {
+         return MessageDigest.getInstance("MD5");
+      } catch (NoSuchAlgorithmException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   /**
+    * Locks out the other threads of this process, then the other processes, from the given lock file.
+    */
+   private static Closeable lock(File lockFile) throws IOException {
+      String path = lockFile.getCanonicalPath();
+      Lock processLock = PROCESS_LOCKS.get(path);
+      if (processLock == null) {
+         Lock newLock = new ReentrantLock();
+         processLock = PROCESS_LOCKS.putIfAbsent(path, newLock);
+         if (processLock == null) {
+            processLock = newLock;
+         }
+      }
+      processLock.lock();
+      RandomAccessFile file = null;
+      try {
+         file = new RandomAccessFile(lockFile, "rw");
+         return new HeldLock(processLock, file, file.getChannel().lock());
+      } catch (IOException e) {
+         Closeables.close(file, true);
+         processLock.unlock();
+         throw e;
+      } catch (RuntimeException e) {
+         Closeables.close(file, true);
+         processLock.unlock();
+         throw e;
+      }
+   }
+
+   private static class HeldLock implements Closeable {
+      private final Lock processLock;
+      private final RandomAccessFile file;
+      private final FileLock fileLock;
+
+      HeldLock(Lock processLock, RandomAccessFile file, FileLock fileLock) {
+         this.processLock = processLock;
+         this.file = file;
+         this.fileLock = fileLock;
+      }
+
+      @Override
+      public void close() throws IOException {
+         try {
+            fileLock.release();
+         } finally {
+            Closeables.close(file, true);
+            processLock.unlock();
+         }
+      }
+   }
+}
@@ -19,7 +19,6 @@ package org.jclouds.virtualbox.util;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.concurrent.TimeUnit.SECONDS;
-import static org.jclouds.util.Predicates2.retry;
 
 import java.util.List;
 
@@ -38,13 +37,11 @@ import org.virtualbox_4_2.IAdditionsFacility;
 import org.virtualbox_4_2.IMachine;
 import org.virtualbox_4_2.IProgress;
 import org.virtualbox_4_2.ISession;
-import org.virtualbox_4_2.IVirtualBox;
 import org.virtualbox_4_2.LockType;
 import org.virtualbox_4_2.MachineState;
 import org.virtualbox_4_2.VirtualBoxManager;
 
 import com.google.common.base.Function;
-import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
@@ -67,12 +64,15 @@ public class MachineController {
    private final Supplier<VirtualBoxManager> manager;
    private final MachineUtils machineUtils;
    private final ExecutionType executionType;
+   private final MachineEvents machineEvents;
 
    @Inject
-   public MachineController(Supplier<VirtualBoxManager> manager, MachineUtils machineUtils, ExecutionType executionType) {
+   public MachineController(Supplier<VirtualBoxManager> manager, MachineUtils machineUtils, ExecutionType executionType,
+         MachineEvents machineEvents) {
       this.manager = manager;
       this.machineUtils = machineUtils;
       this.executionType = executionType;
+      this.machineEvents = machineEvents;
    }
 
    public ISession ensureMachineIsLaunched(String vmName) {
@@ -98,7 +98,7 @@ public class MachineController {
             new Function<ISession, String>() {
                @Override
                public String apply(ISession session) {
-                  retry(new FacilitiesPredicate(session), 15, 3, SECONDS).apply(4);
+                  await(session, new FacilitiesPredicate(session), 4, 15);
                   String guestAdditionsInstalled = session.getConsole().getGuest().getAdditionsVersion();
                   return guestAdditionsInstalled;
                }
@@ -137,9 +137,8 @@ public class MachineController {
                   return session;
                }
             });        
-      checkState(
-            retry(new MachineStatePredicate(manager.get().getVBox(), vmName), 15, 3, SECONDS).apply(
-                  MachineState.PoweredOff), "vm(%s) is not shutdown correctly", vmName);
+      checkState(machineEvents.awaitMachineState(vmName, MachineState.PoweredOff, 15, SECONDS),
+            "vm(%s) is not shutdown correctly", vmName);
       return checkNotNull(session, "session");
    }
 
@@ -192,27 +191,35 @@ public class MachineController {
       }
    }
 
+   /**
+    * Waits for the predicate on the guest additions of the session's machine to apply to the input,
+    * checking it again whenever the additions state changes.
+    */
+   private <T> boolean await(ISession session, final Predicate<T> predicate, final T input, long timeoutSeconds) {
+      return machineEvents.awaitAdditionsState(session, new Supplier<Boolean>() {
+         @Override
+         public Boolean get() {
+            return predicate.apply(input);
+         }
+
+         @Override
+         public String toString() {
+            return predicate.getClass().getSimpleName() + "(" + input + ")";
+         }
+      }, timeoutSeconds, SECONDS);
+   }
+
    private void waitVBoxServiceIsActive(final String vmName) {
       machineUtils.sharedLockMachineAndApplyToSession(vmName, new Function<ISession, Void>() {
 
          @Override
          public Void apply(ISession session) {
-            checkState(
-                  retry(new AdditionsStatusPredicate(session), 10, 2, SECONDS).apply(AdditionsRunLevelType.Userland),
+            checkState(await(session, new AdditionsStatusPredicate(session), AdditionsRunLevelType.Userland, 10),
                   "timed out waiting for additionsRunLevelType to be %s", AdditionsRunLevelType.Userland);
-            checkState(retry(new FacilitiesPredicate(session), 15, 3, SECONDS).apply(4),
+            checkState(await(session, new FacilitiesPredicate(session), 4, 15),
                   "timed out waiting for 4 running facilities");
-            Optional<IAdditionsFacility> vboxServiceFacility = Optional.absent();
-            while (!vboxServiceFacility.isPresent()) {
-               List<IAdditionsFacility> facilities = session.getConsole().getGuest().getFacilities();
-               vboxServiceFacility = Iterables.tryFind(facilities, new Predicate<IAdditionsFacility>() {
-                  @Override
-                  public boolean apply(IAdditionsFacility additionsFacility) {
-                     return additionsFacility.getType().equals(AdditionsFacilityType.VBoxService)
-                           && additionsFacility.getStatus().equals(AdditionsFacilityStatus.Active);
-                  }
-               });
-            }
+            checkState(await(session, new VBoxServiceActivePredicate(), session, 45),
+                  "timed out waiting for the virtualbox service to be active on vm(%s)", vmName);
             logger.debug("<< virtualbox service ready on vm(%s)", vmName);
             return null;
          }
@@ -245,19 +252,18 @@ public class MachineController {
       }
    }
    
-   private static class MachineStatePredicate implements Predicate<MachineState> {
-      private final IVirtualBox virtualBox;
-      private final String vmName;
-      
-      MachineStatePredicate(IVirtualBox virtualBox, String vmName) {
-         this.virtualBox = virtualBox;
-         this.vmName = vmName;
-      }
-      
+   private static class VBoxServiceActivePredicate implements Predicate<ISession> {
+
       @Override
-      public boolean apply(MachineState input) {
-         MachineState state = virtualBox.findMachine(vmName).getState();
-         return state.equals(input);
+      public boolean apply(ISession session) {
+         List<IAdditionsFacility> facilities = session.getConsole().getGuest().getFacilities();
+         return Iterables.any(facilities, new Predicate<IAdditionsFacility>() {
+            @Override
+            public boolean apply(IAdditionsFacility additionsFacility) {
+               return additionsFacility.getType().equals(AdditionsFacilityType.VBoxService)
+                     && additionsFacility.getStatus().equals(AdditionsFacilityStatus.Active);
+            }
+         });
       }
    }
 
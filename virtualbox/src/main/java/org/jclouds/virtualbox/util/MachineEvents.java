@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.virtualbox.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+import org.virtualbox_4_2.IEvent;
+import org.virtualbox_4_2.IEventListener;
+import org.virtualbox_4_2.IEventSource;
+import org.virtualbox_4_2.ISession;
+import org.virtualbox_4_2.MachineState;
+import org.virtualbox_4_2.SessionState;
+import org.virtualbox_4_2.VBoxEventType;
+import org.virtualbox_4_2.VBoxException;
+import org.virtualbox_4_2.VirtualBoxManager;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Waits for conditions on VirtualBox machines, such as a machine state or a guest property, to hold.
+ * <p/>
+ * Rather than sleeping between checks, a passive listener is registered on the {@link IEventSource}
+ * of VirtualBox and the condition is checked again as soon as an event that may have changed it is
+ * reported. The guest additions state changes are only reported by the console of a machine, so
+ * they are listened to on the event source of the console instead. The condition is also checked
+ * once per polling period in case an event is missed, and only polled when the event source is not
+ * available.
+ */
+@Singleton
+public class MachineEvents {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final Supplier<VirtualBoxManager> manager;
+   private final long pollingPeriodMillis;
+   private final Supplier<IEventSource> vBoxEventSource = new Supplier<IEventSource>() {
+      @Override
+      public IEventSource get() {
+         return manager.get().getVBox().getEventSource();
+      }
+   };
+
+   @Inject
+   public MachineEvents(Supplier<VirtualBoxManager> manager) {
+      this(manager, 1, SECONDS);
+   }
+
+   MachineEvents(Supplier<VirtualBoxManager> manager, long pollingPeriod, TimeUnit unit) {
+      this.manager = checkNotNull(manager, "manager");
+      this.pollingPeriodMillis = Math.max(1, unit.toMillis(pollingPeriod));
+   }
+
+   /**
+    * Waits for the given machine to reach the given state.
+    * 
+    * @return whether the machine reached the state before the timeout
+    */
+   public boolean awaitMachineState(final String vmName, final MachineState state, long timeout, TimeUnit unit) {
+      return await(new Supplier<Boolean>() {
+         @Override
+         public Boolean get() {
+            return manager.get().getVBox().findMachine(vmName).getState().equals(state);
+         }
+
+         @Override
+         public String toString() {
+            return "machineState(" + vmName + ")=" + state;
+         }
+      }, timeout, unit, VBoxEventType.OnMachineStateChanged);
+   }
+
+   /**
+    * Waits for the given session to reach the given state.
+    * 
+    * @return whether the session reached the state before the timeout
+    */
+   public boolean awaitSessionState(final ISession session, final SessionState state, long timeout, TimeUnit unit) {
+      return await(new Supplier<Boolean>() {
+         @Override
+         public Boolean get() {
+            return session.getState().equals(state);
+         }
+
+         @Override
+         public String toString() {
+            return "sessionState=" + state;
+         }
+      }, timeout, unit, VBoxEventType.OnSessionStateChanged);
+   }
+
+   /**
+    * Waits for the given condition on the guest additions of the session's machine to hold, checking
+    * it whenever the console of the session reports a change of the additions state.
+    * 
+    * @return whether the condition holds before the timeout
+    */
+   public boolean awaitAdditionsState(final ISession session, Supplier<Boolean> condition, long timeout,
+         TimeUnit unit) {
+      return awaitValueOn(new Supplier<IEventSource>() {
+         @Override
+         public IEventSource get() {
+            return session.getConsole().getEventSource();
+         }
+      }, asValue(condition), timeout, unit, VBoxEventType.OnAdditionsStateChanged).isPresent();
+   }
+
+   /**
+    * Waits for the given condition to hold, checking it whenever one of the given events is reported
+    * by VirtualBox.
+    * 
+    * @return whether the condition holds before the timeout
+    */
+   public boolean await(Supplier<Boolean> condition, long timeout, TimeUnit unit, VBoxEventType... events) {
+      return awaitValue(asValue(condition), timeout, unit, events).isPresent();
+   }
+
+   /**
+    * Waits for the given check to return a value, running it whenever one of the given events is
+    * reported by VirtualBox.
+    * 
+    * @return the value returned by the check, or absent if it returned none before the timeout
+    */
+   public <T> Optional<T> awaitValue(Supplier<Optional<T>> check, long timeout, TimeUnit unit,
+         VBoxEventType... events) {
+      return awaitValueOn(vBoxEventSource, check, timeout, unit, events);
+   }
+
+   private static Supplier<Optional<Boolean>> asValue(final Supplier<Boolean> condition) {
+      return new Supplier<Optional<Boolean>>() {
+         @Override
+         public Optional<Boolean> get() {
+            return condition.get() ? Optional.of(Boolean.TRUE) : Optional.<Boolean> absent();
+         }
+
+         @Override
+         public String toString() {
+            return condition.toString();
+         }
+      };
+   }
+
+   private <T> Optional<T> awaitValueOn(Supplier<IEventSource> eventSourceSupplier, Supplier<Optional<T>> check,
+         long timeout, TimeUnit unit, VBoxEventType... events) {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      IEventSource eventSource = null;
+      IEventListener listener = null;
+      try {
+         // listen before the first check, so that no change happening after it goes unnoticed
+         eventSource = eventSourceSupplier.get();
+         listener = eventSource.createListener();
+         eventSource.registerListener(listener, ImmutableList.copyOf(events), false);
+      } catch (VBoxException e) {
+         logger.debug("<< cannot listen to events, polling for %s: %s", check, e.getMessage());
+         listener = null;
+      }
+      try {
+         while (true) {
+            Optional<T> value = check.get();
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (value.isPresent() || remainingMillis <= 0) {
+               return value;
+            }
+            long waitMillis = Math.max(1, Math.min(remainingMillis, pollingPeriodMillis));
+            if (listener != null) {
+               awaitEvents(eventSource, listener, waitMillis);
+            } else {
+               Uninterruptibles.sleepUninterruptibly(waitMillis, MILLISECONDS);
+            }
+         }
+      } finally {
+         if (listener != null) {
+            try {
+               eventSource.unregisterListener(listener);
+            } catch (VBoxException e) {
+               logger.debug("<< cannot unregister event listener: %s", e.getMessage());
+            }
+         }
+      }
+   }
+
+   /**
+    * Waits for at most the given time for an event, then consumes all the events already queued so
+    * that a burst of events results in a single check.
+    */
+   private void awaitEvents(IEventSource eventSource, IEventListener listener, long waitMillis) {
+      IEvent event = eventSource.getEvent(listener, (int) Math.min(waitMillis, Integer.MAX_VALUE));
+      while (event != null) {
+         eventSource.eventProcessed(listener, event);
+         event = eventSource.getEvent(listener, 0);
+      }
+   }
+}
@@ -17,10 +17,9 @@
 package org.jclouds.virtualbox.util;
 
 import com.google.common.base.Function;
-import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
 import org.jclouds.compute.callables.RunScriptOnNode;
 import org.jclouds.compute.callables.RunScriptOnNode.Factory;
@@ -31,21 +30,23 @@ import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.logging.Logger;
 import org.jclouds.scriptbuilder.domain.Statement;
 import org.jclouds.util.Throwables2;
+import org.jclouds.virtualbox.statements.ScriptSteps;
 import org.virtualbox_4_2.IMachine;
 import org.virtualbox_4_2.ISession;
 import org.virtualbox_4_2.LockType;
 import org.virtualbox_4_2.SessionState;
+import org.virtualbox_4_2.VBoxEventType;
 import org.virtualbox_4_2.VBoxException;
 import org.virtualbox_4_2.VirtualBoxManager;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
 import javax.inject.Singleton;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
-import static org.jclouds.util.Predicates2.retry;
 
 /**
  * Utilities for executing functions on a VirtualBox machine.
@@ -65,12 +66,15 @@ public class MachineUtils {
 
    private final Supplier<VirtualBoxManager> manager;
    private final Factory scriptRunner;
+   private final MachineEvents machineEvents;
    
 
    @Inject
-   public MachineUtils(Supplier<VirtualBoxManager> manager, RunScriptOnNode.Factory scriptRunner) {
+   public MachineUtils(Supplier<VirtualBoxManager> manager, RunScriptOnNode.Factory scriptRunner,
+            MachineEvents machineEvents) {
       this.manager = manager;
       this.scriptRunner = scriptRunner;
+      this.machineEvents = machineEvents;
    }
 
    public ListenableFuture<ExecResponse> runScriptOnNode(NodeMetadata metadata, Statement statement,
@@ -78,6 +82,20 @@ public class MachineUtils {
       return scriptRunner.submit(metadata, statement, options);
    }
 
+   /**
+    * Runs the statements as the steps of a single script on the node, instead of running one script
+    * per statement.
+    * 
+    * @return the exit status of each step, in order, {@literal -1} for the steps that did not run
+    * @see ScriptSteps
+    */
+   public List<Integer> runStepsOnNode(NodeMetadata metadata, Iterable<? extends Statement> statements,
+            RunScriptOptions options) {
+      ScriptSteps steps = new ScriptSteps(statements);
+      ExecResponse response = Futures.getUnchecked(runScriptOnNode(metadata, steps, options));
+      return steps.exitStatuses(response.getOutput());
+   }
+
    /**
     * Locks the machine and executes the given function using the machine matching the given id.
     * Since the machine is locked it is possible to perform some modifications to the IMachine.
@@ -175,8 +193,8 @@ public class MachineUtils {
     * <p/>
     * Unlocks the machine before returning.
     * 
-    * Tries to obtain a lock 15 times before giving up waiting 1 sec between tries. When no machine
-    * is found null is returned.
+    * Tries to obtain a lock 15 times before giving up, waiting up to 1 sec for the machine to be
+    * unlocked between tries. When no machine is found null is returned.
     * 
     * @param type
     *           the kind of lock to use when initially locking the machine.
@@ -197,13 +215,13 @@ public class MachineUtils {
       } finally {
          // this is a workaround for shared lock type, where session state is not updated immediately
          if(type == LockType.Shared) {
-            Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
+            machineEvents.awaitSessionState(session, SessionState.Locked, 1, TimeUnit.SECONDS);
          }
          if (session.getState().equals(SessionState.Locked)) {
             session.unlockMachine();
          } 
          if(!session.getState().equals(SessionState.Unlocked)) {
-            checkSessionIsUnlocked(session, 5, 3L, TimeUnit.SECONDS);
+            checkSessionIsUnlocked(session, 15, TimeUnit.SECONDS);
          }
       }
    }
@@ -228,7 +246,8 @@ public class MachineUtils {
                throw new RuntimeException(String.format("error locking %s with %s lock: %s", machineId, type,
                         e.getMessage()), e);
             }
-            Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
+            // try again as soon as whoever holds the lock releases it
+            awaitMachineSessionUnlocked(immutableMachine, 1, TimeUnit.SECONDS);
          }
       }
       checkState(session.getState().equals(SessionState.Locked));
@@ -260,23 +279,23 @@ public class MachineUtils {
                || e.getMessage().contains("Could not find a registered machine with UUID {");
    }
 
-   private void checkSessionIsUnlocked(ISession session, int attempts, long period, TimeUnit timeUnit) {
-      checkState(
-            retry(new SessionStatePredicate(session), attempts * period, period, timeUnit).apply(SessionState.Unlocked),
-            "timed out or number of retries(%s) reached waiting for session to be unlocked", attempts);
+   private void checkSessionIsUnlocked(ISession session, long timeout, TimeUnit timeUnit) {
+      checkState(machineEvents.awaitSessionState(session, SessionState.Unlocked, timeout, timeUnit),
+            "timed out waiting for session to be unlocked");
    }
 
-   private static class SessionStatePredicate implements Predicate<SessionState> {
-      private final ISession session;
-      
-      SessionStatePredicate(ISession session) {
-         this.session = session;
-      }
-      
-      @Override
-      public boolean apply(SessionState input) {
-         return session.getState().equals(input);
-      }
+   private void awaitMachineSessionUnlocked(final IMachine machine, long timeout, TimeUnit timeUnit) {
+      machineEvents.await(new Supplier<Boolean>() {
+         @Override
+         public Boolean get() {
+            return machine.getSessionState().equals(SessionState.Unlocked);
+         }
+
+         @Override
+         public String toString() {
+            return "sessionState(" + machine.getName() + ")=" + SessionState.Unlocked;
+         }
+      }, timeout, timeUnit, VBoxEventType.OnSessionStateChanged);
    }
 
 }
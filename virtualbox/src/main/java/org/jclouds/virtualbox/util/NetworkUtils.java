@@ -31,7 +31,6 @@ import javax.annotation.Resource;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
-import com.google.common.util.concurrent.Uninterruptibles;
 import org.jclouds.compute.callables.RunScriptOnNode;
 import org.jclouds.compute.domain.ExecResponse;
 import org.jclouds.compute.domain.NodeMetadata;
@@ -47,7 +46,6 @@ import org.jclouds.virtualbox.domain.NetworkInterfaceCard;
 import org.jclouds.virtualbox.domain.NetworkSpec;
 import org.jclouds.virtualbox.functions.IpAddressesLoadingCache;
 import org.jclouds.virtualbox.functions.RetrieveActiveBridgedInterfaces;
-import org.jclouds.virtualbox.statements.EnableNetworkInterface;
 import org.jclouds.virtualbox.statements.GetIPAddressFromMAC;
 import org.jclouds.virtualbox.statements.ScanNetworkWithPing;
 import org.virtualbox_4_2.HostNetworkInterfaceType;
@@ -55,16 +53,15 @@ import org.virtualbox_4_2.IDHCPServer;
 import org.virtualbox_4_2.IHostNetworkInterface;
 import org.virtualbox_4_2.INetworkAdapter;
 import org.virtualbox_4_2.NetworkAttachmentType;
+import org.virtualbox_4_2.VBoxEventType;
 import org.virtualbox_4_2.VirtualBoxManager;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
-import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
-import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.Inject;
 
 /**
@@ -91,11 +88,13 @@ public class NetworkUtils {
    private final IpAddressesLoadingCache ipAddressesLoadingCache;
    private final RunScriptOnNode.Factory scriptRunnerFactory;
    private final Supplier<NodeMetadata> hostSupplier;
+   private final MachineEvents machineEvents;
 
    @Inject
    public NetworkUtils(Supplier<VirtualBoxManager> manager, MachineUtils machineUtils, Supplier<NodeMetadata> host,
                        @Provider Supplier<URI> providerSupplier, IpAddressesLoadingCache ipAddressesLoadingCache,
-                       Supplier<NodeMetadata> hostSupplier, RunScriptOnNode.Factory scriptRunnerFactory) {
+                       Supplier<NodeMetadata> hostSupplier, RunScriptOnNode.Factory scriptRunnerFactory,
+                       MachineEvents machineEvents) {
       this.manager = manager;
       this.machineUtils = machineUtils;
       this.host = checkNotNull(host, "host can't be null");
@@ -103,6 +102,7 @@ public class NetworkUtils {
       this.ipAddressesLoadingCache = ipAddressesLoadingCache;
       this.scriptRunnerFactory = scriptRunnerFactory;
       this.hostSupplier = hostSupplier;
+      this.machineEvents = checkNotNull(machineEvents, "machineEvents");
    }
 
    public NetworkSpec createNetworkSpecWhenVboxIsLocalhost() {
@@ -129,13 +129,6 @@ public class NetworkUtils {
             .slot(port).build();
    }
 
-   public boolean enableNetworkInterface(NodeMetadata nodeMetadata, NetworkInterfaceCard networkInterfaceCard) {
-      ListenableFuture<ExecResponse> execEnableNetworkInterface = machineUtils.runScriptOnNode(nodeMetadata,
-              new EnableNetworkInterface(networkInterfaceCard), RunScriptOptions.NONE);
-      ExecResponse execEnableNetworkInterfaceResponse = Futures.getUnchecked(execEnableNetworkInterface);
-      return execEnableNetworkInterfaceResponse.getExitStatus() == 0;
-   }
-
    private NetworkSpec createNetworkSpecForHostOnlyNATNICs(NetworkInterfaceCard natIfaceCard,
          NetworkInterfaceCard hostOnlyIfaceCard) {
       return NetworkSpec.builder().addNIC(hostOnlyIfaceCard).addNIC(natIfaceCard).build();
@@ -227,25 +220,28 @@ public class NetworkUtils {
             });
    }
 
-   public String getValidHostOnlyIpFromVm(String machineNameOrId) {
-      long nicSlot = 0;
-      int count = 0;
-      String ipAddress = "";
-      while (nicSlot < 4 && ipAddress.isEmpty()) {
-         MachineNameOrIdAndNicSlot machineNameOrIdAndNicSlot =
-                 MachineNameOrIdAndNicSlot.fromParts(machineNameOrId, nicSlot);
-         while (count < 10 && ipAddress.isEmpty()) {
-            Uninterruptibles.sleepUninterruptibly(3, TimeUnit.SECONDS);
-            ipAddress = getIpAddressFromNicSlot(machineNameOrIdAndNicSlot);
-            if (!isValidIpForHostOnly(ipAddress)) {
+   public String getValidHostOnlyIpFromVm(final String machineNameOrId) {
+      Optional<String> ipAddress = machineEvents.awaitValue(new Supplier<Optional<String>>() {
+         @Override
+         public Optional<String> get() {
+            for (long nicSlot = 0; nicSlot < 4; nicSlot++) {
+               MachineNameOrIdAndNicSlot machineNameOrIdAndNicSlot =
+                       MachineNameOrIdAndNicSlot.fromParts(machineNameOrId, nicSlot);
+               String ipAddress = getIpAddressFromNicSlot(machineNameOrIdAndNicSlot);
+               if (isValidIpForHostOnly(ipAddress)) {
+                  return Optional.of(ipAddress);
+               }
                ipAddressesLoadingCache.invalidate(machineNameOrIdAndNicSlot);
-               ipAddress = "";
             }
-            count++;
+            return Optional.absent();
          }
-         nicSlot++;
-      }
-      return checkNotNull(Strings.emptyToNull(ipAddress),
+
+         @Override
+         public String toString() {
+            return "hostOnlyIp(" + machineNameOrId + ")";
+         }
+      }, 30, TimeUnit.SECONDS, VBoxEventType.OnGuestPropertyChanged);
+      return checkNotNull(ipAddress.orNull(),
               String.format("Cannot find a valid IP address for the %s's HostOnly NIC", machineNameOrId));
    }
 
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.virtualbox.functions;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.VIRTUALBOX_IMAGE_PREFIX;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.IAnswer;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.logging.Logger;
+import org.jclouds.predicates.SocketOpen;
+import org.jclouds.virtualbox.domain.Master;
+import org.jclouds.virtualbox.domain.YamlImage;
+import org.jclouds.virtualbox.predicates.RetryIfSocketNotYetOpen;
+import org.jclouds.virtualbox.util.ArtifactCache;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.virtualbox_4_2.IMachine;
+import org.virtualbox_4_2.IVirtualBox;
+import org.virtualbox_4_2.VirtualBoxManager;
+
+import com.google.common.base.Function;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+
+@Test(groups = "unit", testName = "MastersLoadingCacheTest")
+public class MastersLoadingCacheTest {
+
+   private ExecutorService executor;
+
+   @BeforeMethod
+   public void setUp() {
+      executor = Executors.newCachedThreadPool();
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      executor.shutdownNow();
+   }
+
+   public void testConcurrentRequestsForTheSameImageShareOneLoad() throws Exception {
+      final CountDownLatch loading = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      IMachine machine = createNiceMock(IMachine.class);
+      IVirtualBox vBox = createMock(IVirtualBox.class);
+      expect(vBox.findMachine(VIRTUALBOX_IMAGE_PREFIX + "ubuntu")).andAnswer(blockingAnswer(machine, loading, release))
+            .once();
+      replay(machine, vBox);
+
+      final MastersLoadingCache cache = newCache(vBox);
+      final Image image = image("ubuntu");
+      Future<Master> first = executor.submit(get(cache, image));
+      assertTrue(loading.await(10, TimeUnit.SECONDS));
+      Future<Master> second = executor.submit(get(cache, image));
+      assertNull(cache.getIfPresent(image));
+      release.countDown();
+
+      assertSame(first.get(10, TimeUnit.SECONDS).getMachine(), machine);
+      assertSame(second.get(10, TimeUnit.SECONDS), first.get());
+      assertSame(cache.getIfPresent(image), first.get());
+      verify(vBox);
+   }
+
+   public void testDifferentImagesLoadConcurrently() throws Exception {
+      final CountDownLatch loading = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      IMachine ubuntu = createNiceMock(IMachine.class);
+      IMachine centos = createNiceMock(IMachine.class);
+      IVirtualBox vBox = createMock(IVirtualBox.class);
+      expect(vBox.findMachine(VIRTUALBOX_IMAGE_PREFIX + "ubuntu")).andAnswer(blockingAnswer(ubuntu, loading, release))
+            .once();
+      expect(vBox.findMachine(VIRTUALBOX_IMAGE_PREFIX + "centos")).andReturn(centos).once();
+      replay(ubuntu, centos, vBox);
+
+      MastersLoadingCache cache = newCache(vBox);
+      Future<Master> slow = executor.submit(get(cache, image("ubuntu")));
+      assertTrue(loading.await(10, TimeUnit.SECONDS));
+      // the centos master must not wait for the ubuntu one
+      Future<Master> fast = executor.submit(get(cache, image("centos")));
+      assertSame(fast.get(10, TimeUnit.SECONDS).getMachine(), centos);
+      release.countDown();
+      assertSame(slow.get(10, TimeUnit.SECONDS).getMachine(), ubuntu);
+      verify(vBox);
+   }
+
+   public void testFailedLoadIsRetried() throws Exception {
+      IMachine machine = createNiceMock(IMachine.class);
+      IVirtualBox vBox = createMock(IVirtualBox.class);
+      expect(vBox.findMachine(VIRTUALBOX_IMAGE_PREFIX + "ubuntu")).andThrow(new IllegalStateException("boom")).once();
+      expect(vBox.findMachine(VIRTUALBOX_IMAGE_PREFIX + "ubuntu")).andReturn(machine).once();
+      replay(machine, vBox);
+
+      MastersLoadingCache cache = newCache(vBox);
+      Image image = image("ubuntu");
+      try {
+         cache.get(image);
+         fail("expected the load to fail");
+      } catch (IllegalStateException e) {
+         assertNull(cache.getIfPresent(image));
+      }
+      assertSame(cache.get(image).getMachine(), machine);
+      verify(vBox);
+   }
+
+   private static IAnswer<IMachine> blockingAnswer(final IMachine machine, final CountDownLatch loading,
+         final CountDownLatch release) {
+      return new IAnswer<IMachine>() {
+         @Override
+         public IMachine answer() throws Throwable {
+            loading.countDown();
+            assertTrue(release.await(10, TimeUnit.SECONDS));
+            return machine;
+         }
+      };
+   }
+
+   private static Callable<Master> get(final MastersLoadingCache cache, final Image image) {
+      return new Callable<Master>() {
+         @Override
+         public Master call() throws Exception {
+            return cache.get(image);
+         }
+      };
+   }
+
+   private static Image image(String id) {
+      Image image = createNiceMock(Image.class);
+      expect(image.getId()).andReturn(id).anyTimes();
+      replay(image);
+      return image;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static MastersLoadingCache newCache(IVirtualBox vBox) {
+      VirtualBoxManager manager = createNiceMock(VirtualBoxManager.class);
+      expect(manager.getVBox()).andReturn(vBox).anyTimes();
+      replay(manager);
+      return new MastersLoadingCache("4.2.8r83876", "http://10.0.2.2:23232", "/tmp/jclouds-virtualbox",
+            createNiceMock(Function.class), Suppliers.ofInstance(ImmutableMap.<Image, YamlImage> of()),
+            Suppliers.ofInstance(manager), new RetryIfSocketNotYetOpen(createNiceMock(SocketOpen.class), Logger.NULL),
+            Suppliers.ofInstance(URI.create("http://localhost:18083/")),
+            new ArtifactCache("/tmp/jclouds-virtualbox/cache"));
+   }
+}
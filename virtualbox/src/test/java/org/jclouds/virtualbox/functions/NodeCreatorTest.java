@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.virtualbox.functions;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.GUEST_OS_PASSWORD;
+import static org.jclouds.virtualbox.config.VirtualBoxConstants.GUEST_OS_USER;
+import static org.jclouds.virtualbox.functions.NodeCreator.provisioningSlots;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easymock.EasyMock;
+import org.jclouds.compute.ComputeServiceAdapter.NodeAndInitialCredentials;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.options.RunScriptOptions;
+import org.jclouds.scriptbuilder.domain.Statement;
+import org.jclouds.virtualbox.domain.CloneSpec;
+import org.jclouds.virtualbox.domain.Master;
+import org.jclouds.virtualbox.domain.NetworkSpec;
+import org.jclouds.virtualbox.domain.NodeSpec;
+import org.jclouds.virtualbox.util.MachineController;
+import org.jclouds.virtualbox.util.MachineUtils;
+import org.jclouds.virtualbox.util.NetworkUtils;
+import org.testng.annotations.Test;
+import org.virtualbox_4_2.IConsole;
+import org.virtualbox_4_2.IHost;
+import org.virtualbox_4_2.IMachine;
+import org.virtualbox_4_2.IProgress;
+import org.virtualbox_4_2.ISession;
+import org.virtualbox_4_2.IVirtualBox;
+import org.virtualbox_4_2.MachineState;
+import org.virtualbox_4_2.VirtualBoxManager;
+
+import com.google.common.base.Function;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@Test(groups = "unit", testName = "NodeCreatorTest")
+public class NodeCreatorTest {
+
+   public void testProvisioningSlotsAreBoundByProcessors() {
+      assertEquals(provisioningSlots(4, 16384, 512), 4);
+   }
+
+   public void testProvisioningSlotsAreBoundByFreeMemory() {
+      assertEquals(provisioningSlots(8, 2048, 512), 4);
+   }
+
+   public void testAtLeastOneNodeIsProvisioned() {
+      assertEquals(provisioningSlots(4, 256, 512), 1);
+      assertEquals(provisioningSlots(0, 0, 0), 1);
+   }
+
+   public void testConcurrentNodesSnapshotEachMasterOnceAndCloneWithinTheSlots() throws Exception {
+      int slots = 2;
+      int nodesPerMaster = 4;
+
+      VirtualBoxManager manager = createNiceMock(VirtualBoxManager.class);
+      IVirtualBox vBox = createNiceMock(IVirtualBox.class);
+      IHost host = createNiceMock(IHost.class);
+      IProgress progress = createNiceMock(IProgress.class);
+      expect(manager.getVBox()).andReturn(vBox).anyTimes();
+      expect(vBox.getHost()).andReturn(host).anyTimes();
+      expect(host.getProcessorOnlineCount()).andReturn((long) slots).anyTimes();
+      expect(host.getMemoryAvailable()).andReturn(16384L).anyTimes();
+
+      // each master's console only expects a single snapshot to be taken
+      List<IMachine> masters = Lists.newArrayList();
+      List<IConsole> consoles = Lists.newArrayList();
+      for (String masterId : ImmutableList.of("master-1", "master-2")) {
+         IMachine master = createNiceMock(IMachine.class);
+         ISession session = createNiceMock(ISession.class);
+         IConsole console = createMock(IConsole.class);
+         expect(master.getId()).andReturn(masterId).anyTimes();
+         expect(master.getName()).andReturn(masterId).anyTimes();
+         expect(master.getOSTypeId()).andReturn("Other").anyTimes();
+         expect(master.getExtraData(GUEST_OS_USER)).andReturn("toor").anyTimes();
+         expect(master.getExtraData(GUEST_OS_PASSWORD)).andReturn("password").anyTimes();
+         expect(master.getState()).andReturn(MachineState.PoweredOff).anyTimes();
+         expect(manager.openMachineSession(master)).andReturn(session).anyTimes();
+         expect(session.getConsole()).andReturn(console).anyTimes();
+         expect(console.takeSnapshot("snapshotName", "snapshotDesc")).andReturn(progress);
+         replay(master, session, console);
+         masters.add(master);
+         consoles.add(console);
+      }
+
+      IMachine clone = createNiceMock(IMachine.class);
+      expect(clone.getName()).andReturn("clone").anyTimes();
+      expect(clone.getOSTypeId()).andReturn("Other").anyTimes();
+      expect(clone.getState()).andReturn(MachineState.Running).anyTimes();
+
+      MachineController machineController = createNiceMock(MachineController.class);
+      NetworkUtils networkUtils = createNiceMock(NetworkUtils.class);
+      expect(networkUtils.createNetworkSpecWhenVboxIsLocalhost()).andReturn(NetworkSpec.builder().build()).anyTimes();
+      expect(networkUtils.getValidHostOnlyIpFromVm(EasyMock.<String> anyObject())).andReturn("192.168.56.101")
+            .anyTimes();
+      MachineUtils machineUtils = createNiceMock(MachineUtils.class);
+      expect(machineUtils.runStepsOnNode(EasyMock.<NodeMetadata> anyObject(),
+            EasyMock.<Iterable<Statement>> anyObject(), EasyMock.<RunScriptOptions> anyObject()))
+            .andReturn(ImmutableList.of(0, 0)).anyTimes();
+      replay(manager, vBox, host, progress, clone, machineController, networkUtils, machineUtils);
+
+      CountingCloner cloner = new CountingCloner(clone);
+      final NodeCreator nodeCreator = new NodeCreator(Suppliers.ofInstance(manager), cloner, machineUtils,
+            machineController, networkUtils, "512", "/tmp");
+
+      final CountDownLatch start = new CountDownLatch(1);
+      ExecutorService executor = Executors.newFixedThreadPool(masters.size() * nodesPerMaster);
+      try {
+         List<Future<NodeAndInitialCredentials<IMachine>>> nodes = Lists.newArrayList();
+         for (IMachine master : masters) {
+            for (int i = 0; i < nodesPerMaster; i++) {
+               final NodeSpec nodeSpec = NodeSpec.builder().master(Master.builder().machine(master).build())
+                     .name("node-" + i).tag("test").build();
+               nodes.add(executor.submit(new Callable<NodeAndInitialCredentials<IMachine>>() {
+                  @Override
+                  public NodeAndInitialCredentials<IMachine> call() throws Exception {
+                     start.await();
+                     return nodeCreator.apply(nodeSpec);
+                  }
+               }));
+            }
+         }
+         start.countDown();
+         for (Future<NodeAndInitialCredentials<IMachine>> node : nodes) {
+            assertEquals(node.get(30, TimeUnit.SECONDS).getNode(), clone);
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+
+      for (IConsole console : consoles) {
+         verify(console);
+      }
+      assertEquals(cloner.clones.get(), masters.size() * nodesPerMaster);
+      assertTrue(cloner.mostInFlight.get() <= slots, "clones in flight: " + cloner.mostInFlight.get());
+   }
+
+   /**
+    * Keeps track of how many clones are made at the same time.
+    */
+   private static class CountingCloner implements Function<CloneSpec, IMachine> {
+
+      private final IMachine clone;
+      private final AtomicInteger clones = new AtomicInteger();
+      private final AtomicInteger inFlight = new AtomicInteger();
+      private final AtomicInteger mostInFlight = new AtomicInteger();
+
+      private CountingCloner(IMachine clone) {
+         this.clone = clone;
+      }
+
+      @Override
+      public IMachine apply(CloneSpec cloneSpec) {
+         int current = inFlight.incrementAndGet();
+         synchronized (mostInFlight) {
+            mostInFlight.set(Math.max(mostInFlight.get(), current));
+         }
+         Uninterruptibles.sleepUninterruptibly(50, TimeUnit.MILLISECONDS);
+         inFlight.decrementAndGet();
+         clones.incrementAndGet();
+         return clone;
+      }
+   }
+}
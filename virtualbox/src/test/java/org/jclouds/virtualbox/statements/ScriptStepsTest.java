@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.virtualbox.statements;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.jclouds.scriptbuilder.domain.OsFamily;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class ScriptStepsTest {
+
+   private final ScriptSteps steps = new ScriptSteps(ImmutableList.of(new DeleteGShadowLock(),
+            new PasswordlessSudo("toor")));
+
+   @Test
+   public void testEachStepRunsInASubshellAndReportsItsStatus() {
+      assertEquals(new ScriptSteps(ImmutableList.of(new DeleteGShadowLock())).render(OsFamily.UNIX),
+               "(\nrm -f /etc/passwd.lock /etc/group.lock /etc/gshadow.lock\n)"
+                        + " && echo \"jclouds-step 0 0\" || echo \"jclouds-step 0 $?\"\n");
+   }
+
+   @Test
+   public void testStepsAreRenderedInOrder() {
+      String script = steps.render(OsFamily.UNIX);
+      assertTrue(script.indexOf("rm -f /etc/passwd.lock") < script.indexOf("jclouds-step 0 $?"));
+      assertTrue(script.indexOf("jclouds-step 0 $?") < script.indexOf("toor ALL = NOPASSWD: ALL"));
+      assertTrue(script.indexOf("toor ALL = NOPASSWD: ALL") < script.indexOf("jclouds-step 1 $?"));
+   }
+
+   @Test
+   public void testExitStatusesAreReadFromTheOutput() {
+      assertEquals(steps.exitStatuses("removed\njclouds-step 0 0\nno sudo\njclouds-step 1 2\n"),
+               ImmutableList.of(0, 2));
+   }
+
+   @Test
+   public void testStepsThatDidNotReportHaveNoExitStatus() {
+      assertEquals(steps.exitStatuses("jclouds-step 0 0\n"), ImmutableList.of(0, -1));
+      assertEquals(steps.exitStatuses(null), ImmutableList.of(-1, -1));
+   }
+
+   @Test
+   public void testUnrelatedLinesAreIgnored() {
+      assertEquals(steps.exitStatuses("jclouds-step 0\njclouds-step x 1\njclouds-step 5 1\n jclouds-step 1 0 \n"),
+               ImmutableList.of(-1, 0));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testThrowsIllegalArgumentExceptionWithoutSteps() {
+      new ScriptSteps(ImmutableList.<DeleteGShadowLock> of());
+   }
+
+   @Test(expectedExceptions = UnsupportedOperationException.class)
+   public void testThrowsUnsupportedOperationExceptionOnWindows() {
+      steps.render(OsFamily.WINDOWS);
+   }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.virtualbox.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.javax.annotation.Nullable;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+@Test(groups = "unit", testName = "ArtifactCacheTest")
+public class ArtifactCacheTest {
+
+   private static final byte[] ISO = "the contents of an iso, which should be large enough to be split in two"
+         .getBytes(Charsets.UTF_8);
+   private static final String ISO_MD5 = Hashing.md5().hashBytes(ISO).toString();
+
+   private final List<String> ranges = Lists.newCopyOnWriteArrayList();
+   private final List<String> ifRanges = Lists.newCopyOnWriteArrayList();
+   private final AtomicBoolean honourRanges = new AtomicBoolean();
+   private final AtomicReference<String> etag = new AtomicReference<String>();
+   private HttpServer server;
+   private File cacheDir;
+   private ArtifactCache cache;
+
+   @BeforeMethod
+   public void setUp() throws IOException {
+      ranges.clear();
+      ifRanges.clear();
+      honourRanges.set(true);
+      etag.set("\"v1\"");
+      server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            ranges.add(String.valueOf(range));
+            ifRanges.add(String.valueOf(ifRange));
+            if (etag.get() != null) {
+               exchange.getResponseHeaders().add("ETag", etag.get());
+            }
+            exchange.getResponseHeaders().add("Last-Modified", "Fri, 15 Feb 2013 10:00:00 GMT");
+            int offset = 0;
+            if (range != null && honourRanges.get() && (ifRange == null || ifRange.equals(etag.get())
+                  || ifRange.equals("Fri, 15 Feb 2013 10:00:00 GMT"))) {
+               offset = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+               exchange.getResponseHeaders().add("Content-Range",
+                     String.format("bytes %d-%d/%d", offset, ISO.length - 1, ISO.length));
+               exchange.sendResponseHeaders(206, ISO.length - offset);
+            } else {
+               exchange.sendResponseHeaders(200, ISO.length);
+            }
+            OutputStream out = exchange.getResponseBody();
+            out.write(ISO, offset, ISO.length - offset);
+            out.close();
+         }
+      });
+      server.start();
+      cacheDir = Files.createTempDir();
+      cache = new ArtifactCache(cacheDir.getAbsolutePath());
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      server.stop(0);
+   }
+
+   public void testDownloadIsPublishedUnderItsMd5() throws IOException {
+      File iso = cache.get(uri("/ubuntu.iso"), ISO_MD5.toUpperCase());
+      assertEquals(iso, new File(new File(cacheDir, "objects"), ISO_MD5 + ".iso"));
+      assertEquals(Files.toByteArray(iso), ISO);
+      assertEquals(new File(cacheDir, "partial").list().length, 0);
+   }
+
+   public void testKnownMd5IsNotDownloadedAgainFromAnotherUrl() throws IOException {
+      File iso = cache.get(uri("/ubuntu.iso"), ISO_MD5);
+      assertEquals(cache.get(uri("/mirror/ubuntu.iso"), ISO_MD5), iso);
+      assertEquals(ranges.size(), 1);
+   }
+
+   public void testUrlIsNotDownloadedAgainWithoutMd5() throws IOException {
+      URI guestAdditions = uri("/VBoxGuestAdditions_4.2.8.iso");
+      File iso = cache.get(guestAdditions, null);
+      // the index is shared by other caches of the same directory
+      assertEquals(new ArtifactCache(cacheDir.getAbsolutePath()).get(guestAdditions, null), iso);
+      assertEquals(ranges.size(), 1);
+   }
+
+   public void testPartialDownloadIsResumed() throws IOException {
+      writePartial(ISO_MD5 + ".iso", ISO.length / 2, "\"v1\"");
+      File iso = cache.get(uri("/ubuntu.iso"), ISO_MD5);
+      assertEquals(ranges, Lists.newArrayList("bytes=" + ISO.length / 2 + "-"));
+      assertEquals(ifRanges, Lists.newArrayList("\"v1\""));
+      assertEquals(Files.toByteArray(iso), ISO);
+      assertEquals(new File(cacheDir, "partial").list().length, 0);
+   }
+
+   public void testPartialDownloadOfAChangedArtifactIsRestarted() throws IOException {
+      writePartial(ISO_MD5 + ".iso", ISO.length / 2, "\"v0\"");
+      File iso = cache.get(uri("/ubuntu.iso"), ISO_MD5);
+      assertEquals(ranges, Lists.newArrayList("bytes=" + ISO.length / 2 + "-", "null"));
+      assertEquals(ifRanges, Lists.newArrayList("\"v0\"", "null"));
+      assertEquals(Files.toByteArray(iso), ISO);
+   }
+
+   public void testPartialDownloadIsRestartedWithoutAValidator() throws IOException {
+      writePartial(ISO_MD5 + ".iso", ISO.length / 2, null);
+      File iso = cache.get(uri("/ubuntu.iso"), ISO_MD5);
+      assertEquals(ranges, Lists.newArrayList("null"));
+      assertEquals(Files.toByteArray(iso), ISO);
+   }
+
+   public void testLastModifiedIsTheValidatorWithoutAStrongEtag() throws IOException {
+      etag.set("W/\"v1\"");
+      File partial = new File(new File(cacheDir, "partial"), ISO_MD5 + ".iso");
+      // the server drops the connection half way through the download
+      server.removeContext("/");
+      server.createContext("/", new HttpHandler() {
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            exchange.getResponseHeaders().add("ETag", etag.get());
+            exchange.getResponseHeaders().add("Last-Modified", "Fri, 15 Feb 2013 10:00:00 GMT");
+            exchange.sendResponseHeaders(200, ISO.length);
+            exchange.getResponseBody().write(ISO, 0, ISO.length / 2);
+            exchange.getResponseBody().flush();
+            exchange.close();
+         }
+      });
+      try {
+         cache.get(uri("/ubuntu.iso"), ISO_MD5);
+         fail("expected the download to be cut short");
+      } catch (IOException e) {
+         assertEquals(partial.length(), ISO.length / 2);
+         assertEquals(Files.toString(new File(partial.getPath() + ".validator"), Charsets.UTF_8),
+               "Fri, 15 Feb 2013 10:00:00 GMT");
+      }
+   }
+
+   public void testPartialDownloadIsRestartedWhenRangesAreNotSupported() throws IOException {
+      honourRanges.set(false);
+      writePartial(ISO_MD5 + ".iso", ISO.length / 2, "\"v1\"");
+      File iso = cache.get(uri("/ubuntu.iso"), ISO_MD5);
+      assertEquals(ranges, Lists.newArrayList("bytes=" + ISO.length / 2 + "-", "null"));
+      assertEquals(Files.toByteArray(iso), ISO);
+   }
+
+   public void testMd5MismatchIsNotPublished() throws IOException {
+      String wrongMd5 = Hashing.md5().hashBytes(new byte[0]).toString();
+      try {
+         cache.get(uri("/ubuntu.iso"), wrongMd5);
+         fail("expected the md5 check to fail");
+      } catch (IOException e) {
+         assertTrue(e.getMessage().contains(ISO_MD5), e.getMessage());
+      }
+      assertEquals(new File(cacheDir, "objects").list().length, 0);
+      assertEquals(new File(cacheDir, "partial").list().length, 0);
+      assertFalse(new File(cacheDir, "index.properties").exists());
+   }
+
+   private void writePartial(String name, int length, @Nullable String validator) throws IOException {
+      File partialDir = new File(cacheDir, "partial");
+      partialDir.mkdirs();
+      byte[] partial = new byte[length];
+      System.arraycopy(ISO, 0, partial, 0, length);
+      Files.write(partial, new File(partialDir, name));
+      if (validator != null) {
+         Files.write(validator, new File(partialDir, name + ".validator"), Charsets.UTF_8);
+      }
+   }
+
+   private URI uri(String path) {
+      return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+   }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.virtualbox.util;
+
+import static org.easymock.EasyMock.anyInt;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+import org.virtualbox_4_2.IConsole;
+import org.virtualbox_4_2.IEvent;
+import org.virtualbox_4_2.IEventListener;
+import org.virtualbox_4_2.IEventSource;
+import org.virtualbox_4_2.ISession;
+import org.virtualbox_4_2.IVirtualBox;
+import org.virtualbox_4_2.VBoxEventType;
+import org.virtualbox_4_2.VBoxException;
+import org.virtualbox_4_2.VirtualBoxManager;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+
+@Test(groups = "unit", testName = "MachineEventsTest")
+public class MachineEventsTest {
+
+   public void testConditionIsCheckedAgainWhenAnEventIsReported() {
+      IEventSource eventSource = createMock(IEventSource.class);
+      IEventListener listener = createNiceMock(IEventListener.class);
+      IEvent event = createNiceMock(IEvent.class);
+
+      expect(eventSource.createListener()).andReturn(listener);
+      eventSource.registerListener(listener, ImmutableList.of(VBoxEventType.OnGuestPropertyChanged), false);
+      // the polling period is an hour, so only the event can wake the wait up
+      expect(eventSource.getEvent(eq(listener), eq((int) TimeUnit.HOURS.toMillis(1)))).andReturn(event);
+      eventSource.eventProcessed(listener, event);
+      expect(eventSource.getEvent(listener, 0)).andReturn(null);
+      eventSource.unregisterListener(listener);
+      replay(eventSource, listener, event);
+
+      Optional<String> ip = newMachineEvents(eventSource, 1, TimeUnit.HOURS).awaitValue(
+            valueAfter(1, "192.168.56.101"), 2, TimeUnit.HOURS, VBoxEventType.OnGuestPropertyChanged);
+
+      assertEquals(ip, Optional.of("192.168.56.101"));
+      verify(eventSource);
+   }
+
+   public void testBurstsOfEventsResultInASingleCheck() {
+      IEventSource eventSource = createMock(IEventSource.class);
+      IEventListener listener = createNiceMock(IEventListener.class);
+      IEvent first = createNiceMock(IEvent.class);
+      IEvent second = createNiceMock(IEvent.class);
+
+      expect(eventSource.createListener()).andReturn(listener);
+      eventSource.registerListener(listener, ImmutableList.of(VBoxEventType.OnMachineStateChanged), false);
+      expect(eventSource.getEvent(eq(listener), anyInt())).andReturn(first);
+      eventSource.eventProcessed(listener, first);
+      expect(eventSource.getEvent(listener, 0)).andReturn(second);
+      eventSource.eventProcessed(listener, second);
+      expect(eventSource.getEvent(listener, 0)).andReturn(null);
+      eventSource.unregisterListener(listener);
+      replay(eventSource, listener, first, second);
+
+      AtomicInteger checks = new AtomicInteger();
+      assertTrue(newMachineEvents(eventSource, 1, TimeUnit.HOURS).await(trueAfter(1, checks), 2, TimeUnit.HOURS,
+            VBoxEventType.OnMachineStateChanged));
+
+      assertEquals(checks.get(), 2);
+      verify(eventSource);
+   }
+
+   public void testConditionIsPolledWhenNoEventIsReported() {
+      IEventSource eventSource = createMock(IEventSource.class);
+      IEventListener listener = createNiceMock(IEventListener.class);
+
+      expect(eventSource.createListener()).andReturn(listener);
+      eventSource.registerListener(listener, ImmutableList.of(VBoxEventType.OnSessionStateChanged), false);
+      expect(eventSource.getEvent(eq(listener), anyInt())).andReturn(null).times(2);
+      eventSource.unregisterListener(listener);
+      replay(eventSource, listener);
+
+      AtomicInteger checks = new AtomicInteger();
+      assertTrue(newMachineEvents(eventSource, 10, TimeUnit.MILLISECONDS).await(trueAfter(2, checks), 1,
+            TimeUnit.MINUTES, VBoxEventType.OnSessionStateChanged));
+
+      assertEquals(checks.get(), 3);
+      verify(eventSource);
+   }
+
+   public void testConditionIsPolledWhenEventsAreNotAvailable() {
+      IEventSource eventSource = createMock(IEventSource.class);
+      expect(eventSource.createListener()).andThrow(
+            new VBoxException(createNiceMock(Throwable.class), "VirtualBox error: not supported"));
+      replay(eventSource);
+
+      AtomicInteger checks = new AtomicInteger();
+      assertTrue(newMachineEvents(eventSource, 10, TimeUnit.MILLISECONDS).await(trueAfter(3, checks), 1,
+            TimeUnit.MINUTES, VBoxEventType.OnMachineStateChanged));
+
+      assertEquals(checks.get(), 4);
+      verify(eventSource);
+   }
+
+   public void testTimeoutUnregistersTheListener() {
+      IEventSource eventSource = createMock(IEventSource.class);
+      IEventListener listener = createNiceMock(IEventListener.class);
+
+      expect(eventSource.createListener()).andReturn(listener);
+      eventSource.registerListener(listener, ImmutableList.of(VBoxEventType.OnMachineStateChanged), false);
+      expect(eventSource.getEvent(eq(listener), anyInt())).andReturn(null).anyTimes();
+      eventSource.unregisterListener(listener);
+      expectLastCall().once();
+      replay(eventSource, listener);
+
+      assertFalse(newMachineEvents(eventSource, 10, TimeUnit.MILLISECONDS).await(Suppliers.ofInstance(false), 50,
+            TimeUnit.MILLISECONDS, VBoxEventType.OnMachineStateChanged));
+
+      verify(eventSource);
+   }
+
+   public void testAdditionsStateIsListenedToOnTheConsoleAndGuestPropertiesOnVirtualBox() {
+      IEventSource vBoxEventSource = createMock(IEventSource.class);
+      IEventSource consoleEventSource = createMock(IEventSource.class);
+      IEventListener vBoxListener = createNiceMock(IEventListener.class);
+      IEventListener consoleListener = createNiceMock(IEventListener.class);
+      ISession session = createNiceMock(ISession.class);
+      IConsole console = createNiceMock(IConsole.class);
+      expect(session.getConsole()).andReturn(console).anyTimes();
+      expect(console.getEventSource()).andReturn(consoleEventSource).anyTimes();
+
+      expect(vBoxEventSource.createListener()).andReturn(vBoxListener);
+      vBoxEventSource.registerListener(vBoxListener, ImmutableList.of(VBoxEventType.OnGuestPropertyChanged), false);
+      vBoxEventSource.unregisterListener(vBoxListener);
+      expect(consoleEventSource.createListener()).andReturn(consoleListener);
+      consoleEventSource.registerListener(consoleListener, ImmutableList.of(VBoxEventType.OnAdditionsStateChanged),
+            false);
+      consoleEventSource.unregisterListener(consoleListener);
+      replay(vBoxEventSource, consoleEventSource, vBoxListener, consoleListener, session, console);
+
+      MachineEvents machineEvents = newMachineEvents(vBoxEventSource, 1, TimeUnit.HOURS);
+      assertEquals(machineEvents.awaitValue(valueAfter(0, "192.168.56.101"), 1, TimeUnit.HOURS,
+            VBoxEventType.OnGuestPropertyChanged), Optional.of("192.168.56.101"));
+      assertTrue(machineEvents.awaitAdditionsState(session, trueAfter(0, new AtomicInteger()), 1, TimeUnit.HOURS));
+
+      verify(vBoxEventSource, consoleEventSource);
+   }
+
+   private static MachineEvents newMachineEvents(IEventSource eventSource, long pollingPeriod, TimeUnit unit) {
+      VirtualBoxManager manager = createNiceMock(VirtualBoxManager.class);
+      IVirtualBox vBox = createNiceMock(IVirtualBox.class);
+      expect(manager.getVBox()).andReturn(vBox).anyTimes();
+      expect(vBox.getEventSource()).andReturn(eventSource).anyTimes();
+      replay(manager, vBox);
+      return new MachineEvents(Suppliers.ofInstance(manager), pollingPeriod, unit);
+   }
+
+   private static Supplier<Boolean> trueAfter(final int failedChecks, final AtomicInteger checks) {
+      return new Supplier<Boolean>() {
+         @Override
+         public Boolean get() {
+            return checks.incrementAndGet() > failedChecks;
+         }
+      };
+   }
+
+   private static Supplier<Optional<String>> valueAfter(final int failedChecks, final String value) {
+      final AtomicInteger checks = new AtomicInteger();
+      return new Supplier<Optional<String>>() {
+         @Override
+         public Optional<String> get() {
+            return checks.incrementAndGet() > failedChecks ? Optional.of(value) : Optional.<String> absent();
+         }
+      };
+   }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.virtualbox.util;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.jclouds.scriptbuilder.domain.Statements.exec;
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+
+import org.easymock.Capture;
+import org.jclouds.compute.callables.RunScriptOnNode;
+import org.jclouds.compute.domain.ExecResponse;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.options.RunScriptOptions;
+import org.jclouds.scriptbuilder.domain.OsFamily;
+import org.jclouds.scriptbuilder.domain.Statement;
+import org.jclouds.virtualbox.statements.ScriptSteps;
+import org.testng.annotations.Test;
+import org.virtualbox_4_2.VirtualBoxManager;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+
+@Test(groups = "unit", testName = "MachineUtilsTest")
+public class MachineUtilsTest {
+
+   public void testStepsRunAsASingleScript() {
+      NodeMetadata node = createNiceMock(NodeMetadata.class);
+      RunScriptOnNode.Factory scriptRunner = createMock(RunScriptOnNode.Factory.class);
+      Capture<Statement> script = new Capture<Statement>();
+      RunScriptOptions options = RunScriptOptions.Builder.runAsRoot(true);
+      // the fake guest runs the steps and reports the second one failed
+      expect(scriptRunner.submit(eq(node), capture(script), eq(options))).andReturn(
+               Futures.immediateFuture(new ExecResponse("jclouds-step 0 0\nno such file\njclouds-step 1 1\n"
+                        + "jclouds-step 2 0\n", "", 0))).once();
+      replay(node, scriptRunner);
+
+      MachineUtils machineUtils = new MachineUtils(Suppliers.ofInstance(createNiceMock(VirtualBoxManager.class)),
+               scriptRunner, createNiceMock(MachineEvents.class));
+      List<Integer> exitStatuses = machineUtils.runStepsOnNode(node,
+               ImmutableList.of(exec("first"), exec("second"), exec("third")), options);
+
+      assertEquals(exitStatuses, ImmutableList.of(0, 1, 0));
+      assertEquals(((ScriptSteps) script.getValue()).getSteps().size(), 3);
+      assertEquals(script.getValue().render(OsFamily.UNIX).split("jclouds-step 2 0").length, 2);
+      verify(scriptRunner);
+   }
+
+   public void testStepsThatDidNotRunHaveNoExitStatus() {
+      NodeMetadata node = createNiceMock(NodeMetadata.class);
+      RunScriptOnNode.Factory scriptRunner = createMock(RunScriptOnNode.Factory.class);
+      RunScriptOptions options = RunScriptOptions.NONE;
+      // the fake guest drops the connection after the first step
+      expect(scriptRunner.submit(eq(node), capture(new Capture<Statement>()), eq(options))).andReturn(
+               Futures.immediateFuture(new ExecResponse("jclouds-step 0 0\n", "", 255))).once();
+      replay(node, scriptRunner);
+
+      MachineUtils machineUtils = new MachineUtils(Suppliers.ofInstance(createNiceMock(VirtualBoxManager.class)),
+               scriptRunner, createNiceMock(MachineEvents.class));
+
+      assertEquals(machineUtils.runStepsOnNode(node, ImmutableList.of(exec("first"), exec("second")), options),
+               ImmutableList.of(0, -1));
+      verify(scriptRunner);
+   }
+}